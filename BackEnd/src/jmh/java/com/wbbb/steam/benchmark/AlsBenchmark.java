@@ -0,0 +1,73 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.service.recommend.AlsModel;
+import com.wbbb.steam.service.recommend.AlsTrainer;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ALS模型的训练耗时与在线打分耗时
+ * train: 完整训练一次(单次执行)
+ * scoreUser: 对一个用户计算全部游戏的点积分数
+ * 模型内存占用在Setup阶段输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlsBenchmark {
+
+    @Param({"20000"})
+    public int users;
+
+    @Param({"5000"})
+    public int apps;
+
+    @Param({"400000"})
+    public int ratings;
+
+    @Param({"32"})
+    public int rank;
+
+    @Param({"10"})
+    public int iterations;
+
+    private RatingMatrix matrix;
+    private AlsModel model;
+    private double[] scores;
+    private int cursor;
+
+    private AlsTrainer.Params params() {
+        return new AlsTrainer.Params(rank, iterations, 0.1, 20.0, 42L);
+    }
+
+    @Setup
+    public void setUp() {
+        matrix = SyntheticDataset.generate(users, apps, ratings, 42L).toMatrix();
+        model = AlsTrainer.train(matrix, params());
+        scores = new double[model.appCount()];
+        System.out.printf("[ALS] users=%d apps=%d rank=%d iterations=%d memory=%d bytes train=%d ms%n",
+                model.userCount(), model.appCount(), rank, iterations, model.memoryBytes(), model.getTrainMillis());
+    }
+
+    @Benchmark
+    public double[] scoreUser() {
+        int user = cursor++ % model.userCount();
+        for (int app = 0; app < scores.length; app++) {
+            scores[app] = model.score(user, app);
+        }
+        return scores;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AlsModel train() {
+        return AlsTrainer.train(matrix, params());
+    }
+}
@@ -0,0 +1,142 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.service.recommend.CollaborativeFiltering;
+import com.wbbb.steam.service.recommend.ItemNeighborIndex;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协同过滤单次请求耗时对比
+ * legacyUserBased: 重构前的实现，对装箱评分表中的每个用户计算相似度
+ * matrixUserBased: 基于CSR评分矩阵、只遍历有共同推荐的用户
+ * matrixUserBasedParallel: 同上，在专用ForkJoinPool中按用户/游戏区间并行(结果与单线程相同)
+ * itemBased: 基于离线近邻索引，只累加已评价游戏的近邻
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollaborativeFilteringBenchmark {
+
+    @Param({"20000"})
+    public int users;
+
+    @Param({"5000"})
+    public int apps;
+
+    @Param({"400000"})
+    public int ratings;
+
+    private Map<Long, Map<Long, Double>> boxedRatings;
+    private RatingMatrix matrix;
+    private ItemNeighborIndex index;
+    private ForkJoinPool pool;
+    private long[] sampleUsers;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        SyntheticDataset dataset = SyntheticDataset.generate(users, apps, ratings, 42L);
+        boxedRatings = dataset.toBoxedMap();
+        matrix = dataset.toMatrix();
+        index = ItemNeighborIndex.build(matrix, 50);
+        sampleUsers = new SplittableRandom(7L).longs(64, 0, users).toArray();
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private long nextUser() {
+        return sampleUsers[cursor++ & 63];
+    }
+
+    @Benchmark
+    public Map<Long, Double> legacyUserBased() {
+        return legacyCollaborativeFiltering(nextUser(), boxedRatings);
+    }
+
+    @Benchmark
+    public Map<Long, Double> matrixUserBased() {
+        return CollaborativeFiltering.userBased(matrix, nextUser());
+    }
+
+    @Benchmark
+    public Map<Long, Double> matrixUserBasedParallel() {
+        return CollaborativeFiltering.userBased(matrix, nextUser(), pool, 0);
+    }
+
+    @Benchmark
+    public Map<Long, Double> itemBased() {
+        return CollaborativeFiltering.itemBased(matrix, index, nextUser());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ItemNeighborIndex buildItemNeighborIndex() {
+        return ItemNeighborIndex.build(matrix, 50);
+    }
+
+    // ====================== 重构前的实现(对照组) ======================
+
+    private static Map<Long, Double> legacyCollaborativeFiltering(Long userId, Map<Long, Map<Long, Double>> userRatingMap) {
+        Map<Long, Double> gameScores = new HashMap<>();
+        Map<Long, Double> userSimilarities = new HashMap<>();
+        Map<Long, Double> currentUserRatings = userRatingMap.getOrDefault(userId, Collections.emptyMap());
+        if (currentUserRatings.isEmpty()) return gameScores;
+
+        for (Map.Entry<Long, Map<Long, Double>> entry : userRatingMap.entrySet()) {
+            if (entry.getKey().equals(userId)) continue;
+            double similarity = legacySimilarity(currentUserRatings, entry.getValue());
+            if (similarity > 0) {
+                userSimilarities.put(entry.getKey(), similarity);
+            }
+        }
+
+        Set<Long> candidateGames = new HashSet<>();
+        for (Long similarUserId : userSimilarities.keySet()) {
+            candidateGames.addAll(userRatingMap.get(similarUserId).keySet());
+        }
+        candidateGames.removeAll(currentUserRatings.keySet());
+
+        for (Long gameId : candidateGames) {
+            double scoreSum = 0;
+            double similaritySum = 0;
+            for (Map.Entry<Long, Double> entry : userSimilarities.entrySet()) {
+                Map<Long, Double> similarUserRatings = userRatingMap.get(entry.getKey());
+                if (similarUserRatings.containsKey(gameId)) {
+                    scoreSum += entry.getValue() * similarUserRatings.get(gameId);
+                    similaritySum += entry.getValue();
+                }
+            }
+            if (similaritySum > 0) {
+                gameScores.put(gameId, scoreSum / similaritySum);
+            }
+        }
+        return gameScores;
+    }
+
+    private static double legacySimilarity(Map<Long, Double> v1, Map<Long, Double> v2) {
+        Set<Long> common = new HashSet<>(v1.keySet());
+        common.retainAll(v2.keySet());
+        if (common.isEmpty()) return 0;
+
+        double dotProduct = 0;
+        double norm1 = 0;
+        double norm2 = 0;
+        for (Long key : common) dotProduct += v1.get(key) * v2.get(key);
+        for (Double value : v1.values()) norm1 += value * value;
+        for (Double value : v2.values()) norm2 += value * value;
+        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+}
@@ -0,0 +1,80 @@
+package com.wbbb.steam.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 对比两次JMH运行的JSON结果(-rf json)
+ * 按 基准方法+参数 匹配两次结果，输出分数与变化百分比；
+ * 变差超过阈值(默认10%)时标记REGRESSION并以退出码1结束，便于在提交之间比较
+ * 用法: CompareResults baseline.json current.json [阈值百分比]
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: CompareResults baseline.json current.json [阈值百分比]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-100s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            double score = now.path("primaryMetric").path("score").asDouble();
+            String unit = now.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-100s %14s %14.3f %9s  %s (new)%n", entry.getKey(), "-", score, "-", unit);
+                continue;
+            }
+            double old = before.path("primaryMetric").path("score").asDouble();
+            double change = old == 0 ? 0 : (score - old) / old * 100;
+            // 吞吐量模式分数越高越好，其余模式(耗时)越低越好
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            double worse = higherIsBetter ? -change : change;
+            boolean regression = worse > threshold;
+            if (regression) regressions++;
+            System.out.printf("%-100s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), old, score, change, unit,
+                    regression ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d个基准变差超过%.1f%%%n", regressions, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** 读取结果文件，键为 基准方法[参数=值,...] */
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(node.path("benchmark").asText()
+                    .replace("com.wbbb.steam.benchmark.", ""));
+            JsonNode params = node.path("params");
+            if (params.isObject()) {
+                Map<String, String> sorted = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    sorted.put(field.getKey(), field.getValue().asText());
+                }
+                key.append(sorted.toString().replace('{', '[').replace('}', ']').replace(" ", ""));
+            }
+            results.put(key.toString(), node);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,82 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.service.recommend.AppCatalog;
+import com.wbbb.steam.service.recommend.ContentScoring;
+import com.wbbb.steam.service.recommend.ScoreBuffer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内容推荐打分耗时对比(回归基准)
+ * legacyIndexOfPow: 重构前的实现，每个游戏复制一次标签集合，并通过 allGames.indexOf + Math.pow 计算热度衰减，整体为O(n²)
+ * catalogLinear: 目录快照上的线性打分，使用预先计算的衰减表与标签位图，不分配内存
+ * 旧实现在5万游戏时单次耗时为秒级，因此只做少量迭代
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ContentScoringBenchmark {
+    private static final String[] TAGS = {"动作", "冒险", "角色扮演", "射击", "策略", "体育", "模拟", "解谜", "竞速", "格斗"};
+    private static final double POPULARITY_DECAY = 0.95;
+
+    @Param({"50000"})
+    public int apps;
+
+    private List<App> allGames;
+    private AppCatalog catalog;
+    private Set<String> userTags;
+    private long[] userBits;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42L);
+        allGames = new ArrayList<>(apps);
+        for (int i = 0; i < apps; i++) {
+            Set<String> tags = new HashSet<>();
+            int count = 1 + random.nextInt(4);
+            for (int t = 0; t < count; t++) {
+                tags.add(TAGS[random.nextInt(TAGS.length)]);
+            }
+            App app = new App();
+            app.setAppId(1_000_000L + i);
+            app.setPopularity(random.nextInt(1000));
+            app.setTags(tags);
+            allGames.add(app);
+        }
+        catalog = AppCatalog.of(allGames);
+        userTags = Set.of("动作", "射击", "竞技");
+        userBits = catalog.tagDictionary().encode(userTags);
+    }
+
+    @Benchmark
+    public Map<Long, Double> legacyIndexOfPow() {
+        Map<Long, Double> gameScores = new HashMap<>();
+        allGames.forEach(game -> {
+            if (game.getTags() == null || game.getTags().isEmpty()) {
+                gameScores.put(game.getAppId(), 0.0);
+                return;
+            }
+            Set<String> gameTags = new HashSet<>(game.getTags());
+            gameTags.retainAll(userTags);
+            double similarity = (double) gameTags.size() / (userTags.size() + game.getTags().size() - gameTags.size());
+            double popularityScore = game.getPopularity() != null ?
+                game.getPopularity().doubleValue() * Math.pow(POPULARITY_DECAY, allGames.indexOf(game)) : 0;
+            gameScores.put(game.getAppId(), 0.7 * similarity + 0.3 * popularityScore);
+        });
+        return gameScores;
+    }
+
+    @Benchmark
+    public double[] catalogLinear() {
+        double[] scores = ScoreBuffer.zeroed(catalog.size());
+        ContentScoring.accumulate(catalog, userBits, userTags.size(), 1.0, scores);
+        return scores;
+    }
+}
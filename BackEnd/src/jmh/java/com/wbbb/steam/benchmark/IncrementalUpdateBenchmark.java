@@ -0,0 +1,69 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.service.recommend.ItemNeighborIndex;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一批评分事件的增量更新耗时，对比全量重建
+ * incremental: 在现有矩阵上线性合并一批变化，并只重算受影响游戏的近邻
+ * rebuild: 从全部评分重新构建矩阵与近邻索引(不含数据库读取)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalUpdateBenchmark {
+
+    @Param({"20000"})
+    public int users;
+
+    @Param({"5000"})
+    public int apps;
+
+    @Param({"1000000"})
+    public int ratings;
+
+    /** 每批评分事件数 */
+    @Param({"100"})
+    public int batch;
+
+    private SyntheticDataset dataset;
+    private RatingMatrix matrix;
+    private ItemNeighborIndex index;
+    private RatingMatrix.Changes changes;
+    private long[] changedApps;
+
+    @Setup
+    public void setUp() {
+        dataset = SyntheticDataset.generate(users, apps, ratings, 42L);
+        matrix = dataset.toMatrix();
+        index = ItemNeighborIndex.build(matrix, 50);
+        SplittableRandom random = new SplittableRandom(7);
+        changes = new RatingMatrix.Changes();
+        changedApps = new long[batch];
+        for (int i = 0; i < batch; i++) {
+            long app = (long) (apps * Math.pow(random.nextDouble(), 2.0));
+            changes.rated(random.nextInt(users + 100), app, random.nextDouble() < 0.7);
+            changedApps[i] = app;
+        }
+    }
+
+    @Benchmark
+    public ItemNeighborIndex incremental() {
+        RatingMatrix updated = matrix.withChanges(changes);
+        return index.withUpdatedApps(updated, changedApps, 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public ItemNeighborIndex rebuild() {
+        return ItemNeighborIndex.build(dataset.toMatrix(), 50);
+    }
+}
@@ -0,0 +1,126 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.service.recommend.CollaborativeFiltering;
+import com.wbbb.steam.service.recommend.MinHashLshIndex;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+import com.wbbb.steam.service.recommend.TopKSelector;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LSH近似近邻与精确扫描的对比
+ * exactScan: 遍历全部用户计算共同推荐数，取余弦相似度最高的TOP_NEIGHBOURS个近邻
+ * lshCandidates: 只对LSH候选计算精确相似度
+ * 召回率 = LSH候选中包含的精确TOP_NEIGHBOURS近邻比例，在Setup阶段按采样用户计算并输出，
+ * 同时输出候选数占全部用户的比例；可通过 -p bands=...,rows=... 比较不同参数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LshNeighbourBenchmark {
+    private static final int TOP_NEIGHBOURS = 50;
+    private static final int SAMPLE_USERS = 200;
+
+    @Param({"20000"})
+    public int users;
+
+    @Param({"5000"})
+    public int apps;
+
+    @Param({"400000"})
+    public int ratings;
+
+    @Param({"32"})
+    public int bands;
+
+    @Param({"1", "2"})
+    public int rows;
+
+    private RatingMatrix matrix;
+    private MinHashLshIndex index;
+    private int[] sampleUsers;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        matrix = SyntheticDataset.generate(users, apps, ratings, 42L).toMatrix();
+        index = MinHashLshIndex.build(matrix, bands, rows, 42L);
+        sampleUsers = new SplittableRandom(7L).ints(SAMPLE_USERS, 0, matrix.userCount()).toArray();
+
+        long found = 0;
+        long expected = 0;
+        long candidates = 0;
+        for (int user : sampleUsers) {
+            int[] exact = exactTopNeighbours(user);
+            int[] approximate = index.candidates(user, Integer.MAX_VALUE);
+            candidates += approximate.length;
+            expected += exact.length;
+            for (int neighbour : exact) {
+                if (Arrays.binarySearch(approximate, neighbour) >= 0) found++;
+            }
+        }
+        double recall = expected == 0 ? 1.0 : (double) found / expected;
+        double candidateRatio = (double) candidates / ((long) SAMPLE_USERS * matrix.userCount());
+        System.out.printf("[LSH] bands=%d rows=%d recall@%d=%.4f candidates/users=%.4f build=%d ms%n",
+                bands, rows, TOP_NEIGHBOURS, recall, candidateRatio, index.getBuildMillis());
+    }
+
+    private int nextUser() {
+        return sampleUsers[cursor++ % SAMPLE_USERS];
+    }
+
+    private double cosine(int user, int other, int overlap) {
+        return overlap / Math.sqrt((double) matrix.userPositiveCount(user) * matrix.userPositiveCount(other));
+    }
+
+    /** 精确扫描全部用户，按余弦相似度取前TOP_NEIGHBOURS个(相同时下标小者优先) */
+    private int[] exactTopNeighbours(int user) {
+        TopKSelector top = new TopKSelector(TOP_NEIGHBOURS);
+        if (matrix.userPositiveCount(user) > 0) {
+            for (int other = 0; other < matrix.userCount(); other++) {
+                if (other == user || matrix.userPositiveCount(other) == 0) continue;
+                int overlap = CollaborativeFiltering.positiveOverlap(matrix, user, other);
+                if (overlap > 0) {
+                    top.offer(other, cosine(user, other, overlap));
+                }
+            }
+        }
+        int[] ids = new int[top.size()];
+        top.drainDescending(ids, new double[ids.length]);
+        return ids;
+    }
+
+    @Benchmark
+    public int[] exactScan() {
+        return exactTopNeighbours(nextUser());
+    }
+
+    @Benchmark
+    public int[] lshCandidates() {
+        int user = nextUser();
+        int[] candidates = index.candidates(user, Integer.MAX_VALUE);
+        TopKSelector top = new TopKSelector(TOP_NEIGHBOURS);
+        for (int other : candidates) {
+            int overlap = CollaborativeFiltering.positiveOverlap(matrix, user, other);
+            if (overlap > 0) {
+                top.offer(other, cosine(user, other, overlap));
+            }
+        }
+        int[] ids = new int[top.size()];
+        top.drainDescending(ids, new double[ids.length]);
+        return ids;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MinHashLshIndex buildIndex() {
+        return MinHashLshIndex.build(matrix, bands, rows, 42L);
+    }
+}
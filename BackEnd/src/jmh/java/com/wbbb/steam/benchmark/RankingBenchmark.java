@@ -0,0 +1,77 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.service.recommend.ScoreBuffer;
+import com.wbbb.steam.service.recommend.TopKSelector;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 排序阶段耗时与内存分配对比
+ * legacyHashMapSort: 重构前的实现，全部分数放入HashMap后整体排序
+ * bufferTopK: 线程私有分数缓冲区 + 有界小顶堆
+ * 加上 -prof gc 可查看每次操作的分配字节数(gc.alloc.rate.norm)，后者只与K有关
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RankingBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int apps;
+
+    @Param({"12"})
+    public int limit;
+
+    private long[] appIds;
+    private double[] rawScores;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42L);
+        appIds = new long[apps];
+        rawScores = new double[apps];
+        for (int i = 0; i < apps; i++) {
+            appIds[i] = 10_000L + i;
+            rawScores[i] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public List<Long> legacyHashMapSort() {
+        Map<Long, Double> finalScores = new HashMap<>();
+        for (int i = 0; i < apps; i++) {
+            finalScores.put(appIds[i], rawScores[i]);
+        }
+        return finalScores.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Long> bufferTopK() {
+        double[] scores = ScoreBuffer.zeroed(apps);
+        for (int i = 0; i < apps; i++) {
+            scores[i] += rawScores[i];
+        }
+        TopKSelector selector = new TopKSelector(Math.min(limit, apps));
+        for (int i = 0; i < apps; i++) {
+            selector.offer(i, scores[i]);
+        }
+        int[] topIndexes = new int[selector.size()];
+        int count = selector.drainDescending(topIndexes, new double[topIndexes.length]);
+        List<Long> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(appIds[topIndexes[i]]);
+        }
+        return result;
+    }
+}
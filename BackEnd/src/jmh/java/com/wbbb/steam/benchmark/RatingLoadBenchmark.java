@@ -0,0 +1,95 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.repository.RecommendationRepository.RatingHandler;
+import com.wbbb.steam.repository.UserRatingRepository.UserRatingProjection;
+import com.wbbb.steam.service.recommend.HeapPeakMeter;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评分矩阵全量加载的耗时与堆峰值
+ * projection: 旧实现，先物化整张表的投影列表(每行一个代理对象+装箱字段，模拟Spring的接口投影)，再写入构建器
+ * streaming: 逐行回调直接写入构建器的基本类型数组(模拟JDBC流式读取，不含驱动自身的行缓冲)
+ * 每次调用前重置堆峰值，调用后打印[RatingLoad]行；配合-prof gc查看每次加载的分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class RatingLoadBenchmark {
+
+    @Param({"20000"})
+    public int users;
+
+    @Param({"5000"})
+    public int apps;
+
+    @Param({"1000000"})
+    public int ratings;
+
+    private SyntheticDataset dataset;
+
+    @Setup
+    public void setUp() {
+        dataset = SyntheticDataset.generate(users, apps, ratings, 42L);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPeak() {
+        System.gc();
+        HeapPeakMeter.reset();
+    }
+
+    @TearDown(Level.Invocation)
+    public void reportPeak(BenchmarkParams params) {
+        System.out.printf("[RatingLoad] %s peakHeap=%d MB%n", params.getBenchmark().replaceAll(".*\\.", ""),
+                HeapPeakMeter.peakBytes() >> 20);
+    }
+
+    @Benchmark
+    public RatingMatrix projection() {
+        List<UserRatingProjection> rows = new ArrayList<>();
+        for (int i = 0; i < dataset.ratingUsers.length; i++) {
+            rows.add(projectionOf(dataset.ratingUsers[i], dataset.ratingApps[i], dataset.ratingValues[i]));
+        }
+        RatingMatrix.Builder builder = new RatingMatrix.Builder(rows.size());
+        for (UserRatingProjection row : rows) {
+            builder.add(row.getUserId(), row.getAppId(), Boolean.TRUE.equals(row.getRecommended()));
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public RatingMatrix streaming() {
+        RatingMatrix.Builder builder = new RatingMatrix.Builder(dataset.ratingUsers.length);
+        stream(builder::add);
+        return builder.build();
+    }
+
+    private void stream(RatingHandler handler) {
+        for (int i = 0; i < dataset.ratingUsers.length; i++) {
+            handler.accept(dataset.ratingUsers[i], dataset.ratingApps[i], dataset.ratingValues[i]);
+        }
+    }
+
+    /** 与Spring接口投影相同的形态：行数组 + JDK动态代理 */
+    private static UserRatingProjection projectionOf(long userId, long appId, boolean recommended) {
+        Object[] tuple = {userId, appId, recommended};
+        return (UserRatingProjection) Proxy.newProxyInstance(UserRatingProjection.class.getClassLoader(),
+                new Class<?>[]{UserRatingProjection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getUserId" -> tuple[0];
+                    case "getAppId" -> tuple[1];
+                    case "getRecommended" -> tuple[2];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
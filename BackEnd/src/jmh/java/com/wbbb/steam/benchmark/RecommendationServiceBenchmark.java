@@ -0,0 +1,178 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.entity.User;
+import com.wbbb.steam.entity.UserRating;
+import com.wbbb.steam.repository.AppRepository;
+import com.wbbb.steam.repository.FriendRepository;
+import com.wbbb.steam.repository.UserRatingRepository;
+import com.wbbb.steam.repository.UserRatingRepository.UserRatingProjection;
+import com.wbbb.steam.repository.UserRepository;
+import com.wbbb.steam.service.RecommendationService;
+import com.wbbb.steam.service.RecommendationServiceFixture;
+import com.wbbb.steam.service.recommend.AppCatalogHolder;
+import com.wbbb.steam.service.recommend.CandidatePipeline;
+import com.wbbb.steam.service.recommend.CollaborativeFilteringPool;
+import com.wbbb.steam.service.recommend.FriendLikesCandidateGenerator;
+import com.wbbb.steam.service.recommend.ItemNeighborCandidateGenerator;
+import com.wbbb.steam.service.recommend.ItemNeighborIndexHolder;
+import com.wbbb.steam.service.recommend.PopularityLeaderboardHolder;
+import com.wbbb.steam.service.recommend.NewReleaseCandidateGenerator;
+import com.wbbb.steam.service.recommend.PopularInTagsCandidateGenerator;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+import com.wbbb.steam.service.recommend.RatingMatrixHolder;
+import com.wbbb.steam.service.recommend.RecommendationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RecommendationService端到端基准(关闭结果缓存与请求合并，每次调用完整计算一次)
+ * 仓库由Mockito桩代替，数据来自SyntheticDataset，内存模型(目录、评分矩阵、近邻索引)在Setup阶段构建完成
+ * recommend: 有评分的老用户，包含内容推荐、协同过滤(按mode切换)与TOP-K排序
+ * recommendColdStart: 没有评分的新用户
+ * candidates=true时先由候选生成器产出有界候选(每个用户10个好友)，只对候选打分排序
+ * 规模可通过 -p users=...,apps=...,ratings=... 调整；结果默认以JSON写入target/jmh-result.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecommendationServiceBenchmark {
+    private static final int LIMIT = 12;
+    private static final int SAMPLE_USERS = 1024;
+
+    @Param({"50000"})
+    public int users;
+
+    @Param({"10000"})
+    public int apps;
+
+    @Param({"100000", "1000000"})
+    public int ratings;
+
+    @Param({"item", "user", "lsh"})
+    public String mode;
+
+    @Param({"false", "true"})
+    public boolean candidates;
+
+    private RecommendationService service;
+    private CollaborativeFilteringPool pool;
+    private long[] warmUsers;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        SyntheticDataset dataset = SyntheticDataset.generate(users, apps, ratings, 42L);
+        List<App> appList = dataset.toApps();
+        Map<Long, List<UserRating>> userRatings = dataset.toUserRatings();
+        RatingMatrix matrix = dataset.toMatrix();
+
+        List<UserRatingProjection> projections = new ArrayList<>(matrix.ratingCount());
+        for (int u = 0; u < matrix.userCount(); u++) {
+            long userId = matrix.userId(u);
+            for (int k = matrix.userRowStart(u); k < matrix.userRowEnd(u); k++) {
+                long appId = matrix.appId(matrix.userRowItem(k));
+                boolean recommended = matrix.userRowValue(k) != 0;
+                projections.add(new UserRatingProjection() {
+                    public Long getUserId() { return userId; }
+                    public Long getAppId() { return appId; }
+                    public Boolean getRecommended() { return recommended; }
+                });
+            }
+        }
+
+        AppRepository appRepository = mock(AppRepository.class);
+        UserRatingRepository userRatingRepository = mock(UserRatingRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(appRepository.findAll()).thenReturn(appList);
+        when(appRepository.findTop100ByOrderByPopularityDesc(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(appList.subList(0, Math.min(100, appList.size()))));
+        when(userRatingRepository.getAllRatingsProjection()).thenReturn(projections);
+        when(userRatingRepository.findByUserId(anyLong())).thenAnswer(invocation ->
+                userRatings.getOrDefault(invocation.<Long>getArgument(0), List.of()));
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setUserId(invocation.getArgument(0));
+            return Optional.of(user);
+        });
+
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.setCollaborativeMode(mode);
+        properties.setCoalesceRequests(false);
+        properties.getCache().setEnabled(false);
+        properties.getCandidates().setEnabled(candidates);
+        pool = new CollaborativeFilteringPool(properties);
+        AppCatalogHolder appCatalogHolder = new AppCatalogHolder(appRepository, null);
+        RatingMatrixHolder ratingMatrixHolder = new RatingMatrixHolder(userRatingRepository, null);
+        ItemNeighborIndexHolder itemNeighborIndexHolder = new ItemNeighborIndexHolder(ratingMatrixHolder, properties, null);
+        FriendRepository friendRepository = mock(FriendRepository.class);
+        when(friendRepository.findFriendIdsByUserId(anyLong())).thenAnswer(invocation -> {
+            long userId = invocation.<Long>getArgument(0);
+            List<Long> friends = new ArrayList<>(10);
+            for (int j = 1; j <= 10; j++) {
+                friends.add(matrix.userId((int) Math.floorMod(userId * 31 + j * 7919L, (long) matrix.userCount())));
+            }
+            return friends;
+        });
+        RecommendationMetrics metrics = new RecommendationMetrics(new SimpleMeterRegistry());
+        PopularityLeaderboardHolder leaderboardHolder = new PopularityLeaderboardHolder(appCatalogHolder);
+        CandidatePipeline pipeline = new CandidatePipeline(List.of(
+                new PopularInTagsCandidateGenerator(leaderboardHolder),
+                new ItemNeighborCandidateGenerator(itemNeighborIndexHolder),
+                new FriendLikesCandidateGenerator(friendRepository, ratingMatrixHolder),
+                new NewReleaseCandidateGenerator()), properties, metrics);
+        service = new RecommendationServiceFixture()
+                .userRatingRepository(userRatingRepository)
+                .appRepository(appRepository)
+                .userRepository(userRepository)
+                .properties(properties)
+                .metrics(metrics)
+                .appCatalogHolder(appCatalogHolder)
+                .ratingMatrixHolder(ratingMatrixHolder)
+                .itemNeighborIndexHolder(itemNeighborIndexHolder)
+                .popularityLeaderboardHolder(leaderboardHolder)
+                .collaborativeFilteringPool(pool)
+                .candidatePipeline(pipeline)
+                .build()
+                .service();
+
+        SplittableRandom random = new SplittableRandom(7L);
+        warmUsers = new long[SAMPLE_USERS];
+        for (int i = 0; i < SAMPLE_USERS; i++) {
+            warmUsers[i] = matrix.userId(random.nextInt(matrix.userCount()));
+        }
+        // 预先构建全部内存模型，避免计入第一次调用
+        service.recommendGames(warmUsers[0], LIMIT);
+        service.getModelStats();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Long> recommend() {
+        return service.recommendGames(warmUsers[cursor++ & (SAMPLE_USERS - 1)], LIMIT);
+    }
+
+    @Benchmark
+    public List<Long> recommendColdStart() {
+        return service.recommendGames((long) users + (cursor++ & (SAMPLE_USERS - 1)), LIMIT);
+    }
+}
@@ -0,0 +1,90 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.service.recommend.AppCatalog;
+import com.wbbb.steam.service.recommend.AppSearchIndex;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两个词的搜索建议耗时(不含数据库访问与DTO转换)
+ * index: 倒排索引求交集并校验
+ * scan: 原实现的内存等价形式，每个词全表子串匹配得到列表，再用retainAll求交集
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchSuggestionBenchmark {
+
+    /** 常用汉字与拉丁字母，名称由其随机组成 */
+    private static final String ALPHABET = "天地玄黄宇宙洪荒日月盈昃辰宿列张寒来暑往秋收冬藏闰余成岁律吕调阳云腾致雨露结为霜"
+            + "金生丽水玉出昆冈剑号巨阙珠称夜光果珍李柰菜重芥姜海咸河淡鳞潜羽翔龙师火帝鸟官人皇abcdefghijklmnop";
+
+    @Param({"50000"})
+    public int apps;
+
+    private AppCatalog catalog;
+    private AppSearchIndex index;
+    private String[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<App> list = new ArrayList<>(apps);
+        for (long id = 1; id <= apps; id++) {
+            App app = new App();
+            app.setAppId(id);
+            app.setName(text(random, 4 + random.nextInt(8)));
+            app.setDeveloper(text(random, 4));
+            app.setPublisher(text(random, 4));
+            app.setPopularity(random.nextInt(1000));
+            list.add(app);
+        }
+        catalog = AppCatalog.of(list);
+        index = AppSearchIndex.build(catalog);
+        queries = new String[256][];
+        for (int q = 0; q < queries.length; q++) {
+            // 从某个游戏名称中取两个片段，保证有命中
+            String name = AppSearchIndex.normalize(catalog.name(random.nextInt(apps)));
+            queries[q] = AppSearchIndex.tokenize(name.substring(0, 2) + " " + name.substring(2, 3));
+        }
+    }
+
+    private static String text(SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        return text.toString();
+    }
+
+    @Benchmark
+    public int[] index() {
+        return index.match(queries[next++ & (queries.length - 1)]);
+    }
+
+    @Benchmark
+    public List<Long> scan() {
+        String[] words = queries[next++ & (queries.length - 1)];
+        List<Long> result = new ArrayList<>();
+        for (int w = 0; w < words.length; w++) {
+            List<Long> matched = new ArrayList<>();
+            for (int i = 0; i < catalog.size(); i++) {
+                if (AppSearchIndex.normalize(catalog.name(i)).contains(words[w])
+                        || AppSearchIndex.normalize(catalog.developer(i)).contains(words[w])
+                        || AppSearchIndex.normalize(catalog.publisher(i)).contains(words[w])) {
+                    matched.add(catalog.appId(i));
+                }
+            }
+            if (w == 0) result.addAll(matched); else result.retainAll(matched);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.service.recommend.AlsModel;
+import com.wbbb.steam.service.recommend.AlsTrainer;
+import com.wbbb.steam.service.recommend.AppCatalog;
+import com.wbbb.steam.service.recommend.ItemNeighborIndex;
+import com.wbbb.steam.service.recommend.ModelSnapshot;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型快照的写入与加载耗时
+ * restore: 映射快照文件并恢复评分矩阵、游戏近邻索引与ALS模型
+ * rebuild: 不使用快照时从评分数据重新构建评分矩阵与近邻索引(不含数据库查询与ALS训练)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({"20000"})
+    public int users;
+
+    @Param({"5000"})
+    public int apps;
+
+    @Param({"400000"})
+    public int ratings;
+
+    private SyntheticDataset dataset;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataset = SyntheticDataset.generate(users, apps, ratings, 42L);
+        RatingMatrix matrix = dataset.toMatrix();
+        ItemNeighborIndex neighbors = ItemNeighborIndex.build(matrix, 50);
+        AlsModel als = AlsTrainer.train(matrix, new AlsTrainer.Params(32, 2, 0.1, 20.0, 42L));
+        AppCatalog catalog = AppCatalog.of(dataset.toApps());
+        file = Files.createTempFile("recommendation-model", ".snap");
+        long start = System.nanoTime();
+        long bytes = ModelSnapshot.write(file, new ModelSnapshot.Contents(matrix, neighbors, als, catalog));
+        System.out.printf("[Snapshot] size=%d bytes write=%d ms%n", bytes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public ModelSnapshot.Contents restore() throws IOException {
+        return ModelSnapshot.read(file);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public ItemNeighborIndex rebuild() {
+        return ItemNeighborIndex.build(dataset.toMatrix(), 50);
+    }
+}
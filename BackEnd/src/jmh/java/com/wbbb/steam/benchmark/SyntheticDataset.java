@@ -0,0 +1,120 @@
+package com.wbbb.steam.benchmark;
+
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.entity.UserRating;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试用的合成评分数据
+ * 相同的种子与规模参数总是生成相同的数据；游戏热度服从幂律分布，使共同评分的分布接近真实场景
+ */
+public final class SyntheticDataset {
+    /** 推荐比例 */
+    private static final double RECOMMEND_RATE = 0.7;
+    /** 热度偏斜程度，越大越集中在头部游戏 */
+    private static final double POPULARITY_SKEW = 2.0;
+    /** 游戏标签词表 */
+    private static final String[] TAGS = {"动作", "冒险", "角色扮演", "射击", "策略", "体育", "模拟", "解谜", "竞速", "格斗",
+            "独立", "休闲", "多人", "开放世界", "生存", "恐怖", "科幻", "奇幻", "卡牌", "像素"};
+    /** 合成发行日期的起点 */
+    private static final LocalDate RELEASE_EPOCH = LocalDate.of(2010, 1, 1);
+
+    public final int users;
+    public final int apps;
+    public final long[] ratingUsers;
+    public final long[] ratingApps;
+    public final boolean[] ratingValues;
+    private final long seed;
+
+    private SyntheticDataset(int users, int apps, int ratings, long seed) {
+        this.users = users;
+        this.apps = apps;
+        this.ratingUsers = new long[ratings];
+        this.ratingApps = new long[ratings];
+        this.ratingValues = new boolean[ratings];
+        this.seed = seed;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < ratings; i++) {
+            ratingUsers[i] = random.nextInt(users);
+            ratingApps[i] = (long) (apps * Math.pow(random.nextDouble(), POPULARITY_SKEW));
+            ratingValues[i] = random.nextDouble() < RECOMMEND_RATE;
+        }
+    }
+
+    /**
+     * 生成数据集
+     * @param users 用户数
+     * @param apps 游戏数
+     * @param ratings 评分条数(含重复，构建矩阵时会去重)
+     * @param seed 随机种子
+     */
+    public static SyntheticDataset generate(int users, int apps, int ratings, long seed) {
+        return new SyntheticDataset(users, apps, ratings, seed);
+    }
+
+    public RatingMatrix toMatrix() {
+        RatingMatrix.Builder builder = new RatingMatrix.Builder(ratingUsers.length);
+        for (int i = 0; i < ratingUsers.length; i++) {
+            builder.add(ratingUsers[i], ratingApps[i], ratingValues[i]);
+        }
+        return builder.build();
+    }
+
+    /** 旧实现使用的装箱评分表 用户ID→(游戏ID→评分) */
+    public Map<Long, Map<Long, Double>> toBoxedMap() {
+        Map<Long, Map<Long, Double>> map = new HashMap<>();
+        for (int i = 0; i < ratingUsers.length; i++) {
+            map.computeIfAbsent(ratingUsers[i], key -> new HashMap<>())
+                    .merge(ratingApps[i], ratingValues[i] ? 1.0 : 0.0, Math::max);
+        }
+        return map;
+    }
+
+    /**
+     * 生成游戏列表
+     * 游戏ID为0..apps-1，与评分中的游戏ID一致；每个游戏1-4个标签，热度与评分分布一致(ID越小越热门)
+     */
+    public List<App> toApps() {
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        List<App> list = new ArrayList<>(apps);
+        for (int i = 0; i < apps; i++) {
+            Set<String> tags = new HashSet<>();
+            int count = 1 + random.nextInt(4);
+            for (int t = 0; t < count; t++) {
+                tags.add(TAGS[random.nextInt(TAGS.length)]);
+            }
+            App app = new App();
+            app.setAppId((long) i);
+            app.setPopularity(Math.max(0, 1000 - (int) (1000L * i / Math.max(1, apps))));
+            app.setTags(tags);
+            app.setCreateTime(RELEASE_EPOCH.plusDays((i * 7919L) % 5000).toString());
+            list.add(app);
+        }
+        return list;
+    }
+
+    /** 按用户分组的评分实体(与矩阵一致，重复评分以推荐为准) */
+    public Map<Long, List<UserRating>> toUserRatings() {
+        RatingMatrix matrix = toMatrix();
+        Map<Long, List<UserRating>> byUser = new HashMap<>(matrix.userCount() * 2);
+        for (int u = 0; u < matrix.userCount(); u++) {
+            long userId = matrix.userId(u);
+            List<UserRating> ratings = new ArrayList<>(matrix.userRowEnd(u) - matrix.userRowStart(u));
+            for (int k = matrix.userRowStart(u); k < matrix.userRowEnd(u); k++) {
+                ratings.add(new UserRating(null, userId, matrix.appId(matrix.userRowItem(k)),
+                        matrix.userRowValue(k) != 0, null, 0L));
+            }
+            byUser.put(userId, ratings);
+        }
+        return byUser;
+    }
+}
@@ -0,0 +1,270 @@
+package com.wbbb.steam.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 推荐系统运行参数
+ * 对应application.properties中recommendation前缀的配置项
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "recommendation")
+public class RecommendationProperties {
+
+    /**
+     * 协同过滤模式：item(基于物品近邻索引)、user(基于用户相似度)、lsh(基于用户相似度，近邻由LSH索引给出)、
+     * social(基于用户相似度，近邻限定在好友与好友的好友中，过少时回退到item)
+     */
+    private String collaborativeMode = "item";
+
+    /** 物品近邻索引中每个游戏保留的近邻数量 */
+    private int itemNeighborCount = 50;
+
+    /** 物品近邻索引的数据来源：matrix(由内存评分矩阵计算)、sql(由MySQL聚合共现计数后流式构建) */
+    private String itemNeighborSource = "matrix";
+
+    /** 参与相似度计算的最小共同推荐人数，全量构建(matrix/sql来源)与增量更新一致生效 */
+    private int itemNeighborMinCommon = 1;
+
+    /** 冷启动随机扰动的时间窗口(毫秒)，同一用户在同一窗口内得到相同的冷启动结果 */
+    private long coldStartWindowMs = 3600000;
+
+    /** 是否合并同一(用户, 数量)的并发推荐请求 */
+    private boolean coalesceRequests = true;
+
+    /** 内置混合推荐引擎的权重 */
+    private Hybrid hybrid = new Hybrid();
+
+    /** 热度排行榜 */
+    private Leaderboard leaderboard = new Leaderboard();
+
+    /** 两阶段候选生成 */
+    private Candidates candidates = new Candidates();
+
+    /** 用户偏好标签权重 */
+    private Preferences preferences = new Preferences();
+
+    /** 评分事件驱动的增量模型更新 */
+    private Incremental incremental = new Incremental();
+
+    /** 影子引擎评估 */
+    private Shadow shadow = new Shadow();
+
+    /** 在线请求的延迟预算 */
+    private Budget budget = new Budget();
+
+    /** 推荐结果缓存 */
+    private Cache cache = new Cache();
+
+    /** 协同过滤并行计算 */
+    private Parallel parallel = new Parallel();
+
+    /** 用户近邻LSH索引 */
+    private Lsh lsh = new Lsh();
+
+    /** 社交近邻协同过滤 */
+    private Social social = new Social();
+
+    /** ALS矩阵分解模型 */
+    private Als als = new Als();
+
+    /** 模型快照文件 */
+    private Snapshot snapshot = new Snapshot();
+
+    /** 推荐列表离线批处理 */
+    private Batch batch = new Batch();
+
+    @Data
+    public static class Hybrid {
+        /** 内容推荐权重 */
+        private double contentWeight = 0.6;
+
+        /** 协同过滤权重 */
+        private double collaborativeWeight = 0.4;
+
+        /** 评价数少于该值的用户视为冷启动用户 */
+        private int coldStartThreshold = 5;
+
+        /** 冷启动用户的内容推荐权重 */
+        private double coldStartContentWeight = 0.9;
+
+        /** 冷启动用户的协同过滤权重 */
+        private double coldStartCollaborativeWeight = 0.1;
+    }
+
+    @Data
+    public static class Cache {
+        /** 是否启用推荐结果缓存 */
+        private boolean enabled = true;
+
+        /** 最多缓存的用户数，超出时淘汰最久未访问的用户 */
+        private int maxUsers = 10000;
+
+        /** 缓存结果的有效期(毫秒) */
+        private long ttlMs = 300000;
+    }
+
+    @Data
+    public static class Parallel {
+        /** 是否启用并行计算 */
+        private boolean enabled = true;
+
+        /** 专用ForkJoinPool的并行度，默认为CPU核数 */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /** 单次请求工作量(需遍历的评分条数)低于该值时单线程执行 */
+        private int sequentialCutoff = 100000;
+    }
+
+    @Data
+    public static class Lsh {
+        /** band数，越多召回越高、候选越多 */
+        private int bands = 32;
+
+        /** 每个band的MinHash个数，越多候选越精确、召回越低 */
+        private int rows = 1;
+
+        /** 单次查询最多使用的候选近邻数 */
+        private int maxCandidates = 5000;
+
+        /** 哈希种子 */
+        private long seed = 42L;
+    }
+
+    @Data
+    public static class Social {
+        /** 单次查询最多考察的社交近邻数(好友优先，其余按共同好友数选取好友的好友) */
+        private int maxNeighbors = 500;
+
+        /** 与用户有共同推荐的社交近邻少于该值时回退到基于物品的协同过滤 */
+        private int minNeighbors = 3;
+
+        /** 直接好友的相似度倍数 */
+        private double friendWeight = 2.0;
+    }
+
+    @Data
+    public static class Als {
+        /** 是否在后台训练模型；RecommendationConfig.algorithmVersion以als开头时由als引擎使用模型打分 */
+        private boolean enabled = false;
+
+        /** 隐向量维数 */
+        private int rank = 32;
+
+        /** 交替迭代次数 */
+        private int iterations = 10;
+
+        /** 正则系数 */
+        private double lambda = 0.1;
+
+        /** 观测置信度系数 */
+        private double alpha = 20.0;
+
+        /** 是否把愿望单记录作为正反馈参与训练 */
+        private boolean includeWishlist = true;
+
+        /** 初始化随机种子 */
+        private long seed = 42L;
+    }
+
+    @Data
+    public static class Snapshot {
+        /** 是否在启动时从快照恢复并定期写入快照 */
+        private boolean enabled = true;
+
+        /** 快照文件路径 */
+        private String path = "data/recommendation-model.snap";
+    }
+
+    @Data
+    public static class Batch {
+        /** 是否定时预计算推荐列表，并在线优先读取预计算结果 */
+        private boolean enabled = false;
+
+        /** 每个用户预计算的推荐数量，在线请求数量不超过该值时可直接使用 */
+        private int size = 50;
+
+        /** 每个任务处理的用户数 */
+        private int chunkSize = 500;
+
+        /** 并行线程数 */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /** 预计算结果的最长有效期(毫秒)，超过后在线计算 */
+        private long maxAgeMs = 93600000;
+    }
+
+    @Data
+    public static class Candidates {
+        /** 是否先生成候选再打分；关闭时对全目录打分 */
+        private boolean enabled = false;
+
+        /** 每个候选生成器最多产出的新候选数 */
+        private int perGenerator = 100;
+    }
+
+    @Data
+    public static class Leaderboard {
+        /** 冷启动时从排行榜中取出打分的游戏数 */
+        private int coldStartSize = 100;
+    }
+
+    @Data
+    public static class Budget {
+        /** 是否让内容推荐与协同过滤并发执行，并在协同过滤超出预算时降级 */
+        private boolean enabled = false;
+
+        /** 单次推荐计算的时间预算(毫秒)，协同过滤在此之前未完成时只用内容推荐的结果 */
+        private long timeoutMs = 150;
+
+        /** 协同过滤线程数 */
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        /** 等待执行的协同过滤任务上限，队列满时直接降级 */
+        private int queueCapacity = 256;
+    }
+
+    @Data
+    public static class Shadow {
+        /** 是否在抽样的在线请求上异步运行影子引擎并与线上结果对比 */
+        private boolean enabled = false;
+
+        /** 影子引擎名称(RecommendationEngine.name，hybrid为内置混合推荐) */
+        private String engine = "item-cf";
+
+        /** 抽样比例(0-1) */
+        private double sampleRate = 0.05;
+
+        /** 影子线程数，与线上请求线程和协同过滤线程池相互独立 */
+        private int threads = 1;
+
+        /** 等待执行的影子任务上限，队列满时丢弃本次抽样 */
+        private int queueCapacity = 32;
+    }
+
+    @Data
+    public static class Incremental {
+        /** 是否在评分提交/删除后增量更新评分矩阵与受影响游戏的近邻；定期全量构建不受影响 */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Preferences {
+        /** 每个用户最多保留的偏好标签数，超出时淘汰权重最低者 */
+        private int maxTags = 32;
+
+        /** 单个标签的权重上限 */
+        private double maxWeight = 10.0;
+
+        /** 推荐一个游戏时其标签增加的权重 */
+        private double likeWeight = 1.0;
+
+        /** 不推荐一个游戏时其标签增加的权重(负数)，降到0的标签被删除 */
+        private double dislikeWeight = -0.5;
+
+        /** 内存中缓存偏好的用户数 */
+        private int cacheUsers = 10000;
+    }
+}
@@ -3,21 +3,45 @@ package com.wbbb.steam.config;
 import org.hibernate.resource.jdbc.spi.StatementInspector;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * SQL语句统计
+ * Hibernate每准备一条语句都会经过inspect，在此累计全局与当前线程的语句数
+ */
 public class SQLStatisticsInspector implements StatementInspector {
     private static final AtomicLong queryCount = new AtomicLong();
     private static final AtomicLong totalTime = new AtomicLong();
+    /** 当前线程执行的语句数，用于统计单次请求的查询次数 */
+    private static final ThreadLocal<long[]> threadQueryCount = ThreadLocal.withInitial(() -> new long[1]);
 
     @Override
     public String inspect(String sql) {
+        queryCount.incrementAndGet();
+        threadQueryCount.get()[0]++;
         return sql;
     }
 
     public static void reset() {
         queryCount.set(0);
         totalTime.set(0);
+        threadQueryCount.get()[0] = 0;
+    }
+
+    /** 累计语句数 */
+    public static long getQueryCount() {
+        return queryCount.get();
+    }
+
+    /** 当前线程累计的语句数，可在请求前后取差值 */
+    public static long getThreadQueryCount() {
+        return threadQueryCount.get()[0];
+    }
+
+    /** 把其他线程代当前线程执行的语句数计入当前线程 */
+    public static void addThreadQueryCount(long count) {
+        threadQueryCount.get()[0] += count;
     }
 
     public static long getAverageTime() {
         return queryCount.get() == 0 ? 0 : totalTime.get() / queryCount.get();
     }
-}
\ No newline at end of file
+}
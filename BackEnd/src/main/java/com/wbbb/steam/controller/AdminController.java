@@ -9,7 +9,9 @@ import com.wbbb.steam.entity.RecommendationConfig;
 import com.wbbb.steam.entity.User;
 import com.wbbb.steam.service.AdminService;
 import com.wbbb.steam.service.AppService;
+import com.wbbb.steam.service.RecommendationBatchService;
 import com.wbbb.steam.service.RecommendationService;
+import com.wbbb.steam.service.recommend.IncrementalModelUpdater;
 import com.wbbb.steam.util.TokenUtil;
 
 import lombok.AllArgsConstructor;
@@ -28,6 +30,8 @@ public class AdminController {
     private final AdminService adminService;
     private final AppService appService; 
     private final RecommendationService recommendationService;
+    private final RecommendationBatchService recommendationBatchService;
+    private final IncrementalModelUpdater incrementalModelUpdater;
 
     /******************* 用户管理接口 *******************/
     
@@ -148,6 +152,50 @@ public class AdminController {
         return ResponseDto.success(recommendationService.updateConfig(config));
     }
 
+    @GetMapping("/recommend-stats")
+    public ResponseDto<Map<String, Object>> getRecommendStats(
+        @RequestHeader("token") String token) {
+        checkAdmin(token);
+        return ResponseDto.success(recommendationService.getModelStats());
+    }
+
+    @GetMapping("/recommend-tags")
+    public ResponseDto<Map<String, Long>> getPopularTags(
+        @RequestHeader("token") String token,
+        @RequestParam(value = "limit", defaultValue = "20") Integer limit) {
+        checkAdmin(token);
+        return ResponseDto.success(recommendationService.getPopularTags(limit));
+    }
+
+    @GetMapping("/recommend-tags/{tag}")
+    public ResponseDto<Map<String, Object>> getTagStatistics(
+        @RequestHeader("token") String token,
+        @PathVariable String tag) {
+        checkAdmin(token);
+        return ResponseDto.success(recommendationService.getTagStatistics(tag));
+    }
+
+    @GetMapping("/recommend-batch")
+    public ResponseDto<Map<String, Object>> getRecommendBatchStats(
+        @RequestHeader("token") String token) {
+        checkAdmin(token);
+        return ResponseDto.success(recommendationBatchService.getStats());
+    }
+
+    @PostMapping("/recommend-batch")
+    public ResponseDto<Map<String, Object>> runRecommendBatch(
+        @RequestHeader("token") String token) {
+        checkAdmin(token);
+        return ResponseDto.success(recommendationBatchService.run());
+    }
+
+    @GetMapping("/recommend-incremental")
+    public ResponseDto<Map<String, Object>> getIncrementalUpdateStats(
+        @RequestHeader("token") String token) {
+        checkAdmin(token);
+        return ResponseDto.success(incrementalModelUpdater.getStats());
+    }
+
 
     /******************* 内部工具方法 *******************/
     private void checkAdmin(String token) {
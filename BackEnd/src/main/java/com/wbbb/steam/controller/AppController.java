@@ -6,6 +6,7 @@ import com.wbbb.steam.dto.response.data.AppDto;
 import com.wbbb.steam.service.AppService;
 
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 
 import java.util.List;
@@ -17,6 +18,9 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequestMapping("/app")
 public class AppController {
+    private static final String RECOMMENDATION_SOURCE_HEADER = "X-Recommendation-Source";
+    private static final String RECOMMENDATION_PATH_HEADER = "X-Recommendation-Path";
+
     private final AppService appService;
 
     @GetMapping("/{appId}")
@@ -43,10 +47,21 @@ public class AppController {
         return ResponseDto.success(appService.getApps(pageIndex, pageSize, null, tag));
     }
     
+    /**
+     * 首页推荐
+     * 响应头X-Recommendation-Source为结果来源(cache/precomputed/computed)，
+     * X-Recommendation-Path为计算路径(hybrid/content_only/popularity)；回退到最新游戏时均为latest
+     */
     @GetMapping("/recommendations")
     public ResponseDto<List<AppDto>> getRecommendations(
-        @RequestHeader(value = "token", required = false) String token) {
-        return ResponseDto.success(appService.getRecommendations(token));
+        @RequestHeader(value = "token", required = false) String token,
+        HttpServletResponse response) {
+        response.setHeader(RECOMMENDATION_SOURCE_HEADER, "latest");
+        response.setHeader(RECOMMENDATION_PATH_HEADER, "latest");
+        return ResponseDto.success(appService.getRecommendations(token, result -> {
+            response.setHeader(RECOMMENDATION_SOURCE_HEADER, result.source().name().toLowerCase());
+            response.setHeader(RECOMMENDATION_PATH_HEADER, result.path().name().toLowerCase());
+        }));
     }
     
     /**
@@ -0,0 +1,37 @@
+package com.wbbb.steam.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 离线预计算的用户推荐列表
+ * 每个用户一行，按主键读取
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_recommendation")
+public class UserRecommendation {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /** 推荐游戏ID，逗号分隔，按推荐分数降序 */
+    @Column(name = "app_ids", nullable = false, length = 2048)
+    private String appIds;
+
+    /** 计算时使用的推荐数量 */
+    @Column(name = "size", nullable = false)
+    private Integer size;
+
+    @Column(name = "computed_at", nullable = false)
+    private Long computedAt;
+}
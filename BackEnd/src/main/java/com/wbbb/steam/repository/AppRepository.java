@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -32,6 +33,12 @@ public interface AppRepository extends JpaRepository<App, Long> {
             "OR LOWER(a.publisher) LIKE %:keyword%")
     List<AppDto> searchApp(String keyword, Long userId);
 
+    /** 按ID批量获取游戏详情，顺序不保证与参数一致 */
+    @Query("SELECT new com.wbbb.steam.dto.response.data.AppDto(a, CASE WHEN w IS NOT NULL THEN 1 ELSE 0 END) FROM App a " +
+            "LEFT JOIN WishlistItem w ON a.appId = w.appId AND w.userId = :userId " +
+            "WHERE a.appId IN :appIds")
+    List<AppDto> getApps(@Param("appIds") Collection<Long> appIds, @Param("userId") Long userId);
+
     /** 获取按人气降序排列的前100个应用 */
     Page<App> findTop100ByOrderByPopularityDesc(Pageable pageable);
     
@@ -17,6 +17,10 @@ public interface FriendRepository extends JpaRepository<Friend, FriendId> {
             "WHERE f.userId = :userId")
     List<UserSimpleDto> getFriendList(Long userId);
 
+    /** 获取好友ID列表 */
+    @Query("SELECT f.friendId FROM Friend f WHERE f.userId = :userId")
+    List<Long> findFriendIdsByUserId(Long userId);
+
     int countAllByUserId(Long userId);
 
     boolean existsByUserIdAndFriendId(Long userId, Long friendId);
@@ -0,0 +1,190 @@
+package com.wbbb.steam.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 推荐相关的SQL聚合查询
+ * 计数、共现与相似度都在MySQL中通过GROUP BY/自连接算好，结果逐行流式读取，不加载实体；
+ * 流式读取使用fetchSize=Integer.MIN_VALUE(MySQL驱动的逐行模式)，回调期间连接被占用，回调内不要再访问数据库。
+ */
+@Repository
+public class JdbcRecommendationRepository implements RecommendationRepository {
+
+    /** 去重后的好评记录 */
+    private static final String POSITIVES =
+            "pos AS (SELECT DISTINCT user_id, app_id FROM user_rating WHERE recommended = 1)";
+
+    private static final String RATING_COUNT_SQL = "SELECT COUNT(*) FROM user_rating";
+
+    private static final String RATINGS_SQL = "SELECT user_id, app_id, recommended FROM user_rating";
+
+    private static final String RATING_MATRIX_SQL =
+            "SELECT user_id, app_id, AVG(rating) AS rating FROM user_rating GROUP BY user_id, app_id";
+
+    private static final String TAG_STATS_SQL =
+            "SELECT COUNT(*) AS app_count, AVG(a.average_rating) AS average_rating, " +
+            "       COALESCE(SUM(r.ratings), 0) AS rating_count, COALESCE(SUM(r.positives), 0) AS positive_count " +
+            "FROM (SELECT DISTINCT app_id FROM app_tags WHERE tag = ?) t " +
+            "JOIN app a ON a.app_id = t.app_id " +
+            "LEFT JOIN (SELECT app_id, COUNT(*) AS ratings, SUM(CASE WHEN recommended = 1 THEN 1 ELSE 0 END) AS positives " +
+            "           FROM user_rating WHERE app_id IN (SELECT app_id FROM app_tags WHERE tag = ?) " +
+            "           GROUP BY app_id) r ON r.app_id = t.app_id";
+
+    private static final String USER_SIMILARITY_SQL =
+            "WITH " + POSITIVES + ", " +
+            "     cnt AS (SELECT user_id, COUNT(*) AS n FROM pos GROUP BY user_id) " +
+            "SELECT p.user_a, p.user_b, p.common / SQRT(ca.n * cb.n) AS similarity " +
+            "FROM (SELECT a.user_id AS user_a, b.user_id AS user_b, COUNT(*) AS common " +
+            "      FROM pos a JOIN pos b ON a.app_id = b.app_id AND a.user_id < b.user_id " +
+            "      GROUP BY a.user_id, b.user_id HAVING COUNT(*) >= ?) p " +
+            "JOIN cnt ca ON ca.user_id = p.user_a " +
+            "JOIN cnt cb ON cb.user_id = p.user_b";
+
+    private static final String POPULAR_TAGS_SQL =
+            "SELECT tag, COUNT(*) AS apps FROM app_tags WHERE tag IS NOT NULL " +
+            "GROUP BY tag ORDER BY apps DESC, tag LIMIT ?";
+
+    private static final String ITEM_COOCCURRENCE_SQL =
+            "WITH " + POSITIVES + ", " +
+            "     cnt AS (SELECT app_id, COUNT(*) AS n FROM pos GROUP BY app_id) " +
+            "SELECT p.app_a, p.app_b, p.common, ca.n AS positives_a, cb.n AS positives_b " +
+            "FROM (SELECT a.app_id AS app_a, b.app_id AS app_b, COUNT(*) AS common " +
+            "      FROM pos a JOIN pos b ON a.user_id = b.user_id AND a.app_id <> b.app_id " +
+            "      GROUP BY a.app_id, b.app_id HAVING COUNT(*) >= ?) p " +
+            "JOIN cnt ca ON ca.app_id = p.app_a " +
+            "JOIN cnt cb ON cb.app_id = p.app_b " +
+            "ORDER BY p.app_a, p.app_b";
+
+    private static final String FIND_PREFERENCES_SQL =
+            "SELECT preference_key, preference_value FROM user_preference WHERE user_id = ?";
+
+    private static final String ADD_PREFERENCE_SQL =
+            "INSERT INTO user_preference (user_id, preference_key, preference_value) " +
+            "VALUES (?, ?, LEAST(GREATEST(?, 0), ?)) " +
+            "ON DUPLICATE KEY UPDATE preference_value = LEAST(GREATEST(COALESCE(preference_value, 0) + ?, 0), ?)";
+
+    private static final String DELETE_PREFERENCE_SQL =
+            "DELETE FROM user_preference WHERE user_id = ? AND preference_key = ?";
+
+    private static final String FRIENDSHIPS_SQL = "SELECT user_id, friend_id FROM friend";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+
+    public JdbcRecommendationRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public int countRatings() {
+        Long count = jdbcTemplate.queryForObject(RATING_COUNT_SQL, Long.class);
+        return count == null ? 0 : (int) Math.min(Integer.MAX_VALUE, count);
+    }
+
+    @Override
+    public void streamRatings(RatingHandler handler) {
+        // getBoolean对NULL返回false，与Boolean.TRUE.equals(recommended)一致
+        streamingTemplate.query(RATINGS_SQL, rs -> {
+            handler.accept(rs.getLong(1), rs.getLong(2), rs.getBoolean(3));
+        });
+    }
+
+    @Override
+    public Map<Long, Map<Long, Double>> getUserGameRatingMatrix() {
+        Map<Long, Map<Long, Double>> matrix = new HashMap<>();
+        streamingTemplate.query(RATING_MATRIX_SQL, rs -> {
+            matrix.computeIfAbsent(rs.getLong(1), k -> new HashMap<>()).put(rs.getLong(2), rs.getDouble(3));
+        });
+        return matrix;
+    }
+
+    @Override
+    public Map<String, Object> getTagAggregationStats(String tag) {
+        return jdbcTemplate.queryForObject(TAG_STATS_SQL, (rs, rowNum) -> {
+            long ratingCount = rs.getLong("rating_count");
+            long positiveCount = rs.getLong("positive_count");
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("tag", tag);
+            stats.put("appCount", rs.getLong("app_count"));
+            stats.put("averageRating", rs.getDouble("average_rating"));
+            stats.put("ratingCount", ratingCount);
+            stats.put("positiveCount", positiveCount);
+            stats.put("positiveRate", ratingCount == 0 ? 0.0 : (double) positiveCount / ratingCount);
+            return stats;
+        }, tag, tag);
+    }
+
+    @Override
+    public Map<Long, Map<Long, Double>> getUserSimilarityMatrix(int threshold) {
+        Map<Long, Map<Long, Double>> similarities = new HashMap<>();
+        streamingTemplate.query(USER_SIMILARITY_SQL, rs -> {
+            long userA = rs.getLong(1);
+            long userB = rs.getLong(2);
+            double similarity = rs.getDouble(3);
+            similarities.computeIfAbsent(userA, k -> new HashMap<>()).put(userB, similarity);
+            similarities.computeIfAbsent(userB, k -> new HashMap<>()).put(userA, similarity);
+        }, Math.max(1, threshold));
+        return similarities;
+    }
+
+    @Override
+    public Map<String, Long> getPopularTags(int limit) {
+        Map<String, Long> tags = new LinkedHashMap<>();
+        jdbcTemplate.query(POPULAR_TAGS_SQL, rs -> {
+            tags.put(rs.getString(1), rs.getLong(2));
+        }, limit);
+        return tags;
+    }
+
+    @Override
+    public void streamItemCooccurrence(int minCommon, CooccurrenceHandler handler) {
+        streamingTemplate.query(ITEM_COOCCURRENCE_SQL, rs -> {
+            handler.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5));
+        }, Math.max(1, minCommon));
+    }
+
+    @Override
+    public Map<String, Double> findUserPreferences(long userId) {
+        Map<String, Double> preferences = new HashMap<>();
+        jdbcTemplate.query(FIND_PREFERENCES_SQL, rs -> {
+            preferences.put(rs.getString(1), rs.getDouble(2));
+        }, userId);
+        return preferences;
+    }
+
+    @Override
+    public void addUserPreferences(long userId, Collection<String> keys, double delta, double maxWeight) {
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            args.add(new Object[]{userId, key, delta, maxWeight, delta, maxWeight});
+        }
+        jdbcTemplate.batchUpdate(ADD_PREFERENCE_SQL, args);
+    }
+
+    @Override
+    public void deleteUserPreferences(long userId, Collection<String> keys) {
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            args.add(new Object[]{userId, key});
+        }
+        jdbcTemplate.batchUpdate(DELETE_PREFERENCE_SQL, args);
+    }
+
+    @Override
+    public void streamFriendships(FriendshipHandler handler) {
+        streamingTemplate.query(FRIENDSHIPS_SQL, rs -> {
+            handler.accept(rs.getLong(1), rs.getLong(2));
+        });
+    }
+}
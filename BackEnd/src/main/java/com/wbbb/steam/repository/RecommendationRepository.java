@@ -1,8 +1,20 @@
 package com.wbbb.steam.repository;
 
+import java.util.Collection;
 import java.util.Map;
 
 public interface RecommendationRepository {
+    /**
+     * 评分记录总数，用于预分配评分矩阵的构建缓冲区
+     */
+    int countRatings();
+
+    /**
+     * 流式读取全部评分(用户ID, 游戏ID, 是否推荐)，逐行回调，不创建实体或投影对象
+     * @param handler 逐行回调
+     */
+    void streamRatings(RatingHandler handler);
+
     /**
      * 获取完整的用户-游戏评分矩阵
      */
@@ -26,4 +38,81 @@ public interface RecommendationRepository {
      * @param limit 返回数量限制
      */
     Map<String, Long> getPopularTags(int limit);
-}
\ No newline at end of file
+
+    /**
+     * 流式读取游戏共现计数(同时推荐两个游戏的用户数)
+     * 每对游戏按两个方向各回调一次，按(游戏A, 游戏B)升序
+     * @param minCommon 最小共同推荐人数
+     * @param handler 逐行回调
+     */
+    void streamItemCooccurrence(int minCommon, CooccurrenceHandler handler);
+
+    /**
+     * 读取用户的偏好标签权重(user_preference表)
+     * @param userId 用户ID
+     * @return 标签→权重
+     */
+    Map<String, Double> findUserPreferences(long userId);
+
+    /**
+     * 按标签累加用户偏好权重，不存在的标签插入；结果限制在[0, maxWeight]
+     * @param userId 用户ID
+     * @param keys 标签
+     * @param delta 权重增量
+     * @param maxWeight 权重上限
+     */
+    void addUserPreferences(long userId, Collection<String> keys, double delta, double maxWeight);
+
+    /**
+     * 删除用户的指定偏好标签
+     * @param userId 用户ID
+     * @param keys 标签
+     */
+    void deleteUserPreferences(long userId, Collection<String> keys);
+
+    /**
+     * 流式读取全部好友关系(friend表，每对好友按两个方向各一行)
+     * @param handler 逐行回调
+     */
+    void streamFriendships(FriendshipHandler handler);
+
+    /**
+     * 共现计数回调
+     */
+    @FunctionalInterface
+    interface CooccurrenceHandler {
+        /**
+         * @param appA 游戏A
+         * @param appB 游戏B
+         * @param common 同时推荐A与B的人数
+         * @param positivesA 推荐A的人数
+         * @param positivesB 推荐B的人数
+         */
+        void accept(long appA, long appB, long common, long positivesA, long positivesB);
+    }
+
+    /**
+     * 评分回调
+     */
+    @FunctionalInterface
+    interface RatingHandler {
+        /**
+         * @param userId 用户ID
+         * @param appId 游戏ID
+         * @param recommended 是否推荐
+         */
+        void accept(long userId, long appId, boolean recommended);
+    }
+
+    /**
+     * 好友关系回调
+     */
+    @FunctionalInterface
+    interface FriendshipHandler {
+        /**
+         * @param userId 用户ID
+         * @param friendId 好友ID
+         */
+        void accept(long userId, long friendId);
+    }
+}
@@ -0,0 +1,7 @@
+package com.wbbb.steam.repository;
+
+import com.wbbb.steam.entity.UserRecommendation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserRecommendationRepository extends JpaRepository<UserRecommendation, Long> {
+}
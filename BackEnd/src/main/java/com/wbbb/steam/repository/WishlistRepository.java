@@ -21,4 +21,13 @@ public interface WishlistRepository extends JpaRepository<WishlistItem, Wishlist
     Integer countAllByUserId(Long userId);
 
     boolean existsByUserIdAndAppId(Long userId, Long appId);
+
+    /** 获取全部愿望单记录(仅用户ID与游戏ID)，用于离线模型训练 */
+    @Query("SELECT w.userId as userId, w.appId as appId FROM WishlistItem w")
+    List<WishlistProjection> getAllWishlistProjection();
+
+    interface WishlistProjection {
+        Long getUserId();
+        Long getAppId();
+    }
 }
@@ -16,6 +16,7 @@ import com.wbbb.steam.entity.App;
 import com.wbbb.steam.entity.User;
 import com.wbbb.steam.repository.AppRepository;
 import com.wbbb.steam.repository.UserRepository;
+import com.wbbb.steam.service.recommend.AppSearchIndexHolder;
 
 import lombok.AllArgsConstructor;
 
@@ -27,6 +28,7 @@ public class AdminService {
     private final AppRepository appRepository;
     private final UserRepository userRepository;
     private final RecommendationService recommendationService;
+    private final AppSearchIndexHolder appSearchIndexHolder;
     
     // ====================== 管理员功能 ======================
     
@@ -53,7 +55,10 @@ public class AdminService {
                 .tags(dto.getTags() != null ? dto.getTags() : new HashSet<>())
                 .popularity(dto.getPopularity())
                 .build();
-        return appRepository.save(app).getAppId();
+        App saved = appRepository.save(app);
+        appSearchIndexHolder.update(saved);
+        recommendationService.refreshCatalog();
+        return saved.getAppId();
     }
 
     /**
@@ -81,7 +86,8 @@ public class AdminService {
         app.setTags(dto.getTags());
         app.setPopularity(dto.getPopularity());
         
-        appRepository.save(app);
+        appSearchIndexHolder.update(appRepository.save(app));
+        recommendationService.refreshCatalog();
     }
 
     /**
@@ -94,6 +100,8 @@ public class AdminService {
             throw new IllegalArgumentException("游戏不存在");
         }
         appRepository.deleteById(appId);
+        appSearchIndexHolder.remove(appId);
+        recommendationService.refreshCatalog();
     }
 
     /**
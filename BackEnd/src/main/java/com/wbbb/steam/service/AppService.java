@@ -6,21 +6,31 @@ import com.wbbb.steam.dto.response.PageDto;
 import com.wbbb.steam.dto.response.data.AppDto;
 import com.wbbb.steam.entity.App;
 import com.wbbb.steam.repository.AppRepository;
+import com.wbbb.steam.service.recommend.AppSearchIndexHolder;
+import com.wbbb.steam.service.recommend.RecommendationMetrics;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Stage;
+import com.wbbb.steam.service.recommend.RecommendationResult;
 import com.wbbb.steam.util.TokenUtil;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
 public class AppService {
+
+    /** 未指定数量时返回的搜索建议数 */
+    private static final int DEFAULT_SUGGESTION_COUNT = 10;
     
     // ====================== 依赖注入 ======================
     private final AppRepository appRepository;
     private final RecommendationService recommendationService;
+    private final RecommendationMetrics recommendationMetrics;
+    private final AppSearchIndexHolder appSearchIndexHolder;
 
  
     
@@ -80,26 +90,24 @@ public class AppService {
     }
     /**
      * 获取搜索建议
+     * 在内存倒排索引中匹配名称、开发商与发行商，每个词都须命中；只为最终的num个游戏查询一次数据库
      * @param keyword 搜索关键词
-     * @param num 返回结果数量
+     * @param num 返回结果数量，为空时返回DEFAULT_SUGGESTION_COUNT个
      * @param token 用户令牌
      * @return 返回匹配的游戏列表，按相关性排序
      */
     public List<AppDto> getAppSearchSuggestions(String keyword, Integer num, String token) {
-        List<String> words = List.of(keyword.toLowerCase().split("\s+"));
-        List<AppDto> appList = new ArrayList<>();
-        Long userId = TokenUtil.parseToken(token);
-        for (int i = 0; i < words.size(); i++) {
-            String word = words.get(i);
-            List<AppDto> temp = appRepository.searchApp(word, userId);
-            if (i == 0)
-                appList.addAll(temp);
-            else
-                appList.retainAll(temp);
+        List<Long> appIds = appSearchIndexHolder.search(keyword, num != null ? num : DEFAULT_SUGGESTION_COUNT);
+        if (appIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        if (appList.size() > num)
-            appList.subList(0, num);
-        return appList;
+        Long userId = TokenUtil.parseToken(token);
+        Map<Long, AppDto> apps = appRepository.getApps(appIds, userId).stream()
+                .collect(Collectors.toMap(AppDto::getAppId, app -> app, (a, b) -> a));
+        return appIds.stream()
+                .map(apps::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     // ====================== 推荐功能 ======================
@@ -123,11 +131,28 @@ public class AppService {
      * @return 返回推荐游戏列表
      */
     public List<AppDto> getRecommendations(String token) {
+        return getRecommendations(token, result -> { });
+    }
+
+    /**
+     * 获取混合推荐结果，并回传推荐来源与计算路径
+     * @param token 用户令牌
+     * @param onResult 使用推荐引擎结果时回调；结果为空、回退到最新游戏时不回调
+     * @return 返回推荐游戏列表
+     */
+    public List<AppDto> getRecommendations(String token, Consumer<RecommendationResult> onResult) {
+        long sqlMark = recommendationMetrics.sqlMark();
         Long userId = token != null ? TokenUtil.parseToken(token) : null;
-        List<Long> recommendedAppIds = recommendationService.recommendGames(userId, 12);
-        return recommendedAppIds != null && !recommendedAppIds.isEmpty() 
-            ? convertToDtos(recommendedAppIds) 
-            : getAppRecommendations(12, token);
+        RecommendationResult recommended = recommendationService.recommend(userId, 12);
+        List<AppDto> result;
+        if (!recommended.appIds().isEmpty()) {
+            onResult.accept(recommended);
+            result = hydrate(recommended.appIds());
+        } else {
+            result = getAppRecommendations(12, token);
+        }
+        recommendationMetrics.sqlStatements(sqlMark);
+        return result;
     }
     
     /**
@@ -137,9 +162,24 @@ public class AppService {
      * @return 返回个性化推荐游戏列表
      */
     public List<AppDto> getPersonalizedRecommendations(String token, int limit) {
+        long sqlMark = recommendationMetrics.sqlMark();
         Long userId = TokenUtil.parseToken(token);
         List<Long> recommendedAppIds = recommendationService.recommendGames(userId, limit);
-        return convertToDtos(recommendedAppIds);
+        List<AppDto> result = hydrate(recommendedAppIds);
+        recommendationMetrics.sqlStatements(sqlMark);
+        return result;
+    }
+
+    /**
+     * 推荐结果转换为DTO，并记录hydrate阶段耗时
+     * @param appIds 推荐游戏ID列表
+     * @return 游戏DTO列表
+     */
+    private List<AppDto> hydrate(List<Long> appIds) {
+        long start = recommendationMetrics.start();
+        List<AppDto> dtos = convertToDtos(appIds);
+        recommendationMetrics.stop(Stage.HYDRATE, start);
+        return dtos;
     }
     
     // ====================== 分页查询 ======================
@@ -7,9 +7,11 @@ import com.wbbb.steam.entity.UserRating;
 import com.wbbb.steam.repository.AppRepository;
 import com.wbbb.steam.repository.UserRatingRepository;
 import com.wbbb.steam.service.UserService;
+import com.wbbb.steam.service.recommend.RatingChangedEvent;
 
 import lombok.AllArgsConstructor;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,7 @@ public class RatingService {
     private final RecommendationService recommendationService;
     private final AppRepository appRepository;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public void submitRating(Long userId, Long appId, Boolean recommended) {
         UserRating rating = new UserRating();
@@ -41,6 +44,10 @@ public class RatingService {
     
         // 更新游戏好评率
         updatePositiveRate(appId);
+
+        // 该用户的推荐结果已过时，评分矩阵与近邻增量更新
+        recommendationService.invalidateUserRecommendations(userId);
+        eventPublisher.publishEvent(RatingChangedEvent.rated(userId, appId, Boolean.TRUE.equals(recommended)));
     }
     
     public UserRatingDto getUserRating(Long userId, Long appId) {
@@ -63,6 +70,8 @@ public class RatingService {
                 .filter(rating -> rating.getUserId().equals(userId))
                 .map(rating -> {
                     userRatingRepository.delete(rating);
+                    recommendationService.invalidateUserRecommendations(userId);
+                    eventPublisher.publishEvent(RatingChangedEvent.removed(userId, rating.getAppId()));
                     return true;
                 })
                 .orElse(false);
@@ -95,6 +104,7 @@ public class RatingService {
                 app.setPositiveRate(positiveRate);
                 app.setReviewCount(totalReviews);
                 appRepository.save(app);
+                recommendationService.onAppStatisticsChanged(appId, null, positiveRate);
             });
         }
     }
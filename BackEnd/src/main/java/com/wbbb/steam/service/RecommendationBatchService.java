@@ -0,0 +1,145 @@
+package com.wbbb.steam.service;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.UserRecommendation;
+import com.wbbb.steam.service.recommend.PrecomputedRecommendationStore;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+import com.wbbb.steam.service.recommend.RatingMatrixHolder;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 推荐列表离线批处理
+ * 每晚为所有有评分记录的用户计算推荐列表并写入user_recommendation表，
+ * 在线请求优先按主键读取，过期或新用户再在线计算。
+ * 用户按块分配给固定大小的线程池，每块计算完成后批量写入。
+ */
+@Service
+@RequiredArgsConstructor
+public class RecommendationBatchService {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationBatchService.class);
+
+    private final RecommendationService recommendationService;
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final PrecomputedRecommendationStore precomputedRecommendationStore;
+    private final RecommendationProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    /**
+     * 定时执行批处理(默认每天凌晨3点)
+     */
+    @Scheduled(cron = "${recommendation.batch.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        if (properties.getBatch().isEnabled()) {
+            run();
+        }
+    }
+
+    /**
+     * 立即执行一次批处理；已有批处理在运行时直接返回
+     * @return 本次运行统计，未执行时返回上一次的统计
+     */
+    public Map<String, Object> run() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("推荐批处理正在运行，跳过本次触发");
+            return lastRun;
+        }
+        RecommendationProperties.Batch batch = properties.getBatch();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, batch.getParallelism()));
+        precomputedRecommendationStore.beginBatch();
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            RatingMatrix matrix = ratingMatrixHolder.get();
+            int userCount = matrix.userCount();
+            int chunkSize = Math.max(1, batch.getChunkSize());
+            AtomicInteger saved = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+
+            List<Future<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < userCount; from += chunkSize) {
+                int chunkStart = from;
+                int chunkEnd = Math.min(userCount, from + chunkSize);
+                chunks.add(executor.submit(() -> {
+                    List<UserRecommendation> rows = new ArrayList<>(chunkEnd - chunkStart);
+                    for (int user = chunkStart; user < chunkEnd; user++) {
+                        long userId = matrix.userId(user);
+                        long computedAt = System.currentTimeMillis();
+                        try {
+                            List<Long> appIds = recommendationService.recommendGamesUncached(userId, batch.getSize());
+                            rows.add(new UserRecommendation(userId,
+                                    appIds.stream().map(String::valueOf).collect(Collectors.joining(",")),
+                                    batch.getSize(), computedAt));
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                            logger.warn("用户{}推荐预计算失败: {}", userId, e.getMessage());
+                        }
+                    }
+                    saved.addAndGet(precomputedRecommendationStore.saveAll(rows));
+                }));
+            }
+            for (Future<?> chunk : chunks) {
+                try {
+                    chunk.get();
+                } catch (ExecutionException e) {
+                    logger.warn("推荐批处理分块失败: {}", e.getCause().getMessage());
+                }
+            }
+
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            double usersPerSecond = millis == 0 ? userCount : userCount * 1000.0 / millis;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("startedAt", startedAt);
+            stats.put("users", userCount);
+            stats.put("saved", saved.get());
+            stats.put("failed", failed.get());
+            stats.put("chunks", chunks.size());
+            stats.put("parallelism", batch.getParallelism());
+            stats.put("totalMillis", millis);
+            stats.put("usersPerSecond", usersPerSecond);
+            lastRun = stats;
+            logger.info("推荐批处理完成 - 用户: {}, 写入: {}, 失败: {}, 耗时: {} ms, 吞吐: {} 用户/秒",
+                    userCount, saved.get(), failed.get(), millis, String.format("%.1f", usersPerSecond));
+            return stats;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("推荐批处理被中断");
+            return lastRun;
+        } finally {
+            executor.shutdownNow();
+            precomputedRecommendationStore.endBatch();
+            running.set(false);
+        }
+    }
+
+    /**
+     * 获取批处理统计
+     * @return 是否正在运行、最近一次运行的用户数、耗时与吞吐
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.getBatch().isEnabled());
+        stats.put("running", running.get());
+        stats.put("lastRun", lastRun);
+        stats.put("serving", precomputedRecommendationStore.getStats());
+        return stats;
+    }
+}
@@ -1,22 +1,57 @@
 // RecommendationService.java
 package com.wbbb.steam.service;
 
-import com.wbbb.steam.entity.App;
+import com.wbbb.steam.config.RecommendationProperties;
 import com.wbbb.steam.entity.RecommendationConfig;
 import com.wbbb.steam.entity.User;
 import com.wbbb.steam.entity.UserRating;
 import com.wbbb.steam.repository.AppRepository;
+import com.wbbb.steam.repository.RecommendationRepository;
 import com.wbbb.steam.repository.UserRatingRepository;
 import com.wbbb.steam.repository.UserRepository;
-import com.wbbb.steam.repository.UserRatingRepository.UserRatingProjection;
+import com.wbbb.steam.service.recommend.AlsModelHolder;
+import com.wbbb.steam.service.recommend.AppCatalog;
+import com.wbbb.steam.service.recommend.AppCatalogHolder;
+import com.wbbb.steam.service.recommend.CandidatePipeline;
+import com.wbbb.steam.service.recommend.CandidateRequest;
+import com.wbbb.steam.service.recommend.CandidateSet;
+import com.wbbb.steam.service.recommend.CollaborativeFiltering;
+import com.wbbb.steam.service.recommend.CollaborativeFilteringPool;
+import com.wbbb.steam.service.recommend.CollaborativeScoringExecutor;
+import com.wbbb.steam.service.recommend.ContentScoring;
+import com.wbbb.steam.service.recommend.FriendGraphHolder;
+import com.wbbb.steam.service.recommend.ItemNeighborIndexHolder;
+import com.wbbb.steam.service.recommend.MinHashLshIndexHolder;
+import com.wbbb.steam.service.recommend.PopularityLeaderboardHolder;
+import com.wbbb.steam.service.recommend.PopularityLeaderboards;
+import com.wbbb.steam.service.recommend.PrecomputedRecommendationStore;
+import com.wbbb.steam.service.recommend.RecommendationCache;
+import com.wbbb.steam.service.recommend.RecommendationCoalescer;
+import com.wbbb.steam.service.recommend.RecommendationEngine;
+import com.wbbb.steam.service.recommend.RecommendationEngineRegistry;
+import com.wbbb.steam.service.recommend.RecommendationMetrics;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Path;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Source;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Stage;
+import com.wbbb.steam.service.recommend.RecommendationResult;
+import com.wbbb.steam.service.recommend.RatingMatrix;
+import com.wbbb.steam.service.recommend.RatingMatrixHolder;
+import com.wbbb.steam.service.recommend.ScoreBuffer;
+import com.wbbb.steam.service.recommend.ShadowEvaluator;
+import com.wbbb.steam.service.recommend.TopKSelector;
+import com.wbbb.steam.service.recommend.UserPreferenceStore;
 
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import lombok.AllArgsConstructor;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -33,17 +68,35 @@ public class RecommendationService {
   private final UserRatingRepository userRatingRepository;  
   private final AppRepository appRepository;
   private final UserRepository userRepository;
+  private final AppCatalogHolder appCatalogHolder;
+  private final RatingMatrixHolder ratingMatrixHolder;
+  private final ItemNeighborIndexHolder itemNeighborIndexHolder;
+  private final RecommendationProperties recommendationProperties;
+  private final RecommendationCache recommendationCache;
+  private final RecommendationCoalescer recommendationCoalescer;
+  private final CollaborativeFilteringPool collaborativeFilteringPool;
+  private final MinHashLshIndexHolder minHashLshIndexHolder;
+  private final AlsModelHolder alsModelHolder;
+  private final PrecomputedRecommendationStore precomputedRecommendationStore;
+  private final RecommendationMetrics recommendationMetrics;
+  private final RecommendationRepository recommendationRepository;
+  private final CandidatePipeline candidatePipeline;
+  private final PopularityLeaderboardHolder popularityLeaderboardHolder;
+  private final CollaborativeScoringExecutor collaborativeScoringExecutor;
+  private final UserPreferenceStore userPreferenceStore;
+  private final FriendGraphHolder friendGraphHolder;
+  private final RecommendationEngineRegistry recommendationEngineRegistry;
+  private final ShadowEvaluator shadowEvaluator;
   private RecommendationConfig recommendationConfig;
 
     // ====================== 系统常量 ======================
-    /** 内容推荐权重(默认0.6) */
-    private static final double CONTENT_WEIGHT = 0.6;
-    /** 协同过滤权重(默认0.4) */
-    private static final double COLLABORATIVE_WEIGHT = 0.4;
-    /** 冷启动阈值(评分少于5个视为新用户) */
-    private static final int COLD_START_THRESHOLD = 5;
     /** 流行度衰减系数 */
-    private static final double POPULARITY_DECAY = 0.95;
+    private static final double POPULARITY_DECAY = AppCatalog.POPULARITY_DECAY;
+    /** 内置混合推荐引擎的名称 */
+    public static final String HYBRID_ENGINE = "hybrid";
+
+    /** 内置混合推荐(内容推荐 + 协同过滤，权重见recommendation.hybrid)，没有注册的引擎与algorithmVersion匹配时使用 */
+    private final RecommendationEngine hybridEngine = RecommendationEngine.of(HYBRID_ENGINE, this::recommendGamesUncached);
 
   
 
@@ -56,89 +109,357 @@ public class RecommendationService {
      * @return 推荐游戏ID列表，按推荐分数降序排列
      */
     public List<Long> recommendGames(Long userId, int limit) {
-        if (userId == null) {
-            return Collections.emptyList();
+        return recommend(userId, limit).appIds();
+    }
+
+    /**
+     * 混合推荐，同时返回结果来源与计算路径
+     * 启用延迟预算时协同过滤超出预算会降级为仅内容推荐或热门排行，降级结果不写入缓存
+     * @param userId 用户ID
+     * @param limit 返回推荐数量
+     * @return 推荐结果
+     */
+    public RecommendationResult recommend(Long userId, int limit) {
+        if (userId == null || limit <= 0) {
+            return RecommendationResult.EMPTY;
+        }
+        List<Long> cached = recommendationCache.isEnabled() ? recommendationCache.get(userId, limit) : null;
+        if (cached != null) {
+            recommendationMetrics.request(Source.CACHE);
+            return new RecommendationResult(cached, Source.CACHE, Path.HYBRID);
+        }
+        // 同一(用户, 数量)的并发请求共享一次计算
+        if (recommendationProperties.isCoalesceRequests()) {
+            return recommendationCoalescer.execute(userId, limit, () -> computeAndCache(userId, limit));
+        }
+        return computeAndCache(userId, limit);
+    }
+
+    /**
+     * 计算推荐结果并写入缓存，降级结果不缓存
+     * @param userId 用户ID
+     * @param limit 返回推荐数量
+     * @return 推荐结果
+     */
+    private RecommendationResult computeAndCache(Long userId, int limit) {
+        if (!recommendationCache.isEnabled()) {
+            return loadOrCompute(userId, limit);
+        }
+        long stamp = recommendationCache.stamp();
+        RecommendationResult result = loadOrCompute(userId, limit);
+        if (!result.isDegraded()) {
+            recommendationCache.put(userId, limit, result.appIds(), stamp);
+        }
+        return result;
+    }
+
+    /**
+     * 按algorithmVersion选择线上引擎：内置混合推荐优先读取离线预计算的推荐列表，未命中(新用户或已过期)时在线计算；
+     * 其他引擎直接在线计算。在线计算的请求按抽样比例交给影子引擎异步对比
+     * @param userId 用户ID
+     * @param limit 返回推荐数量
+     * @return 推荐结果
+     */
+    private RecommendationResult loadOrCompute(Long userId, int limit) {
+        RecommendationEngine engine = productionEngine();
+        if (engine == hybridEngine) {
+            List<Long> precomputed = precomputedRecommendationStore.find(userId, limit, appCatalogHolder.get());
+            if (precomputed != null) {
+                recommendationMetrics.request(Source.PRECOMPUTED);
+                return new RecommendationResult(precomputed, Source.PRECOMPUTED, Path.HYBRID);
+            }
         }
-        List<App> allGames = appRepository.findAll();
+        recommendationMetrics.request(Source.COMPUTED);
+        long start = System.nanoTime();
+        RecommendationResult result = engine == hybridEngine
+                ? computeRecommendations(userId, limit, collaborativeScoringExecutor.isEnabled())
+                : new RecommendationResult(engine.recommend(userId, limit), Source.COMPUTED, Path.HYBRID);
+        long elapsed = System.nanoTime() - start;
+        recommendationMetrics.engine(engine.name(), elapsed);
+        shadowEvaluator.evaluate(recommendationEngineRegistry.find(shadowEvaluator.engineName(), hybridEngine),
+                engine, userId, limit, result.appIds(), elapsed);
+        return result;
+    }
+
+    /** 当前algorithmVersion对应的线上引擎 */
+    private RecommendationEngine productionEngine() {
+        String version = recommendationConfig == null ? null : recommendationConfig.getAlgorithmVersion();
+        return recommendationEngineRegistry.select(version, hybridEngine);
+    }
+
+    /**
+     * 在线计算推荐结果，不读写结果缓存与预计算结果，也不受延迟预算限制
+     * 供离线批处理使用
+     * @param userId 用户ID
+     * @param limit 返回推荐数量
+     * @return 推荐游戏ID列表，按推荐分数降序排列
+     */
+    public List<Long> recommendGamesUncached(Long userId, int limit) {
+        return computeRecommendations(userId, limit, false).appIds();
+    }
+
+    /**
+     * 计算混合推荐结果(不经过缓存)
+     * 有预算时协同过滤提交到专用线程池，与内容推荐并发执行；内容推荐完成后最多等到预算截止，
+     * 超时、被拒绝或失败时丢弃协同过滤分数，只按内容分数排序，内容分数也为空时返回全站热门排行
+     * @param userId 用户ID
+     * @param limit 返回推荐数量
+     * @param budgeted 是否受延迟预算限制
+     * @return 推荐结果
+     */
+    private RecommendationResult computeRecommendations(Long userId, int limit, boolean budgeted) {
+        long stageStart = recommendationMetrics.start();
+        long deadline = budgeted ? stageStart + collaborativeScoringExecutor.budgetNanos() : 0;
+        AppCatalog catalog = appCatalogHolder.get();
         List<UserRating> userRatings = userRatingRepository.findByUserId(userId);
-        boolean isColdStart = userRatings.size() < COLD_START_THRESHOLD;
-        
-        Map<Long, Double> contentScores = contentBasedFiltering(userId, allGames);
+        stageStart = recommendationMetrics.stop(Stage.LOAD, stageStart);
+        RecommendationProperties.Hybrid hybrid = recommendationProperties.getHybrid();
+        boolean isColdStart = userRatings.size() < hybrid.getColdStartThreshold();
+
+        double contentWeightAdjusted = isColdStart ? hybrid.getColdStartContentWeight() : hybrid.getContentWeight();
+        double collaborativeWeightAdjusted = isColdStart
+                ? hybrid.getColdStartCollaborativeWeight() : hybrid.getCollaborativeWeight();
+
+        // 两阶段模式：先由候选生成器产出有界候选，后续只对候选打分排序
+        CandidateSet candidates = null;
+        Set<String> preferenceTags = null;
+        if (candidatePipeline.isEnabled()) {
+            preferenceTags = getUserPreferenceTags(userId, userRatings, catalog);
+            candidates = candidatePipeline.generate(candidateRequest(userId, userRatings, catalog, preferenceTags));
+            stageStart = recommendationMetrics.stop(Stage.CANDIDATES, stageStart);
+        }
+
+        // 协同过滤线程只计算分数，合并在请求线程上进行；其执行的SQL语句数在合并时计入请求线程
+        Future<Map<Long, Double>> collaborative = null;
+        AtomicLong collaborativeSql = new AtomicLong();
+        if (budgeted) {
+            collaborative = collaborativeScoringExecutor.submit(() -> {
+                long sqlMark = recommendationMetrics.sqlMark();
+                try {
+                    return collaborativeScoring(userId);
+                } finally {
+                    collaborativeSql.set(recommendationMetrics.sqlMark() - sqlMark);
+                }
+            });
+        }
+
+        // 按目录下标累加加权分数，缓冲区为线程私有并复用
+        double[] scores = ScoreBuffer.zeroed(catalog.size());
+        contentBasedFiltering(userId, userRatings, catalog, contentWeightAdjusted, scores, preferenceTags, candidates);
+        stageStart = recommendationMetrics.stop(Stage.CONTENT, stageStart);
+
+        Path path = Path.HYBRID;
+        Map<Long, Double> collaborativeScores;
+        if (!budgeted) {
+            collaborativeScores = collaborativeScoring(userId);
+        } else {
+            collaborativeScores = awaitCollaborative(collaborative, deadline);
+            recommendationMetrics.sqlAttributed(collaborativeSql.get());
+            recommendationMetrics.stop(Stage.WAIT, stageStart);
+        }
+        stageStart = recommendationMetrics.start();
+        if (collaborativeScores != null) {
+            mergeScores(catalog, scores, collaborativeScores, collaborativeWeightAdjusted);
+            stageStart = recommendationMetrics.stop(Stage.MERGE, stageStart);
+        } else {
+            path = hasScores(catalog, scores, candidates) ? Path.CONTENT_ONLY : Path.POPULARITY;
+        }
+
+        List<Long> result;
+        if (path == Path.POPULARITY) {
+            result = popularRecommendations(limit);
+        } else {
+            result = candidates != null
+                    ? rankCandidates(catalog, scores, limit, candidates)
+                    : rankTopK(catalog, scores, limit);
+        }
+        recommendationMetrics.stop(Stage.RANK, stageStart);
+        recommendationMetrics.path(path);
+        return new RecommendationResult(result, Source.COMPUTED, path);
+    }
+
+    /**
+     * 协同过滤打分，记录CF阶段耗时
+     * @param userId 用户ID
+     * @return 游戏ID到协同过滤推荐分数的映射
+     */
+    private Map<Long, Double> collaborativeScoring(Long userId) {
+        long stageStart = recommendationMetrics.start();
         Map<Long, Double> collaborativeScores = collaborativeFiltering(userId);
-        
-        Map<Long, Double> finalScores = new HashMap<>();
-        double contentWeightAdjusted = isColdStart ? 0.9 : CONTENT_WEIGHT;
-        double collaborativeWeightAdjusted = isColdStart ? 0.1 : COLLABORATIVE_WEIGHT;
-        
-        allGames.forEach(game -> {
-            double score = contentWeightAdjusted * contentScores.getOrDefault(game.getAppId(), 0.0)
-                    + collaborativeWeightAdjusted * collaborativeScores.getOrDefault(game.getAppId(), 0.0);
-            finalScores.put(game.getAppId(), score);
+        recommendationMetrics.cfCandidates(collaborativeScores.size());
+        recommendationMetrics.stop(Stage.CF, stageStart);
+        return collaborativeScores;
+    }
+
+    /**
+     * 等待协同过滤结果，最多等到截止时间
+     * @param collaborative 任务句柄，提交被拒绝时为null
+     * @param deadline 截止时间(纳秒)
+     * @return 协同过滤分数，超时、被拒绝或失败时返回null
+     */
+    private Map<Long, Double> awaitCollaborative(Future<Map<Long, Double>> collaborative, long deadline) {
+        if (collaborative == null) {
+            return null;
+        }
+        try {
+            return collaborative.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            collaborative.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            collaborative.cancel(true);
+            return null;
+        }
+    }
+
+    /** 将协同过滤分数按权重累加到内容分数；有候选集时排序只看候选，目录外的游戏忽略 */
+    private void mergeScores(AppCatalog catalog, double[] scores, Map<Long, Double> collaborativeScores,
+                             double weight) {
+        collaborativeScores.forEach((appId, score) -> {
+            int index = catalog.indexOf(appId);
+            if (index >= 0) scores[index] += weight * score;
         });
-        
-        return finalScores.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+    }
+
+    /** 是否有任何游戏得到了分数 */
+    private boolean hasScores(AppCatalog catalog, double[] scores, CandidateSet candidates) {
+        if (candidates != null) {
+            for (int c = 0; c < candidates.size(); c++) {
+                if (scores[candidates.index(c)] != 0) return true;
+            }
+            return false;
+        }
+        for (int i = 0; i < catalog.size(); i++) {
+            if (scores[i] != 0) return true;
+        }
+        return false;
+    }
+
+    /** 全站热门排行的前limit个游戏 */
+    private List<Long> popularRecommendations(int limit) {
+        PopularityLeaderboards leaderboards = popularityLeaderboardHolder.get();
+        int[] top = leaderboards.top(limit);
+        List<Long> result = new ArrayList<>(top.length);
+        for (int index : top) {
+            result.add(leaderboards.catalog().appId(index));
+        }
+        return result;
+    }
+
+    /**
+     * 构建候选生成的请求上下文
+     */
+    private CandidateRequest candidateRequest(Long userId, List<UserRating> userRatings, AppCatalog catalog,
+                                              Set<String> preferenceTags) {
+        Set<Long> rated = new HashSet<>();
+        Set<Long> liked = new HashSet<>();
+        for (UserRating rating : userRatings) {
+            rated.add(rating.getAppId());
+            if (Boolean.TRUE.equals(rating.getRecommended())) liked.add(rating.getAppId());
+        }
+        return new CandidateRequest(userId, catalog, rated, liked, preferenceTags);
+    }
+
+    /**
+     * 从分数缓冲区中选出分数最高的limit个游戏
+     * 使用有界小顶堆，内存占用只与limit有关；分数相同时目录中靠前的游戏优先
+     * @param catalog 游戏目录
+     * @param scores 按目录下标存放的分数
+     * @param limit 返回数量
+     * @return 游戏ID列表，按分数降序排列
+     */
+    private List<Long> rankTopK(AppCatalog catalog, double[] scores, int limit) {
+        int size = catalog.size();
+        TopKSelector selector = new TopKSelector(Math.min(limit, size));
+        int scored = 0;
+        for (int i = 0; i < size; i++) {
+            if (scores[i] != 0) scored++;
+            selector.offer(i, scores[i]);
+        }
+        recommendationMetrics.scoredCandidates(scored);
+        return drain(catalog, selector);
+    }
+
+    /**
+     * 只在候选游戏中选出分数最高的limit个游戏，排序规则同rankTopK
+     */
+    private List<Long> rankCandidates(AppCatalog catalog, double[] scores, int limit, CandidateSet candidates) {
+        TopKSelector selector = new TopKSelector(Math.min(limit, candidates.size()));
+        int scored = 0;
+        for (int c = 0; c < candidates.size(); c++) {
+            int i = candidates.index(c);
+            if (scores[i] != 0) scored++;
+            selector.offer(i, scores[i]);
+        }
+        recommendationMetrics.scoredCandidates(scored);
+        return drain(catalog, selector);
+    }
+
+    private List<Long> drain(AppCatalog catalog, TopKSelector selector) {
+        int[] topIndexes = new int[selector.size()];
+        int count = selector.drainDescending(topIndexes, new double[topIndexes.length]);
+
+        List<Long> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(catalog.appId(topIndexes[i]));
+        }
+        return result;
     }
 
     // ====================== 内容推荐模块 ======================
 
     /**
      * 基于内容的推荐算法
+     * 将加权后的内容分数累加到分数缓冲区
      * @param userId 用户ID
-     * @param allGames 所有游戏列表
-     * @return 游戏ID到内容推荐分数的映射
+     * @param userRatings 用户的全部评分
+     * @param catalog 游戏目录
+     * @param weight 内容推荐权重
+     * @param scores 按目录下标存放的分数
+     * @param preferenceTags 已读取的用户偏好标签，为null时按需读取
+     * @param candidates 候选游戏，为null时对全目录打分
      */
-    private Map<Long, Double> contentBasedFiltering(Long userId, List<App> allGames) {
-        Map<String, Double> userVector = getUserPreferenceVector(userId);
+    private void contentBasedFiltering(Long userId, List<UserRating> userRatings, AppCatalog catalog,
+                                       double weight, double[] scores, Set<String> preferenceTags,
+                                       CandidateSet candidates) {
+        Map<String, Double> userVector = getUserPreferenceVector(userRatings, catalog);
         if (userVector.isEmpty()) {
-            return getColdStartRecommendations(allGames, userId);
+            getColdStartRecommendations(catalog, userId, weight, scores, preferenceTags);
+            return;
+        }
+
+        Set<String> userTags = preferenceTags != null ? preferenceTags : getUserPreferenceTags(userId, userRatings, catalog);
+        long[] userBits = catalog.tagDictionary().encode(userTags);
+        if (candidates != null) {
+            ContentScoring.accumulate(catalog, userBits, userTags.size(), weight, scores, candidates);
+        } else {
+            ContentScoring.accumulate(catalog, userBits, userTags.size(), weight, scores);
         }
-        
-        Map<Long, Double> gameScores = new HashMap<>();
-        Set<String> userTags = getUserPreferenceTags(userId);
-        
-        allGames.forEach(game -> {
-            if (game.getTags() == null || game.getTags().isEmpty()) {
-                gameScores.put(game.getAppId(), 0.0);
-                return;
-            }
-            
-            Set<String> gameTags = new HashSet<>(game.getTags());
-            gameTags.retainAll(userTags);
-            double similarity = (double) gameTags.size() / (userTags.size() + game.getTags().size() - gameTags.size());
-            double popularityScore = game.getPopularity() != null ? 
-                game.getPopularity().doubleValue() * Math.pow(POPULARITY_DECAY, allGames.indexOf(game)) : 0;
-            
-            gameScores.put(game.getAppId(), 0.7 * similarity + 0.3 * popularityScore);
-        });
-        
-        return gameScores;
     }
 
     /**
      * 获取用户偏好向量
-     * @param userId 用户ID
+     * 游戏标签从目录快照读取，不再逐条评分查询数据库
+     * @param ratings 用户的全部评分
+     * @param catalog 游戏目录
      * @return 标签到权重的映射(归一化到0-1)
      */
-    private Map<String, Double> getUserPreferenceVector(Long userId) {
+    private Map<String, Double> getUserPreferenceVector(List<UserRating> ratings, AppCatalog catalog) {
         Map<String, Double> vector = new HashMap<>();
-        List<UserRating> ratings = userRatingRepository.findByUserId(userId);
         if (ratings.isEmpty()) return vector;
-    
+
         ratings.forEach(rating -> {
-            App app = appRepository.findById(rating.getAppId()).orElse(null);
-            if (app != null && app.getTags() != null) {
+            int index = catalog.indexOf(rating.getAppId());
+            if (index >= 0) {
                 // 将推荐状态转换为评分值：推荐=1.0，不推荐=0.0
                 double ratingValue = rating.getRecommended() ? 1.0 : 0.0;
-                app.getTags().forEach(tag -> {
+                catalog.tags(index).forEach(tag -> {
                     vector.put(tag, vector.getOrDefault(tag, 0.0) + ratingValue);
                 });
             }
         });
-    
+
         double maxWeight = vector.values().stream().max(Double::compare).orElse(1.0);
         vector.replaceAll((k, v) -> v / maxWeight);
         return vector;
@@ -146,125 +467,93 @@ public class RecommendationService {
 
     /**
      * 冷启动推荐(新用户或无评分用户)
-     * @param allGames 所有游戏列表
+     * 从内存中的热度排行榜取候选：有偏好标签时归并各标签的排行榜，否则取全站排行，不查询游戏表；
+     * 将加权后的冷启动分数累加到分数缓冲区，同一用户在同一时间窗口内结果相同
+     * @param catalog 游戏目录
      * @param userId 用户ID
-     * @return 游戏ID到冷启动推荐分数的映射
+     * @param weight 内容推荐权重
+     * @param scores 按目录下标存放的分数
+     * @param preferenceTags 已读取的用户偏好标签，为null时读取User.tags
      */
-    private Map<Long, Double> getColdStartRecommendations(List<App> allGames, Long userId) {
-        Map<Long, Double> scores = new HashMap<>();
-        Optional<User> userOpt = userRepository.findById(userId);
-        
-        if (userOpt.isPresent() && userOpt.get().getTags() != null && !userOpt.get().getTags().isEmpty()) {
-            Set<String> tagsSet = Arrays.stream(userOpt.get().getTags().split(","))
-                .map(String::trim)
-                .collect(Collectors.toSet());
-            allGames.forEach(game -> {
-                Set<String> gameTags = game.getTags();
-                double tagMatchScore = tagsSet.stream()
-                    .filter(gameTags::contains)
-                    .count() / (double) tagsSet.size();
-                scores.put(game.getAppId(), tagMatchScore);
-            });
+    private void getColdStartRecommendations(AppCatalog catalog, Long userId, double weight, double[] scores,
+                                             Set<String> preferenceTags) {
+        Set<String> tagsSet = preferenceTags != null ? preferenceTags : getUserTags(userId);
+        tagsSet = tagsSet.stream().filter(tag -> !tag.isEmpty()).collect(Collectors.toSet());
+        // 随机扰动按(用户, 时间窗口)取种子，同一窗口内结果稳定，便于缓存
+        long window = System.currentTimeMillis() / Math.max(1, recommendationProperties.getColdStartWindowMs());
+        Random rand = new Random(userId * 0x9E3779B97F4A7C15L ^ window);
+
+        PopularityLeaderboards leaderboards = popularityLeaderboardHolder.get();
+        AppCatalog ranked = leaderboards.catalog();
+        int size = recommendationProperties.getLeaderboard().getColdStartSize();
+        int[] bits = tagsSet.stream().mapToInt(tag -> ranked.tagDictionary().bitOf(tag)).filter(bit -> bit >= 0).toArray();
+
+        if (bits.length > 0) {
+            long[] userBits = catalog.tagDictionary().encode(tagsSet);
+            for (int entry : leaderboards.topForTags(bits, size)) {
+                int i = ranked == catalog ? entry : catalog.indexOf(ranked.appId(entry));
+                if (i < 0) continue;
+                double tagMatchScore = catalog.commonTagCount(i, userBits) / (double) tagsSet.size();
+                scores[i] += weight * (tagMatchScore * 0.8 + rand.nextDouble() * 0.2);
+            }
         } else {
-            Page<App> hotGames = appRepository.findTop100ByOrderByPopularityDesc(PageRequest.of(0, 100));
-            hotGames.getContent().forEach(game -> 
-                scores.put(game.getAppId(), game.getPopularity() != null ? game.getPopularity().doubleValue() : 0.0));
+            for (int entry : leaderboards.top(size)) {
+                int i = ranked == catalog ? entry : catalog.indexOf(ranked.appId(entry));
+                if (i < 0) continue;
+                scores[i] += weight * (catalog.popularity(i) * 0.8 + rand.nextDouble() * 0.2);
+            }
         }
-        
-        Random rand = new Random();
-        scores.replaceAll((k, v) -> v * 0.8 + rand.nextDouble() * 0.2);
-        return scores;
+    }
+
+    /**
+     * 读取用户的偏好标签：资料中设置的标签(User.tags)与评分积累的权重最高的标签
+     * @param userId 用户ID
+     * @return 标签集合，都没有时为空
+     */
+    private Set<String> getUserTags(Long userId) {
+        Set<String> tags = new HashSet<>();
+        userRepository.findById(userId)
+                .map(User::getTags)
+                .ifPresent(profile -> Arrays.stream(profile.split(","))
+                        .map(String::trim)
+                        .filter(tag -> !tag.isEmpty())
+                        .forEach(tags::add));
+        tags.addAll(userPreferenceStore.topTags(userId, recommendationProperties.getPreferences().getMaxTags()));
+        return tags;
     }
 
     // ====================== 协同过滤模块 ======================
 
     /**
-     * 基于用户的协同过滤算法
+     * 协同过滤算法
+     * 默认使用离线近邻索引做基于物品的协同过滤，可通过recommendation.collaborative-mode=user切换为基于用户；
+     * 基于用户时工作量较大的请求在专用线程池中并行计算；lsh模式只对LSH索引给出的候选用户计算相似度；
+     * social模式只在好友与好友的好友中找近邻，社交近邻过少或没有打分结果时回退到基于物品的协同过滤
      * @param userId 目标用户ID
      * @return 游戏ID到协同过滤推荐分数的映射
      */
     private Map<Long, Double> collaborativeFiltering(Long userId) {
-        Map<Long, Double> gameScores = new HashMap<>();
-        List<UserRating> userRatings = userRatingRepository.findByUserId(userId);
-        if (userRatings.isEmpty()) return gameScores;
-        
-        Map<Long, Double> userSimilarities = new HashMap<>();
-        Map<Long, Map<Long, Double>> userRatingMap = getAllRatings(); // 改为调用本地方法
-        Map<Long, Double> currentUserRatings = userRatingMap.getOrDefault(userId, Collections.emptyMap());
-        
-        for (Map.Entry<Long, Map<Long, Double>> entry : userRatingMap.entrySet()) {
-            Long otherUserId = entry.getKey();
-            if (otherUserId.equals(userId)) continue;
-            
-            Map<Long, Double> otherUserRatings = entry.getValue();
-            double similarity = calculateRatingSimilarity(currentUserRatings, otherUserRatings);
-            if (similarity > 0) {
-                userSimilarities.put(otherUserId, similarity);
+        if ("social".equalsIgnoreCase(recommendationProperties.getCollaborativeMode())) {
+            RecommendationProperties.Social social = recommendationProperties.getSocial();
+            Map<Long, Double> scores = CollaborativeFiltering.userBasedSocial(ratingMatrixHolder.get(),
+                    friendGraphHolder.get(), userId, social.getMaxNeighbors(), social.getFriendWeight(),
+                    social.getMinNeighbors());
+            friendGraphHolder.recordScoring(scores.isEmpty());
+            if (!scores.isEmpty()) {
+                return scores;
             }
         }
-        
-        Set<Long> candidateGames = new HashSet<>();
-        for (Long similarUserId : userSimilarities.keySet()) {
-            candidateGames.addAll(userRatingMap.get(similarUserId).keySet());
+        if ("lsh".equalsIgnoreCase(recommendationProperties.getCollaborativeMode())) {
+            MinHashLshIndexHolder.Snapshot snapshot = minHashLshIndexHolder.get();
+            return CollaborativeFiltering.userBasedLsh(snapshot.matrix(), snapshot.index(), userId,
+                    recommendationProperties.getLsh().getMaxCandidates());
         }
-        candidateGames.removeAll(currentUserRatings.keySet());
-        
-        for (Long gameId : candidateGames) {
-            double scoreSum = 0;
-            double similaritySum = 0;
-            
-            for (Map.Entry<Long, Double> entry : userSimilarities.entrySet()) {
-                Long similarUserId = entry.getKey();
-                double similarity = entry.getValue();
-                Map<Long, Double> similarUserRatings = userRatingMap.getOrDefault(similarUserId, Collections.emptyMap());
-                if (similarUserRatings.containsKey(gameId)) {
-                    scoreSum += similarity * similarUserRatings.get(gameId);
-                    similaritySum += similarity;
-                }
-            }
-            
-            if (similaritySum > 0) {
-                gameScores.put(gameId, scoreSum / similaritySum);
-            }
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        if ("user".equalsIgnoreCase(recommendationProperties.getCollaborativeMode())) {
+            return CollaborativeFiltering.userBased(matrix, userId,
+                    collaborativeFilteringPool.pool(), collaborativeFilteringPool.sequentialCutoff());
         }
-        
-        return gameScores;
-    }
-
-    // ====================== 相似度计算 ======================
-    private Map<Long, Map<Long, Double>> getAllRatings() {
-        return userRatingRepository.getAllRatingsProjection().stream()
-            .collect(Collectors.groupingBy(
-                UserRatingProjection::getUserId,
-                Collectors.toMap(
-                    UserRatingProjection::getAppId,
-                    projection -> projection.getRecommended() ? 1.0 : 0.0
-                )
-            ));
-    }
-    
-    /**
-     * 计算评分相似度(皮尔逊相关系数)
-     * @param v1 用户1的评分向量
-     * @param v2 用户2的评分向量
-     * @return 相似度分数
-     */
-    private double calculateRatingSimilarity(Map<Long, Double> v1, Map<Long, Double> v2) {
-        double dotProduct = 0;
-        double norm1 = 0;
-        double norm2 = 0;
-        Set<Long> common = new HashSet<>(v1.keySet());
-        common.retainAll(v2.keySet());
-        
-        if (common.isEmpty()) return 0;
-        
-        for (Long key : common) {
-            dotProduct += v1.get(key) * v2.get(key);
-        }
-        for (Double value : v1.values()) norm1 += value * value;
-        for (Double value : v2.values()) norm2 += value * value;
-        
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return CollaborativeFiltering.itemBased(matrix, itemNeighborIndexHolder.get(), userId);
     }
 
     // ====================== 标签管理 ======================
@@ -283,37 +572,33 @@ public class RecommendationService {
         User user = userOpt.get();
         user.setTags(tags);
         userRepository.save(user);
+        invalidateUserRecommendations(userId);
         return true;
     }
 
     /**
      * 获取用户偏好标签集合
+     * 用户既未设置标签也没有积累偏好时，从其推荐过的游戏中提取(标签读取自目录快照)
      * @param userId 用户ID
+     * @param ratings 用户的全部评分
+     * @param catalog 游戏目录
      * @return 用户偏好标签集合
      */
-    private Set<String> getUserPreferenceTags(Long userId) {
-        Optional<User> userOpt = userRepository.findById(userId);
-        if (userOpt.isPresent() && userOpt.get().getTags() != null) {
-            return Arrays.stream(userOpt.get().getTags().split(","))
-                .map(String::trim)
-                .collect(Collectors.toSet());
+    private Set<String> getUserPreferenceTags(Long userId, List<UserRating> ratings, AppCatalog catalog) {
+        Set<String> tags = getUserTags(userId);
+        if (!tags.isEmpty()) {
+            return tags;
         }
-        
-        List<UserRating> ratings = userRatingRepository.findByUserId(userId);
+
         if (ratings.isEmpty()) return Collections.emptySet();
-        
-        List<Long> highRatedGameIds = ratings.stream()
-                .filter(UserRating::getRecommended) // 只选择用户推荐的游戏
-                .map(UserRating::getAppId)
-                .collect(Collectors.toList());
-        
+
         Set<String> extractedTags = new HashSet<>();
-        highRatedGameIds.forEach(gameId -> {
-            appRepository.findById(gameId).ifPresent(game -> {
-                if (game.getTags() != null) extractedTags.addAll(game.getTags());
-            });
-        });
-        
+        ratings.stream()
+                .filter(UserRating::getRecommended) // 只选择用户推荐的游戏
+                .mapToInt(rating -> catalog.indexOf(rating.getAppId()))
+                .filter(index -> index >= 0)
+                .forEach(index -> extractedTags.addAll(catalog.tags(index)));
+
         return extractedTags;
     }
 
@@ -325,13 +610,93 @@ public class RecommendationService {
      */
     public Map<String, Double> getRecommendationParameters() {
         return Map.of(
-            "contentWeight", CONTENT_WEIGHT,
-            "collaborativeWeight", COLLABORATIVE_WEIGHT,
-            "coldStartThreshold", (double) COLD_START_THRESHOLD,
+            "contentWeight", getContentWeight(),
+            "collaborativeWeight", getCollaborativeWeight(),
+            "coldStartThreshold", (double) getColdStartThreshold(),
             "popularityDecay", POPULARITY_DECAY
         );
     }
 
+    /**
+     * 获取推荐模型运行统计
+     * @return 各内存模型的规模、内存占用与构建耗时，以及结果缓存与请求合并情况
+     */
+    public Map<String, Object> getModelStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("catalog", appCatalogHolder.get().getStats());
+        stats.put("leaderboards", popularityLeaderboardHolder.get().getStats());
+        Map<String, Object> matrixStats = ratingMatrixHolder.get().getStats();
+        matrixStats.put("loadPeakHeapBytes", ratingMatrixHolder.getLastLoadPeakHeapBytes());
+        stats.put("ratingMatrix", matrixStats);
+        stats.put("itemNeighbors", itemNeighborIndexHolder.get().getStats());
+        if ("lsh".equalsIgnoreCase(recommendationProperties.getCollaborativeMode())) {
+            stats.put("userLsh", minHashLshIndexHolder.get().index().getStats());
+        }
+        if ("social".equalsIgnoreCase(recommendationProperties.getCollaborativeMode())) {
+            stats.put("friendGraph", friendGraphHolder.getStats());
+        }
+        stats.put("als", alsModelHolder.getStats());
+        stats.put("candidates", candidatePipeline.getStats());
+        stats.put("budget", collaborativeScoringExecutor.getStats());
+        Map<String, Object> engines = new LinkedHashMap<>();
+        engines.put("production", productionEngine().name());
+        engines.put("registered", recommendationEngineRegistry.names());
+        engines.put("shadow", shadowEvaluator.getStats());
+        stats.put("engines", engines);
+        stats.put("preferences", userPreferenceStore.getStats());
+        stats.put("resultCache", recommendationCache.getStats());
+        stats.put("precomputed", precomputedRecommendationStore.getStats());
+        stats.put("coalescing", recommendationCoalescer.getStats());
+        return stats;
+    }
+
+    /**
+     * 获取标签聚合统计(由数据库聚合)
+     * @param tag 标签名称
+     * @return 游戏数、平均评分、评分数与好评率
+     */
+    public Map<String, Object> getTagStatistics(String tag) {
+        return recommendationRepository.getTagAggregationStats(tag);
+    }
+
+    /**
+     * 获取热门标签(按包含该标签的游戏数降序，由数据库聚合)
+     * @param limit 返回数量
+     * @return 标签→游戏数
+     */
+    public Map<String, Long> getPopularTags(int limit) {
+        return recommendationRepository.getPopularTags(limit);
+    }
+
+    /**
+     * 立即刷新游戏目录快照，并清空推荐结果缓存
+     * 管理员新增、修改或删除游戏后调用
+     */
+    public void refreshCatalog() {
+        appCatalogHolder.refresh();
+        recommendationCache.invalidateAll();
+    }
+
+    /**
+     * 游戏的热度或好评率发生变化，排行榜在下一次后台刷新时重建
+     * @param appId 游戏ID
+     * @param popularity 新热度，未变化时为null
+     * @param positiveRate 新好评率(0-100)，未变化时为null
+     */
+    public void onAppStatisticsChanged(Long appId, Integer popularity, Double positiveRate) {
+        popularityLeaderboardHolder.update(appId, popularity, positiveRate);
+    }
+
+    /**
+     * 使某个用户的推荐结果缓存失效
+     * 用户评分或偏好标签变化后调用
+     * @param userId 用户ID
+     */
+    public void invalidateUserRecommendations(Long userId) {
+        recommendationCache.invalidate(userId);
+        precomputedRecommendationStore.invalidate(userId);
+    }
+
     public boolean updateRecommendationParameters(Map<String, Double> parameters) {
         try {
             // 实际项目应在此处更新配置存储
@@ -345,30 +710,35 @@ public class RecommendationService {
         return recommendationConfig;
     }
 
+    /**
+     * 替换推荐配置，algorithmVersion变化时切换线上引擎，因此清空推荐结果缓存
+     * @param config 新配置
+     * @return 当前配置
+     */
     public RecommendationConfig updateConfig(RecommendationConfig config) {
         this.recommendationConfig = config;
+        recommendationCache.invalidateAll();
         return recommendationConfig;
     }
 
     public RecommendationConfig updateRecommendationConfig(RecommendationConfig config) {
-        this.recommendationConfig = config;
-        return recommendationConfig;
+        return updateConfig(config);
     }
 
     // 添加在getRecommendationParameters方法附近
     /** 获取内容推荐权重 */
     public double getContentWeight() {
-        return CONTENT_WEIGHT;
+        return recommendationProperties.getHybrid().getContentWeight();
     }
     
     /** 获取协同过滤权重 */
     public double getCollaborativeWeight() {
-        return COLLABORATIVE_WEIGHT;
+        return recommendationProperties.getHybrid().getCollaborativeWeight();
     }
     
     /** 获取冷启动阈值 */
     public int getColdStartThreshold() {
-        return COLD_START_THRESHOLD;
+        return recommendationProperties.getHybrid().getColdStartThreshold();
     }
     
     /** 获取流行度衰减系数 */
@@ -378,28 +748,16 @@ public class RecommendationService {
     
     /**
      * 更新用户偏好
+     * 按游戏标签累加有上限的偏好权重(user_preference表)，不再追加到User.tags
      * @param userId 用户ID
      * @param gameTags 游戏标签集合
-     * @param score 评分
+     * @param score 评分，大于0表示推荐
      */
     public void updateUserPreferences(Long userId, Set<String> gameTags, Double score) {
-        Optional<User> userOpt = userRepository.findById(userId);
-        if (!userOpt.isPresent()) {
+        if (userId == null || gameTags == null || !userRepository.existsById(userId)) {
             return;
         }
-        
-        User user = userOpt.get();
-        String currentTags = user.getTags();
-        String newTags = String.join(",", gameTags);
-        
-        // 根据评分权重合并标签
-        if (currentTags == null || currentTags.isEmpty()) {
-            user.setTags(newTags);
-        } else {
-            int repeat = Math.min(5, (int) Math.round(score));
-            user.setTags(currentTags + "," + String.join(",", Collections.nCopies(repeat, newTags)));
-        }
-        
-        userRepository.save(user);
+        userPreferenceStore.update(userId, gameTags, score != null && score > 0);
+        invalidateUserRecommendations(userId);
     }
 }
\ No newline at end of file
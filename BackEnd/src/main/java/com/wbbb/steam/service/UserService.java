@@ -43,6 +43,7 @@ public class UserService {
     private final UserRatingRepository userRatingRepository;
     private final AppRepository appRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final RecommendationService recommendationService;
 
     /**
      * 登录
@@ -202,6 +203,9 @@ public class UserService {
         }
         
         userRepository.save(user);
+        if (profileUpdateDto.getTags() != null) {
+            recommendationService.invalidateUserRecommendations(userId);
+        }
         return true;
     }
 
@@ -0,0 +1,182 @@
+package com.wbbb.steam.service.recommend;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ALS矩阵分解模型(只读快照)
+ * 用户与游戏各有一个rank维隐向量，按下标平铺在FloatBuffer中(训练得到的模型为堆数组，从快照加载的模型为映射文件)；预测偏好为两个向量的点积。
+ * 用户与游戏下标与训练时的评分矩阵一致(ID升序)。
+ */
+public final class AlsModel {
+
+    private final long[] userIds;
+    private final long[] appIds;
+    private final int rank;
+    /** 第u个用户的向量占用[u*rank, (u+1)*rank)；从快照加载时为映射文件的视图 */
+    private final FloatBuffer userFactors;
+    /** 第i个游戏的向量占用[i*rank, (i+1)*rank)；从快照加载时为映射文件的视图 */
+    private final FloatBuffer itemFactors;
+    private final int iterations;
+    private final long trainMillis;
+    private final long builtAt;
+
+    AlsModel(long[] userIds, long[] appIds, int rank, FloatBuffer userFactors, FloatBuffer itemFactors,
+             int iterations, long trainMillis, long builtAt) {
+        this.userIds = userIds;
+        this.appIds = appIds;
+        this.rank = rank;
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+        this.iterations = iterations;
+        this.trainMillis = trainMillis;
+        this.builtAt = builtAt;
+    }
+
+    // ====================== 快照 ======================
+
+    /** 写入快照分段 */
+    void writeTo(ModelSnapshot.Encoder out) {
+        out.putInt(rank);
+        out.putInt(iterations);
+        out.putLong(trainMillis);
+        out.putLong(builtAt);
+        out.putLongs(userIds);
+        out.putLongs(appIds);
+        out.putFloats(userFactors);
+        out.putFloats(itemFactors);
+    }
+
+    /** 从快照分段恢复，向量直接引用映射内存 */
+    static AlsModel readFrom(ModelSnapshot.Decoder in) {
+        int rank = in.getInt();
+        int iterations = in.getInt();
+        long trainMillis = in.getLong();
+        long builtAt = in.getLong();
+        return new AlsModel(in.getLongs(), in.getLongs(), rank, in.mapFloats(), in.mapFloats(),
+                iterations, trainMillis, builtAt);
+    }
+
+    // ====================== 查询方法 ======================
+
+    public int userIndex(long userId) {
+        int pos = Arrays.binarySearch(userIds, userId);
+        return pos < 0 ? -1 : pos;
+    }
+
+    public int appIndex(long appId) {
+        int pos = Arrays.binarySearch(appIds, appId);
+        return pos < 0 ? -1 : pos;
+    }
+
+    public long userId(int index) {
+        return userIds[index];
+    }
+
+    public long appId(int index) {
+        return appIds[index];
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int appCount() {
+        return appIds.length;
+    }
+
+    public int rank() {
+        return rank;
+    }
+
+    /**
+     * 预测偏好
+     * @param user 用户下标
+     * @param app 游戏下标
+     * @return 用户向量与游戏向量的点积
+     */
+    public double score(int user, int app) {
+        int u = user * rank;
+        int i = app * rank;
+        double sum = 0;
+        for (int f = 0; f < rank; f++) {
+            sum += userFactors.get(u + f) * itemFactors.get(i + f);
+        }
+        return sum;
+    }
+
+    /**
+     * 将用户对目录中每个游戏的预测偏好(截断到0-1)加权累加到分数缓冲区
+     * @param user 用户下标
+     * @param catalog 游戏目录
+     * @param excludedAppIds 不参与打分的游戏(如用户已评分的游戏)
+     * @param weight 权重
+     * @param scores 按目录下标存放的分数
+     */
+    public void accumulate(int user, AppCatalog catalog, Set<Long> excludedAppIds, double weight, double[] scores) {
+        for (int app = 0; app < appIds.length; app++) {
+            long appId = appIds[app];
+            int index = catalog.indexOf(appId);
+            if (index < 0 || excludedAppIds.contains(appId)) continue;
+            double score = score(user, app);
+            if (score > 0) {
+                scores[index] += weight * Math.min(1.0, score);
+            }
+        }
+    }
+
+    /**
+     * 只对候选游戏累加ALS分数
+     * @param candidates 候选游戏(目录下标)
+     */
+    public void accumulate(int user, AppCatalog catalog, Set<Long> excludedAppIds, double weight, double[] scores,
+                           CandidateSet candidates) {
+        for (int c = 0; c < candidates.size(); c++) {
+            int index = candidates.index(c);
+            long appId = catalog.appId(index);
+            int app = appIndex(appId);
+            if (app < 0 || excludedAppIds.contains(appId)) continue;
+            double score = score(user, app);
+            if (score > 0) {
+                scores[index] += weight * Math.min(1.0, score);
+            }
+        }
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getTrainMillis() {
+        return trainMillis;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /** 模型数组占用的大致字节数 */
+    public long memoryBytes() {
+        return 8L * (userIds.length + appIds.length) + 4L * (userFactors.capacity() + itemFactors.capacity());
+    }
+
+    /**
+     * 获取模型统计信息
+     * @return 规模、维度、内存占用与训练耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", userCount());
+        stats.put("apps", appCount());
+        stats.put("rank", rank);
+        stats.put("iterations", iterations);
+        stats.put("memoryBytes", memoryBytes());
+        stats.put("mapped", userFactors.isDirect());
+        stats.put("trainMillis", trainMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+}
@@ -0,0 +1,126 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.repository.WishlistRepository;
+import com.wbbb.steam.repository.WishlistRepository.WishlistProjection;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程级共享的ALS模型
+ * 由后台定时任务离线训练并整体替换；训练完成前get()返回null，调用方回退到协同过滤
+ */
+@Component
+@RequiredArgsConstructor
+public class AlsModelHolder {
+    private static final Logger logger = LoggerFactory.getLogger(AlsModelHolder.class);
+
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final WishlistRepository wishlistRepository;
+    private final RecommendationProperties properties;
+
+    private volatile AlsModel model;
+
+    private final LongAdder scoringCount = new LongAdder();
+    private final LongAdder scoringNanos = new LongAdder();
+    private final AtomicLong scoringMaxNanos = new AtomicLong();
+
+    /**
+     * 获取当前模型
+     * @return ALS模型，尚未训练时返回null
+     */
+    public AlsModel get() {
+        return model;
+    }
+
+    /**
+     * 基于当前评分矩阵(及愿望单)重新训练模型并替换当前快照
+     * 未启用时不做任何事
+     */
+    @Scheduled(initialDelayString = "${recommendation.als.initial-delay-ms:60000}",
+               fixedDelayString = "${recommendation.als.train-interval-ms:3600000}")
+    public void train() {
+        RecommendationProperties.Als als = properties.getAls();
+        if (!als.isEnabled()) {
+            return;
+        }
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        if (als.isIncludeWishlist()) {
+            matrix = withWishlist(matrix);
+        }
+        AlsModel trained = AlsTrainer.train(matrix, new AlsTrainer.Params(
+                als.getRank(), als.getIterations(), als.getLambda(), als.getAlpha(), als.getSeed()));
+        model = trained;
+        logger.info("ALS模型已训练 - 用户: {}, 游戏: {}, rank: {}, 迭代: {}, 内存: {} bytes, 耗时: {} ms",
+                trained.userCount(), trained.appCount(), trained.rank(), trained.getIterations(),
+                trained.memoryBytes(), trained.getTrainMillis());
+    }
+
+    /**
+     * 把愿望单记录作为正反馈并入训练矩阵；已有评分的(用户, 游戏)保留原评分
+     */
+    private RatingMatrix withWishlist(RatingMatrix matrix) {
+        RatingMatrix.Builder builder = new RatingMatrix.Builder(matrix.ratingCount());
+        for (int u = 0; u < matrix.userCount(); u++) {
+            long userId = matrix.userId(u);
+            for (int k = matrix.userRowStart(u); k < matrix.userRowEnd(u); k++) {
+                builder.add(userId, matrix.appId(matrix.userRowItem(k)), matrix.userRowValue(k) != 0);
+            }
+        }
+        for (WishlistProjection item : wishlistRepository.getAllWishlistProjection()) {
+            int u = matrix.userIndex(item.getUserId());
+            int a = matrix.appIndex(item.getAppId());
+            if (u >= 0 && a >= 0 && !Double.isNaN(matrix.rating(u, a))) {
+                continue;
+            }
+            builder.add(item.getUserId(), item.getAppId(), true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 直接替换当前模型(如从快照文件恢复)
+     * @param model 模型
+     */
+    void install(AlsModel model) {
+        this.model = model;
+    }
+
+    /**
+     * 记录一次在线打分耗时
+     * @param nanos 耗时(纳秒)
+     */
+    public void recordScoring(long nanos) {
+        scoringCount.increment();
+        scoringNanos.add(nanos);
+        scoringMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * 获取模型与在线打分统计
+     * @return 模型规模、训练耗时与单次打分平均/最大耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        AlsModel current = model;
+        stats.put("enabled", properties.getAls().isEnabled());
+        stats.put("trained", current != null);
+        if (current != null) {
+            stats.putAll(current.getStats());
+        }
+        long count = scoringCount.sum();
+        stats.put("scoringRequests", count);
+        stats.put("scoringAvgMicros", count == 0 ? 0.0 : scoringNanos.sum() / 1000.0 / count);
+        stats.put("scoringMaxMicros", scoringMaxNanos.get() / 1000.0);
+        return stats;
+    }
+}
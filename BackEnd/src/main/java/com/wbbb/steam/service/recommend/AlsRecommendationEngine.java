@@ -0,0 +1,65 @@
+package com.wbbb.steam.service.recommend;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 推荐引擎：ALS矩阵分解
+ * 用用户向量与游戏向量的点积打分，跳过用户评价过的游戏，不足时按全站热门排行补足；
+ * 模型由AlsModelHolder离线训练(需开启recommendation.als.enabled)，模型尚未训练或不包含该用户时
+ * 回退到仅基于物品的协同过滤引擎
+ */
+@Component
+@RequiredArgsConstructor
+public class AlsRecommendationEngine implements RecommendationEngine {
+
+    private final AppCatalogHolder appCatalogHolder;
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final AlsModelHolder alsModelHolder;
+    private final ItemCfRecommendationEngine itemCfRecommendationEngine;
+    private final PopularRecommendationEngine popularRecommendationEngine;
+
+    @Override
+    public String name() {
+        return "als";
+    }
+
+    @Override
+    public List<Long> recommend(Long userId, int limit) {
+        AlsModel model = alsModelHolder.get();
+        int user = model == null ? -1 : model.userIndex(userId);
+        if (user < 0) {
+            return itemCfRecommendationEngine.recommend(userId, limit);
+        }
+        long start = System.nanoTime();
+        AppCatalog catalog = appCatalogHolder.get();
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        Set<Long> rated = new HashSet<>();
+        int row = matrix.userIndex(userId);
+        if (row >= 0) {
+            for (int k = matrix.userRowStart(row); k < matrix.userRowEnd(row); k++) {
+                rated.add(matrix.appId(matrix.userRowItem(k)));
+            }
+        }
+
+        double[] scores = ScoreBuffer.zeroed(catalog.size());
+        model.accumulate(user, catalog, rated, 1.0, scores);
+        TopKSelector selector = new TopKSelector(Math.min(limit, catalog.size()));
+        for (int i = 0; i < catalog.size(); i++) {
+            if (scores[i] > 0) selector.offer(i, scores[i]);
+        }
+        int[] top = new int[selector.size()];
+        int count = selector.drainDescending(top, new double[top.length]);
+        List<Long> result = new ArrayList<>(limit);
+        for (int i = 0; i < count; i++) {
+            result.add(catalog.appId(top[i]));
+        }
+        alsModelHolder.recordScoring(System.nanoTime() - start);
+        return popularRecommendationEngine.fill(userId, result, limit);
+    }
+}
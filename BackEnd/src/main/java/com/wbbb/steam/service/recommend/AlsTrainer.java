@@ -0,0 +1,158 @@
+package com.wbbb.steam.service.recommend;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.nio.FloatBuffer;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * 隐式反馈ALS训练(Hu, Koren, Volinsky 2008)
+ * 评分矩阵中每条记录视为一次观测：偏好p = 评分(推荐=1，不推荐=0)，置信度c = 1 + alpha；
+ * 未观测的(用户, 游戏)偏好为0、置信度为1。
+ * 交替固定一侧向量，用Cholesky分解求解另一侧每一行的带正则最小二乘：
+ * x_u = (YᵀY + Yᵀ(C_u - I)Y + λI)⁻¹ Yᵀ C_u p_u
+ * 每一行的求解互不依赖，按行并行；相同的数据、参数与种子得到相同的模型。
+ */
+public final class AlsTrainer {
+
+    private AlsTrainer() {
+    }
+
+    /**
+     * 训练参数
+     * @param rank 隐向量维数
+     * @param iterations 交替迭代次数
+     * @param lambda 正则系数
+     * @param alpha 观测置信度系数
+     * @param seed 初始化随机种子
+     */
+    public record Params(int rank, int iterations, double lambda, double alpha, long seed) {
+    }
+
+    /**
+     * 训练模型
+     * @param matrix 评分矩阵
+     * @param params 训练参数
+     * @return ALS模型
+     */
+    public static AlsModel train(RatingMatrix matrix, Params params) {
+        long start = System.nanoTime();
+        int rank = params.rank();
+        int userCount = matrix.userCount();
+        int appCount = matrix.appCount();
+
+        float[] userFactors = new float[userCount * rank];
+        float[] itemFactors = new float[appCount * rank];
+        SplittableRandom random = new SplittableRandom(params.seed());
+        double scale = 1.0 / Math.sqrt(rank);
+        for (int i = 0; i < itemFactors.length; i++) {
+            itemFactors[i] = (float) (random.nextDouble() * scale);
+        }
+
+        Side users = new Side(userCount) {
+            @Override int start(int row) { return matrix.userRowStart(row); }
+            @Override int end(int row) { return matrix.userRowEnd(row); }
+            @Override int other(int k) { return matrix.userRowItem(k); }
+            @Override int value(int k) { return matrix.userRowValue(k); }
+        };
+        Side items = new Side(appCount) {
+            @Override int start(int row) { return matrix.appRowStart(row); }
+            @Override int end(int row) { return matrix.appRowEnd(row); }
+            @Override int other(int k) { return matrix.appRowUser(k); }
+            @Override int value(int k) { return matrix.appRowValue(k); }
+        };
+
+        for (int iteration = 0; iteration < params.iterations(); iteration++) {
+            solve(users, userFactors, itemFactors, params);
+            solve(items, itemFactors, userFactors, params);
+        }
+
+        long trainMillis = (System.nanoTime() - start) / 1_000_000;
+        long[] userIds = new long[userCount];
+        long[] appIds = new long[appCount];
+        for (int u = 0; u < userCount; u++) userIds[u] = matrix.userId(u);
+        for (int a = 0; a < appCount; a++) appIds[a] = matrix.appId(a);
+        return new AlsModel(userIds, appIds, rank, FloatBuffer.wrap(userFactors), FloatBuffer.wrap(itemFactors),
+                params.iterations(), trainMillis, System.currentTimeMillis());
+    }
+
+    /** 评分矩阵的行视图：用户行或游戏列 */
+    private abstract static class Side {
+        final int rows;
+
+        Side(int rows) {
+            this.rows = rows;
+        }
+
+        abstract int start(int row);
+
+        abstract int end(int row);
+
+        abstract int other(int k);
+
+        abstract int value(int k);
+    }
+
+    /**
+     * 固定fixed一侧的向量，逐行求解target一侧的向量
+     */
+    private static void solve(Side side, float[] target, float[] fixed, Params params) {
+        int rank = params.rank();
+        double alpha = params.alpha();
+        double[][] gram = gram(fixed, rank);
+        for (int f = 0; f < rank; f++) {
+            gram[f][f] += params.lambda();
+        }
+
+        IntStream.range(0, side.rows).parallel().forEach(row -> {
+            double[][] a = new double[rank][];
+            for (int f = 0; f < rank; f++) a[f] = gram[f].clone();
+            double[] b = new double[rank];
+            for (int k = side.start(row); k < side.end(row); k++) {
+                int offset = side.other(k) * rank;
+                double confidence = 1 + alpha;
+                int preference = side.value(k);
+                for (int i = 0; i < rank; i++) {
+                    double yi = fixed[offset + i];
+                    // (c - 1) y yᵀ，只计算上三角再对称复制
+                    for (int j = i; j < rank; j++) {
+                        a[i][j] += alpha * yi * fixed[offset + j];
+                    }
+                    b[i] += confidence * preference * yi;
+                }
+            }
+            for (int i = 0; i < rank; i++) {
+                for (int j = i + 1; j < rank; j++) a[j][i] = a[i][j];
+            }
+            RealVector x = new CholeskyDecomposition(new Array2DRowRealMatrix(a, false))
+                    .getSolver().solve(new ArrayRealVector(b, false));
+            int offset = row * rank;
+            for (int f = 0; f < rank; f++) {
+                target[offset + f] = (float) x.getEntry(f);
+            }
+        });
+    }
+
+    /** 计算 FᵀF (rank × rank) */
+    private static double[][] gram(float[] factors, int rank) {
+        double[][] gram = new double[rank][rank];
+        int rows = factors.length / rank;
+        for (int r = 0; r < rows; r++) {
+            int offset = r * rank;
+            for (int i = 0; i < rank; i++) {
+                double fi = factors[offset + i];
+                for (int j = i; j < rank; j++) {
+                    gram[i][j] += fi * factors[offset + j];
+                }
+            }
+        }
+        for (int i = 0; i < rank; i++) {
+            for (int j = i + 1; j < rank; j++) gram[j][i] = gram[i][j];
+        }
+        return gram;
+    }
+}
@@ -0,0 +1,322 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+
+import java.util.*;
+
+/**
+ * 游戏目录快照(只读)
+ * 按数据库返回顺序为每个游戏分配连续下标，打分阶段直接使用下标访问基本类型数组
+ */
+public final class AppCatalog {
+
+    /** 流行度衰减系数，目录中第i个游戏的热度乘以 POPULARITY_DECAY^i */
+    public static final double POPULARITY_DECAY = 0.95;
+
+    /** 空目录 */
+    public static final AppCatalog EMPTY = of(Collections.emptyList());
+
+    /** 下标→游戏ID(目录顺序) */
+    private final long[] appIds;
+    /** 升序游戏ID及其对应下标，用于ID→下标查找 */
+    private final long[] sortedIds;
+    private final int[] sortedIndexes;
+    /** 热度值，为空时记为0 */
+    private final double[] popularity;
+    /** 好评率(0-100)，为空时记为0 */
+    private final double[] positiveRates;
+    /** 预先计算的衰减系数表及衰减后的热度分数，目录刷新时重算 */
+    private final double[] decayFactors;
+    private final double[] decayedPopularity;
+    private final List<Set<String>> tags;
+    /** 名称、开发商、发行商，供搜索索引使用 */
+    private final String[] names;
+    private final String[] developers;
+    private final String[] publishers;
+    /** 标签字典及按下标平铺的标签位图，第i个游戏占用[i*words, (i+1)*words) */
+    private final TagDictionary tagDictionary;
+    private final long[] tagBits;
+    private final int[] tagCounts;
+    /** 按发行日期降序的下标表，无发行日期的排在最后 */
+    private final int[] releaseOrder;
+    private final long buildMillis;
+    private final long builtAt;
+    /** 开始读取数据库前的变化序号，序号不大于它的变化已包含在本快照中 */
+    private final long changeSequence;
+
+    private AppCatalog(long[] appIds, long[] sortedIds, int[] sortedIndexes, double[] popularity, double[] positiveRates,
+                       double[] decayFactors, double[] decayedPopularity, List<Set<String>> tags, String[] names, String[] developers,
+                       String[] publishers, TagDictionary tagDictionary, long[] tagBits, int[] tagCounts,
+                       int[] releaseOrder, long buildMillis, long changeSequence) {
+        this.appIds = appIds;
+        this.sortedIds = sortedIds;
+        this.sortedIndexes = sortedIndexes;
+        this.popularity = popularity;
+        this.positiveRates = positiveRates;
+        this.decayFactors = decayFactors;
+        this.decayedPopularity = decayedPopularity;
+        this.tags = tags;
+        this.names = names;
+        this.developers = developers;
+        this.publishers = publishers;
+        this.tagDictionary = tagDictionary;
+        this.tagBits = tagBits;
+        this.tagCounts = tagCounts;
+        this.releaseOrder = releaseOrder;
+        this.buildMillis = buildMillis;
+        this.builtAt = System.currentTimeMillis();
+        this.changeSequence = changeSequence;
+    }
+
+    /**
+     * 从游戏实体构建目录快照
+     * 标签会被复制，快照不持有实体引用
+     * @param apps 游戏列表
+     * @return 目录快照
+     */
+    public static AppCatalog of(List<App> apps) {
+        return of(apps, 0);
+    }
+
+    /**
+     * 从游戏实体构建目录快照，并记录读取数据库前的变化序号
+     * @param apps 游戏列表
+     * @param changeSequence 调用findAll之前取得的变化序号
+     * @return 目录快照
+     */
+    public static AppCatalog of(List<App> apps, long changeSequence) {
+        long start = System.nanoTime();
+        int size = apps.size();
+        long[] appIds = new long[size];
+        double[] popularity = new double[size];
+        double[] positiveRates = new double[size];
+        List<Set<String>> tags = new ArrayList<>(size);
+        String[] releaseDates = new String[size];
+        String[] names = new String[size];
+        String[] developers = new String[size];
+        String[] publishers = new String[size];
+        for (int i = 0; i < size; i++) {
+            App app = apps.get(i);
+            appIds[i] = app.getAppId();
+            popularity[i] = app.getPopularity() != null ? app.getPopularity() : 0;
+            positiveRates[i] = app.getPositiveRate() != null ? app.getPositiveRate() : 0;
+            tags.add(app.getTags() != null ? Set.copyOf(app.getTags()) : Collections.emptySet());
+            releaseDates[i] = app.getCreateTime();
+            names[i] = app.getName();
+            developers[i] = app.getDeveloper();
+            publishers[i] = app.getPublisher();
+        }
+
+        // 按ID排序的下标表
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> appIds[i]));
+        long[] sortedIds = new long[size];
+        int[] sortedIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedIndexes[i] = order[i];
+            sortedIds[i] = appIds[order[i]];
+        }
+
+        // 按目录位置衰减的热度表，打分时不再需要indexOf与Math.pow
+        double[] decayFactors = new double[size];
+        double[] decayedPopularity = new double[size];
+        double factor = 1.0;
+        for (int i = 0; i < size; i++, factor *= POPULARITY_DECAY) {
+            decayFactors[i] = factor;
+            decayedPopularity[i] = popularity[i] * factor;
+        }
+
+        // 标签位图
+        TagDictionary dictionary = TagDictionary.of(tags);
+        int words = dictionary.words();
+        long[] tagBits = new long[size * words];
+        int[] tagCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            dictionary.encodeInto(tags.get(i), tagBits, i * words);
+            tagCounts[i] = tags.get(i).size();
+        }
+
+        // 发行日期为yyyy-MM-dd字符串，按字典序降序即为由新到旧
+        Integer[] byRelease = new Integer[size];
+        for (int i = 0; i < size; i++) byRelease[i] = i;
+        Arrays.sort(byRelease, Comparator.comparing((Integer i) -> releaseDates[i],
+                Comparator.nullsLast(Comparator.<String>reverseOrder())).thenComparingInt(i -> i));
+        int[] releaseOrder = new int[size];
+        for (int i = 0; i < size; i++) releaseOrder[i] = byRelease[i];
+
+        return new AppCatalog(appIds, sortedIds, sortedIndexes, popularity, positiveRates, decayFactors, decayedPopularity,
+                Collections.unmodifiableList(tags), names, developers, publishers, dictionary, tagBits, tagCounts,
+                releaseOrder, (System.nanoTime() - start) / 1_000_000, changeSequence);
+    }
+
+    // ====================== 快照 ======================
+
+    /** 写入快照分段；衰减表与标签集合可由其余字段推出，不写入 */
+    void writeTo(ModelSnapshot.Encoder out) {
+        out.putLong(buildMillis);
+        out.putLongs(appIds);
+        out.putLongs(sortedIds);
+        out.putInts(sortedIndexes);
+        out.putDoubles(popularity);
+        out.putDoubles(positiveRates);
+        out.putStrings(names);
+        out.putStrings(developers);
+        out.putStrings(publishers);
+        tagDictionary.writeTo(out);
+        out.putLongs(tagBits);
+        out.putInts(tagCounts);
+        out.putInts(releaseOrder);
+    }
+
+    /**
+     * 从快照分段恢复
+     * 变化序号属于写入快照的进程，恢复后的目录记为0，下一次数据库刷新总能覆盖它
+     */
+    static AppCatalog readFrom(ModelSnapshot.Decoder in) {
+        long buildMillis = in.getLong();
+        long[] appIds = in.getLongs();
+        long[] sortedIds = in.getLongs();
+        int[] sortedIndexes = in.getInts();
+        double[] popularity = in.getDoubles();
+        double[] positiveRates = in.getDoubles();
+        String[] names = in.getStrings();
+        String[] developers = in.getStrings();
+        String[] publishers = in.getStrings();
+        TagDictionary dictionary = TagDictionary.readFrom(in);
+        long[] tagBits = in.getLongs();
+        int[] tagCounts = in.getInts();
+        int[] releaseOrder = in.getInts();
+
+        int size = appIds.length;
+        double[] decayFactors = new double[size];
+        double[] decayedPopularity = new double[size];
+        double factor = 1.0;
+        for (int i = 0; i < size; i++, factor *= POPULARITY_DECAY) {
+            decayFactors[i] = factor;
+            decayedPopularity[i] = popularity[i] * factor;
+        }
+
+        // 由位图还原标签集合
+        int words = dictionary.words();
+        List<Set<String>> tags = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Set<String> tagSet = new HashSet<>();
+            for (int w = 0; w < words; w++) {
+                long bits = tagBits[i * words + w];
+                while (bits != 0) {
+                    tagSet.add(dictionary.tag((w << 6) + Long.numberOfTrailingZeros(bits)));
+                    bits &= bits - 1;
+                }
+            }
+            tags.add(Set.copyOf(tagSet));
+        }
+
+        return new AppCatalog(appIds, sortedIds, sortedIndexes, popularity, positiveRates, decayFactors, decayedPopularity,
+                Collections.unmodifiableList(tags), names, developers, publishers, dictionary, tagBits, tagCounts,
+                releaseOrder, buildMillis, 0);
+    }
+
+    // ====================== 查询方法 ======================
+
+    public int size() {
+        return appIds.length;
+    }
+
+    public long appId(int index) {
+        return appIds[index];
+    }
+
+    /**
+     * 游戏ID转下标
+     * @param appId 游戏ID
+     * @return 下标，不存在时返回-1
+     */
+    public int indexOf(long appId) {
+        int pos = Arrays.binarySearch(sortedIds, appId);
+        return pos < 0 ? -1 : sortedIndexes[pos];
+    }
+
+    public double popularity(int index) {
+        return popularity[index];
+    }
+
+    /** 好评率(0-100) */
+    public double positiveRate(int index) {
+        return positiveRates[index];
+    }
+
+    /** 目录中第index个位置的衰减系数 */
+    public double decayFactor(int index) {
+        return decayFactors[index];
+    }
+
+    /** 衰减后的热度分数 popularity * POPULARITY_DECAY^index */
+    public double decayedPopularity(int index) {
+        return decayedPopularity[index];
+    }
+
+    public Set<String> tags(int index) {
+        return tags.get(index);
+    }
+
+    /** 游戏名称，可为null */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /** 开发商，可为null */
+    public String developer(int index) {
+        return developers[index];
+    }
+
+    /** 发行商，可为null */
+    public String publisher(int index) {
+        return publishers[index];
+    }
+
+    public TagDictionary tagDictionary() {
+        return tagDictionary;
+    }
+
+    public int tagCount(int index) {
+        return tagCounts[index];
+    }
+
+    /**
+     * 游戏标签与给定位图的交集个数
+     * @param index 游戏下标
+     * @param bits 由tagDictionary()编码的位图
+     * @return 共同标签数
+     */
+    public int commonTagCount(int index, long[] bits) {
+        int words = tagDictionary.words();
+        return TagDictionary.intersectionCount(tagBits, index * words, bits, 0, words);
+    }
+
+    /** 第rank新发行的游戏下标 */
+    public int releaseIndex(int rank) {
+        return releaseOrder[rank];
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    /**
+     * 获取目录统计信息
+     * @return 游戏数量与构建耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("apps", size());
+        stats.put("tags", tagDictionary.size());
+        stats.put("buildMillis", buildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+}
@@ -0,0 +1,97 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.repository.AppRepository;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程级共享的游戏目录快照
+ * 定时刷新，管理员修改游戏后也会立即刷新。
+ * 修改游戏的一方在提交后取得单调递增的变化序号，刷新在读取数据库前记下当前序号，
+ * 序号不大于快照序号的变化必然已被本次读取看到。
+ * 刷新互相串行，序号比当前快照小的快照不会被发布，较慢的刷新不会覆盖较新的快照
+ */
+@Component
+@RequiredArgsConstructor
+public class AppCatalogHolder {
+    private static final Logger logger = LoggerFactory.getLogger(AppCatalogHolder.class);
+
+    private final AppRepository appRepository;
+    /** 为null时(测试)不开启事务 */
+    private final PlatformTransactionManager transactionManager;
+
+    private volatile AppCatalog catalog;
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    /**
+     * 获取当前目录快照
+     * @return 目录快照
+     */
+    public AppCatalog get() {
+        AppCatalog current = catalog;
+        if (current == null) {
+            synchronized (this) {
+                current = catalog;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库重新加载游戏目录
+     * 在只读事务中读取，保证懒加载的标签集合可用；事务由模板显式开启，
+     * 经由get()在非请求线程(定时任务、批处理与影子线程池)上首次加载时同样有效
+     * @return 当前目录快照，本次读取比当前快照旧时仍返回当前快照
+     */
+    @Scheduled(initialDelayString = "${recommendation.catalog.refresh-interval-ms:300000}",
+               fixedDelayString = "${recommendation.catalog.refresh-interval-ms:300000}")
+    public synchronized AppCatalog refresh() {
+        long sequence = changeSequence.get();
+        AppCatalog built = load(sequence);
+        AppCatalog current = catalog;
+        if (current != null && built.getChangeSequence() < current.getChangeSequence()) {
+            return current;
+        }
+        catalog = built;
+        ScoreBuffer.resize();
+        logger.info("游戏目录已刷新 - 游戏: {}, 耗时: {} ms", built.size(), built.getStats().get("buildMillis"));
+        return built;
+    }
+
+    private AppCatalog load(long sequence) {
+        if (transactionManager == null) {
+            return AppCatalog.of(appRepository.findAll(), sequence);
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> AppCatalog.of(appRepository.findAll(), sequence));
+    }
+
+    /**
+     * 直接替换当前目录(如从快照文件恢复)
+     * @param catalog 目录快照
+     */
+    synchronized void install(AppCatalog catalog) {
+        this.catalog = catalog;
+        ScoreBuffer.resize();
+    }
+
+    /**
+     * 为一次已提交的游戏修改分配变化序号
+     * @return 新的变化序号
+     */
+    public long nextChangeSequence() {
+        return changeSequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,305 @@
+package com.wbbb.steam.service.recommend;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 游戏搜索倒排索引(只读快照)
+ * 对名称、开发商、发行商的规范化文本(NFKC + 小写)建立单字与相邻二字的倒排(CSR，按目录下标升序)，
+ * 中文名称没有分词也能命中。一个关键词的候选为其全部二字倒排的交集，再用原文校验连续出现，
+ * 结果与 LOWER(字段) LIKE '%关键词%' 一致；多个关键词的结果继续求交集，从最短的倒排开始。
+ */
+public final class AppSearchIndex {
+
+    /** 空索引 */
+    public static final AppSearchIndex EMPTY = build(AppCatalog.EMPTY);
+
+    /** 每个游戏参与搜索的字段：名称、开发商、发行商 */
+    static final int FIELDS = 3;
+
+    /** 构建时使用的目录快照 */
+    private final AppCatalog catalog;
+    /** 目录下标×字段的规范化文本，缺失字段为空串 */
+    private final String[] texts;
+    /** 单字/二字编码，升序 */
+    private final int[] grams;
+    private final int[] offsets;
+    /** 目录下标 */
+    private final int[] postings;
+    /** 名称命中全部关键词时的加分，大于任何热度，使名称命中的游戏排在前面 */
+    private final double nameBoost;
+    private final long buildMillis;
+    private final long builtAt;
+
+    private AppSearchIndex(AppCatalog catalog, String[] texts, int[] grams, int[] offsets, int[] postings,
+                           double nameBoost, long buildMillis) {
+        this.catalog = catalog;
+        this.texts = texts;
+        this.grams = grams;
+        this.offsets = offsets;
+        this.postings = postings;
+        this.nameBoost = nameBoost;
+        this.buildMillis = buildMillis;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    // ====================== 文本规范化 ======================
+
+    /**
+     * 规范化文本：全角/兼容字符转为标准形式并转小写
+     * @param text 原文，可为null
+     * @return 规范化文本，null时为空串
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) return "";
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 将搜索关键词按空白拆分为规范化的词，去掉空词与重复词
+     * @param keyword 搜索关键词，可为null
+     * @return 词列表，没有词时为空数组
+     */
+    public static String[] tokenize(String keyword) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : normalize(keyword).split("\\s+")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * 游戏的规范化搜索字段
+     * @return 名称、开发商、发行商
+     */
+    public static String[] fieldTexts(String name, String developer, String publisher) {
+        return new String[]{normalize(name), normalize(developer), normalize(publisher)};
+    }
+
+    /**
+     * 每个词是否都出现在某个字段中
+     * @param texts 规范化字段文本
+     * @param offset 本游戏字段在texts中的起点
+     * @param words 规范化的词
+     */
+    static boolean matches(String[] texts, int offset, String[] words) {
+        for (String word : words) {
+            if (!containsWord(texts, offset, word)) return false;
+        }
+        return true;
+    }
+
+    private static boolean containsWord(String[] texts, int offset, String word) {
+        for (int f = 0; f < FIELDS; f++) {
+            if (texts[offset + f].contains(word)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 相关性分数：热度，名称包含全部词时再加nameBoost
+     * @param name 规范化名称
+     * @param popularity 热度
+     * @param words 规范化的词
+     * @param nameBoost 名称命中加分
+     */
+    static double score(String name, double popularity, String[] words, double nameBoost) {
+        for (String word : words) {
+            if (!name.contains(word)) return popularity;
+        }
+        return popularity + nameBoost;
+    }
+
+    /** 单字编码为(字符, 0)，二字编码为(前一字符, 后一字符)；规范化文本中不含\0，两者不会冲突 */
+    private static int unigram(char c) {
+        return c << 16;
+    }
+
+    private static int bigram(char a, char b) {
+        return (a << 16) | b;
+    }
+
+    // ====================== 构建 ======================
+
+    /**
+     * 从目录快照构建索引
+     * @param catalog 游戏目录
+     * @return 搜索索引
+     */
+    public static AppSearchIndex build(AppCatalog catalog) {
+        long start = System.nanoTime();
+        int size = catalog.size();
+        String[] texts = new String[size * FIELDS];
+        double maxPopularity = 0;
+        for (int i = 0; i < size; i++) {
+            String[] fields = fieldTexts(catalog.name(i), catalog.developer(i), catalog.publisher(i));
+            System.arraycopy(fields, 0, texts, i * FIELDS, FIELDS);
+            maxPopularity = Math.max(maxPopularity, Math.abs(catalog.popularity(i)));
+        }
+
+        // (编码, 目录下标)打包为一个long排序：编码翻转符号位后放在高32位(使无符号顺序与int顺序一致)，下标放在低31位
+        long[] pairs = new long[64];
+        int pairCount = 0;
+        int[] appGrams = new int[64];
+        for (int i = 0; i < size; i++) {
+            int gramCount = 0;
+            for (int f = 0; f < FIELDS; f++) {
+                String text = texts[i * FIELDS + f];
+                for (int p = 0; p < text.length(); p++) {
+                    char c = text.charAt(p);
+                    if (c == 0 || Character.isWhitespace(c)) continue;
+                    if (gramCount + 2 > appGrams.length) appGrams = Arrays.copyOf(appGrams, appGrams.length * 2);
+                    appGrams[gramCount++] = unigram(c);
+                    if (p + 1 < text.length()) {
+                        char next = text.charAt(p + 1);
+                        if (next != 0 && !Character.isWhitespace(next)) appGrams[gramCount++] = bigram(c, next);
+                    }
+                }
+            }
+            Arrays.sort(appGrams, 0, gramCount);
+            for (int g = 0; g < gramCount; g++) {
+                if (g > 0 && appGrams[g] == appGrams[g - 1]) continue;
+                if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                pairs[pairCount++] = (Integer.toUnsignedLong(appGrams[g] ^ Integer.MIN_VALUE) << 31) | i;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        int gramCount = 0;
+        for (int k = 0; k < pairCount; k++) {
+            if (k == 0 || (pairs[k] >>> 31) != (pairs[k - 1] >>> 31)) gramCount++;
+        }
+        int[] grams = new int[gramCount];
+        int[] offsets = new int[gramCount + 1];
+        int[] postings = new int[pairCount];
+        int g = -1;
+        for (int k = 0; k < pairCount; k++) {
+            if (k == 0 || (pairs[k] >>> 31) != (pairs[k - 1] >>> 31)) {
+                grams[++g] = (int) (pairs[k] >>> 31) ^ Integer.MIN_VALUE;
+                offsets[g] = k;
+            }
+            postings[k] = (int) (pairs[k] & Integer.MAX_VALUE);
+        }
+        offsets[gramCount] = pairCount;
+        return new AppSearchIndex(catalog, texts, grams, offsets, postings, maxPopularity + 1,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // ====================== 查询方法 ======================
+
+    public AppCatalog catalog() {
+        return catalog;
+    }
+
+    public double nameBoost() {
+        return nameBoost;
+    }
+
+    /**
+     * 查找每个词都出现在名称、开发商或发行商之一中的游戏
+     * @param words 规范化的词(由tokenize给出)，为空时匹配全部游戏
+     * @return 目录下标，升序
+     */
+    public int[] match(String[] words) {
+        if (words.length == 0) {
+            int[] all = new int[catalog.size()];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+        // 每个词、每个编码对应一段倒排，从最短的一段开始求交集
+        int gramTotal = 0;
+        for (String word : words) gramTotal += Math.max(1, word.length() - 1);
+        int[] starts = new int[gramTotal];
+        int[] ends = new int[gramTotal];
+        int count = 0;
+        for (String word : words) {
+            if (word.length() == 1) {
+                if (!range(unigram(word.charAt(0)), starts, ends, count++)) return new int[0];
+                continue;
+            }
+            for (int p = 0; p + 1 < word.length(); p++) {
+                if (!range(bigram(word.charAt(p), word.charAt(p + 1)), starts, ends, count++)) return new int[0];
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int r = 0; r < count; r++) order[r] = r;
+        Arrays.sort(order, (a, b) -> Integer.compare(ends[a] - starts[a], ends[b] - starts[b]));
+
+        int first = order[0];
+        int[] result = Arrays.copyOfRange(postings, starts[first], ends[first]);
+        int size = result.length;
+        for (int r = 1; r < count && size > 0; r++) {
+            size = intersect(result, size, starts[order[r]], ends[order[r]]);
+        }
+
+        // 二字全部出现不代表连续出现，用原文校验；只有单字或二字的词无需校验
+        boolean verify = false;
+        for (String word : words) verify |= word.length() > 2;
+        if (verify) {
+            int kept = 0;
+            for (int k = 0; k < size; k++) {
+                if (matches(texts, result[k] * FIELDS, words)) result[kept++] = result[k];
+            }
+            size = kept;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 相关性分数：热度，名称包含全部词的游戏排在只有开发商/发行商命中的游戏之前
+     * @param index 目录下标
+     * @param words 规范化的词
+     */
+    public double score(int index, String[] words) {
+        return score(texts[index * FIELDS], catalog.popularity(index), words, nameBoost);
+    }
+
+    /** 查找编码的倒排区间，写入starts/ends的第slot项；编码不存在时返回false */
+    private boolean range(int gram, int[] starts, int[] ends, int slot) {
+        int pos = Arrays.binarySearch(grams, gram);
+        if (pos < 0) return false;
+        starts[slot] = offsets[pos];
+        ends[slot] = offsets[pos + 1];
+        return true;
+    }
+
+    /**
+     * 将有序数组的前size个元素与倒排区间[from, to)求交集，结果写回数组
+     * 当前结果通常远短于倒排，逐个在倒排中二分查找，查找起点单调前移
+     * @return 交集大小
+     */
+    private int intersect(int[] result, int size, int from, int to) {
+        int kept = 0;
+        int lo = from;
+        for (int k = 0; k < size && lo < to; k++) {
+            int pos = Arrays.binarySearch(postings, lo, to, result[k]);
+            if (pos >= 0) {
+                result[kept++] = result[k];
+                lo = pos + 1;
+            } else {
+                lo = -pos - 1;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * 获取索引统计信息
+     * @return 游戏数、编码数、倒排长度、内存占用与构建耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("apps", catalog.size());
+        stats.put("grams", grams.length);
+        stats.put("postings", postings.length);
+        stats.put("memoryBytes", 4L * grams.length + 4L * offsets.length + 4L * postings.length);
+        stats.put("buildMillis", buildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+}
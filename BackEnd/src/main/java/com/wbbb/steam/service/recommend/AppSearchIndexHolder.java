@@ -0,0 +1,139 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程级共享的游戏搜索索引
+ * 目录快照更新后在下一次读取时重建；管理员新增、修改或删除游戏时先记录变化，查询时覆盖索引中的旧数据，
+ * 不必等待目录刷新即可搜到。变化按提交后取得的序号记录，重建时只丢弃序号不大于新目录快照序号的变化，
+ * 目录加载期间提交的修改会保留到下一次快照。
+ */
+@Component
+@RequiredArgsConstructor
+public class AppSearchIndexHolder {
+    private static final Logger logger = LoggerFactory.getLogger(AppSearchIndexHolder.class);
+
+    private final AppCatalogHolder appCatalogHolder;
+
+    private volatile AppSearchIndex index;
+    /** 目录快照之后发生的变化：游戏ID→变化 */
+    private final Map<Long, Change> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 游戏的最新搜索字段，removed为true表示已删除
+     */
+    private record Change(long appId, String[] texts, double popularity, boolean removed, long sequence) {
+    }
+
+    /**
+     * 获取当前索引
+     * @return 搜索索引，与当前目录快照一致
+     */
+    public AppSearchIndex get() {
+        AppCatalog catalog = appCatalogHolder.get();
+        AppSearchIndex current = index;
+        if (current == null || current.catalog() != catalog) {
+            synchronized (this) {
+                current = index;
+                if (current == null || current.catalog() != catalog) {
+                    current = rebuild(catalog);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 记录新增或修改的游戏，须在事务提交后调用
+     * @param app 已保存的游戏
+     */
+    public void update(App app) {
+        if (app == null || app.getAppId() == null) return;
+        pending.put(app.getAppId(), new Change(app.getAppId(),
+                AppSearchIndex.fieldTexts(app.getName(), app.getDeveloper(), app.getPublisher()),
+                app.getPopularity() != null ? app.getPopularity() : 0, false, appCatalogHolder.nextChangeSequence()));
+    }
+
+    /**
+     * 记录删除的游戏，须在事务提交后调用
+     * @param appId 游戏ID
+     */
+    public void remove(Long appId) {
+        if (appId == null) return;
+        pending.put(appId, new Change(appId, null, 0, true, appCatalogHolder.nextChangeSequence()));
+    }
+
+    /**
+     * 搜索游戏
+     * 每个词都须出现在名称、开发商或发行商之一中；名称包含全部词的游戏优先，其次按热度降序，再按目录顺序
+     * @param keyword 搜索关键词，多个词以空白分隔
+     * @param limit 返回数量
+     * @return 游戏ID列表，按相关性排序
+     */
+    public List<Long> search(String keyword, int limit) {
+        if (limit <= 0) return List.of();
+        String[] words = AppSearchIndex.tokenize(keyword);
+        AppSearchIndex current = get();
+        AppCatalog catalog = current.catalog();
+        List<Change> changes = pending.isEmpty() ? List.of() : new ArrayList<>(pending.values());
+        Set<Long> changed = new HashSet<>();
+        for (Change change : changes) changed.add(change.appId());
+
+        TopKSelector selector = new TopKSelector(limit);
+        for (int i : current.match(words)) {
+            if (!changed.isEmpty() && changed.contains(catalog.appId(i))) continue;
+            selector.offer(i, current.score(i, words));
+        }
+        // 变化覆盖索引中的同一游戏，下标排在目录之后
+        for (int c = 0; c < changes.size(); c++) {
+            Change change = changes.get(c);
+            if (!change.removed() && AppSearchIndex.matches(change.texts(), 0, words)) {
+                selector.offer(catalog.size() + c, AppSearchIndex.score(change.texts()[0], change.popularity(), words,
+                        current.nameBoost()));
+            }
+        }
+
+        int[] top = new int[selector.size()];
+        int count = selector.drainDescending(top, new double[top.length]);
+        List<Long> result = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            result.add(top[k] < catalog.size() ? catalog.appId(top[k]) : changes.get(top[k] - catalog.size()).appId());
+        }
+        return result;
+    }
+
+    private AppSearchIndex rebuild(AppCatalog catalog) {
+        pending.forEach((appId, change) -> {
+            if (change.sequence() <= catalog.getChangeSequence()) {
+                pending.remove(appId, change);
+            }
+        });
+        AppSearchIndex built = AppSearchIndex.build(catalog);
+        index = built;
+        logger.info("搜索索引已重建 - 游戏: {}, 编码: {}, 待合并变化: {}, 耗时: {} ms", catalog.size(),
+                built.getStats().get("grams"), pending.size(), built.getStats().get("buildMillis"));
+        return built;
+    }
+
+    /**
+     * 获取索引统计信息
+     * @return 索引规模、构建耗时与待合并的变化数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = get().getStats();
+        stats.put("pending", pending.size());
+        return stats;
+    }
+}
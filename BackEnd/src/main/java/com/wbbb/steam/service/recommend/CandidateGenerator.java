@@ -0,0 +1,22 @@
+package com.wbbb.steam.service.recommend;
+
+/**
+ * 候选生成器
+ * 两阶段推荐的第一阶段：每个生成器用廉价的方式产出有界的候选游戏集合，
+ * 各生成器的候选取并集后再由混合打分器重新打分排序。实现类注册为Spring组件即被候选流水线使用。
+ */
+public interface CandidateGenerator {
+
+    /**
+     * 生成器名称，用于指标标签与统计
+     */
+    String name();
+
+    /**
+     * 产出候选游戏
+     * @param request 请求上下文
+     * @param candidates 候选集合，生成器向其中加入目录下标
+     * @param maxCandidates 本生成器最多产出的候选数
+     */
+    void generate(CandidateRequest request, CandidateSet candidates, int maxCandidates);
+}
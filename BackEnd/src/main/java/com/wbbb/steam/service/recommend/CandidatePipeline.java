@@ -0,0 +1,96 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两阶段推荐的候选生成流水线
+ * 依次运行全部候选生成器(按@Order顺序)，每个生成器最多产出recommendation.candidates.per-generator个新候选，
+ * 并集交给混合打分器重新打分，单次请求的打分量只与候选数有关，与目录规模无关。
+ * 单个生成器失败时跳过该生成器，其余候选照常返回。
+ */
+@Component
+public class CandidatePipeline {
+    private static final Logger logger = LoggerFactory.getLogger(CandidatePipeline.class);
+
+    private final List<CandidateGenerator> generators;
+    private final RecommendationProperties properties;
+    private final RecommendationMetrics metrics;
+    private final Map<String, GeneratorStats> stats = new LinkedHashMap<>();
+
+    public CandidatePipeline(List<CandidateGenerator> generators, RecommendationProperties properties,
+                             RecommendationMetrics metrics) {
+        this.generators = List.copyOf(generators);
+        this.properties = properties;
+        this.metrics = metrics;
+        for (CandidateGenerator generator : this.generators) {
+            stats.put(generator.name(), new GeneratorStats());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getCandidates().isEnabled();
+    }
+
+    /**
+     * 运行全部候选生成器
+     * @param request 请求上下文
+     * @return 候选并集
+     */
+    public CandidateSet generate(CandidateRequest request) {
+        CandidateSet candidates = new CandidateSet(request.catalog().size());
+        int perGenerator = properties.getCandidates().getPerGenerator();
+        for (CandidateGenerator generator : generators) {
+            long start = metrics.start();
+            try {
+                generator.generate(request, candidates, perGenerator);
+            } catch (RuntimeException e) {
+                stats.get(generator.name()).failures.increment();
+                logger.warn("候选生成器{}失败，已跳过: {}", generator.name(), e.getMessage());
+            }
+            long nanos = System.nanoTime() - start;
+            int yield = candidates.resetAdded();
+            metrics.generator(generator.name(), nanos, yield);
+            GeneratorStats generatorStats = stats.get(generator.name());
+            generatorStats.calls.increment();
+            generatorStats.nanos.add(nanos);
+            generatorStats.yield.add(yield);
+        }
+        return candidates;
+    }
+
+    /**
+     * 获取各生成器的统计
+     * @return 生成器→调用次数、平均耗时与平均产出
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", isEnabled());
+        result.put("perGenerator", properties.getCandidates().getPerGenerator());
+        stats.forEach((name, generatorStats) -> {
+            long calls = generatorStats.calls.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("calls", calls);
+            entry.put("failures", generatorStats.failures.sum());
+            entry.put("avgMicros", calls == 0 ? 0.0 : generatorStats.nanos.sum() / 1000.0 / calls);
+            entry.put("avgYield", calls == 0 ? 0.0 : (double) generatorStats.yield.sum() / calls);
+            result.put(name, entry);
+        });
+        return result;
+    }
+
+    private static final class GeneratorStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder yield = new LongAdder();
+    }
+}
@@ -0,0 +1,15 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.Set;
+
+/**
+ * 候选生成的请求上下文
+ * @param userId 用户ID
+ * @param catalog 游戏目录
+ * @param ratedAppIds 用户已评分的游戏
+ * @param likedAppIds 用户推荐过的游戏
+ * @param preferenceTags 用户偏好标签
+ */
+public record CandidateRequest(long userId, AppCatalog catalog, Set<Long> ratedAppIds, Set<Long> likedAppIds,
+                               Set<String> preferenceTags) {
+}
@@ -0,0 +1,63 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 候选游戏集合(目录下标，去重，保持加入顺序)
+ * 记录当前生成器的产出数，供流水线统计各生成器的贡献
+ */
+public final class CandidateSet {
+    private final BitSet present;
+    private int[] indexes = new int[64];
+    private int size;
+    /** 当前生成器新增的候选数 */
+    private int added;
+
+    public CandidateSet(int catalogSize) {
+        this.present = new BitSet(catalogSize);
+    }
+
+    /**
+     * 加入一个候选
+     * @param index 目录下标
+     * @return 是否为新候选
+     */
+    public boolean add(int index) {
+        if (present.get(index)) {
+            return false;
+        }
+        present.set(index);
+        if (size == indexes.length) {
+            indexes = Arrays.copyOf(indexes, size * 2);
+        }
+        indexes[size++] = index;
+        added++;
+        return true;
+    }
+
+    public boolean contains(int index) {
+        return present.get(index);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** 第i个候选的目录下标 */
+    public int index(int i) {
+        return indexes[i];
+    }
+
+    /** 当前生成器已新增的候选数 */
+    public int added() {
+        return added;
+    }
+
+    /** 开始统计下一个生成器的产出，返回上一个生成器新增的候选数 */
+    int resetAdded() {
+        int count = added;
+        added = 0;
+        return count;
+    }
+}
@@ -0,0 +1,386 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 协同过滤打分
+ * 两种实现的输出含义一致：候选游戏的分数为相关评分(推荐=1，不推荐=0)按相似度加权的平均值，
+ * 用户已评价过的游戏不参与打分。
+ */
+public final class CollaborativeFiltering {
+
+    private CollaborativeFiltering() {
+    }
+
+    /**
+     * 基于用户的协同过滤(单线程)
+     * @param matrix 评分矩阵
+     * @param userId 目标用户ID
+     * @return 游戏ID到协同过滤推荐分数的映射
+     */
+    public static Map<Long, Double> userBased(RatingMatrix matrix, long userId) {
+        return userBased(matrix, userId, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 基于用户的协同过滤
+     * 只遍历与目标用户有共同推荐游戏的用户，相似度为推荐向量的余弦相似度。
+     * 工作量(目标用户推荐游戏的评分总数)达到阈值时在给定线程池中并行：
+     * 统计共同推荐数时按用户下标区间切分，加权打分时按游戏下标区间切分。
+     * 两条路径都按用户下标升序累加每个游戏的分数，结果逐位相同。
+     * @param matrix 评分矩阵
+     * @param userId 目标用户ID
+     * @param pool 并行使用的线程池，为null时始终单线程
+     * @param sequentialCutoff 工作量低于该值时单线程执行
+     * @return 游戏ID到协同过滤推荐分数的映射
+     */
+    public static Map<Long, Double> userBased(RatingMatrix matrix, long userId, ForkJoinPool pool, int sequentialCutoff) {
+        int user = matrix.userIndex(userId);
+        if (user < 0 || matrix.userPositiveCount(user) == 0) return new HashMap<>();
+
+        long work = 0;
+        for (int k = matrix.userRowStart(user); k < matrix.userRowEnd(user); k++) {
+            if (matrix.userRowValue(k) != 0) work += matrix.appRatingCount(matrix.userRowItem(k));
+        }
+        boolean parallel = pool != null && work >= sequentialCutoff;
+        int chunks = parallel ? pool.getParallelism() * TASKS_PER_THREAD : 1;
+
+        // 通过游戏→用户倒排统计共同推荐数，近邻按用户下标升序排列
+        int[] overlaps = new int[matrix.userCount()];
+        int[] neighbours = parallel
+                ? pool.invoke(new OverlapTask(matrix, user, overlaps, 0, matrix.userCount(), matrix.userCount() / chunks + 1))
+                : countOverlaps(matrix, user, overlaps, 0, matrix.userCount());
+
+        double userNorm = Math.sqrt(matrix.userPositiveCount(user));
+        double[] similarities = new double[neighbours.length];
+        for (int i = 0; i < neighbours.length; i++) {
+            int other = neighbours[i];
+            similarities[i] = overlaps[other] / (userNorm * Math.sqrt(matrix.userPositiveCount(other)));
+        }
+        return weightedScores(matrix, user, neighbours, similarities, neighbours.length, parallel ? pool : null, chunks);
+    }
+
+    /**
+     * 基于用户的协同过滤(近似近邻)
+     * 候选近邻由LSH索引给出，只对候选计算精确的余弦相似度，其余与userBased相同
+     * @param matrix 评分矩阵(须与构建索引时相同)
+     * @param index LSH索引
+     * @param userId 目标用户ID
+     * @param maxCandidates 最多使用的候选近邻数
+     * @return 游戏ID到协同过滤推荐分数的映射
+     */
+    public static Map<Long, Double> userBasedLsh(RatingMatrix matrix, MinHashLshIndex index, long userId,
+                                                 int maxCandidates) {
+        int user = matrix.userIndex(userId);
+        if (user < 0 || matrix.userPositiveCount(user) == 0) return new HashMap<>();
+
+        int[] candidates = index.candidates(user, maxCandidates);
+        int[] neighbours = new int[candidates.length];
+        double[] similarities = new double[candidates.length];
+        int neighbourCount = 0;
+        double userNorm = Math.sqrt(matrix.userPositiveCount(user));
+        for (int other : candidates) {
+            int overlap = positiveOverlap(matrix, user, other);
+            if (overlap == 0) continue;
+            neighbours[neighbourCount] = other;
+            similarities[neighbourCount++] = overlap / (userNorm * Math.sqrt(matrix.userPositiveCount(other)));
+        }
+        return weightedScores(matrix, user, neighbours, similarities, neighbourCount, null, 1);
+    }
+
+    /**
+     * 基于用户的协同过滤(社交近邻)
+     * 近邻只在好友与好友的好友中查找，相似度为推荐向量的余弦相似度，直接好友再乘以friendWeight；
+     * 计算量为 社交近邻数 × 评分数，与全站用户数无关。与用户有共同推荐的社交近邻少于minNeighbours时返回空映射，
+     * 由调用方回退到全局的协同过滤
+     * @param matrix 评分矩阵
+     * @param graph 好友邻接表
+     * @param userId 目标用户ID
+     * @param maxNeighbourhood 最多考察的社交近邻数
+     * @param friendWeight 直接好友的相似度倍数
+     * @param minNeighbours 最少有效近邻数
+     * @return 游戏ID到协同过滤推荐分数的映射
+     */
+    public static Map<Long, Double> userBasedSocial(RatingMatrix matrix, FriendGraph graph, long userId,
+                                                    int maxNeighbourhood, double friendWeight, int minNeighbours) {
+        int user = matrix.userIndex(userId);
+        if (user < 0 || matrix.userPositiveCount(user) == 0) return new HashMap<>();
+
+        FriendGraph.Neighbourhood neighbourhood = graph.neighbourhood(userId, maxNeighbourhood);
+        if (neighbourhood.size() < minNeighbours) return new HashMap<>();
+        int[] neighbours = new int[neighbourhood.size()];
+        double[] similarities = new double[neighbourhood.size()];
+        int neighbourCount = 0;
+        double userNorm = Math.sqrt(matrix.userPositiveCount(user));
+        for (int i = 0; i < neighbourhood.size(); i++) {
+            int other = matrix.userIndex(neighbourhood.userIds()[i]);
+            if (other < 0) continue;
+            int overlap = positiveOverlap(matrix, user, other);
+            if (overlap == 0) continue;
+            double similarity = overlap / (userNorm * Math.sqrt(matrix.userPositiveCount(other)));
+            neighbours[neighbourCount] = other;
+            similarities[neighbourCount++] = i < neighbourhood.friendCount() ? similarity * friendWeight : similarity;
+        }
+        if (neighbourCount < Math.max(1, minNeighbours)) return new HashMap<>();
+        return weightedScores(matrix, user, neighbours, similarities, neighbourCount, null, 1);
+    }
+
+    /**
+     * 两个用户共同推荐的游戏数，按行有序归并
+     * @param matrix 评分矩阵
+     * @param a 用户下标
+     * @param b 用户下标
+     * @return 共同推荐数
+     */
+    public static int positiveOverlap(RatingMatrix matrix, int a, int b) {
+        int i = matrix.userRowStart(a);
+        int j = matrix.userRowStart(b);
+        int endA = matrix.userRowEnd(a);
+        int endB = matrix.userRowEnd(b);
+        int overlap = 0;
+        while (i < endA && j < endB) {
+            int appA = matrix.userRowItem(i);
+            int appB = matrix.userRowItem(j);
+            if (appA < appB) {
+                i++;
+            } else if (appA > appB) {
+                j++;
+            } else {
+                overlap += matrix.userRowValue(i) & matrix.userRowValue(j);
+                i++;
+                j++;
+            }
+        }
+        return overlap;
+    }
+
+    /**
+     * 基于物品的协同过滤
+     * 只累加用户评价过的游戏在近邻索引中的近邻，单次计算量为 评价数 × 近邻数
+     * @param matrix 当前评分矩阵(读取用户的评价)
+     * @param index 游戏近邻索引
+     * @param userId 目标用户ID
+     * @return 游戏ID到协同过滤推荐分数的映射
+     */
+    public static Map<Long, Double> itemBased(RatingMatrix matrix, ItemNeighborIndex index, long userId) {
+        Map<Long, Double> gameScores = new HashMap<>();
+        int user = matrix.userIndex(userId);
+        if (user < 0) return gameScores;
+
+        double[] scoreSums = new double[index.appCount()];
+        double[] similaritySums = new double[index.appCount()];
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (int k = matrix.userRowStart(user); k < matrix.userRowEnd(user); k++) {
+            int app = index.appIndex(matrix.appId(matrix.userRowItem(k)));
+            if (app < 0) continue;
+            int rating = matrix.userRowValue(k);
+            for (int p = index.neighborStart(app); p < index.neighborEnd(app); p++) {
+                int candidate = index.neighbor(p);
+                double similarity = index.similarity(p);
+                if (similaritySums[candidate] == 0) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = candidate;
+                }
+                scoreSums[candidate] += similarity * rating;
+                similaritySums[candidate] += similarity;
+            }
+        }
+
+        for (int i = 0; i < candidateCount; i++) {
+            int candidate = candidates[i];
+            long appId = index.appId(candidate);
+            int rated = matrix.appIndex(appId);
+            if (rated < 0 || Double.isNaN(matrix.rating(user, rated))) {
+                gameScores.put(appId, scoreSums[candidate] / similaritySums[candidate]);
+            }
+        }
+        return gameScores;
+    }
+
+    // ====================== 基于用户的协同过滤：分段计算 ======================
+
+    /** 并行时每个线程分到的任务数，用于平衡各区间工作量不均 */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * 统计用户下标在[from, to)内的用户与目标用户的共同推荐数
+     * @return 该区间内的近邻，按用户下标升序
+     */
+    private static int[] countOverlaps(RatingMatrix matrix, int user, int[] overlaps, int from, int to) {
+        int[] neighbours = new int[16];
+        int neighbourCount = 0;
+        for (int k = matrix.userRowStart(user); k < matrix.userRowEnd(user); k++) {
+            if (matrix.userRowValue(k) == 0) continue;
+            int app = matrix.userRowItem(k);
+            int end = matrix.appRowEnd(app);
+            for (int p = lowerBoundUser(matrix, app, from); p < end; p++) {
+                int other = matrix.appRowUser(p);
+                if (other >= to) break;
+                if (other == user || matrix.appRowValue(p) == 0) continue;
+                if (overlaps[other]++ == 0) {
+                    if (neighbourCount == neighbours.length) {
+                        neighbours = Arrays.copyOf(neighbours, neighbourCount * 2);
+                    }
+                    neighbours[neighbourCount++] = other;
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(neighbours, neighbourCount);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 候选游戏加权平均：近邻对该游戏的评分按相似度加权，目标用户已评价过的游戏不参与打分
+     * @param neighbours 近邻用户下标，前neighbourCount个有效，按累加顺序排列
+     * @param similarities 与neighbours对应的相似度
+     * @param pool 并行累加使用的线程池，为null时单线程
+     * @param chunks 并行时按游戏下标切分的区间数
+     * @return 游戏ID到协同过滤推荐分数的映射
+     */
+    private static Map<Long, Double> weightedScores(RatingMatrix matrix, int user, int[] neighbours, double[] similarities,
+                                                    int neighbourCount, ForkJoinPool pool, int chunks) {
+        if (neighbourCount < neighbours.length) {
+            neighbours = Arrays.copyOf(neighbours, neighbourCount);
+            similarities = Arrays.copyOf(similarities, neighbourCount);
+        }
+        double[] scoreSums = new double[matrix.appCount()];
+        double[] similaritySums = new double[matrix.appCount()];
+        if (pool != null) {
+            pool.invoke(new ScoreTask(matrix, neighbours, similarities, scoreSums, similaritySums,
+                    0, matrix.appCount(), matrix.appCount() / chunks + 1));
+        } else {
+            accumulateScores(matrix, neighbours, similarities, scoreSums, similaritySums, 0, matrix.appCount());
+        }
+        for (int k = matrix.userRowStart(user); k < matrix.userRowEnd(user); k++) {
+            similaritySums[matrix.userRowItem(k)] = 0;
+        }
+
+        Map<Long, Double> gameScores = new HashMap<>();
+        for (int app = 0; app < similaritySums.length; app++) {
+            if (similaritySums[app] > 0) {
+                gameScores.put(matrix.appId(app), scoreSums[app] / similaritySums[app]);
+            }
+        }
+        return gameScores;
+    }
+
+    /**
+     * 累加游戏下标在[from, to)内的候选游戏分数，近邻按给定顺序累加
+     */
+    private static void accumulateScores(RatingMatrix matrix, int[] neighbours, double[] similarities,
+                                         double[] scoreSums, double[] similaritySums, int from, int to) {
+        for (int i = 0; i < neighbours.length; i++) {
+            int other = neighbours[i];
+            double similarity = similarities[i];
+            int end = matrix.userRowEnd(other);
+            for (int k = lowerBoundApp(matrix, other, from); k < end; k++) {
+                int app = matrix.userRowItem(k);
+                if (app >= to) break;
+                scoreSums[app] += similarity * matrix.userRowValue(k);
+                similaritySums[app] += similarity;
+            }
+        }
+    }
+
+    /** 游戏列中第一个用户下标不小于user的位置 */
+    private static int lowerBoundUser(RatingMatrix matrix, int app, int user) {
+        int lo = matrix.appRowStart(app);
+        int hi = matrix.appRowEnd(app);
+        if (user == 0) return lo;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (matrix.appRowUser(mid) < user) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** 用户行中第一个游戏下标不小于app的位置 */
+    private static int lowerBoundApp(RatingMatrix matrix, int user, int app) {
+        int lo = matrix.userRowStart(user);
+        int hi = matrix.userRowEnd(user);
+        if (app == 0) return lo;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (matrix.userRowItem(mid) < app) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** 按用户下标区间并行统计共同推荐数，各区间写入overlaps的不同位置 */
+    private static final class OverlapTask extends RecursiveTask<int[]> {
+        private final RatingMatrix matrix;
+        private final int user;
+        private final int[] overlaps;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        OverlapTask(RatingMatrix matrix, int user, int[] overlaps, int from, int to, int grain) {
+            this.matrix = matrix;
+            this.user = user;
+            this.overlaps = overlaps;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= grain) {
+                return countOverlaps(matrix, user, overlaps, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            OverlapTask left = new OverlapTask(matrix, user, overlaps, from, mid, grain);
+            left.fork();
+            int[] right = new OverlapTask(matrix, user, overlaps, mid, to, grain).compute();
+            int[] leftResult = left.join();
+            int[] merged = Arrays.copyOf(leftResult, leftResult.length + right.length);
+            System.arraycopy(right, 0, merged, leftResult.length, right.length);
+            return merged;
+        }
+    }
+
+    /** 按游戏下标区间并行累加候选游戏分数，各区间写入分数数组的不同位置 */
+    private static final class ScoreTask extends RecursiveAction {
+        private final RatingMatrix matrix;
+        private final int[] neighbours;
+        private final double[] similarities;
+        private final double[] scoreSums;
+        private final double[] similaritySums;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ScoreTask(RatingMatrix matrix, int[] neighbours, double[] similarities, double[] scoreSums,
+                  double[] similaritySums, int from, int to, int grain) {
+            this.matrix = matrix;
+            this.neighbours = neighbours;
+            this.similarities = similarities;
+            this.scoreSums = scoreSums;
+            this.similaritySums = similaritySums;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                accumulateScores(matrix, neighbours, similarities, scoreSums, similaritySums, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(matrix, neighbours, similarities, scoreSums, similaritySums, from, mid, grain),
+                    new ScoreTask(matrix, neighbours, similarities, scoreSums, similaritySums, mid, to, grain));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 协同过滤专用的ForkJoinPool
+ * 与公共池隔离，避免推荐计算占满parallelStream等其他并行任务使用的线程
+ */
+@Component
+public class CollaborativeFilteringPool {
+
+    private final RecommendationProperties properties;
+    private final ForkJoinPool pool;
+
+    public CollaborativeFilteringPool(RecommendationProperties properties) {
+        this.properties = properties;
+        this.pool = new ForkJoinPool(Math.max(1, properties.getParallel().getParallelism()));
+    }
+
+    /**
+     * 获取线程池
+     * @return 线程池，未启用并行计算时返回null
+     */
+    public ForkJoinPool pool() {
+        return properties.getParallel().isEnabled() ? pool : null;
+    }
+
+    /** 工作量低于该值时单线程执行 */
+    public int sequentialCutoff() {
+        return properties.getParallel().getSequentialCutoff();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
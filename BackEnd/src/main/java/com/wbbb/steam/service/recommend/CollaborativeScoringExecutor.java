@@ -0,0 +1,87 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 延迟预算模式下执行协同过滤打分的有界线程池
+ * 请求线程计算内容推荐的同时，协同过滤在这里并发执行；队列满时拒绝提交，调用方直接降级而不是排队等待
+ */
+@Component
+public class CollaborativeScoringExecutor {
+
+    private final RecommendationProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CollaborativeScoringExecutor(RecommendationProperties properties) {
+        this.properties = properties;
+        RecommendationProperties.Budget budget = properties.getBudget();
+        int threads = Math.max(1, budget.getThreads());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, budget.getQueueCapacity())), runnable -> {
+                    Thread thread = new Thread(runnable, "recommend-cf-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** 是否启用延迟预算 */
+    public boolean isEnabled() {
+        return properties.getBudget().isEnabled();
+    }
+
+    /** 单次推荐计算的时间预算(纳秒) */
+    public long budgetNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(properties.getBudget().getTimeoutMs());
+    }
+
+    /**
+     * 提交协同过滤任务
+     * @param task 打分任务
+     * @return 任务句柄，线程与队列都已占满时返回null
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * 获取线程池统计信息
+     * @return 活跃线程、排队任务、已完成与被拒绝的任务数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("budgetMs", properties.getBudget().getTimeoutMs());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
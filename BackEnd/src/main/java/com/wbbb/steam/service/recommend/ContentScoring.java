@@ -0,0 +1,52 @@
+package com.wbbb.steam.service.recommend;
+
+/**
+ * 基于内容的打分
+ * 分数 = 0.7 * 标签Jaccard相似度 + 0.3 * 衰减后的热度，按目录下标线性遍历，不分配内存
+ */
+public final class ContentScoring {
+    /** 标签相似度权重 */
+    private static final double SIMILARITY_WEIGHT = 0.7;
+    /** 热度权重 */
+    private static final double POPULARITY_WEIGHT = 0.3;
+
+    private ContentScoring() {
+    }
+
+    /**
+     * 将加权后的内容分数累加到分数缓冲区，没有标签的游戏不计分
+     * @param catalog 游戏目录
+     * @param userBits 由目录标签字典编码的用户标签位图
+     * @param userTagCount 用户标签总数(含字典外的标签，它们不会与任何游戏相交，但计入并集)
+     * @param weight 内容推荐权重
+     * @param scores 按目录下标存放的分数
+     */
+    public static void accumulate(AppCatalog catalog, long[] userBits, int userTagCount, double weight, double[] scores) {
+        int size = catalog.size();
+        for (int i = 0; i < size; i++) {
+            int gameTagCount = catalog.tagCount(i);
+            if (gameTagCount == 0) continue;
+
+            int common = catalog.commonTagCount(i, userBits);
+            double similarity = (double) common / (userTagCount + gameTagCount - common);
+            scores[i] += weight * (SIMILARITY_WEIGHT * similarity + POPULARITY_WEIGHT * catalog.decayedPopularity(i));
+        }
+    }
+
+    /**
+     * 只对候选游戏累加内容分数，打分公式同{@link #accumulate(AppCatalog, long[], int, double, double[])}
+     * @param candidates 候选游戏(目录下标)
+     */
+    public static void accumulate(AppCatalog catalog, long[] userBits, int userTagCount, double weight, double[] scores,
+                                  CandidateSet candidates) {
+        for (int c = 0; c < candidates.size(); c++) {
+            int i = candidates.index(c);
+            int gameTagCount = catalog.tagCount(i);
+            if (gameTagCount == 0) continue;
+
+            int common = catalog.commonTagCount(i, userBits);
+            double similarity = (double) common / (userTagCount + gameTagCount - common);
+            scores[i] += weight * (SIMILARITY_WEIGHT * similarity + POPULARITY_WEIGHT * catalog.decayedPopularity(i));
+        }
+    }
+}
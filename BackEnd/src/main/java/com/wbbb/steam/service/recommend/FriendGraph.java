@@ -0,0 +1,210 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 好友关系邻接表(只读快照)
+ * 用户ID升序排列，每个用户的好友为CSR中的一段(按用户下标升序、不重复)；
+ * friend表按两个方向各存一行，构建时仍按无向边处理，缺失的反向记录不影响结果。
+ */
+public final class FriendGraph {
+
+    /** 空邻接表 */
+    public static final FriendGraph EMPTY = new Builder().build();
+
+    /** 用户ID，升序 */
+    private final long[] userIds;
+    /** 用户下标→好友段起点，长度为用户数+1 */
+    private final int[] offsets;
+    /** 好友的用户下标 */
+    private final int[] friends;
+    private final long buildMillis;
+    private final long builtAt;
+
+    private FriendGraph(long[] userIds, int[] offsets, int[] friends, long buildMillis) {
+        this.userIds = userIds;
+        this.offsets = offsets;
+        this.friends = friends;
+        this.buildMillis = buildMillis;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 社交近邻：好友在前，其后是按共同好友数降序的好友的好友
+     * @param userIds 近邻用户ID
+     * @param friendCount 前friendCount个为直接好友
+     */
+    public record Neighbourhood(long[] userIds, int friendCount) {
+        public static final Neighbourhood EMPTY = new Neighbourhood(new long[0], 0);
+
+        public int size() {
+            return userIds.length;
+        }
+    }
+
+    // ====================== 查询方法 ======================
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int edgeCount() {
+        return friends.length;
+    }
+
+    /**
+     * 用户的好友
+     * @param userId 用户ID
+     * @return 好友ID，升序；没有好友时为空数组
+     */
+    public long[] friends(long userId) {
+        int user = Arrays.binarySearch(userIds, userId);
+        if (user < 0) return new long[0];
+        long[] result = new long[offsets[user + 1] - offsets[user]];
+        for (int k = offsets[user]; k < offsets[user + 1]; k++) {
+            result[k - offsets[user]] = userIds[friends[k]];
+        }
+        return result;
+    }
+
+    /**
+     * 两跳以内的社交近邻
+     * 好友全部保留(超过上限时按ID截断)，剩余名额按共同好友数从多到少分给好友的好友，相同时ID小者优先
+     * @param userId 用户ID
+     * @param maxSize 近邻数上限
+     * @return 社交近邻，不包含用户本身
+     */
+    public Neighbourhood neighbourhood(long userId, int maxSize) {
+        int user = Arrays.binarySearch(userIds, userId);
+        if (user < 0 || maxSize <= 0) return Neighbourhood.EMPTY;
+        int start = offsets[user];
+        int end = offsets[user + 1];
+        int friendCount = Math.min(end - start, maxSize);
+
+        // 好友的好友：用户下标→共同好友数
+        Map<Integer, Integer> mutual = new HashMap<>();
+        if (friendCount < maxSize) {
+            for (int k = start; k < end; k++) {
+                int friend = friends[k];
+                for (int p = offsets[friend]; p < offsets[friend + 1]; p++) {
+                    int other = friends[p];
+                    if (other != user && !isFriend(start, end, other)) {
+                        mutual.merge(other, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        List<Map.Entry<Integer, Integer>> secondHop = new ArrayList<>(mutual.entrySet());
+        secondHop.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? Integer.compare(a.getKey(), b.getKey())
+                : Integer.compare(b.getValue(), a.getValue()));
+
+        int size = friendCount + Math.min(secondHop.size(), maxSize - friendCount);
+        long[] result = new long[size];
+        for (int i = 0; i < friendCount; i++) {
+            result[i] = userIds[friends[start + i]];
+        }
+        for (int i = friendCount; i < size; i++) {
+            result[i] = userIds[secondHop.get(i - friendCount).getKey()];
+        }
+        return new Neighbourhood(result, friendCount);
+    }
+
+    /** 好友段[start, end)中是否包含other，段内按用户下标有序 */
+    private boolean isFriend(int start, int end, int other) {
+        return Arrays.binarySearch(friends, start, end, other) >= 0;
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    /**
+     * 获取邻接表统计信息
+     * @return 用户数、好友关系数(双向计)、平均好友数与构建耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", userCount());
+        stats.put("edges", edgeCount());
+        stats.put("averageFriends", userCount() == 0 ? 0.0 : (double) edgeCount() / userCount());
+        stats.put("memoryBytes", 8L * userIds.length + 4L * offsets.length + 4L * friends.length);
+        stats.put("buildMillis", buildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+
+    // ====================== 构建 ======================
+
+    /**
+     * 邻接表构建器，逐条添加好友关系
+     */
+    public static final class Builder {
+        private long[] from = new long[16];
+        private long[] to = new long[16];
+        private int size;
+
+        /**
+         * 添加好友关系，按无向边处理
+         * @param userId 用户ID
+         * @param friendId 好友ID
+         * @return 构建器本身
+         */
+        public Builder add(long userId, long friendId) {
+            if (userId == friendId) return this;
+            if (size + 2 > from.length) {
+                from = Arrays.copyOf(from, from.length * 2);
+                to = Arrays.copyOf(to, to.length * 2);
+            }
+            from[size] = userId;
+            to[size++] = friendId;
+            from[size] = friendId;
+            to[size++] = userId;
+            return this;
+        }
+
+        public FriendGraph build() {
+            long start = System.nanoTime();
+            long[] ids = Arrays.copyOf(from, size);
+            Arrays.sort(ids);
+            int userCount = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) ids[userCount++] = ids[i];
+            }
+            ids = Arrays.copyOf(ids, userCount);
+
+            int[] offsets = new int[userCount + 1];
+            int[] sources = new int[size];
+            int[] targets = new int[size];
+            for (int i = 0; i < size; i++) {
+                sources[i] = Arrays.binarySearch(ids, from[i]);
+                targets[i] = Arrays.binarySearch(ids, to[i]);
+                offsets[sources[i] + 1]++;
+            }
+            for (int u = 0; u < userCount; u++) offsets[u + 1] += offsets[u];
+            int[] edges = new int[size];
+            int[] fill = Arrays.copyOf(offsets, userCount);
+            for (int i = 0; i < size; i++) {
+                edges[fill[sources[i]]++] = targets[i];
+            }
+
+            // 段内排序并去掉重复的关系(friend表的两个方向各产生一次)
+            int[] compactOffsets = new int[userCount + 1];
+            int count = 0;
+            for (int u = 0; u < userCount; u++) {
+                Arrays.sort(edges, offsets[u], offsets[u + 1]);
+                for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                    if (k == offsets[u] || edges[k] != edges[k - 1]) edges[count++] = edges[k];
+                }
+                compactOffsets[u + 1] = count;
+            }
+            return new FriendGraph(ids, compactOffsets, Arrays.copyOf(edges, count),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.repository.RecommendationRepository;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程级共享的好友关系邻接表
+ * 首次使用时构建，之后由后台定时任务整体替换；新建立的好友关系在下一次刷新后参与社交协同过滤。
+ * 好友关系通过JDBC逐行流式读取，未配置仓库(测试)或读取失败时为空表，社交模式随之全部回退到全局协同过滤
+ */
+@Component
+@RequiredArgsConstructor
+public class FriendGraphHolder {
+    private static final Logger logger = LoggerFactory.getLogger(FriendGraphHolder.class);
+
+    private final RecommendationRepository recommendationRepository;
+
+    private volatile FriendGraph graph;
+    private final AtomicLong socialRequests = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    /**
+     * 获取当前邻接表
+     * @return 邻接表快照
+     */
+    public FriendGraph get() {
+        FriendGraph current = graph;
+        if (current == null) {
+            synchronized (this) {
+                current = graph;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库重新构建邻接表并替换当前快照
+     * @return 新的邻接表
+     */
+    @Scheduled(initialDelayString = "${recommendation.friend-graph.refresh-interval-ms:300000}",
+               fixedDelayString = "${recommendation.friend-graph.refresh-interval-ms:300000}")
+    public synchronized FriendGraph refresh() {
+        FriendGraph.Builder builder = new FriendGraph.Builder();
+        if (recommendationRepository != null) {
+            try {
+                recommendationRepository.streamFriendships(builder::add);
+            } catch (RuntimeException e) {
+                logger.warn("读取好友关系失败，沿用当前邻接表: {}", e.getMessage());
+                return graph != null ? graph : (graph = FriendGraph.EMPTY);
+            }
+        }
+        FriendGraph built = builder.build();
+        graph = built;
+        logger.info("好友邻接表已刷新 - 用户: {}, 关系: {}, 耗时: {} ms",
+                built.userCount(), built.edgeCount(), built.getBuildMillis());
+        return built;
+    }
+
+    /**
+     * 记录一次社交协同过滤
+     * @param fallback 社交近邻过少、回退到全局协同过滤时为true
+     */
+    public void recordScoring(boolean fallback) {
+        socialRequests.incrementAndGet();
+        if (fallback) fallbacks.incrementAndGet();
+    }
+
+    /**
+     * 获取邻接表统计信息
+     * @return 邻接表规模，以及社交模式的请求数与回退数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = get().getStats();
+        long requests = socialRequests.get();
+        stats.put("socialRequests", requests);
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("fallbackRate", requests == 0 ? 0.0 : (double) fallbacks.get() / requests);
+        return stats;
+    }
+}
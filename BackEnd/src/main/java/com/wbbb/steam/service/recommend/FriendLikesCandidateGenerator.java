@@ -0,0 +1,56 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.repository.FriendRepository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 候选生成：好友推荐过的游戏
+ * 只查询一次好友ID，好友的评分从共享评分矩阵读取；按推荐过的好友人数降序取未评分游戏
+ */
+@Component
+@Order(3)
+@RequiredArgsConstructor
+public class FriendLikesCandidateGenerator implements CandidateGenerator {
+
+    private final FriendRepository friendRepository;
+    private final RatingMatrixHolder ratingMatrixHolder;
+
+    @Override
+    public String name() {
+        return "friend-likes";
+    }
+
+    @Override
+    public void generate(CandidateRequest request, CandidateSet candidates, int maxCandidates) {
+        List<Long> friendIds = friendRepository.findFriendIdsByUserId(request.userId());
+        if (friendIds.isEmpty()) {
+            return;
+        }
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        SparseAccumulator votes = SparseAccumulator.get(matrix.appCount());
+        for (long friendId : friendIds) {
+            int friend = matrix.userIndex(friendId);
+            if (friend < 0) continue;
+            for (int k = matrix.userRowStart(friend); k < matrix.userRowEnd(friend); k++) {
+                if (matrix.userRowValue(k) != 0) {
+                    votes.add(matrix.userRowItem(k), 1.0);
+                }
+            }
+        }
+
+        int[] apps = votes.drainTop(maxCandidates + request.ratedAppIds().size() + candidates.size());
+        AppCatalog catalog = request.catalog();
+        for (int i = 0; i < apps.length && candidates.added() < maxCandidates; i++) {
+            long appId = matrix.appId(apps[i]);
+            int catalogIndex = catalog.indexOf(appId);
+            if (catalogIndex >= 0 && !request.ratedAppIds().contains(appId)) {
+                candidates.add(catalogIndex);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.wbbb.steam.service.recommend;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * 堆内存峰值测量
+ * 重置各堆内存池的峰值后执行一段加载过程，再读取各池峰值之和；
+ * 各池峰值不一定出现在同一时刻，且包含同期其他线程的分配，因此结果是峰值的上界近似
+ */
+public final class HeapPeakMeter {
+
+    private HeapPeakMeter() {
+    }
+
+    /** 重置所有堆内存池的峰值 */
+    public static void reset() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * 自上次重置以来的堆峰值
+     * @return 各堆内存池峰值之和(字节)
+     */
+    public static long peakBytes() {
+        long bytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                MemoryUsage peak = pool.getPeakUsage();
+                if (peak != null) bytes += peak.getUsed();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,121 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 评分事件驱动的增量模型更新
+ * 事件到达时只入队；后台任务定期把积压的事件合并为一批，线性合并进评分矩阵，
+ * 再只重新计算评分有变化的游戏的近邻。新评分在一个周期(默认2秒)内生效，无需全量重建。
+ * 用户偏好向量在每次请求时由该用户的评分即时计算，无需额外更新；ALS模型与LSH索引仍由各自的定期任务重建。
+ * 评分提交时已清除该用户的结果缓存与预计算结果，但在本批应用之前的请求仍按旧模型计算并重新写入缓存，
+ * 因此应用之后再清除一次批内用户的结果。
+ * 增量更新与全量刷新互斥执行，事件是幂等的，全量刷新前后重复应用不影响结果
+ */
+@Component
+@RequiredArgsConstructor
+public class IncrementalModelUpdater {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalModelUpdater.class);
+
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final ItemNeighborIndexHolder itemNeighborIndexHolder;
+    private final RecommendationProperties properties;
+    private final RecommendationMetrics metrics;
+    private final RecommendationCache recommendationCache;
+    private final PrecomputedRecommendationStore precomputedRecommendationStore;
+
+    private final ConcurrentLinkedQueue<RatingChangedEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastApplyMillis;
+    private volatile long lastLagMillis;
+
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (!properties.getIncremental().isEnabled()) {
+            return;
+        }
+        pending.add(event);
+        received.incrementAndGet();
+    }
+
+    /**
+     * 将积压的评分事件应用到内存模型
+     * @return 本次应用的事件数
+     */
+    @Scheduled(initialDelayString = "${recommendation.incremental.interval-ms:2000}",
+               fixedDelayString = "${recommendation.incremental.interval-ms:2000}")
+    public int applyPending() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        RatingMatrix.Changes changes = new RatingMatrix.Changes();
+        long[] appIds = new long[16];
+        Set<Long> userIds = new HashSet<>();
+        long oldest = Long.MAX_VALUE;
+        RatingChangedEvent event;
+        while ((event = pending.poll()) != null) {
+            if (event.removed()) {
+                changes.removed(event.userId(), event.appId());
+            } else {
+                changes.rated(event.userId(), event.appId(), Boolean.TRUE.equals(event.recommended()));
+            }
+            if (changes.size() > appIds.length) {
+                appIds = Arrays.copyOf(appIds, appIds.length * 2);
+            }
+            appIds[changes.size() - 1] = event.appId();
+            userIds.add(event.userId());
+            oldest = Math.min(oldest, event.occurredAt());
+        }
+        int count = changes.size();
+
+        RatingMatrix matrix = ratingMatrixHolder.apply(changes);
+        if (matrix != null) {
+            itemNeighborIndexHolder.update(matrix, Arrays.stream(appIds, 0, count).distinct().toArray());
+        }
+        for (Long userId : userIds) {
+            recommendationCache.invalidate(userId);
+            precomputedRecommendationStore.invalidate(userId);
+        }
+        long nanos = System.nanoTime() - start;
+        lastApplyMillis = nanos / 1_000_000;
+        lastLagMillis = System.currentTimeMillis() - oldest;
+        applied.addAndGet(count);
+        batches.incrementAndGet();
+        metrics.incremental(nanos, lastLagMillis);
+        logger.debug("增量更新推荐模型 - 事件: {}, 耗时: {} ms, 延迟: {} ms", count, lastApplyMillis, lastLagMillis);
+        return count;
+    }
+
+    /**
+     * 获取增量更新统计信息
+     * @return 收到/已应用的事件数、批次数、积压数与最近一批的耗时和延迟
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.getIncremental().isEnabled());
+        stats.put("received", received.get());
+        stats.put("applied", applied.get());
+        stats.put("batches", batches.get());
+        stats.put("pending", pending.size());
+        stats.put("lastApplyMillis", lastApplyMillis);
+        stats.put("lastLagMillis", lastLagMillis);
+        return stats;
+    }
+}
@@ -0,0 +1,47 @@
+package com.wbbb.steam.service.recommend;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 推荐引擎：仅基于物品的协同过滤
+ * 只使用离线近邻索引打分，不读取数据库、不计算内容分数，单次计算量为 评价数 × 近邻数；
+ * 协同过滤结果不足时按全站热门排行补足
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemCfRecommendationEngine implements RecommendationEngine {
+
+    private final AppCatalogHolder appCatalogHolder;
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final ItemNeighborIndexHolder itemNeighborIndexHolder;
+    private final PopularRecommendationEngine popularRecommendationEngine;
+
+    @Override
+    public String name() {
+        return "item-cf";
+    }
+
+    @Override
+    public List<Long> recommend(Long userId, int limit) {
+        AppCatalog catalog = appCatalogHolder.get();
+        Map<Long, Double> scores = CollaborativeFiltering.itemBased(ratingMatrixHolder.get(),
+                itemNeighborIndexHolder.get(), userId);
+        TopKSelector selector = new TopKSelector(Math.min(limit, scores.size()));
+        scores.forEach((appId, score) -> {
+            int index = catalog.indexOf(appId);
+            if (index >= 0) selector.offer(index, score);
+        });
+        int[] top = new int[selector.size()];
+        int count = selector.drainDescending(top, new double[top.length]);
+        List<Long> result = new ArrayList<>(limit);
+        for (int i = 0; i < count; i++) {
+            result.add(catalog.appId(top[i]));
+        }
+        return popularRecommendationEngine.fill(userId, result, limit);
+    }
+}
@@ -0,0 +1,49 @@
+package com.wbbb.steam.service.recommend;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 候选生成：用户推荐过的游戏的近邻
+ * 近邻相似度按游戏累加，取累计相似度最高的未评分游戏
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class ItemNeighborCandidateGenerator implements CandidateGenerator {
+
+    private final ItemNeighborIndexHolder itemNeighborIndexHolder;
+
+    @Override
+    public String name() {
+        return "item-neighbors";
+    }
+
+    @Override
+    public void generate(CandidateRequest request, CandidateSet candidates, int maxCandidates) {
+        if (request.likedAppIds().isEmpty()) {
+            return;
+        }
+        ItemNeighborIndex index = itemNeighborIndexHolder.get();
+        SparseAccumulator sums = SparseAccumulator.get(index.appCount());
+        for (long appId : request.likedAppIds()) {
+            int app = index.appIndex(appId);
+            if (app < 0) continue;
+            for (int k = index.neighborStart(app); k < index.neighborEnd(app); k++) {
+                sums.add(index.neighbor(k), index.similarity(k));
+            }
+        }
+
+        // 已评分或已被其他生成器选中的游戏会被跳过，多取一些备用
+        int[] neighbors = sums.drainTop(maxCandidates + request.ratedAppIds().size() + candidates.size());
+        AppCatalog catalog = request.catalog();
+        for (int i = 0; i < neighbors.length && candidates.added() < maxCandidates; i++) {
+            long appId = index.appId(neighbors[i]);
+            int catalogIndex = catalog.indexOf(appId);
+            if (catalogIndex >= 0 && !request.ratedAppIds().contains(appId)) {
+                candidates.add(catalogIndex);
+            }
+        }
+    }
+}
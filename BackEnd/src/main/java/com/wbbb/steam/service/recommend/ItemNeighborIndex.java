@@ -0,0 +1,376 @@
+package com.wbbb.steam.service.recommend;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 游戏近邻索引(只读快照)
+ * 离线计算每个游戏与其他游戏的余弦相似度(基于共同推荐用户)，只保留相似度最高的N个近邻，
+ * 以CSR格式保存: 游戏下标与评分矩阵一致，近邻按相似度降序排列。
+ */
+public final class ItemNeighborIndex {
+
+    /** 空索引 */
+    public static final ItemNeighborIndex EMPTY = build(RatingMatrix.EMPTY, 0);
+
+    /** 下标→游戏ID(升序)，与构建时的评分矩阵一致 */
+    private final long[] appIds;
+    /** 近邻起始位置，长度为游戏数+1 */
+    private final int[] offsets;
+    /** 近邻游戏下标；从快照加载时为映射文件的视图 */
+    private final IntBuffer neighbors;
+    private final FloatBuffer similarities;
+    private final int maxNeighbors;
+    private final long buildMillis;
+    private final long builtAt;
+
+    private ItemNeighborIndex(long[] appIds, int[] offsets, IntBuffer neighbors, FloatBuffer similarities,
+                              int maxNeighbors, long buildMillis) {
+        this.appIds = appIds;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.similarities = similarities;
+        this.maxNeighbors = maxNeighbors;
+        this.buildMillis = buildMillis;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    // ====================== 构建 ======================
+
+    /**
+     * 从评分矩阵构建近邻索引
+     * 相似度 = 共同推荐人数 / sqrt(推荐A的人数 × 推荐B的人数)
+     * @param matrix 评分矩阵
+     * @param maxNeighbors 每个游戏保留的近邻数量
+     * @return 近邻索引
+     */
+    public static ItemNeighborIndex build(RatingMatrix matrix, int maxNeighbors) {
+        return build(matrix, maxNeighbors, 1);
+    }
+
+    /**
+     * 从评分矩阵构建近邻索引，共同推荐人数少于minCommon的游戏对不作为近邻
+     * @param matrix 评分矩阵
+     * @param maxNeighbors 每个游戏保留的近邻数量
+     * @param minCommon 最小共同推荐人数
+     * @return 近邻索引
+     */
+    public static ItemNeighborIndex build(RatingMatrix matrix, int maxNeighbors, int minCommon) {
+        long start = System.nanoTime();
+        int appCount = matrix.appCount();
+        long[] appIds = new long[appCount];
+        for (int app = 0; app < appCount; app++) appIds[app] = matrix.appId(app);
+        int[] positives = positives(matrix);
+
+        int[][] rowNeighbors = new int[appCount][];
+        float[][] rowSimilarities = new float[appCount][];
+        ThreadLocal<int[]> coCounts = ThreadLocal.withInitial(() -> new int[appCount]);
+        IntStream.range(0, appCount).parallel().forEach(app ->
+                computeRow(matrix, positives, app, maxNeighbors, minCommon, coCounts.get(), rowNeighbors, rowSimilarities));
+        return fromRows(appIds, rowNeighbors, rowSimilarities, maxNeighbors, start);
+    }
+
+    /**
+     * 评分矩阵有少量变化后，只重新计算受影响游戏的近邻列表
+     * 其余游戏沿用当前索引中的近邻(下标按新矩阵的游戏ID映射重新对齐)，它们与受影响游戏之间的相似度
+     * 可能已轻微变化，由定期全量构建校正
+     * @param matrix 已应用变化的评分矩阵
+     * @param changedAppIds 评分发生变化的游戏
+     * @param minCommon 最小共同推荐人数，应与构建当前索引时一致
+     * @return 新的近邻索引，当前索引不变
+     */
+    public ItemNeighborIndex withUpdatedApps(RatingMatrix matrix, long[] changedAppIds, int minCommon) {
+        long start = System.nanoTime();
+        int appCount = matrix.appCount();
+        long[] newAppIds = new long[appCount];
+        for (int app = 0; app < appCount; app++) newAppIds[app] = matrix.appId(app);
+        int[] positives = positives(matrix);
+
+        boolean[] changed = new boolean[appCount];
+        for (long appId : changedAppIds) {
+            int app = matrix.appIndex(appId);
+            if (app >= 0) changed[app] = true;
+        }
+        int[][] rowNeighbors = new int[appCount][];
+        float[][] rowSimilarities = new float[appCount][];
+        int[] co = new int[appCount];
+        for (int app = 0; app < appCount; app++) {
+            int old = appIndex(newAppIds[app]);
+            if (changed[app] || old < 0) {
+                computeRow(matrix, positives, app, maxNeighbors, minCommon, co, rowNeighbors, rowSimilarities);
+                continue;
+            }
+            int[] ids = new int[neighborEnd(old) - neighborStart(old)];
+            float[] sims = new float[ids.length];
+            int size = 0;
+            for (int k = neighborStart(old); k < neighborEnd(old); k++) {
+                int neighbor = Arrays.binarySearch(newAppIds, appIds[neighbor(k)]);
+                if (neighbor < 0) continue;
+                ids[size] = neighbor;
+                sims[size++] = similarity(k);
+            }
+            rowNeighbors[app] = size == ids.length ? ids : Arrays.copyOf(ids, size);
+            rowSimilarities[app] = size == sims.length ? sims : Arrays.copyOf(sims, size);
+        }
+        return fromRows(newAppIds, rowNeighbors, rowSimilarities, maxNeighbors, start);
+    }
+
+    /** 每个游戏的推荐人数 */
+    private static int[] positives(RatingMatrix matrix) {
+        int[] positives = new int[matrix.appCount()];
+        for (int app = 0; app < positives.length; app++) {
+            for (int p = matrix.appRowStart(app); p < matrix.appRowEnd(app); p++) {
+                positives[app] += matrix.appRowValue(p);
+            }
+        }
+        return positives;
+    }
+
+    /**
+     * 计算一个游戏的近邻列表
+     * 相似度 = 共同推荐人数 / sqrt(推荐A的人数 × 推荐B的人数)
+     * @param minCommon 最小共同推荐人数
+     * @param co 共现计数缓冲区(长度为游戏数，使用前后均为全0)
+     */
+    private static void computeRow(RatingMatrix matrix, int[] positives, int app, int maxNeighbors, int minCommon,
+                                   int[] co, int[][] rowNeighbors, float[][] rowSimilarities) {
+        TopKSelector top = new TopKSelector(maxNeighbors);
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        if (positives[app] > 0) {
+            for (int p = matrix.appRowStart(app); p < matrix.appRowEnd(app); p++) {
+                if (matrix.appRowValue(p) == 0) continue;
+                int user = matrix.appRowUser(p);
+                for (int k = matrix.userRowStart(user); k < matrix.userRowEnd(user); k++) {
+                    int other = matrix.userRowItem(k);
+                    if (other == app || matrix.userRowValue(k) == 0) continue;
+                    if (co[other]++ == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = other;
+                    }
+                }
+            }
+        }
+        double norm = Math.sqrt(positives[app]);
+        for (int i = 0; i < touchedCount; i++) {
+            int other = touched[i];
+            if (co[other] >= minCommon) {
+                top.offer(other, co[other] / (norm * Math.sqrt(positives[other])));
+            }
+            co[other] = 0;
+        }
+        int size = top.size();
+        int[] ids = new int[size];
+        double[] scores = new double[size];
+        top.drainDescending(ids, scores);
+        float[] sims = new float[size];
+        for (int i = 0; i < size; i++) sims[i] = (float) scores[i];
+        rowNeighbors[app] = ids;
+        rowSimilarities[app] = sims;
+    }
+
+    /** 各行近邻拼接为CSR */
+    private static ItemNeighborIndex fromRows(long[] appIds, int[][] rowNeighbors, float[][] rowSimilarities,
+                                              int maxNeighbors, long startNanos) {
+        int appCount = appIds.length;
+        int[] offsets = new int[appCount + 1];
+        for (int app = 0; app < appCount; app++) offsets[app + 1] = offsets[app] + rowNeighbors[app].length;
+        int[] neighbors = new int[offsets[appCount]];
+        float[] similarities = new float[offsets[appCount]];
+        for (int app = 0; app < appCount; app++) {
+            System.arraycopy(rowNeighbors[app], 0, neighbors, offsets[app], rowNeighbors[app].length);
+            System.arraycopy(rowSimilarities[app], 0, similarities, offsets[app], rowSimilarities[app].length);
+        }
+        return new ItemNeighborIndex(appIds, offsets, IntBuffer.wrap(neighbors), FloatBuffer.wrap(similarities),
+                maxNeighbors, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * 由数据库聚合好的共现计数流式构建近邻索引
+     * 逐行追加 (游戏A, 游戏B, 共同推荐人数, 推荐A的人数, 推荐B的人数)，行须按游戏A升序、同一游戏A内按游戏B升序；
+     * 每个游戏只在内存中保留当前行组与已选出的近邻，相似度公式与{@link #build}一致
+     */
+    public static final class CooccurrenceBuilder {
+        private final int maxNeighbors;
+        private final long startNanos = System.nanoTime();
+        private final TopKSelector top;
+
+        private boolean hasCurrent;
+        private long currentApp;
+        private long[] rowApps = new long[16];
+        private int rowSize;
+
+        private long[] owners = new long[16];
+        private int[] ownerCounts = new int[16];
+        private int ownerSize;
+        private long[] neighborApps = new long[64];
+        private float[] neighborSimilarities = new float[64];
+        private int neighborSize;
+
+        public CooccurrenceBuilder(int maxNeighbors) {
+            this.maxNeighbors = maxNeighbors;
+            this.top = new TopKSelector(maxNeighbors);
+        }
+
+        /**
+         * 追加一行共现计数
+         * @param appA 游戏A
+         * @param appB 游戏B(A的候选近邻)
+         * @param common 同时推荐A与B的人数
+         * @param positivesA 推荐A的人数
+         * @param positivesB 推荐B的人数
+         */
+        public CooccurrenceBuilder add(long appA, long appB, long common, long positivesA, long positivesB) {
+            if (!hasCurrent || appA != currentApp) {
+                if (hasCurrent && appA < currentApp) {
+                    throw new IllegalArgumentException("共现计数须按游戏A升序: " + appA + " < " + currentApp);
+                }
+                flush();
+                hasCurrent = true;
+                currentApp = appA;
+            }
+            if (rowSize == rowApps.length) {
+                rowApps = Arrays.copyOf(rowApps, rowSize * 2);
+            }
+            rowApps[rowSize] = appB;
+            // 行内下标与游戏B的顺序一致，相似度相同时ID小者优先，与build一致
+            top.offer(rowSize++, common / (Math.sqrt(positivesA) * Math.sqrt(positivesB)));
+            return this;
+        }
+
+        private void flush() {
+            if (!hasCurrent) return;
+            int size = top.size();
+            int[] ids = new int[size];
+            double[] scores = new double[size];
+            top.drainDescending(ids, scores);
+            top.reset();
+
+            if (ownerSize == owners.length) {
+                owners = Arrays.copyOf(owners, ownerSize * 2);
+                ownerCounts = Arrays.copyOf(ownerCounts, ownerSize * 2);
+            }
+            owners[ownerSize] = currentApp;
+            ownerCounts[ownerSize++] = size;
+            if (neighborSize + size > neighborApps.length) {
+                int capacity = Math.max(neighborApps.length * 2, neighborSize + size);
+                neighborApps = Arrays.copyOf(neighborApps, capacity);
+                neighborSimilarities = Arrays.copyOf(neighborSimilarities, capacity);
+            }
+            for (int i = 0; i < size; i++) {
+                neighborApps[neighborSize] = rowApps[ids[i]];
+                neighborSimilarities[neighborSize++] = (float) scores[i];
+            }
+            rowSize = 0;
+        }
+
+        public ItemNeighborIndex build() {
+            flush();
+            long[] all = Arrays.copyOf(owners, ownerSize + neighborSize);
+            System.arraycopy(neighborApps, 0, all, ownerSize, neighborSize);
+            long[] appIds = Arrays.stream(all).sorted().distinct().toArray();
+
+            int appCount = appIds.length;
+            int[] offsets = new int[appCount + 1];
+            for (int i = 0; i < ownerSize; i++) {
+                offsets[Arrays.binarySearch(appIds, owners[i]) + 1] = ownerCounts[i];
+            }
+            for (int app = 0; app < appCount; app++) offsets[app + 1] += offsets[app];
+
+            // 行组按游戏A升序写入，因此近邻数组已是CSR顺序
+            int[] neighbors = new int[neighborSize];
+            for (int k = 0; k < neighborSize; k++) {
+                neighbors[k] = Arrays.binarySearch(appIds, neighborApps[k]);
+            }
+            float[] similarities = Arrays.copyOf(neighborSimilarities, neighborSize);
+            return new ItemNeighborIndex(appIds, offsets, IntBuffer.wrap(neighbors), FloatBuffer.wrap(similarities),
+                    maxNeighbors, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    // ====================== 快照 ======================
+
+    /** 写入快照分段 */
+    void writeTo(ModelSnapshot.Encoder out) {
+        out.putInt(maxNeighbors);
+        out.putLong(buildMillis);
+        out.putLongs(appIds);
+        out.putInts(offsets);
+        out.putInts(neighbors);
+        out.putFloats(similarities);
+    }
+
+    /** 从快照分段恢复，近邻列表与相似度直接引用映射内存 */
+    static ItemNeighborIndex readFrom(ModelSnapshot.Decoder in) {
+        int maxNeighbors = in.getInt();
+        long buildMillis = in.getLong();
+        return new ItemNeighborIndex(in.getLongs(), in.getInts(), in.mapInts(), in.mapFloats(), maxNeighbors, buildMillis);
+    }
+
+    // ====================== 查询方法 ======================
+
+    /**
+     * 游戏ID转下标
+     * @return 下标，不存在时返回负数
+     */
+    public int appIndex(long appId) {
+        return Arrays.binarySearch(appIds, appId);
+    }
+
+    public long appId(int appIndex) {
+        return appIds[appIndex];
+    }
+
+    public int appCount() {
+        return appIds.length;
+    }
+
+    public int neighborStart(int appIndex) {
+        return offsets[appIndex];
+    }
+
+    public int neighborEnd(int appIndex) {
+        return offsets[appIndex + 1];
+    }
+
+    /** 第k个近邻的游戏下标 */
+    public int neighbor(int k) {
+        return neighbors.get(k);
+    }
+
+    /** 第k个近邻的相似度 */
+    public float similarity(int k) {
+        return similarities.get(k);
+    }
+
+    /** 估算索引占用的堆内存(字节) */
+    public long memoryBytes() {
+        return 8L * appIds.length + 4L * (offsets.length + neighbors.capacity() + similarities.capacity());
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    /**
+     * 获取索引统计信息
+     * @return 游戏数、近邻总数、内存占用与构建耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("apps", appCount());
+        stats.put("neighbors", neighbors.capacity());
+        stats.put("mapped", neighbors.isDirect());
+        stats.put("maxNeighbors", maxNeighbors);
+        stats.put("memoryBytes", memoryBytes());
+        stats.put("buildMillis", buildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+}
@@ -0,0 +1,100 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.repository.RecommendationRepository;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进程级共享的游戏近邻索引
+ * 由后台定时任务基于最新评分矩阵(或MySQL聚合的共现计数)重新计算，在线请求只读取近邻列表
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemNeighborIndexHolder {
+    private static final Logger logger = LoggerFactory.getLogger(ItemNeighborIndexHolder.class);
+
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final RecommendationProperties properties;
+    private final RecommendationRepository recommendationRepository;
+
+    private volatile ItemNeighborIndex index;
+
+    /**
+     * 获取当前近邻索引
+     * @return 近邻索引快照
+     */
+    public ItemNeighborIndex get() {
+        ItemNeighborIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 重新计算近邻索引
+     * sql来源时由数据库聚合共现计数，失败则回退到评分矩阵
+     * @return 新的近邻索引
+     */
+    @Scheduled(initialDelayString = "${recommendation.item-neighbors.refresh-interval-ms:600000}",
+               fixedDelayString = "${recommendation.item-neighbors.refresh-interval-ms:600000}")
+    public synchronized ItemNeighborIndex refresh() {
+        ItemNeighborIndex built = null;
+        if ("sql".equalsIgnoreCase(properties.getItemNeighborSource()) && recommendationRepository != null) {
+            try {
+                built = buildFromCooccurrence();
+            } catch (RuntimeException e) {
+                logger.warn("从数据库构建游戏近邻索引失败，改用评分矩阵: {}", e.getMessage());
+            }
+        }
+        if (built == null) {
+            built = ItemNeighborIndex.build(ratingMatrixHolder.get(), properties.getItemNeighborCount(),
+                    properties.getItemNeighborMinCommon());
+        }
+        index = built;
+        logger.info("游戏近邻索引已刷新 - 游戏: {}, 内存: {} bytes, 耗时: {} ms",
+                built.appCount(), built.memoryBytes(), built.getBuildMillis());
+        return built;
+    }
+
+    private ItemNeighborIndex buildFromCooccurrence() {
+        ItemNeighborIndex.CooccurrenceBuilder builder =
+                new ItemNeighborIndex.CooccurrenceBuilder(properties.getItemNeighborCount());
+        recommendationRepository.streamItemCooccurrence(properties.getItemNeighborMinCommon(), builder::add);
+        return builder.build();
+    }
+
+    /**
+     * 评分增量更新后，只重新计算受影响游戏的近邻
+     * @param matrix 已应用变化的评分矩阵
+     * @param changedAppIds 评分发生变化的游戏
+     * @return 新的近邻索引，尚未构建过索引时返回null(首次读取时会全量构建)
+     */
+    public synchronized ItemNeighborIndex update(RatingMatrix matrix, long[] changedAppIds) {
+        ItemNeighborIndex current = index;
+        if (current == null) {
+            return null;
+        }
+        ItemNeighborIndex updated = current.withUpdatedApps(matrix, changedAppIds, properties.getItemNeighborMinCommon());
+        index = updated;
+        return updated;
+    }
+
+    /**
+     * 直接替换当前近邻索引(如从快照文件恢复)
+     * @param index 近邻索引
+     */
+    void install(ItemNeighborIndex index) {
+        this.index = index;
+    }
+}
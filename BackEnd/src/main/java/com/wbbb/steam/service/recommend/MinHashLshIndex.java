@@ -0,0 +1,188 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * 用户近邻的MinHash/LSH索引(只读快照)
+ * 对每个用户推荐过的游戏集合计算 bands × rows 个MinHash值，每个band的rows个值合并为一个桶键。
+ * 两个用户至少有一个band完全相同才成为候选近邻，Jaccard相似度为s时的命中概率为 1-(1-s^rows)^bands。
+ * 每个band的桶以 (桶键高32位 | 用户下标) 打包后排序存放，查询时二分定位，不需要遍历全部用户。
+ */
+public final class MinHashLshIndex {
+
+    /** 空索引 */
+    public static final MinHashLshIndex EMPTY = build(RatingMatrix.EMPTY, 1, 1, 0L);
+
+    private final int userCount;
+    private final int bands;
+    private final int rows;
+    /** 每个用户每个band的桶键高32位，第u个用户占用[u*bands, (u+1)*bands)；没有推荐的用户不入桶 */
+    private final int[] bandKeys;
+    private final boolean[] indexed;
+    /** 每个band排序后的 (桶键 << 32 | 用户下标) */
+    private final long[][] buckets;
+    private final long buildMillis;
+    private final long builtAt;
+
+    private MinHashLshIndex(int userCount, int bands, int rows, int[] bandKeys, boolean[] indexed,
+                            long[][] buckets, long buildMillis) {
+        this.userCount = userCount;
+        this.bands = bands;
+        this.rows = rows;
+        this.bandKeys = bandKeys;
+        this.indexed = indexed;
+        this.buckets = buckets;
+        this.buildMillis = buildMillis;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    // ====================== 构建 ======================
+
+    /**
+     * 从评分矩阵构建索引，只使用推荐(评分为1)的记录
+     * @param matrix 评分矩阵
+     * @param bands band数，越多召回越高、候选越多
+     * @param rows 每个band的行数，越多候选越精确、召回越低
+     * @param seed 哈希种子，相同种子得到相同索引
+     * @return LSH索引
+     */
+    public static MinHashLshIndex build(RatingMatrix matrix, int bands, int rows, long seed) {
+        long start = System.nanoTime();
+        int userCount = matrix.userCount();
+        int hashes = bands * rows;
+        long[] multipliers = new long[hashes];
+        long[] offsets = new long[hashes];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int h = 0; h < hashes; h++) {
+            multipliers[h] = random.nextLong() | 1L;
+            offsets[h] = random.nextLong();
+        }
+
+        int[] bandKeys = new int[userCount * bands];
+        boolean[] indexed = new boolean[userCount];
+        ThreadLocal<long[]> minimums = ThreadLocal.withInitial(() -> new long[hashes]);
+        IntStream.range(0, userCount).parallel().forEach(user -> {
+            if (matrix.userPositiveCount(user) == 0) return;
+            long[] min = minimums.get();
+            Arrays.fill(min, Long.MAX_VALUE);
+            for (int k = matrix.userRowStart(user); k < matrix.userRowEnd(user); k++) {
+                if (matrix.userRowValue(k) == 0) continue;
+                long app = matrix.userRowItem(k);
+                for (int h = 0; h < hashes; h++) {
+                    long value = mix(app * multipliers[h] + offsets[h]);
+                    if (value < min[h]) min[h] = value;
+                }
+            }
+            for (int b = 0; b < bands; b++) {
+                long key = b;
+                for (int r = 0; r < rows; r++) {
+                    key = mix(key ^ min[b * rows + r]);
+                }
+                bandKeys[user * bands + b] = (int) (key >>> 32);
+            }
+            indexed[user] = true;
+        });
+
+        int indexedCount = 0;
+        for (boolean flag : indexed) if (flag) indexedCount++;
+        long[][] buckets = new long[bands][indexedCount];
+        for (int b = 0; b < bands; b++) {
+            int n = 0;
+            for (int user = 0; user < userCount; user++) {
+                if (indexed[user]) buckets[b][n++] = pack(bandKeys[user * bands + b], user);
+            }
+            Arrays.sort(buckets[b]);
+        }
+
+        return new MinHashLshIndex(userCount, bands, rows, bandKeys, indexed, buckets,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** murmur3 64位终结函数 */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long pack(int key, int user) {
+        return ((long) key << 32) | (user & 0xFFFFFFFFL);
+    }
+
+    // ====================== 查询 ======================
+
+    /**
+     * 查询候选近邻
+     * @param user 用户下标(与构建时的评分矩阵一致)
+     * @param maxCandidates 最多返回的候选数
+     * @return 与该用户至少有一个band相同的其他用户，按用户下标升序
+     */
+    public int[] candidates(int user, int maxCandidates) {
+        if (user < 0 || user >= userCount || !indexed[user]) return new int[0];
+        int[] found = new int[16];
+        int count = 0;
+        for (int b = 0; b < bands; b++) {
+            long[] bucket = buckets[b];
+            long lower = pack(bandKeys[user * bands + b], 0);
+            int pos = Arrays.binarySearch(bucket, lower);
+            if (pos < 0) pos = -pos - 1;
+            for (; pos < bucket.length && (bucket[pos] >>> 32) == (lower >>> 32); pos++) {
+                int other = (int) bucket[pos];
+                if (other == user) continue;
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = other;
+            }
+        }
+        Arrays.sort(found, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count && distinct < maxCandidates; i++) {
+            if (distinct == 0 || found[distinct - 1] != found[i]) {
+                found[distinct++] = found[i];
+            }
+        }
+        return Arrays.copyOf(found, distinct);
+    }
+
+    // ====================== 统计 ======================
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    /** 索引数组占用的大致字节数 */
+    public long memoryBytes() {
+        long bucketBytes = 0;
+        for (long[] bucket : buckets) bucketBytes += 8L * bucket.length;
+        return 4L * bandKeys.length + indexed.length + bucketBytes;
+    }
+
+    /**
+     * 获取索引统计信息
+     * @return 用户数、band/row参数、内存占用与构建耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", userCount);
+        stats.put("indexedUsers", buckets.length > 0 ? buckets[0].length : 0);
+        stats.put("bands", bands);
+        stats.put("rows", rows);
+        stats.put("memoryBytes", memoryBytes());
+        stats.put("buildMillis", buildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+}
@@ -0,0 +1,64 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进程级共享的用户LSH索引
+ * 由后台定时任务基于最新评分矩阵重新计算；索引与构建时的评分矩阵成对保存，保证用户下标一致
+ */
+@Component
+@RequiredArgsConstructor
+public class MinHashLshIndexHolder {
+    private static final Logger logger = LoggerFactory.getLogger(MinHashLshIndexHolder.class);
+
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final RecommendationProperties properties;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 评分矩阵与基于它构建的索引
+     */
+    public record Snapshot(RatingMatrix matrix, MinHashLshIndex index) {
+    }
+
+    /**
+     * 获取当前索引快照
+     * @return 评分矩阵与LSH索引
+     */
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 基于当前评分矩阵重新计算索引
+     * @return 新的索引快照
+     */
+    @Scheduled(initialDelayString = "${recommendation.lsh.refresh-interval-ms:600000}",
+               fixedDelayString = "${recommendation.lsh.refresh-interval-ms:600000}")
+    public Snapshot refresh() {
+        RecommendationProperties.Lsh lsh = properties.getLsh();
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        MinHashLshIndex index = MinHashLshIndex.build(matrix, lsh.getBands(), lsh.getRows(), lsh.getSeed());
+        Snapshot built = new Snapshot(matrix, index);
+        snapshot = built;
+        logger.info("用户LSH索引已刷新 - 用户: {}, bands: {}, rows: {}, 内存: {} bytes, 耗时: {} ms",
+                matrix.userCount(), index.getBands(), index.getRows(), index.memoryBytes(), index.getBuildMillis());
+        return built;
+    }
+}
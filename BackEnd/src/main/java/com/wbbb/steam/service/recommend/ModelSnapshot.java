@@ -0,0 +1,333 @@
+package com.wbbb.steam.service.recommend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 推荐模型快照文件
+ * 二进制格式(小端)：
+ * <pre>
+ * 文件头: magic(int) | version(int) | createdAt(long) | sectionCount(int)
+ * 分段:   type(int) | length(long) | payload
+ * 数组:   length(int) | 填充到8字节对齐 | 数据
+ * </pre>
+ * 写入时先写临时文件并刷盘，再原子重命名覆盖正式文件；读取时整体映射(FileChannel.map)，
+ * 评分矩阵的行数据、近邻列表与ALS向量直接使用映射内存的视图，不复制到堆；ID映射与偏移表批量拷贝为基本类型数组。
+ * 游戏目录分段保存标签字典与标签位图，连同名称等字段一起恢复为堆上的目录快照。
+ * 未知类型的分段按长度跳过，便于向后兼容。
+ */
+public final class ModelSnapshot {
+
+    /** "SRMS" */
+    static final int MAGIC = 0x53524D53;
+    /** 当前格式版本，格式不兼容时递增 */
+    public static final int VERSION = 1;
+
+    static final int SECTION_RATING_MATRIX = 1;
+    static final int SECTION_ITEM_NEIGHBORS = 2;
+    static final int SECTION_ALS = 3;
+    static final int SECTION_APP_CATALOG = 4;
+
+    private ModelSnapshot() {
+    }
+
+    /**
+     * 快照内容，各模型均可为null
+     * @param matrix 评分矩阵
+     * @param itemNeighbors 游戏近邻索引
+     * @param als ALS模型
+     * @param catalog 游戏目录(含标签索引)
+     */
+    public record Contents(RatingMatrix matrix, ItemNeighborIndex itemNeighbors, AlsModel als, AppCatalog catalog) {
+    }
+
+    // ====================== 写入 ======================
+
+    /**
+     * 原子写入快照文件
+     * @param file 快照文件路径
+     * @param contents 快照内容
+     * @return 文件字节数
+     */
+    public static long write(Path file, Contents contents) throws IOException {
+        Encoder sizing = new Encoder(null);
+        encode(sizing, contents);
+        long size = sizing.position;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("快照文件过大: " + size + " bytes");
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            encode(new Encoder(out), contents);
+            out.force();
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return size;
+    }
+
+    private static void encode(Encoder out, Contents contents) {
+        int sections = (contents.matrix() != null ? 1 : 0) + (contents.itemNeighbors() != null ? 1 : 0)
+                + (contents.als() != null ? 1 : 0) + (contents.catalog() != null ? 1 : 0);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(System.currentTimeMillis());
+        out.putInt(sections);
+        if (contents.matrix() != null) {
+            int start = out.beginSection(SECTION_RATING_MATRIX);
+            contents.matrix().writeTo(out);
+            out.endSection(start);
+        }
+        if (contents.itemNeighbors() != null) {
+            int start = out.beginSection(SECTION_ITEM_NEIGHBORS);
+            contents.itemNeighbors().writeTo(out);
+            out.endSection(start);
+        }
+        if (contents.als() != null) {
+            int start = out.beginSection(SECTION_ALS);
+            contents.als().writeTo(out);
+            out.endSection(start);
+        }
+        if (contents.catalog() != null) {
+            int start = out.beginSection(SECTION_APP_CATALOG);
+            contents.catalog().writeTo(out);
+            out.endSection(start);
+        }
+    }
+
+    // ====================== 读取 ======================
+
+    /**
+     * 映射并读取快照文件
+     * @param file 快照文件路径
+     * @return 快照内容，文件中没有的模型为null
+     * @throws IOException 文件不存在、格式或版本不匹配
+     */
+    public static Contents read(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        Decoder in = new Decoder(mapped);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("不是推荐模型快照文件: " + file);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的快照版本: " + version + ", 当前版本: " + VERSION);
+            }
+            in.getLong();
+            int sections = in.getInt();
+
+            RatingMatrix matrix = null;
+            ItemNeighborIndex itemNeighbors = null;
+            AlsModel als = null;
+            AppCatalog catalog = null;
+            for (int i = 0; i < sections; i++) {
+                int type = in.getInt();
+                long length = in.getLong();
+                int end = Math.toIntExact(in.buffer.position() + length);
+                switch (type) {
+                    case SECTION_RATING_MATRIX -> matrix = RatingMatrix.readFrom(in);
+                    case SECTION_ITEM_NEIGHBORS -> itemNeighbors = ItemNeighborIndex.readFrom(in);
+                    case SECTION_ALS -> als = AlsModel.readFrom(in);
+                    case SECTION_APP_CATALOG -> catalog = AppCatalog.readFrom(in);
+                    default -> {
+                    }
+                }
+                in.buffer.position(end);
+            }
+            return new Contents(matrix, itemNeighbors, als, catalog);
+        } catch (RuntimeException e) {
+            throw new IOException("快照文件已损坏: " + file, e);
+        }
+    }
+
+    // ====================== 编解码 ======================
+
+    /**
+     * 顺序写入器；buffer为null时只统计字节数，用于预先计算文件大小
+     */
+    static final class Encoder {
+        private final ByteBuffer buffer;
+        private int position;
+
+        Encoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int beginSection(int type) {
+            putInt(type);
+            putLong(0L);
+            return position;
+        }
+
+        void endSection(int start) {
+            if (buffer != null) {
+                buffer.putLong(start - Long.BYTES, position - start);
+            }
+        }
+
+        void putInt(int value) {
+            if (buffer != null) buffer.putInt(position, value);
+            position += Integer.BYTES;
+        }
+
+        void putLong(long value) {
+            if (buffer != null) buffer.putLong(position, value);
+            position += Long.BYTES;
+        }
+
+        private void beginArray(int length) {
+            putInt(length);
+            position = align(position);
+        }
+
+        void putLongs(long[] values) {
+            beginArray(values.length);
+            if (buffer != null) buffer.position(position).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(values);
+            position += values.length * Long.BYTES;
+        }
+
+        void putDoubles(double[] values) {
+            beginArray(values.length);
+            if (buffer != null) buffer.position(position).slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(values);
+            position += values.length * Double.BYTES;
+        }
+
+        void putInts(int[] values) {
+            putInts(IntBuffer.wrap(values));
+        }
+
+        void putInts(IntBuffer values) {
+            int length = values.remaining();
+            beginArray(length);
+            if (buffer != null) buffer.position(position).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(values.duplicate());
+            position += length * Integer.BYTES;
+        }
+
+        void putFloats(FloatBuffer values) {
+            int length = values.remaining();
+            beginArray(length);
+            if (buffer != null) buffer.position(position).slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(values.duplicate());
+            position += length * Float.BYTES;
+        }
+
+        void putBytes(ByteBuffer values) {
+            int length = values.remaining();
+            beginArray(length);
+            if (buffer != null) buffer.put(position, values.duplicate(), values.position(), length);
+            position += length;
+        }
+
+        /** 字符串数组：个数 | 每项为UTF-8字节数(null记为-1) | 字节 */
+        void putStrings(String[] values) {
+            putInt(values.length);
+            for (String value : values) {
+                if (value == null) {
+                    putInt(-1);
+                    continue;
+                }
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                putInt(bytes.length);
+                if (buffer != null) buffer.put(position, bytes);
+                position += bytes.length;
+            }
+        }
+    }
+
+    /**
+     * 顺序读取器；get*s方法拷贝为堆数组，map*s方法返回映射内存的只读视图
+     */
+    static final class Decoder {
+        private final ByteBuffer buffer;
+
+        Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int getInt() {
+            return buffer.getInt();
+        }
+
+        long getLong() {
+            return buffer.getLong();
+        }
+
+        private ByteBuffer array(int bytesPerElement) {
+            int length = buffer.getInt();
+            int start = align(buffer.position());
+            ByteBuffer slice = buffer.slice(start, length * bytesPerElement).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(start + length * bytesPerElement);
+            return slice;
+        }
+
+        long[] getLongs() {
+            ByteBuffer slice = array(Long.BYTES);
+            long[] values = new long[slice.remaining() / Long.BYTES];
+            slice.asLongBuffer().get(values);
+            return values;
+        }
+
+        int[] getInts() {
+            ByteBuffer slice = array(Integer.BYTES);
+            int[] values = new int[slice.remaining() / Integer.BYTES];
+            slice.asIntBuffer().get(values);
+            return values;
+        }
+
+        double[] getDoubles() {
+            ByteBuffer slice = array(Double.BYTES);
+            double[] values = new double[slice.remaining() / Double.BYTES];
+            slice.asDoubleBuffer().get(values);
+            return values;
+        }
+
+        String[] getStrings() {
+            String[] values = new String[buffer.getInt()];
+            for (int i = 0; i < values.length; i++) {
+                int length = buffer.getInt();
+                if (length < 0) continue;
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return values;
+        }
+
+        ByteBuffer mapBytes() {
+            return array(1);
+        }
+
+        IntBuffer mapInts() {
+            return array(Integer.BYTES).asIntBuffer();
+        }
+
+        FloatBuffer mapFloats() {
+            return array(Float.BYTES).asFloatBuffer();
+        }
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+}
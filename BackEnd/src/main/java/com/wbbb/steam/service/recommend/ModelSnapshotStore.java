@@ -0,0 +1,82 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 推荐模型快照的本地持久化
+ * 启动时若存在快照文件则直接装载评分矩阵、游戏近邻索引、ALS模型与游戏目录(含标签索引)，无需等待数据库重建即可提供推荐；
+ * 之后由后台定时任务把当前模型写回快照文件。快照缺失、损坏或版本不符时回退到从数据库构建。
+ */
+@Component
+@RequiredArgsConstructor
+public class ModelSnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(ModelSnapshotStore.class);
+
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final ItemNeighborIndexHolder itemNeighborIndexHolder;
+    private final AlsModelHolder alsModelHolder;
+    private final AppCatalogHolder appCatalogHolder;
+    private final RecommendationProperties properties;
+
+    private Path file() {
+        return Paths.get(properties.getSnapshot().getPath());
+    }
+
+    /**
+     * 从快照文件恢复模型
+     * @return 是否已恢复
+     */
+    @PostConstruct
+    public boolean restore() {
+        if (!properties.getSnapshot().isEnabled() || !Files.isRegularFile(file())) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            ModelSnapshot.Contents contents = ModelSnapshot.read(file());
+            if (contents.matrix() != null) ratingMatrixHolder.install(contents.matrix());
+            if (contents.itemNeighbors() != null) itemNeighborIndexHolder.install(contents.itemNeighbors());
+            if (contents.als() != null) alsModelHolder.install(contents.als());
+            if (contents.catalog() != null) appCatalogHolder.install(contents.catalog());
+            logger.info("推荐模型已从快照恢复 - 文件: {}, 评分矩阵: {}, 近邻索引: {}, ALS: {}, 游戏目录: {}, 耗时: {} ms",
+                    file(), contents.matrix() != null, contents.itemNeighbors() != null, contents.als() != null,
+                    contents.catalog() != null, (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException e) {
+            logger.warn("推荐模型快照无法加载，将从数据库重建: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 把当前模型写入快照文件
+     */
+    @Scheduled(initialDelayString = "${recommendation.snapshot.interval-ms:900000}",
+               fixedDelayString = "${recommendation.snapshot.interval-ms:900000}")
+    public void save() {
+        if (!properties.getSnapshot().isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            long bytes = ModelSnapshot.write(file(), new ModelSnapshot.Contents(
+                    ratingMatrixHolder.get(), itemNeighborIndexHolder.get(), alsModelHolder.get(), appCatalogHolder.get()));
+            logger.info("推荐模型快照已写入 - 文件: {}, 大小: {} bytes, 耗时: {} ms",
+                    file(), bytes, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            logger.warn("推荐模型快照写入失败: {}", e.getMessage());
+        }
+    }
+}
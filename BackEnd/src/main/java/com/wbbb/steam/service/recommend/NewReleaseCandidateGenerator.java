@@ -0,0 +1,29 @@
+package com.wbbb.steam.service.recommend;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 候选生成：最新发行的游戏
+ * 按目录预先排好的发行日期顺序取用户未评分的游戏
+ */
+@Component
+@Order(4)
+public class NewReleaseCandidateGenerator implements CandidateGenerator {
+
+    @Override
+    public String name() {
+        return "new-releases";
+    }
+
+    @Override
+    public void generate(CandidateRequest request, CandidateSet candidates, int maxCandidates) {
+        AppCatalog catalog = request.catalog();
+        for (int rank = 0; rank < catalog.size() && candidates.added() < maxCandidates; rank++) {
+            int index = catalog.releaseIndex(rank);
+            if (!request.ratedAppIds().contains(catalog.appId(index))) {
+                candidates.add(index);
+            }
+        }
+    }
+}
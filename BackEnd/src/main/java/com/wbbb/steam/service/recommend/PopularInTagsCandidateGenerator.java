@@ -0,0 +1,44 @@
+package com.wbbb.steam.service.recommend;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 候选生成：用户偏好标签内的热门游戏
+ * 归并用户各偏好标签的热度排行榜；用户没有偏好标签时取全站热门
+ */
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class PopularInTagsCandidateGenerator implements CandidateGenerator {
+
+    private final PopularityLeaderboardHolder popularityLeaderboardHolder;
+
+    @Override
+    public String name() {
+        return "popular-tags";
+    }
+
+    @Override
+    public void generate(CandidateRequest request, CandidateSet candidates, int maxCandidates) {
+        AppCatalog catalog = request.catalog();
+        PopularityLeaderboards leaderboards = popularityLeaderboardHolder.get();
+        // 排行榜可能已基于更新的目录快照，标签位与下标都按排行榜自己的目录解释
+        AppCatalog ranked = leaderboards.catalog();
+        int[] bits = request.preferenceTags().stream()
+                .mapToInt(tag -> ranked.tagDictionary().bitOf(tag))
+                .filter(bit -> bit >= 0)
+                .toArray();
+        // 已评分或已被其他生成器选中的游戏会被跳过，多取一些备用
+        int k = maxCandidates + request.ratedAppIds().size() + candidates.size();
+        int[] top = bits.length == 0 ? leaderboards.top(k) : leaderboards.topForTags(bits, k);
+        for (int i = 0; i < top.length && candidates.added() < maxCandidates; i++) {
+            long appId = ranked.appId(top[i]);
+            int index = ranked == catalog ? top[i] : catalog.indexOf(appId);
+            if (index >= 0 && !request.ratedAppIds().contains(appId)) {
+                candidates.add(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.wbbb.steam.service.recommend;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 推荐引擎：全站热门排行
+ * 只读取内存中的热度排行榜与评分矩阵，跳过用户评价过的游戏；不做个性化，可作为其他引擎的基线
+ */
+@Component
+@RequiredArgsConstructor
+public class PopularRecommendationEngine implements RecommendationEngine {
+
+    private final PopularityLeaderboardHolder popularityLeaderboardHolder;
+    private final RatingMatrixHolder ratingMatrixHolder;
+
+    @Override
+    public String name() {
+        return "popular";
+    }
+
+    @Override
+    public List<Long> recommend(Long userId, int limit) {
+        return fill(userId, new ArrayList<>(limit), limit);
+    }
+
+    /**
+     * 按全站热门排行把结果补足到limit个，跳过用户评价过的与已在结果中的游戏
+     * @param userId 用户ID
+     * @param result 已有结果，直接追加
+     * @param limit 目标数量
+     * @return result本身
+     */
+    public List<Long> fill(Long userId, List<Long> result, int limit) {
+        if (result.size() >= limit) return result;
+        Set<Long> excluded = new HashSet<>(result);
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        int user = matrix.userIndex(userId);
+        if (user >= 0) {
+            for (int k = matrix.userRowStart(user); k < matrix.userRowEnd(user); k++) {
+                excluded.add(matrix.appId(matrix.userRowItem(k)));
+            }
+        }
+        PopularityLeaderboards leaderboards = popularityLeaderboardHolder.get();
+        int[] top = leaderboards.top(limit - result.size() + excluded.size());
+        for (int i = 0; i < top.length && result.size() < limit; i++) {
+            long appId = leaderboards.catalog().appId(top[i]);
+            if (!excluded.contains(appId)) result.add(appId);
+        }
+        return result;
+    }
+}
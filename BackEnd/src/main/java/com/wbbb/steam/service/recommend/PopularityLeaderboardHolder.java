@@ -0,0 +1,102 @@
+package com.wbbb.steam.service.recommend;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程级共享的热度排行榜
+ * 目录快照更新后在下一次读取时重建；游戏的热度或好评率变化先记录下来，由后台定时任务合并后重建，
+ * 不会让在线请求承担排序开销。变化按提交后取得的序号记录，重建时只丢弃序号不大于新目录快照序号的变化。
+ */
+@Component
+@RequiredArgsConstructor
+public class PopularityLeaderboardHolder {
+    private static final Logger logger = LoggerFactory.getLogger(PopularityLeaderboardHolder.class);
+
+    private final AppCatalogHolder appCatalogHolder;
+
+    private volatile PopularityLeaderboards leaderboards;
+    /** 目录快照之后发生的热度/好评率变化：游戏ID→变化 */
+    private final Map<Long, Change> pending = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private record Change(Integer popularity, Double positiveRate, long sequence) {
+    }
+
+    /**
+     * 获取当前排行榜
+     * @return 排行榜快照，与当前目录快照一致
+     */
+    public PopularityLeaderboards get() {
+        AppCatalog catalog = appCatalogHolder.get();
+        PopularityLeaderboards current = leaderboards;
+        if (current == null || current.catalog() != catalog) {
+            synchronized (this) {
+                current = leaderboards;
+                if (current == null || current.catalog() != catalog) {
+                    current = rebuild(catalog);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 记录游戏热度或好评率的变化，须在事务提交后调用
+     * @param appId 游戏ID
+     * @param popularity 新热度，未变化时为null
+     * @param positiveRate 新好评率(0-100)，未变化时为null
+     */
+    public void update(Long appId, Integer popularity, Double positiveRate) {
+        pending.merge(appId, new Change(popularity, positiveRate, appCatalogHolder.nextChangeSequence()), (old, change) ->
+                new Change(change.popularity() != null ? change.popularity() : old.popularity(),
+                        change.positiveRate() != null ? change.positiveRate() : old.positiveRate(),
+                        change.sequence()));
+        dirty = true;
+    }
+
+    /**
+     * 有未合并的变化时重建排行榜
+     */
+    @Scheduled(initialDelayString = "${recommendation.leaderboard.refresh-interval-ms:60000}",
+               fixedDelayString = "${recommendation.leaderboard.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (dirty) {
+            synchronized (this) {
+                rebuild(appCatalogHolder.get());
+            }
+        }
+    }
+
+    private PopularityLeaderboards rebuild(AppCatalog catalog) {
+        dirty = false;
+        int size = catalog.size();
+        double[] popularity = new double[size];
+        double[] positiveRates = new double[size];
+        for (int i = 0; i < size; i++) {
+            popularity[i] = catalog.popularity(i);
+            positiveRates[i] = catalog.positiveRate(i);
+        }
+        pending.forEach((appId, change) -> {
+            if (change.sequence() <= catalog.getChangeSequence()) {
+                pending.remove(appId, change);
+                return;
+            }
+            int index = catalog.indexOf(appId);
+            if (index < 0) return;
+            if (change.popularity() != null) popularity[index] = change.popularity();
+            if (change.positiveRate() != null) positiveRates[index] = change.positiveRate();
+        });
+        PopularityLeaderboards built = PopularityLeaderboards.build(catalog, popularity, positiveRates);
+        leaderboards = built;
+        logger.info("热度排行榜已重建 - 游戏: {}, 待合并变化: {}, 耗时: {} ms",
+                built.size(), pending.size(), built.getStats().get("buildMillis"));
+        return built;
+    }
+}
@@ -0,0 +1,202 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热度排行榜(只读快照)
+ * 全站排行按热度降序，热度相同时好评率高者优先，再相同时目录中靠前者优先；
+ * 每个标签一个排行榜，是全站排行中带该标签的子序列(CSR，按标签字典的位编号)。
+ * 多个标签的排行榜按全站名次做T路归并，取前K个只需O(K log T)，同一游戏在各榜中名次相同，归并时相邻出现即可去重。
+ */
+public final class PopularityLeaderboards {
+
+    /** 空排行榜 */
+    public static final PopularityLeaderboards EMPTY = build(AppCatalog.EMPTY, new double[0], new double[0]);
+
+    /** 构建时使用的目录快照 */
+    private final AppCatalog catalog;
+    /** 全站排行，名次→目录下标 */
+    private final int[] global;
+    /** 目录下标→全站名次 */
+    private final int[] rankOf;
+    private final int[] tagOffsets;
+    private final int[] tagEntries;
+    private final long buildMillis;
+    private final long builtAt;
+
+    private PopularityLeaderboards(AppCatalog catalog, int[] global, int[] rankOf, int[] tagOffsets, int[] tagEntries,
+                                   long buildMillis) {
+        this.catalog = catalog;
+        this.global = global;
+        this.rankOf = rankOf;
+        this.tagOffsets = tagOffsets;
+        this.tagEntries = tagEntries;
+        this.buildMillis = buildMillis;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 构建排行榜
+     * @param catalog 游戏目录
+     * @param popularity 按目录下标的热度
+     * @param positiveRates 按目录下标的好评率
+     * @return 排行榜
+     */
+    public static PopularityLeaderboards build(AppCatalog catalog, double[] popularity, double[] positiveRates) {
+        long start = System.nanoTime();
+        int size = catalog.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -popularity[i])
+                .thenComparingDouble(i -> -positiveRates[i])
+                .thenComparingInt(i -> i));
+        int[] global = new int[size];
+        int[] rankOf = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            global[rank] = order[rank];
+            rankOf[order[rank]] = rank;
+        }
+
+        TagDictionary dictionary = catalog.tagDictionary();
+        int tagCount = dictionary.size();
+        int[] tagOffsets = new int[tagCount + 1];
+        for (int i = 0; i < size; i++) {
+            for (String tag : catalog.tags(i)) tagOffsets[dictionary.bitOf(tag) + 1]++;
+        }
+        for (int t = 0; t < tagCount; t++) tagOffsets[t + 1] += tagOffsets[t];
+        int[] tagEntries = new int[tagOffsets[tagCount]];
+        int[] fill = Arrays.copyOf(tagOffsets, tagCount);
+        for (int index : global) {
+            for (String tag : catalog.tags(index)) tagEntries[fill[dictionary.bitOf(tag)]++] = index;
+        }
+        return new PopularityLeaderboards(catalog, global, rankOf, tagOffsets, tagEntries,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 按目录当前的热度与好评率构建排行榜
+     */
+    public static PopularityLeaderboards build(AppCatalog catalog) {
+        int size = catalog.size();
+        double[] popularity = new double[size];
+        double[] positiveRates = new double[size];
+        for (int i = 0; i < size; i++) {
+            popularity[i] = catalog.popularity(i);
+            positiveRates[i] = catalog.positiveRate(i);
+        }
+        return build(catalog, popularity, positiveRates);
+    }
+
+    // ====================== 查询方法 ======================
+
+    public AppCatalog catalog() {
+        return catalog;
+    }
+
+    public int size() {
+        return global.length;
+    }
+
+    /** 全站第rank名的目录下标 */
+    public int global(int rank) {
+        return global[rank];
+    }
+
+    /**
+     * 全站前k名
+     * @param k 数量
+     * @return 目录下标，按名次排列
+     */
+    public int[] top(int k) {
+        return Arrays.copyOf(global, Math.min(k, global.length));
+    }
+
+    /**
+     * 归并多个标签的排行榜，取带有其中任一标签的前k名
+     * @param tagBits 标签位编号(由目录标签字典给出，须非负)
+     * @param k 数量
+     * @return 目录下标，按全站名次排列，不重复
+     */
+    public int[] topForTags(int[] tagBits, int k) {
+        // 小顶堆：每个标签一个游标，按游标当前游戏的全站名次排序
+        int[] cursors = new int[tagBits.length];
+        int[] ends = new int[tagBits.length];
+        int heapSize = 0;
+        for (int bit : tagBits) {
+            if (tagOffsets[bit] < tagOffsets[bit + 1]) {
+                cursors[heapSize] = tagOffsets[bit];
+                ends[heapSize] = tagOffsets[bit + 1];
+                siftUp(cursors, ends, heapSize++);
+            }
+        }
+
+        int[] result = new int[Math.min(k, global.length)];
+        int count = 0;
+        int last = -1;
+        while (heapSize > 0 && count < result.length) {
+            int index = tagEntries[cursors[0]];
+            if (index != last) {
+                result[count++] = index;
+                last = index;
+            }
+            if (++cursors[0] == ends[0]) {
+                heapSize--;
+                cursors[0] = cursors[heapSize];
+                ends[0] = ends[heapSize];
+            }
+            siftDown(cursors, ends, heapSize);
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private int rankAt(int[] cursors, int slot) {
+        return rankOf[tagEntries[cursors[slot]]];
+    }
+
+    private void siftUp(int[] cursors, int[] ends, int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (rankAt(cursors, parent) <= rankAt(cursors, slot)) break;
+            swap(cursors, ends, parent, slot);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int[] cursors, int[] ends, int heapSize) {
+        int slot = 0;
+        while (true) {
+            int left = 2 * slot + 1;
+            if (left >= heapSize) break;
+            int smallest = left + 1 < heapSize && rankAt(cursors, left + 1) < rankAt(cursors, left) ? left + 1 : left;
+            if (rankAt(cursors, slot) <= rankAt(cursors, smallest)) break;
+            swap(cursors, ends, slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private static void swap(int[] cursors, int[] ends, int a, int b) {
+        int cursor = cursors[a];
+        cursors[a] = cursors[b];
+        cursors[b] = cursor;
+        int end = ends[a];
+        ends[a] = ends[b];
+        ends[b] = end;
+    }
+
+    /**
+     * 获取排行榜统计信息
+     * @return 游戏数、标签榜数量与构建耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("apps", size());
+        stats.put("tags", tagOffsets.length - 1);
+        stats.put("entries", tagEntries.length);
+        stats.put("buildMillis", buildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+}
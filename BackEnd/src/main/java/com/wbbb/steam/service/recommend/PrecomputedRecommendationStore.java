@@ -0,0 +1,146 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.UserRecommendation;
+import com.wbbb.steam.repository.UserRecommendationRepository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 离线预计算推荐列表的读写
+ * 在线请求按用户主键读取一行；列表过期、长度不足或用户在计算后发生变化时视为未命中，由调用方在线计算。
+ * 用户评分或偏好变化时删除其预计算结果；批处理运行期间的失效时间另行记录，
+ * 保证批处理不会把失效前算出的结果再写回。
+ */
+@Component
+@RequiredArgsConstructor
+public class PrecomputedRecommendationStore {
+
+    private final UserRecommendationRepository userRecommendationRepository;
+    private final RecommendationProperties properties;
+
+    /** 批处理运行期间被失效的用户及失效时间，批处理结束后清空 */
+    private volatile Map<Long, Long> batchInvalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    public boolean isEnabled() {
+        return properties.getBatch().isEnabled();
+    }
+
+    /**
+     * 读取预计算推荐
+     * @param userId 用户ID
+     * @param limit 返回数量
+     * @param catalog 当前游戏目录，已下架的游戏会被跳过
+     * @return 推荐游戏ID列表，未命中时返回null
+     */
+    public List<Long> find(Long userId, int limit, AppCatalog catalog) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Optional<UserRecommendation> row = userRecommendationRepository.findById(userId);
+        if (row.isEmpty()) {
+            misses.increment();
+            return null;
+        }
+        UserRecommendation recommendation = row.get();
+        long age = System.currentTimeMillis() - recommendation.getComputedAt();
+        if (age > properties.getBatch().getMaxAgeMs()) {
+            stale.increment();
+            return null;
+        }
+
+        int expected = Math.min(limit, catalog.size());
+        List<Long> result = new ArrayList<>(expected);
+        for (String id : recommendation.getAppIds().split(",")) {
+            if (result.size() == expected) break;
+            if (id.isEmpty()) continue;
+            long appId = Long.parseLong(id);
+            if (catalog.indexOf(appId) >= 0) {
+                result.add(appId);
+            }
+        }
+        if (result.size() < expected) {
+            stale.increment();
+            return null;
+        }
+        hits.increment();
+        return result;
+    }
+
+    /**
+     * 删除某个用户的预计算推荐
+     * @param userId 用户ID
+     */
+    public void invalidate(Long userId) {
+        if (!isEnabled()) {
+            return;
+        }
+        Map<Long, Long> invalidations = batchInvalidations;
+        if (invalidations != null) {
+            invalidations.put(userId, System.currentTimeMillis());
+        }
+        userRecommendationRepository.deleteById(userId);
+    }
+
+    // ====================== 批处理 ======================
+
+    /** 批处理开始，开始记录期间的失效 */
+    public void beginBatch() {
+        batchInvalidations = new ConcurrentHashMap<>();
+    }
+
+    /** 批处理结束 */
+    public void endBatch() {
+        batchInvalidations = null;
+    }
+
+    /**
+     * 保存一批预计算结果，跳过计算开始后又被失效的用户
+     * @param rows 预计算结果
+     * @return 实际保存的行数
+     */
+    public int saveAll(List<UserRecommendation> rows) {
+        Map<Long, Long> invalidations = batchInvalidations;
+        List<UserRecommendation> fresh = rows;
+        if (invalidations != null && !invalidations.isEmpty()) {
+            fresh = new ArrayList<>(rows.size());
+            for (UserRecommendation row : rows) {
+                Long invalidatedAt = invalidations.get(row.getUserId());
+                if (invalidatedAt == null || invalidatedAt < row.getComputedAt()) {
+                    fresh.add(row);
+                }
+            }
+        }
+        userRecommendationRepository.saveAll(fresh);
+        return fresh.size();
+    }
+
+    /**
+     * 获取命中统计
+     * @return 命中、未命中与过期次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum() + stale.sum();
+        stats.put("enabled", isEnabled());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("stale", stale.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+}
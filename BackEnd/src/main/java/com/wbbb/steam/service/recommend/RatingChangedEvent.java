@@ -0,0 +1,21 @@
+package com.wbbb.steam.service.recommend;
+
+/**
+ * 评分变化事件(进程内)
+ * 评分写入数据库后由RatingService发布，推荐模型据此增量更新
+ * @param userId 用户ID
+ * @param appId 游戏ID
+ * @param recommended 是否推荐，删除时为null
+ * @param removed 是否为删除评分
+ * @param occurredAt 发生时间(毫秒)
+ */
+public record RatingChangedEvent(long userId, long appId, Boolean recommended, boolean removed, long occurredAt) {
+
+    public static RatingChangedEvent rated(long userId, long appId, boolean recommended) {
+        return new RatingChangedEvent(userId, appId, recommended, false, System.currentTimeMillis());
+    }
+
+    public static RatingChangedEvent removed(long userId, long appId) {
+        return new RatingChangedEvent(userId, appId, null, true, System.currentTimeMillis());
+    }
+}
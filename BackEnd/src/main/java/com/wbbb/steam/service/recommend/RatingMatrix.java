@@ -0,0 +1,559 @@
+package com.wbbb.steam.service.recommend;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 用户-游戏评分稀疏矩阵(只读快照)
+ * 采用CSR格式同时保存 用户→游戏 与 游戏→用户 两个方向的行，
+ * 原始ID通过有序数组映射为连续下标，全部使用基本类型数组或缓冲区，避免装箱Map带来的内存与GC开销。
+ * 与评分条数成正比的行数据保存在缓冲区中，从快照加载时为映射文件的视图，不占用堆内存。
+ * 评分值: 推荐=1，不推荐=0
+ */
+public final class RatingMatrix {
+
+    /** 空矩阵 */
+    public static final RatingMatrix EMPTY = new Builder().build();
+
+    // ====================== ID映射 ======================
+    /** 下标→用户ID(升序) */
+    private final long[] userIds;
+    /** 下标→游戏ID(升序) */
+    private final long[] appIds;
+
+    // ====================== 用户→游戏 ======================
+    /** 用户行起始位置，长度为用户数+1 */
+    private final int[] userOffsets;
+    /** 每行内按游戏下标升序；从快照加载时为映射文件的视图 */
+    private final IntBuffer userItems;
+    private final ByteBuffer userValues;
+    /** 每个用户的推荐数量(即评分向量的平方范数) */
+    private final int[] userPositives;
+
+    // ====================== 游戏→用户 ======================
+    /** 游戏列起始位置，长度为游戏数+1 */
+    private final int[] itemOffsets;
+    /** 每列内按用户下标升序；从快照加载时为映射文件的视图 */
+    private final IntBuffer itemUsers;
+    private final ByteBuffer itemValues;
+
+    // ====================== 构建信息 ======================
+    private final long buildMillis;
+    private final long builtAt;
+
+    private RatingMatrix(long[] userIds, long[] appIds,
+                         int[] userOffsets, int[] userItems, byte[] userValues, int[] userPositives,
+                         int[] itemOffsets, int[] itemUsers, byte[] itemValues,
+                         long buildMillis) {
+        this(userIds, appIds, userOffsets, IntBuffer.wrap(userItems), ByteBuffer.wrap(userValues), userPositives,
+                itemOffsets, IntBuffer.wrap(itemUsers), ByteBuffer.wrap(itemValues), buildMillis);
+    }
+
+    private RatingMatrix(long[] userIds, long[] appIds,
+                         int[] userOffsets, IntBuffer userItems, ByteBuffer userValues, int[] userPositives,
+                         int[] itemOffsets, IntBuffer itemUsers, ByteBuffer itemValues,
+                         long buildMillis) {
+        this.userIds = userIds;
+        this.appIds = appIds;
+        this.userOffsets = userOffsets;
+        this.userItems = userItems;
+        this.userValues = userValues;
+        this.userPositives = userPositives;
+        this.itemOffsets = itemOffsets;
+        this.itemUsers = itemUsers;
+        this.itemValues = itemValues;
+        this.buildMillis = buildMillis;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    // ====================== 快照 ======================
+
+    /** 写入快照分段 */
+    void writeTo(ModelSnapshot.Encoder out) {
+        out.putLong(buildMillis);
+        out.putLongs(userIds);
+        out.putLongs(appIds);
+        out.putInts(userOffsets);
+        out.putInts(userItems);
+        out.putBytes(userValues);
+        out.putInts(userPositives);
+        out.putInts(itemOffsets);
+        out.putInts(itemUsers);
+        out.putBytes(itemValues);
+    }
+
+    /** 从快照分段恢复，ID映射与偏移批量拷贝，行数据直接使用映射内存的视图 */
+    static RatingMatrix readFrom(ModelSnapshot.Decoder in) {
+        long buildMillis = in.getLong();
+        return new RatingMatrix(in.getLongs(), in.getLongs(), in.getInts(), in.mapInts(), in.mapBytes(), in.getInts(),
+                in.getInts(), in.mapInts(), in.mapBytes(), buildMillis);
+    }
+
+    // ====================== 查询方法 ======================
+
+    /**
+     * 用户ID转下标
+     * @param userId 用户ID
+     * @return 下标，不存在时返回负数
+     */
+    public int userIndex(long userId) {
+        return Arrays.binarySearch(userIds, userId);
+    }
+
+    /**
+     * 游戏ID转下标
+     * @param appId 游戏ID
+     * @return 下标，不存在时返回负数
+     */
+    public int appIndex(long appId) {
+        return Arrays.binarySearch(appIds, appId);
+    }
+
+    public long userId(int userIndex) {
+        return userIds[userIndex];
+    }
+
+    public long appId(int appIndex) {
+        return appIds[appIndex];
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    public int appCount() {
+        return appIds.length;
+    }
+
+    public int ratingCount() {
+        return userItems.limit();
+    }
+
+    /** 用户评分过的游戏数量 */
+    public int userRatingCount(int userIndex) {
+        return userOffsets[userIndex + 1] - userOffsets[userIndex];
+    }
+
+    /** 用户推荐过的游戏数量 */
+    public int userPositiveCount(int userIndex) {
+        return userPositives[userIndex];
+    }
+
+    /** 评价过该游戏的用户数量 */
+    public int appRatingCount(int appIndex) {
+        return itemOffsets[appIndex + 1] - itemOffsets[appIndex];
+    }
+
+    // ====================== 行遍历 ======================
+
+    /** 用户行在 {@link #userRowItem(int)} 中的起始位置 */
+    public int userRowStart(int userIndex) {
+        return userOffsets[userIndex];
+    }
+
+    /** 用户行的结束位置(不含) */
+    public int userRowEnd(int userIndex) {
+        return userOffsets[userIndex + 1];
+    }
+
+    /** 用户行第k个元素的游戏下标 */
+    public int userRowItem(int k) {
+        return userItems.get(k);
+    }
+
+    /** 用户行第k个元素的评分值 */
+    public int userRowValue(int k) {
+        return userValues.get(k);
+    }
+
+    /** 游戏列在 {@link #appRowUser(int)} 中的起始位置 */
+    public int appRowStart(int appIndex) {
+        return itemOffsets[appIndex];
+    }
+
+    /** 游戏列的结束位置(不含) */
+    public int appRowEnd(int appIndex) {
+        return itemOffsets[appIndex + 1];
+    }
+
+    /** 游戏列第k个元素的用户下标 */
+    public int appRowUser(int k) {
+        return itemUsers.get(k);
+    }
+
+    /** 游戏列第k个元素的评分值 */
+    public int appRowValue(int k) {
+        return itemValues.get(k);
+    }
+
+    /**
+     * 查询单个评分
+     * @return 推荐=1.0，不推荐=0.0，未评分返回NaN
+     */
+    public double rating(int userIndex, int appIndex) {
+        int low = userOffsets[userIndex];
+        int high = userOffsets[userIndex + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int item = userItems.get(mid);
+            if (item < appIndex) {
+                low = mid + 1;
+            } else if (item > appIndex) {
+                high = mid - 1;
+            } else {
+                return userValues.get(mid);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /** 估算矩阵占用的内存(字节)，含映射文件中的行数据 */
+    public long memoryBytes() {
+        return 8L * (userIds.length + appIds.length)
+                + 4L * (userOffsets.length + userItems.capacity() + userPositives.length + itemOffsets.length + itemUsers.capacity())
+                + userValues.capacity() + itemValues.capacity();
+    }
+
+    /** 行数据是否为映射文件的视图 */
+    public boolean isMapped() {
+        return userItems.isDirect();
+    }
+
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 获取矩阵统计信息
+     * @return 用户数、游戏数、评分数、内存占用与构建耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", userCount());
+        stats.put("apps", appCount());
+        stats.put("ratings", ratingCount());
+        stats.put("memoryBytes", memoryBytes());
+        stats.put("mapped", isMapped());
+        stats.put("buildMillis", buildMillis);
+        stats.put("builtAt", builtAt);
+        return stats;
+    }
+
+    // ====================== 增量更新 ======================
+
+    /**
+     * 一批评分变化(新增评分或删除评分)，按发生顺序追加
+     */
+    public static final class Changes {
+        /** 删除该用户对该游戏的评分 */
+        public static final byte REMOVED = -1;
+
+        private long[] users = new long[16];
+        private long[] apps = new long[16];
+        private byte[] values = new byte[16];
+        private int size;
+
+        /**
+         * 追加一条新评分
+         * @param recommended 是否推荐
+         */
+        public Changes rated(long userId, long appId, boolean recommended) {
+            return add(userId, appId, recommended ? (byte) 1 : (byte) 0);
+        }
+
+        /** 追加一条评分删除 */
+        public Changes removed(long userId, long appId) {
+            return add(userId, appId, REMOVED);
+        }
+
+        private Changes add(long userId, long appId, byte value) {
+            if (size == users.length) {
+                users = Arrays.copyOf(users, size * 2);
+                apps = Arrays.copyOf(apps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            users[size] = userId;
+            apps[size] = appId;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /** 合并后的操作：与原值取较大者(与构建时"以推荐为准"一致)、覆盖原值、删除 */
+    private static final byte OP_MAX_0 = 0, OP_MAX_1 = 1, OP_SET_0 = 2, OP_SET_1 = 3, OP_REMOVE = -1;
+
+    /**
+     * 在当前矩阵上应用一批评分变化，生成新的矩阵，当前矩阵不变
+     * 同一(用户, 游戏)的多次变化按顺序折叠为一个操作；两个方向的行都线性合并，不对全部评分重新排序。
+     * 新出现的用户与游戏插入ID映射，已有下标随之平移；评分被删光的用户与游戏保留为空行，下次全量构建时清理
+     * @param changes 评分变化
+     * @return 新矩阵
+     */
+    public RatingMatrix withChanges(Changes changes) {
+        long start = System.nanoTime();
+        // 按(用户, 游戏)稳定排序，同一对的变化保持发生顺序
+        Integer[] order = new Integer[changes.size];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> changes.users[x] != changes.users[y]
+                ? Long.compare(changes.users[x], changes.users[y])
+                : Long.compare(changes.apps[x], changes.apps[y]));
+        long[] changeUsers = new long[order.length];
+        long[] changeApps = new long[order.length];
+        byte[] changeOps = new byte[order.length];
+        int changeCount = 0;
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            byte value = changes.values[i];
+            boolean samePair = changeCount > 0 && changeUsers[changeCount - 1] == changes.users[i]
+                    && changeApps[changeCount - 1] == changes.apps[i];
+            if (!samePair) {
+                changeUsers[changeCount] = changes.users[i];
+                changeApps[changeCount] = changes.apps[i];
+                changeOps[changeCount++] = value == Changes.REMOVED ? OP_REMOVE : value;
+                continue;
+            }
+            byte op = changeOps[changeCount - 1];
+            if (value == Changes.REMOVED) {
+                op = OP_REMOVE;
+            } else if (op == OP_REMOVE) {
+                op = (byte) (OP_SET_0 + value);
+            } else {
+                op = (byte) (op | value);
+            }
+            changeOps[changeCount - 1] = op;
+        }
+
+        long[] newUserIds = mergeIds(userIds, changeUsers, changeOps, changeCount);
+        long[] newAppIds = mergeIds(appIds, changeApps, changeOps, changeCount);
+        int[] appMap = new int[appIds.length];
+        for (int a = 0, na = 0; a < appIds.length; a++) {
+            while (newAppIds[na] != appIds[a]) na++;
+            appMap[a] = na;
+        }
+
+        // 用户→游戏：逐行合并原有评分与变化
+        int userCount = newUserIds.length;
+        int appCount = newAppIds.length;
+        int[] newUserOffsets = new int[userCount + 1];
+        int capacity = ratingCount() + changeCount;
+        int[] newUserItems = new int[capacity];
+        byte[] newUserValues = new byte[capacity];
+        int[] newUserPositives = new int[userCount];
+        int n = 0;
+        int oldUser = 0;
+        int c = 0;
+        for (int u = 0; u < userCount; u++) {
+            long userId = newUserIds[u];
+            int p = 0, pEnd = 0;
+            if (oldUser < userIds.length && userIds[oldUser] == userId) {
+                p = userOffsets[oldUser];
+                pEnd = userOffsets[oldUser + 1];
+                oldUser++;
+            }
+            while (c < changeCount && changeUsers[c] < userId) c++;
+            int cEnd = c;
+            while (cEnd < changeCount && changeUsers[cEnd] == userId) cEnd++;
+            while (p < pEnd || c < cEnd) {
+                int oldApp = p < pEnd ? appMap[userItems.get(p)] : Integer.MAX_VALUE;
+                int changeApp = Integer.MAX_VALUE;
+                if (c < cEnd) {
+                    changeApp = Arrays.binarySearch(newAppIds, changeApps[c]);
+                    if (changeApp < 0) {
+                        // 删除不存在的游戏上的评分
+                        c++;
+                        continue;
+                    }
+                }
+                int app;
+                int value;
+                if (oldApp < changeApp) {
+                    app = oldApp;
+                    value = userValues.get(p++);
+                } else {
+                    byte op = changeOps[c++];
+                    app = changeApp;
+                    int old = -1;
+                    if (oldApp == changeApp) old = userValues.get(p++);
+                    if (op == OP_REMOVE) continue;
+                    value = op >= OP_SET_0 || old < 0 ? op & 1 : Math.max(old, op & 1);
+                }
+                newUserItems[n] = app;
+                newUserValues[n] = (byte) value;
+                newUserPositives[u] += value;
+                n++;
+            }
+            c = cEnd;
+            newUserOffsets[u + 1] = n;
+        }
+
+        // 游戏→用户：按用户顺序回填，保证每列内用户下标升序
+        int[] newItemOffsets = new int[appCount + 1];
+        for (int i = 0; i < n; i++) newItemOffsets[newUserItems[i] + 1]++;
+        for (int a = 0; a < appCount; a++) newItemOffsets[a + 1] += newItemOffsets[a];
+        int[] newItemUsers = new int[n];
+        byte[] newItemValues = new byte[n];
+        int[] cursor = Arrays.copyOf(newItemOffsets, appCount);
+        for (int u = 0; u < userCount; u++) {
+            for (int i = newUserOffsets[u]; i < newUserOffsets[u + 1]; i++) {
+                int pos = cursor[newUserItems[i]]++;
+                newItemUsers[pos] = u;
+                newItemValues[pos] = newUserValues[i];
+            }
+        }
+        return new RatingMatrix(newUserIds, newAppIds, newUserOffsets, Arrays.copyOf(newUserItems, n),
+                Arrays.copyOf(newUserValues, n), newUserPositives, newItemOffsets, newItemUsers, newItemValues,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** 有序ID数组并入变化中新出现的ID(删除操作不引入新ID) */
+    private static long[] mergeIds(long[] ids, long[] changeIds, byte[] changeOps, int changeCount) {
+        long[] added = new long[changeCount];
+        int count = 0;
+        for (int i = 0; i < changeCount; i++) {
+            if (changeOps[i] != OP_REMOVE && Arrays.binarySearch(ids, changeIds[i]) < 0) {
+                added[count++] = changeIds[i];
+            }
+        }
+        if (count == 0) {
+            return ids;
+        }
+        Arrays.sort(added, 0, count);
+        long[] merged = new long[ids.length + count];
+        int m = 0;
+        for (int i = 0, j = 0; i < ids.length || j < count; ) {
+            long next = j >= count || (i < ids.length && ids[i] <= added[j]) ? ids[i++] : added[j++];
+            if (m == 0 || merged[m - 1] != next) merged[m++] = next;
+        }
+        return Arrays.copyOf(merged, m);
+    }
+
+    // ====================== 构建器 ======================
+
+    /**
+     * 矩阵构建器
+     * 逐条追加评分，build时排序去重并生成双向CSR结构。
+     * 同一用户对同一游戏的重复评分以推荐为准。
+     */
+    public static final class Builder {
+        private long[] users;
+        private long[] apps;
+        private boolean[] values;
+        private int size;
+        private final long startNanos = System.nanoTime();
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            users = new long[capacity];
+            apps = new long[capacity];
+            values = new boolean[capacity];
+        }
+
+        /**
+         * 追加一条评分
+         * @param userId 用户ID
+         * @param appId 游戏ID
+         * @param recommended 是否推荐
+         */
+        public Builder add(long userId, long appId, boolean recommended) {
+            if (size == users.length) {
+                int capacity = size + (size >> 1);
+                users = Arrays.copyOf(users, capacity);
+                apps = Arrays.copyOf(apps, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            users[size] = userId;
+            apps[size] = appId;
+            values[size] = recommended;
+            size++;
+            return this;
+        }
+
+        public RatingMatrix build() {
+            long[] userIds = distinctSorted(users, size);
+            long[] appIds = distinctSorted(apps, size);
+
+            // 键 = 用户下标(31位) | 游戏下标(31位) | 评分(1位)，排序后即为按用户、游戏有序的三元组
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                long u = Arrays.binarySearch(userIds, users[i]);
+                long a = Arrays.binarySearch(appIds, apps[i]);
+                keys[i] = (u << 32) | (a << 1) | (values[i] ? 1L : 0L);
+            }
+            Arrays.sort(keys);
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (n > 0 && (keys[n - 1] >>> 1) == (keys[i] >>> 1)) {
+                    keys[n - 1] = keys[i];
+                } else {
+                    keys[n++] = keys[i];
+                }
+            }
+
+            int userCount = userIds.length;
+            int appCount = appIds.length;
+            int[] userOffsets = new int[userCount + 1];
+            int[] userItems = new int[n];
+            byte[] userValues = new byte[n];
+            int[] userPositives = new int[userCount];
+            int[] itemOffsets = new int[appCount + 1];
+            for (int i = 0; i < n; i++) {
+                int u = (int) (keys[i] >>> 32);
+                int a = (int) ((keys[i] >>> 1) & 0x7FFFFFFFL);
+                byte v = (byte) (keys[i] & 1L);
+                userOffsets[u + 1]++;
+                itemOffsets[a + 1]++;
+                userItems[i] = a;
+                userValues[i] = v;
+                userPositives[u] += v;
+            }
+            for (int u = 0; u < userCount; u++) userOffsets[u + 1] += userOffsets[u];
+            for (int a = 0; a < appCount; a++) itemOffsets[a + 1] += itemOffsets[a];
+
+            // 按用户顺序回填，保证每列内用户下标升序
+            int[] itemUsers = new int[n];
+            byte[] itemValues = new byte[n];
+            int[] cursor = Arrays.copyOf(itemOffsets, appCount);
+            for (int i = 0; i < n; i++) {
+                int pos = cursor[userItems[i]]++;
+                itemUsers[pos] = (int) (keys[i] >>> 32);
+                itemValues[pos] = userValues[i];
+            }
+
+            long buildMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            return new RatingMatrix(userIds, appIds, userOffsets, userItems, userValues, userPositives,
+                    itemOffsets, itemUsers, itemValues, buildMillis);
+        }
+
+        private static long[] distinctSorted(long[] source, int length) {
+            long[] sorted = Arrays.copyOf(source, length);
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int i = 0; i < length; i++) {
+                if (n == 0 || sorted[n - 1] != sorted[i]) {
+                    sorted[n++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, n);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.repository.RecommendationRepository;
+import com.wbbb.steam.repository.UserRatingRepository;
+import com.wbbb.steam.repository.UserRatingRepository.UserRatingProjection;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 进程级共享的评分矩阵
+ * 首次使用时构建，之后由后台定时任务整体替换，所有推荐请求读取同一份只读快照。
+ * 评分通过JDBC逐行流式读取并直接写入矩阵构建器的基本类型数组，不物化投影列表；流式读取失败时回退到JPA投影查询
+ */
+@Component
+@RequiredArgsConstructor
+public class RatingMatrixHolder {
+    private static final Logger logger = LoggerFactory.getLogger(RatingMatrixHolder.class);
+
+    private final UserRatingRepository userRatingRepository;
+    private final RecommendationRepository recommendationRepository;
+
+    private volatile RatingMatrix matrix;
+    private volatile long lastLoadPeakHeapBytes;
+
+    /**
+     * 获取当前评分矩阵
+     * @return 评分矩阵快照
+     */
+    public RatingMatrix get() {
+        RatingMatrix current = matrix;
+        if (current == null) {
+            synchronized (this) {
+                current = matrix;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库重新构建评分矩阵并替换当前快照
+     * @return 新的评分矩阵
+     */
+    @Scheduled(initialDelayString = "${recommendation.matrix.refresh-interval-ms:300000}",
+               fixedDelayString = "${recommendation.matrix.refresh-interval-ms:300000}")
+    public synchronized RatingMatrix refresh() {
+        HeapPeakMeter.reset();
+        RatingMatrix built = null;
+        boolean streamed = false;
+        if (recommendationRepository != null) {
+            try {
+                built = loadStreaming();
+                streamed = true;
+            } catch (RuntimeException e) {
+                logger.warn("流式读取评分失败，改用投影查询: {}", e.getMessage());
+            }
+        }
+        if (built == null) {
+            built = loadProjection();
+        }
+        matrix = built;
+        lastLoadPeakHeapBytes = HeapPeakMeter.peakBytes();
+        logger.info("评分矩阵已刷新 - 用户: {}, 游戏: {}, 评分: {}, 内存: {} bytes, 耗时: {} ms, 流式: {}, 堆峰值: {} bytes",
+                built.userCount(), built.appCount(), built.ratingCount(), built.memoryBytes(), built.getBuildMillis(),
+                streamed, lastLoadPeakHeapBytes);
+        return built;
+    }
+
+    private RatingMatrix loadStreaming() {
+        RatingMatrix.Builder builder = new RatingMatrix.Builder(recommendationRepository.countRatings());
+        recommendationRepository.streamRatings(builder::add);
+        return builder.build();
+    }
+
+    private RatingMatrix loadProjection() {
+        List<UserRatingProjection> ratings = userRatingRepository.getAllRatingsProjection();
+        RatingMatrix.Builder builder = new RatingMatrix.Builder(ratings.size());
+        for (UserRatingProjection rating : ratings) {
+            builder.add(rating.getUserId(), rating.getAppId(), Boolean.TRUE.equals(rating.getRecommended()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 在当前矩阵上应用一批评分变化并替换快照
+     * @param changes 评分变化
+     * @return 新的评分矩阵，尚未加载过矩阵时返回null(首次读取时会全量加载，已包含这些变化)
+     */
+    public synchronized RatingMatrix apply(RatingMatrix.Changes changes) {
+        RatingMatrix current = matrix;
+        if (current == null) {
+            return null;
+        }
+        RatingMatrix updated = current.withChanges(changes);
+        matrix = updated;
+        return updated;
+    }
+
+    /**
+     * 最近一次从数据库加载时的堆峰值(近似，见{@link HeapPeakMeter})
+     * @return 字节数，尚未加载时为0
+     */
+    public long getLastLoadPeakHeapBytes() {
+        return lastLoadPeakHeapBytes;
+    }
+
+    /**
+     * 直接替换当前评分矩阵(如从快照文件恢复)
+     * @param matrix 评分矩阵
+     */
+    void install(RatingMatrix matrix) {
+        this.matrix = matrix;
+    }
+}
@@ -0,0 +1,202 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按用户缓存的推荐结果
+ * 以(用户ID, 数量)为键，按用户做LRU淘汰并设置有效期。
+ * 计算前先取得版本号stamp()，写入时若该用户在计算期间被失效则丢弃结果，避免把旧结果写回缓存。
+ * 作为MeterBinder由Spring Boot注册到MeterRegistry：
+ * recommendation.cache.requests(标签result：hit/miss)、recommendation.cache.evictions、
+ * recommendation.cache.invalidations、recommendation.cache.stale.writes 与当前缓存用户数 recommendation.cache.users
+ */
+@Component
+@RequiredArgsConstructor
+public class RecommendationCache implements MeterBinder {
+
+    private final RecommendationProperties properties;
+
+    /** 用户ID→该用户的缓存项，按访问顺序排列 */
+    private final LinkedHashMap<Long, UserEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** 单调递增的版本号，每次失效时递增 */
+    private final AtomicLong version = new AtomicLong();
+    /** 最近一次全量失效时的版本号 */
+    private long invalidatedAllAt;
+    /** 已被淘汰的缓存项中最大的失效版本号，新建缓存项时以此为下限 */
+    private long evictedInvalidatedAt;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong staleWrites = new AtomicLong();
+
+    private static final class UserEntry {
+        /** 数量→推荐结果 */
+        final Map<Integer, List<Long>> results = new HashMap<>(4);
+        final Map<Integer, Long> expiresAt = new HashMap<>(4);
+        /** 最近一次失效时的版本号 */
+        long invalidatedAt;
+    }
+
+    public boolean isEnabled() {
+        return properties.getCache().isEnabled();
+    }
+
+    /**
+     * 读取缓存结果
+     * @param userId 用户ID
+     * @param limit 推荐数量
+     * @return 未过期的结果，未命中时返回null
+     */
+    public List<Long> get(Long userId, int limit) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            UserEntry entry = entries.get(userId);
+            List<Long> result = entry != null ? entry.results.get(limit) : null;
+            if (result != null && entry.expiresAt.get(limit) > now) {
+                hits.incrementAndGet();
+                return result;
+            }
+            if (result != null) {
+                entry.results.remove(limit);
+                entry.expiresAt.remove(limit);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 当前版本号，应在开始计算前获取并在put时传回
+     */
+    public long stamp() {
+        return version.get();
+    }
+
+    /**
+     * 写入计算结果
+     * @param userId 用户ID
+     * @param limit 推荐数量
+     * @param result 推荐结果
+     * @param stamp 开始计算前通过stamp()取得的版本号
+     */
+    public void put(Long userId, int limit, List<Long> result, long stamp) {
+        long expiresAt = System.currentTimeMillis() + properties.getCache().getTtlMs();
+        synchronized (entries) {
+            UserEntry entry = stamp < invalidatedAllAt ? null : entries.computeIfAbsent(userId, key -> newEntry());
+            if (entry == null || stamp < entry.invalidatedAt) {
+                staleWrites.incrementAndGet();
+                return;
+            }
+            entry.results.put(limit, List.copyOf(result));
+            entry.expiresAt.put(limit, expiresAt);
+            evictOverflow();
+        }
+    }
+
+    /**
+     * 使某个用户的全部缓存结果失效
+     * 用户评分或偏好标签变化时调用
+     * @param userId 用户ID
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        long stamp = version.incrementAndGet();
+        synchronized (entries) {
+            UserEntry entry = entries.computeIfAbsent(userId, key -> newEntry());
+            entry.results.clear();
+            entry.expiresAt.clear();
+            entry.invalidatedAt = stamp;
+            evictOverflow();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * 使全部缓存结果失效
+     * 游戏目录变化时调用
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidatedAllAt = version.incrementAndGet();
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    private UserEntry newEntry() {
+        UserEntry entry = new UserEntry();
+        entry.invalidatedAt = evictedInvalidatedAt;
+        return entry;
+    }
+
+    private void evictOverflow() {
+        int maxUsers = Math.max(1, properties.getCache().getMaxUsers());
+        Iterator<UserEntry> iterator = entries.values().iterator();
+        while (entries.size() > maxUsers && iterator.hasNext()) {
+            evictedInvalidatedAt = Math.max(evictedInvalidatedAt, iterator.next().invalidatedAt);
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private int users() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("recommendation.cache.requests", hits, AtomicLong::get)
+                .description("推荐结果缓存的读取次数")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("recommendation.cache.requests", misses, AtomicLong::get)
+                .description("推荐结果缓存的读取次数")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("recommendation.cache.evictions", evictions, AtomicLong::get)
+                .description("超出用户数上限被淘汰的缓存项数")
+                .register(registry);
+        FunctionCounter.builder("recommendation.cache.invalidations", invalidations, AtomicLong::get)
+                .description("缓存失效次数")
+                .register(registry);
+        FunctionCounter.builder("recommendation.cache.stale.writes", staleWrites, AtomicLong::get)
+                .description("计算期间已失效而被丢弃的写入次数")
+                .register(registry);
+        Gauge.builder("recommendation.cache.users", this, RecommendationCache::users)
+                .description("当前缓存的用户数")
+                .register(registry);
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 命中、未命中、淘汰与失效次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("users", users());
+        stats.put("enabled", isEnabled());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("staleWrites", staleWrites.get());
+        return stats;
+    }
+}
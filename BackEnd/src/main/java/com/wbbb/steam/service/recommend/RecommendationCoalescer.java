@@ -0,0 +1,139 @@
+package com.wbbb.steam.service.recommend;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 推荐请求合并(single-flight)
+ * 同一(用户ID, 数量)的并发请求只计算一次：第一个请求负责计算，其余请求等待并共享同一结果或异常。
+ * 计算结束后立即移除，不缓存结果。
+ * 作为MeterBinder由Spring Boot注册到MeterRegistry：
+ * recommendation.coalescer.requests(标签outcome：computed/coalesced，二者之比即合并率)、
+ * 当前进行中的计算数 recommendation.coalescer.in.flight 与等待中的请求数 recommendation.coalescer.waiters
+ */
+@Component
+public class RecommendationCoalescer implements MeterBinder {
+
+    private record Key(Long userId, int limit) {
+    }
+
+    private static final class InFlight {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        /** 等待该结果的请求数(不含负责计算的请求) */
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    private final ConcurrentHashMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong computations = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicInteger maxWaiters = new AtomicInteger();
+
+    /**
+     * 执行或加入一次推荐计算
+     * @param userId 用户ID
+     * @param limit 推荐数量
+     * @param computation 实际的计算过程，同一(用户ID, 数量)的调用方须返回同一类型
+     * @return 推荐结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Long userId, int limit, Supplier<T> computation) {
+        requests.incrementAndGet();
+        Key key = new Key(userId, limit);
+        InFlight created = new InFlight();
+        InFlight existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            maxWaiters.accumulateAndGet(existing.waiters.incrementAndGet(), Math::max);
+            try {
+                return (T) join(existing.future);
+            } finally {
+                existing.waiters.decrementAndGet();
+            }
+        }
+
+        computations.incrementAndGet();
+        try {
+            T result = computation.get();
+            created.future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            created.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待推荐结果时被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new CompletionException(cause);
+        }
+    }
+
+    /** 当前等待结果的请求数(不含负责计算的请求) */
+    private int waiters() {
+        int waiting = 0;
+        for (InFlight flight : inFlight.values()) {
+            waiting += flight.waiters.get();
+        }
+        return waiting;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("recommendation.coalescer.requests", computations, AtomicLong::get)
+                .description("经过请求合并的推荐请求数")
+                .tag("outcome", "computed")
+                .register(registry);
+        FunctionCounter.builder("recommendation.coalescer.requests", coalesced, AtomicLong::get)
+                .description("经过请求合并的推荐请求数")
+                .tag("outcome", "coalesced")
+                .register(registry);
+        Gauge.builder("recommendation.coalescer.in.flight", inFlight, Map::size)
+                .description("当前进行中的推荐计算数")
+                .register(registry);
+        Gauge.builder("recommendation.coalescer.waiters", this, RecommendationCoalescer::waiters)
+                .description("当前等待合并结果的请求数")
+                .register(registry);
+    }
+
+    /**
+     * 获取请求合并统计信息
+     * @return 请求数、实际计算次数、被合并的请求数及合并率、当前与历史最大等待数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long requestCount = requests.get();
+        long coalescedCount = coalesced.get();
+        stats.put("requests", requestCount);
+        stats.put("computations", computations.get());
+        stats.put("coalesced", coalescedCount);
+        stats.put("coalescingRate", requestCount == 0 ? 0.0 : (double) coalescedCount / requestCount);
+        stats.put("inFlight", inFlight.size());
+        stats.put("waiters", waiters());
+        stats.put("maxWaiters", maxWaiters.get());
+        return stats;
+    }
+}
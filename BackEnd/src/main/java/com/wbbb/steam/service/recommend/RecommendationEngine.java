@@ -0,0 +1,47 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 推荐引擎
+ * 给定用户产出按推荐程度降序的游戏ID列表。实现类注册为Spring组件即可被
+ * RecommendationConfig.algorithmVersion选中(版本号以引擎名称开头，忽略大小写)，
+ * 或作为影子引擎在部分流量上与线上结果对比；没有引擎匹配时使用RecommendationService内置的混合推荐(hybrid)。
+ */
+public interface RecommendationEngine {
+
+    /**
+     * 引擎名称，用于版本匹配、指标标签与统计
+     */
+    String name();
+
+    /**
+     * 计算推荐结果，不读写推荐结果缓存
+     * @param userId 用户ID
+     * @param limit 返回数量
+     * @return 游戏ID列表，按推荐程度降序；是否排除用户已评价过的游戏由引擎决定，
+     *         内置混合推荐的内容打分不排除已评价的游戏，影子对比时双方的已评价游戏都会被剔除
+     */
+    List<Long> recommend(Long userId, int limit);
+
+    /**
+     * 由名称与计算函数构造引擎
+     * @param name 引擎名称
+     * @param recommend (用户ID, 数量)→推荐结果
+     * @return 推荐引擎
+     */
+    static RecommendationEngine of(String name, BiFunction<Long, Integer, List<Long>> recommend) {
+        return new RecommendationEngine() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public List<Long> recommend(Long userId, int limit) {
+                return recommend.apply(userId, limit);
+            }
+        };
+    }
+}
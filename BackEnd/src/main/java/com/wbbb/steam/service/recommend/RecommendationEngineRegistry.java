@@ -0,0 +1,63 @@
+package com.wbbb.steam.service.recommend;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已注册的推荐引擎
+ * 按RecommendationConfig.algorithmVersion选择线上引擎，按名称查找影子引擎
+ */
+@Component
+public class RecommendationEngineRegistry {
+
+    private final Map<String, RecommendationEngine> engines = new LinkedHashMap<>();
+
+    public RecommendationEngineRegistry(List<RecommendationEngine> engines) {
+        for (RecommendationEngine engine : engines) {
+            if (this.engines.putIfAbsent(engine.name().toLowerCase(), engine) != null) {
+                throw new IllegalStateException("推荐引擎名称重复: " + engine.name());
+            }
+        }
+    }
+
+    /**
+     * 选择线上引擎
+     * 版本号以某个引擎名称开头(忽略大小写)时选中该引擎，有多个时取名称最长者
+     * @param algorithmVersion 算法版本，可为null
+     * @param fallback 没有引擎匹配时使用的引擎
+     * @return 推荐引擎
+     */
+    public RecommendationEngine select(String algorithmVersion, RecommendationEngine fallback) {
+        if (algorithmVersion == null) return fallback;
+        String version = algorithmVersion.toLowerCase();
+        RecommendationEngine selected = fallback;
+        int matched = 0;
+        for (Map.Entry<String, RecommendationEngine> entry : engines.entrySet()) {
+            if (version.startsWith(entry.getKey()) && entry.getKey().length() > matched) {
+                selected = entry.getValue();
+                matched = entry.getKey().length();
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 按名称查找引擎
+     * @param name 引擎名称(忽略大小写)，为空时返回null
+     * @param builtIn 内置引擎，名称与之相同时返回它
+     * @return 推荐引擎，不存在时为null
+     */
+    public RecommendationEngine find(String name, RecommendationEngine builtIn) {
+        if (name == null || name.isBlank()) return null;
+        if (builtIn != null && builtIn.name().equalsIgnoreCase(name)) return builtIn;
+        return engines.get(name.toLowerCase());
+    }
+
+    /** 已注册的引擎名称 */
+    public List<String> names() {
+        return List.copyOf(engines.keySet());
+    }
+}
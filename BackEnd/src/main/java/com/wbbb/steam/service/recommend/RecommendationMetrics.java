@@ -0,0 +1,284 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.SQLStatisticsInspector;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 推荐流水线的Micrometer指标
+ * recommendation.stage         各阶段耗时(Timer，标签stage)
+ * recommendation.requests      推荐请求数(Counter，标签source：结果缓存/预计算/在线计算)
+ * recommendation.path          在线计算实际走的路径(Counter，标签path：完整混合/仅内容/热门排行)，后两者占比即降级率
+ * recommendation.candidates    候选集大小(DistributionSummary，标签source：协同过滤/有分数的游戏)
+ * recommendation.sql.statements 单次推荐请求执行的SQL语句数(DistributionSummary)，包含预算模式下协同过滤线程
+ *                              代为执行的语句；超出预算被放弃的协同过滤任务不计入
+ * recommendation.incremental.apply / recommendation.incremental.lag  增量更新一批评分事件的耗时与事件从发生到生效的延迟
+ * recommendation.generator.duration / recommendation.generator.yield  各候选生成器的耗时与新增候选数(标签generator)
+ * recommendation.engine.duration 线上引擎在线计算的耗时(标签engine)
+ * recommendation.shadow.duration / recommendation.shadow.overlap  影子引擎的耗时与其结果和线上结果的重合度(标签engine)
+ * 影子计算在{@link #suppressed}中运行，期间当前线程不记录流水线的阶段、来源、路径、候选、引擎与SQL指标，
+ * 以免与其对比的线上指标被影子流量混入
+ * 结果缓存(recommendation.cache.*)与请求合并(recommendation.coalescer.*)的指标由{@link RecommendationCache}、
+ * {@link RecommendationCoalescer}作为MeterBinder自行注册
+ * 通过actuator的/actuator/metrics与/actuator/prometheus暴露
+ */
+@Component
+public class RecommendationMetrics {
+
+    /** 流水线阶段 */
+    public enum Stage {
+        /** 读取游戏目录与用户评分 */
+        LOAD,
+        /** 候选生成(两阶段模式) */
+        CANDIDATES,
+        /** 内容推荐打分 */
+        CONTENT,
+        /** 协同过滤打分 */
+        CF,
+        /** 预算模式下内容推荐完成后等待协同过滤结果 */
+        WAIT,
+        /** 合并协同过滤分数 */
+        MERGE,
+        /** TOP-K排序 */
+        RANK,
+        /** 游戏ID转换为DTO */
+        HYDRATE;
+
+        final String tag = name().toLowerCase();
+    }
+
+    /** 推荐结果来源 */
+    public enum Source {
+        CACHE, PRECOMPUTED, COMPUTED;
+
+        final String tag = name().toLowerCase();
+    }
+
+    /** 在线计算的路径 */
+    public enum Path {
+        /** 内容推荐与协同过滤都按时完成 */
+        HYBRID,
+        /** 协同过滤超出预算或失败，只用内容推荐的分数 */
+        CONTENT_ONLY,
+        /** 没有可用的个性化分数，返回全站热门排行 */
+        POPULARITY;
+
+        final String tag = name().toLowerCase();
+    }
+
+    /** 当前线程是否正在运行影子计算 */
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Source, Counter> requestCounters = new EnumMap<>(Source.class);
+    private final Map<Path, Counter> pathCounters = new EnumMap<>(Path.class);
+    private final DistributionSummary cfCandidates;
+    private final DistributionSummary scoredCandidates;
+    private final DistributionSummary sqlStatements;
+    private final Timer incrementalApply;
+    private final Timer incrementalLag;
+    private final MeterRegistry registry;
+    private final Map<String, Timer> generatorTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> generatorYields = new ConcurrentHashMap<>();
+    private final Map<String, Timer> engineTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> shadowTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> shadowOverlaps = new ConcurrentHashMap<>();
+
+    public RecommendationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("recommendation.stage")
+                    .description("推荐流水线各阶段耗时")
+                    .tag("stage", stage.tag)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry));
+        }
+        for (Source source : Source.values()) {
+            requestCounters.put(source, Counter.builder("recommendation.requests")
+                    .description("推荐请求数")
+                    .tag("source", source.tag)
+                    .register(registry));
+        }
+        for (Path path : Path.values()) {
+            pathCounters.put(path, Counter.builder("recommendation.path")
+                    .description("在线计算实际走的路径")
+                    .tag("path", path.tag)
+                    .register(registry));
+        }
+        cfCandidates = DistributionSummary.builder("recommendation.candidates")
+                .description("候选集大小")
+                .tag("source", "cf")
+                .register(registry);
+        scoredCandidates = DistributionSummary.builder("recommendation.candidates")
+                .description("候选集大小")
+                .tag("source", "scored")
+                .register(registry);
+        incrementalApply = Timer.builder("recommendation.incremental.apply")
+                .description("增量更新一批评分事件的耗时")
+                .register(registry);
+        incrementalLag = Timer.builder("recommendation.incremental.lag")
+                .description("评分事件从发生到在内存模型中生效的延迟")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        sqlStatements = DistributionSummary.builder("recommendation.sql.statements")
+                .description("单次推荐请求执行的SQL语句数")
+                .register(registry);
+    }
+
+    /**
+     * 在当前线程上运行任务，期间不记录流水线指标
+     * @param task 任务(影子引擎的计算)
+     * @return 任务结果
+     */
+    public <T> T suppressed(Supplier<T> task) {
+        if (SUPPRESSED.get()) {
+            return task.get();
+        }
+        SUPPRESSED.set(Boolean.TRUE);
+        try {
+            return task.get();
+        } finally {
+            SUPPRESSED.remove();
+        }
+    }
+
+    private static boolean isSuppressed() {
+        return SUPPRESSED.get();
+    }
+
+    /**
+     * 开始计时
+     * @return 当前纳秒时间，传给{@link #stop}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束一个阶段的计时
+     * @param stage 阶段
+     * @param startNanos {@link #start}的返回值
+     * @return 当前纳秒时间，可作为下一阶段的开始时间
+     */
+    public long stop(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        if (!isSuppressed()) {
+            stageTimers.get(stage).record(now - startNanos, TimeUnit.NANOSECONDS);
+        }
+        return now;
+    }
+
+    public void request(Source source) {
+        if (isSuppressed()) return;
+        requestCounters.get(source).increment();
+    }
+
+    public void path(Path path) {
+        if (isSuppressed()) return;
+        pathCounters.get(path).increment();
+    }
+
+    public void cfCandidates(int size) {
+        if (isSuppressed()) return;
+        cfCandidates.record(size);
+    }
+
+    public void scoredCandidates(int size) {
+        if (isSuppressed()) return;
+        scoredCandidates.record(size);
+    }
+
+    /**
+     * 记录一个候选生成器的耗时与产出
+     * @param generator 生成器名称
+     * @param nanos 耗时(纳秒)
+     * @param yield 新增候选数
+     */
+    public void generator(String generator, long nanos, int yield) {
+        if (isSuppressed()) return;
+        generatorTimers.computeIfAbsent(generator, name -> Timer.builder("recommendation.generator.duration")
+                .description("候选生成器耗时")
+                .tag("generator", name)
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+        generatorYields.computeIfAbsent(generator, name -> DistributionSummary.builder("recommendation.generator.yield")
+                .description("候选生成器新增的候选数")
+                .tag("generator", name)
+                .register(registry)).record(yield);
+    }
+
+    /**
+     * 记录线上引擎一次在线计算的耗时
+     * @param engine 引擎名称
+     * @param nanos 耗时(纳秒)
+     */
+    public void engine(String engine, long nanos) {
+        if (isSuppressed()) return;
+        engineTimers.computeIfAbsent(engine, name -> Timer.builder("recommendation.engine.duration")
+                .description("线上引擎在线计算耗时")
+                .tag("engine", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次影子评估
+     * @param engine 影子引擎名称
+     * @param nanos 影子引擎耗时(纳秒)
+     * @param overlap 与线上结果的重合度(0-1)
+     */
+    public void shadow(String engine, long nanos, double overlap) {
+        shadowTimers.computeIfAbsent(engine, name -> Timer.builder("recommendation.shadow.duration")
+                .description("影子引擎耗时")
+                .tag("engine", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+        shadowOverlaps.computeIfAbsent(engine, name -> DistributionSummary.builder("recommendation.shadow.overlap")
+                .description("影子引擎结果与线上结果的重合度")
+                .tag("engine", name)
+                .register(registry)).record(overlap);
+    }
+
+    /**
+     * 记录一次增量更新
+     * @param nanos 应用本批变化的耗时(纳秒)
+     * @param maxLagMillis 本批最早事件从发生到生效的毫秒数
+     */
+    public void incremental(long nanos, long maxLagMillis) {
+        incrementalApply.record(nanos, TimeUnit.NANOSECONDS);
+        incrementalLag.record(maxLagMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 当前线程已执行的SQL语句数，请求开始时记录
+     */
+    public long sqlMark() {
+        return SQLStatisticsInspector.getThreadQueryCount();
+    }
+
+    /**
+     * 把协同过滤线程代本次请求执行的SQL语句数计入当前线程，由sqlStatements一并记录
+     * @param statements 语句数
+     */
+    public void sqlAttributed(long statements) {
+        SQLStatisticsInspector.addThreadQueryCount(statements);
+    }
+
+    /**
+     * 记录自sqlMark以来当前线程执行的SQL语句数
+     * @param mark {@link #sqlMark}的返回值
+     */
+    public void sqlStatements(long mark) {
+        if (isSuppressed()) return;
+        sqlStatements.record(SQLStatisticsInspector.getThreadQueryCount() - mark);
+    }
+}
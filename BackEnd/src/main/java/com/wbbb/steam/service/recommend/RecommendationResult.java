@@ -0,0 +1,25 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Path;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Source;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次推荐的结果及其来源
+ * @param appIds 推荐游戏ID列表，按推荐分数降序排列
+ * @param source 结果来源：结果缓存、预计算或在线计算
+ * @param path 计算时走的路径；缓存与预计算的结果只保存完整混合推荐，因此总是HYBRID
+ */
+public record RecommendationResult(List<Long> appIds, Source source, Path path) {
+
+    /** 空结果(未登录或数量非法) */
+    public static final RecommendationResult EMPTY =
+            new RecommendationResult(Collections.emptyList(), Source.COMPUTED, Path.HYBRID);
+
+    /** 是否为降级结果 */
+    public boolean isDegraded() {
+        return path != Path.HYBRID;
+    }
+}
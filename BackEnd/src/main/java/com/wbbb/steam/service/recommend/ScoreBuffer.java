@@ -0,0 +1,56 @@
+package com.wbbb.steam.service.recommend;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程私有的打分缓冲区
+ * 按目录下标存放分数，同一线程的多次请求复用同一个数组，避免每次请求按目录规模分配内存。
+ * 目录刷新后各线程在下次取用时按新的目录规模重新分配，目录缩小后不再保留旧的大数组；
+ * 数组由软引用持有，长期空闲的线程(如线程池中的备用线程)上的缓冲区可在内存紧张时被回收
+ */
+public final class ScoreBuffer {
+    private static final ThreadLocal<Slot> BUFFER = new ThreadLocal<>();
+    private static final AtomicInteger generation = new AtomicInteger();
+
+    private ScoreBuffer() {
+    }
+
+    private static final class Slot {
+        private final SoftReference<double[]> buffer;
+        private int generation;
+
+        private Slot(double[] buffer, int generation) {
+            this.buffer = new SoftReference<>(buffer);
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * 获取当前线程的缓冲区，前size个元素已清零
+     * 返回的数组长度可能大于size，调用方只应访问前size个元素；同一线程内不可嵌套使用
+     * @param size 需要的长度
+     * @return 缓冲区数组
+     */
+    public static double[] zeroed(int size) {
+        int current = generation.get();
+        Slot slot = BUFFER.get();
+        double[] buffer = slot == null ? null : slot.buffer.get();
+        if (buffer == null || buffer.length < size || (slot.generation != current && buffer.length != size)) {
+            buffer = new double[size];
+            BUFFER.set(new Slot(buffer, current));
+            return buffer;
+        }
+        slot.generation = current;
+        Arrays.fill(buffer, 0, size, 0.0);
+        return buffer;
+    }
+
+    /**
+     * 目录已刷新，各线程下次取用时按新的目录规模重新分配缓冲区
+     */
+    public static void resize() {
+        generation.incrementAndGet();
+    }
+}
@@ -0,0 +1,183 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * 影子评估
+ * 对抽样的在线计算请求，在独立的有界线程池中异步运行候选引擎，记录其耗时以及与线上结果的重合度；
+ * 影子结果只用于统计，不返回给用户也不写入缓存；影子计算期间不记录流水线指标，只记录recommendation.shadow.*。
+ * 各引擎对已评价游戏的处理不同，计算重合度前先从线上与影子结果中剔除用户已评价过的游戏。
+ * 队列满时直接丢弃本次抽样，不会拖慢线上请求
+ */
+@Component
+public class ShadowEvaluator {
+    private static final Logger logger = LoggerFactory.getLogger(ShadowEvaluator.class);
+
+    private final RecommendationProperties properties;
+    private final RecommendationMetrics metrics;
+    /** 为null时(测试)不剔除已评价的游戏 */
+    private final RatingMatrixHolder ratingMatrixHolder;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong productionNanos = new AtomicLong();
+    private final AtomicLong shadowNanos = new AtomicLong();
+    private final DoubleAdder overlapSum = new DoubleAdder();
+
+    public ShadowEvaluator(RecommendationProperties properties, RecommendationMetrics metrics,
+                           RatingMatrixHolder ratingMatrixHolder) {
+        this.properties = properties;
+        this.metrics = metrics;
+        this.ratingMatrixHolder = ratingMatrixHolder;
+        RecommendationProperties.Shadow shadow = properties.getShadow();
+        int threads = Math.max(1, shadow.getThreads());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, shadow.getQueueCapacity())), runnable -> {
+                    Thread thread = new Thread(runnable, "recommend-shadow-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** 配置的影子引擎名称，未启用时为null */
+    public String engineName() {
+        RecommendationProperties.Shadow shadow = properties.getShadow();
+        return shadow.isEnabled() ? shadow.getEngine() : null;
+    }
+
+    /**
+     * 按抽样率决定是否对本次请求做影子评估，选中时提交到影子线程池后立即返回
+     * @param candidate 影子引擎，为null或与线上引擎相同时不评估
+     * @param production 线上引擎
+     * @param userId 用户ID
+     * @param limit 推荐数量
+     * @param productionResult 线上结果
+     * @param productionElapsedNanos 线上计算耗时(纳秒)
+     * @return 是否已提交评估任务
+     */
+    public boolean evaluate(RecommendationEngine candidate, RecommendationEngine production, Long userId, int limit,
+                            List<Long> productionResult, long productionElapsedNanos) {
+        if (candidate == null || candidate == production
+                || ThreadLocalRandom.current().nextDouble() >= properties.getShadow().getSampleRate()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> run(candidate, userId, limit, productionResult, productionElapsedNanos));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        sampled.incrementAndGet();
+        return true;
+    }
+
+    private void run(RecommendationEngine candidate, Long userId, int limit, List<Long> productionResult,
+                     long productionElapsedNanos) {
+        long start = System.nanoTime();
+        List<Long> shadowResult;
+        try {
+            shadowResult = metrics.suppressed(() -> candidate.recommend(userId, limit));
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            logger.warn("影子引擎{}计算失败 - 用户: {}, 原因: {}", candidate.name(), userId, e.getMessage());
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        Set<Long> rated = ratedApps(userId);
+        double overlap = overlap(withoutRated(productionResult, rated), withoutRated(shadowResult, rated));
+        productionNanos.addAndGet(productionElapsedNanos);
+        shadowNanos.addAndGet(elapsed);
+        overlapSum.add(overlap);
+        completed.incrementAndGet();
+        metrics.shadow(candidate.name(), elapsed, overlap);
+    }
+
+    /** 用户在当前评分矩阵中评价过的游戏 */
+    private Set<Long> ratedApps(Long userId) {
+        if (ratingMatrixHolder == null) return Set.of();
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        int row = matrix.userIndex(userId);
+        if (row < 0) return Set.of();
+        Set<Long> rated = new HashSet<>();
+        for (int k = matrix.userRowStart(row); k < matrix.userRowEnd(row); k++) {
+            rated.add(matrix.appId(matrix.userRowItem(k)));
+        }
+        return rated;
+    }
+
+    static List<Long> withoutRated(List<Long> result, Set<Long> rated) {
+        if (rated.isEmpty()) return result;
+        List<Long> filtered = new ArrayList<>(result.size());
+        for (Long appId : result) {
+            if (!rated.contains(appId)) filtered.add(appId);
+        }
+        return filtered;
+    }
+
+    /**
+     * 重合度：线上结果中同样出现在影子结果里的比例
+     * @return 0-1，线上结果为空时两者都为空记为1
+     */
+    static double overlap(List<Long> production, List<Long> shadow) {
+        if (production.isEmpty()) return shadow.isEmpty() ? 1.0 : 0.0;
+        Set<Long> shadowIds = new HashSet<>(shadow);
+        int common = 0;
+        for (Long appId : production) {
+            if (shadowIds.contains(appId)) common++;
+        }
+        return (double) common / production.size();
+    }
+
+    /**
+     * 获取影子评估统计
+     * @return 抽样、完成、被拒绝与失败的次数，以及线上/影子的平均耗时与平均重合度
+     */
+    public Map<String, Object> getStats() {
+        RecommendationProperties.Shadow shadow = properties.getShadow();
+        long done = completed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", shadow.isEnabled());
+        stats.put("engine", shadow.getEngine());
+        stats.put("sampleRate", shadow.getSampleRate());
+        stats.put("sampled", sampled.get());
+        stats.put("completed", done);
+        stats.put("rejected", rejected.get());
+        stats.put("failed", failed.get());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("productionMeanMillis", done == 0 ? 0.0 : productionNanos.get() / 1e6 / done);
+        stats.put("shadowMeanMillis", done == 0 ? 0.0 : shadowNanos.get() / 1e6 / done);
+        stats.put("meanOverlap", done == 0 ? 0.0 : overlapSum.sum() / done);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
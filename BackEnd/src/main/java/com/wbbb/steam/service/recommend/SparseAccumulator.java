@@ -0,0 +1,59 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.Arrays;
+
+/**
+ * 线程私有的稀疏累加器
+ * 按下标累加正分数，只记录被触及的下标；取出TOP-K时顺带清零，下次请求无需按规模重置数组
+ */
+final class SparseAccumulator {
+    private static final ThreadLocal<SparseAccumulator> LOCAL = ThreadLocal.withInitial(SparseAccumulator::new);
+
+    private double[] values = new double[0];
+    private int[] touched = new int[64];
+    private int touchedCount;
+
+    private SparseAccumulator() {
+    }
+
+    /**
+     * 获取当前线程的累加器，同一线程内不可嵌套使用
+     * @param size 下标上限
+     */
+    static SparseAccumulator get(int size) {
+        SparseAccumulator accumulator = LOCAL.get();
+        if (accumulator.values.length < size) {
+            accumulator.values = new double[size];
+        }
+        return accumulator;
+    }
+
+    /** 累加分数，value须为正数 */
+    void add(int index, double value) {
+        if (values[index] == 0) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = index;
+        }
+        values[index] += value;
+    }
+
+    /**
+     * 取出分数最高的k个下标并清空累加器
+     * @param k 数量
+     * @return 下标数组，按分数降序，分数相同时下标小者优先
+     */
+    int[] drainTop(int k) {
+        TopKSelector top = new TopKSelector(Math.min(k, touchedCount));
+        for (int i = 0; i < touchedCount; i++) {
+            int index = touched[i];
+            top.offer(index, values[index]);
+            values[index] = 0;
+        }
+        touchedCount = 0;
+        int[] indexes = new int[top.size()];
+        top.drainDescending(indexes, new double[indexes.length]);
+        return indexes;
+    }
+}
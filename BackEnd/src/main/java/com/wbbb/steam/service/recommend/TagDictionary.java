@@ -0,0 +1,138 @@
+package com.wbbb.steam.service.recommend;
+
+import java.util.*;
+
+/**
+ * 标签字典
+ * 为每个标签分配一个位，标签集合编码为多字位图(long[])，标签超过64个时自动扩展字数。
+ * 交集与并集大小通过Long.bitCount计算，不再为每个游戏创建HashSet。
+ */
+public final class TagDictionary {
+
+    /** 空字典 */
+    public static final TagDictionary EMPTY = new TagDictionary(Collections.emptyList());
+
+    private final Map<String, Integer> bitByTag;
+    private final String[] tags;
+    /** 每个位图占用的long数量，至少为1 */
+    private final int words;
+
+    private TagDictionary(Collection<String> sortedTags) {
+        this.tags = sortedTags.toArray(new String[0]);
+        this.bitByTag = new HashMap<>(tags.length * 2);
+        for (int i = 0; i < tags.length; i++) {
+            bitByTag.put(tags[i], i);
+        }
+        this.words = Math.max(1, (tags.length + 63) >>> 6);
+    }
+
+    /**
+     * 根据出现过的所有标签构建字典，按标签名排序分配位，保证同一批标签得到相同编码
+     * @param tagSets 标签集合列表
+     * @return 标签字典
+     */
+    public static TagDictionary of(Collection<? extends Collection<String>> tagSets) {
+        SortedSet<String> all = new TreeSet<>();
+        tagSets.forEach(all::addAll);
+        return new TagDictionary(all);
+    }
+
+    public int size() {
+        return tags.length;
+    }
+
+    public int words() {
+        return words;
+    }
+
+    /**
+     * 标签对应的位
+     * @param tag 标签
+     * @return 位下标，不在字典中时返回-1
+     */
+    public int bitOf(String tag) {
+        Integer bit = bitByTag.get(tag);
+        return bit != null ? bit : -1;
+    }
+
+    public String tag(int bit) {
+        return tags[bit];
+    }
+
+    /**
+     * 将标签集合编码为位图，字典中不存在的标签被忽略
+     * @param tagSet 标签集合
+     * @return 长度为words()的位图
+     */
+    public long[] encode(Collection<String> tagSet) {
+        long[] bits = new long[words];
+        encodeInto(tagSet, bits, 0);
+        return bits;
+    }
+
+    /**
+     * 将标签集合编码写入位图数组的指定位置
+     * @param tagSet 标签集合
+     * @param target 目标数组
+     * @param offset 起始下标
+     */
+    void encodeInto(Collection<String> tagSet, long[] target, int offset) {
+        for (String tag : tagSet) {
+            int bit = bitOf(tag);
+            if (bit >= 0) {
+                target[offset + (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+
+    // ====================== 快照 ======================
+
+    /** 写入快照分段，按位顺序保存标签名 */
+    void writeTo(ModelSnapshot.Encoder out) {
+        out.putStrings(tags);
+    }
+
+    static TagDictionary readFrom(ModelSnapshot.Decoder in) {
+        return new TagDictionary(Arrays.asList(in.getStrings()));
+    }
+
+    // ====================== 位图运算 ======================
+
+    /**
+     * 两个位图交集的元素个数
+     * @param a 位图a
+     * @param aOffset a的起始下标
+     * @param b 位图b
+     * @param bOffset b的起始下标
+     * @param words 字数
+     */
+    public static int intersectionCount(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(a[aOffset + w] & b[bOffset + w]);
+        }
+        return count;
+    }
+
+    /**
+     * 两个位图并集的元素个数
+     */
+    public static int unionCount(long[] a, int aOffset, long[] b, int bOffset, int words) {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(a[aOffset + w] | b[bOffset + w]);
+        }
+        return count;
+    }
+
+    /**
+     * 位图中置位的个数
+     */
+    public static int cardinality(long[] bits, int offset, int words) {
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(bits[offset + w]);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,104 @@
+package com.wbbb.steam.service.recommend;
+
+/**
+ * 有界Top-K选择器
+ * 基于基本类型数组的小顶堆，只保留分数最高的K个元素，内存占用与K成正比。
+ * 分数相同时下标较小者优先，保证结果确定。
+ */
+public final class TopKSelector {
+    private final int capacity;
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopKSelector(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.ids = new int[this.capacity];
+        this.scores = new double[this.capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** 清空以便复用 */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * 提交一个候选元素
+     * @param id 元素下标
+     * @param score 分数
+     */
+    public void offer(int id, double score) {
+        if (size < capacity) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (capacity > 0 && worse(ids[0], scores[0], id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 按分数降序取出全部元素，取出后选择器为空
+     * @param outIds 输出下标，长度不小于size()
+     * @param outScores 输出分数，长度不小于size()
+     * @return 元素数量
+     */
+    public int drainDescending(int[] outIds, double[] outScores) {
+        int count = size;
+        while (size > 0) {
+            int last = --size;
+            outIds[last] = ids[0];
+            outScores[last] = scores[0];
+            ids[0] = ids[last];
+            scores[0] = scores[last];
+            siftDown(0);
+        }
+        return count;
+    }
+
+    /** a是否排在b之后(分数更低，或分数相同但下标更大) */
+    private static boolean worse(int aId, double aScore, int bId, double bScore) {
+        int cmp = Double.compare(aScore, bScore);
+        return cmp < 0 || (cmp == 0 && aId > bId);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(ids[i], scores[i], ids[parent], scores[parent])) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int right = left + 1;
+            int child = right < size && worse(ids[right], scores[right], ids[left], scores[left]) ? right : left;
+            if (!worse(ids[child], scores[child], ids[i], scores[i])) break;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
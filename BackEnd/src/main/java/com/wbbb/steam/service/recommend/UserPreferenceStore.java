@@ -0,0 +1,193 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.repository.RecommendationRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户偏好标签权重
+ * 持久化在user_preference表(用户, 标签)→权重，评分时按游戏标签原子地累加(upsert)并限制在[0, 上限]；
+ * 每个用户最多保留maxTags个标签，权重降到0或排名超出时删除，因此读取的始终是一个很小的定长向量。
+ * 读取经过按用户的LRU缓存，写入后刷新缓存；未配置数据库(如单元测试)时只保存在内存中
+ */
+@Component
+public class UserPreferenceStore {
+    private static final Logger logger = LoggerFactory.getLogger(UserPreferenceStore.class);
+
+    private final RecommendationRepository repository;
+    private final RecommendationProperties properties;
+
+    /** 用户ID→按权重降序排列的偏好，按访问顺序淘汰 */
+    private final LinkedHashMap<Long, Preferences> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong trimmed = new AtomicLong();
+
+    /**
+     * 一个用户的偏好(只读)，标签按权重降序
+     */
+    private record Preferences(String[] tags, double[] weights) {
+        static final Preferences EMPTY = new Preferences(new String[0], new double[0]);
+    }
+
+    public UserPreferenceStore(RecommendationRepository repository, RecommendationProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+    }
+
+    /**
+     * 权重最高的k个偏好标签
+     * @param userId 用户ID
+     * @param k 数量
+     * @return 标签，按权重降序
+     */
+    public List<String> topTags(long userId, int k) {
+        Preferences preferences = load(userId);
+        return Arrays.asList(preferences.tags()).subList(0, Math.min(k, preferences.tags().length));
+    }
+
+    /**
+     * 全部偏好标签权重
+     * @param userId 用户ID
+     * @return 标签→权重，按权重降序
+     */
+    public Map<String, Double> weights(long userId) {
+        Preferences preferences = load(userId);
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (int i = 0; i < preferences.tags().length; i++) {
+            weights.put(preferences.tags()[i], preferences.weights()[i]);
+        }
+        return weights;
+    }
+
+    /**
+     * 用户评价了一个游戏后，按其标签更新偏好权重
+     * @param userId 用户ID
+     * @param tags 游戏标签
+     * @param recommended 是否推荐
+     */
+    public void update(long userId, Collection<String> tags, boolean recommended) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String tag : tags) {
+            if (tag != null && !tag.isBlank()) keys.add(tag.trim());
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        RecommendationProperties.Preferences config = properties.getPreferences();
+        double delta = recommended ? config.getLikeWeight() : config.getDislikeWeight();
+        Map<String, Double> current;
+        if (repository != null) {
+            repository.addUserPreferences(userId, keys, delta, config.getMaxWeight());
+            current = repository.findUserPreferences(userId);
+        } else {
+            current = new HashMap<>(weights(userId));
+            for (String key : keys) {
+                current.put(key, Math.min(config.getMaxWeight(), Math.max(0, current.getOrDefault(key, 0.0) + delta)));
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        Preferences preferences = trim(current, config.getMaxTags(), removed);
+        if (repository != null && !removed.isEmpty()) {
+            repository.deleteUserPreferences(userId, removed);
+        }
+        trimmed.addAndGet(removed.size());
+        writes.incrementAndGet();
+        synchronized (cache) {
+            cache.put(userId, preferences);
+            evict();
+        }
+    }
+
+    /**
+     * 丢弃缓存的偏好，下次读取时从数据库加载
+     * @param userId 用户ID
+     */
+    public void invalidate(long userId) {
+        synchronized (cache) {
+            cache.remove(userId);
+        }
+    }
+
+    private Preferences load(long userId) {
+        synchronized (cache) {
+            Preferences cached = cache.get(userId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        if (repository == null) {
+            return Preferences.EMPTY;
+        }
+        Preferences loaded;
+        try {
+            loaded = trim(repository.findUserPreferences(userId), properties.getPreferences().getMaxTags(), null);
+        } catch (RuntimeException e) {
+            logger.warn("读取用户偏好失败 - 用户: {}, 原因: {}", userId, e.getMessage());
+            return Preferences.EMPTY;
+        }
+        synchronized (cache) {
+            cache.putIfAbsent(userId, loaded);
+            evict();
+        }
+        return loaded;
+    }
+
+    /**
+     * 按权重降序排列，只保留权重为正的前maxTags个
+     * @param removed 被淘汰的标签，为null时不收集
+     */
+    private static Preferences trim(Map<String, Double> weights, int maxTags, List<String> removed) {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(weights.entrySet());
+        entries.sort(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        int size = 0;
+        while (size < entries.size() && size < maxTags && entries.get(size).getValue() > 0) size++;
+        if (removed != null) {
+            for (int i = size; i < entries.size(); i++) removed.add(entries.get(i).getKey());
+        }
+        String[] tags = new String[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            tags[i] = entries.get(i).getKey();
+            values[i] = entries.get(i).getValue();
+        }
+        return new Preferences(tags, values);
+    }
+
+    private void evict() {
+        int max = Math.max(1, properties.getPreferences().getCacheUsers());
+        Iterator<Long> it = cache.keySet().iterator();
+        while (cache.size() > max && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * 获取偏好存储统计信息
+     * @return 缓存用户数、命中/未命中、写入次数与被淘汰的标签数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (cache) {
+            stats.put("cachedUsers", cache.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("writes", writes.get());
+        stats.put("trimmedTags", trimmed.get());
+        stats.put("maxTags", properties.getPreferences().getMaxTags());
+        return stats;
+    }
+}
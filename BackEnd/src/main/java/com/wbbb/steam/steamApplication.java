@@ -2,8 +2,10 @@ package com.wbbb.steam;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class steamApplication {
     public static void main(String[] args) {
         SpringApplication.run(steamApplication.class, args);
@@ -131,6 +131,18 @@ CREATE TABLE `user_preference` (
   CONSTRAINT `FK7mgxw6j2m7uvuk3svr9vsar8p` FOREIGN KEY (`user_id`) REFERENCES `users` (`user_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
+-- ----------------------------
+-- Table structure for user_recommendation
+-- ----------------------------
+DROP TABLE IF EXISTS `user_recommendation`;
+CREATE TABLE `user_recommendation` (
+  `user_id` bigint NOT NULL,
+  `app_ids` varchar(2048) COLLATE utf8mb4_general_ci NOT NULL,
+  `size` int NOT NULL,
+  `computed_at` bigint NOT NULL,
+  PRIMARY KEY (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
 -- ----------------------------
 -- Table structure for user_rating
 -- ----------------------------
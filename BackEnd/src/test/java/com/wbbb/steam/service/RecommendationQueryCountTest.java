@@ -0,0 +1,125 @@
+package com.wbbb.steam.service;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.config.SQLStatisticsInspector;
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.entity.User;
+import com.wbbb.steam.entity.UserRating;
+import com.wbbb.steam.repository.AppRepository;
+import com.wbbb.steam.repository.UserRatingRepository;
+import com.wbbb.steam.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.listeners.InvocationListener;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单次推荐的SQL次数测试
+ * 每次调用模拟仓库都视为执行一条SQL，并经由SQLStatisticsInspector计数
+ */
+public class RecommendationQueryCountTest {
+    /** 单次推荐允许的最大查询次数(评分、用户、冷启动热门榜) */
+    private static final long MAX_QUERIES_PER_RECOMMENDATION = 3;
+
+    private final SQLStatisticsInspector inspector = new SQLStatisticsInspector();
+    private final InvocationListener sqlCounter = report ->
+            inspector.inspect("/* " + report.getInvocation() + " */ select 1");
+
+    private AppRepository appRepository;
+    private UserRatingRepository userRatingRepository;
+    private UserRepository userRepository;
+    private RecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        appRepository = mock(AppRepository.class, withSettings().invocationListeners(sqlCounter));
+        userRatingRepository = mock(UserRatingRepository.class, withSettings().invocationListeners(sqlCounter));
+        userRepository = mock(UserRepository.class, withSettings().invocationListeners(sqlCounter));
+
+        List<App> apps = new ArrayList<>();
+        String[] tags = {"动作", "冒险", "角色扮演", "射击", "策略"};
+        for (long id = 1; id <= 2000; id++) {
+            App app = new App();
+            app.setAppId(id);
+            app.setPopularity((int) (id % 100));
+            app.setTags(new HashSet<>(List.of(tags[(int) (id % tags.length)])));
+            apps.add(app);
+        }
+        when(appRepository.findAll()).thenReturn(apps);
+
+        User user = new User();
+        user.setUserId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        RecommendationProperties properties = new RecommendationProperties();
+        // 关闭结果缓存，统计的是一次完整计算的查询次数
+        properties.getCache().setEnabled(false);
+        recommendationService = new RecommendationServiceFixture()
+                .userRatingRepository(userRatingRepository)
+                .appRepository(appRepository)
+                .userRepository(userRepository)
+                .properties(properties)
+                .build()
+                .service();
+    }
+
+    private List<UserRating> ratings(int count) {
+        List<UserRating> ratings = new ArrayList<>();
+        for (long appId = 1; appId <= count; appId++) {
+            ratings.add(new UserRating(null, 1L, appId, appId % 3 != 0, null, System.currentTimeMillis()));
+        }
+        return ratings;
+    }
+
+    private long queriesFor(int ratingCount) {
+        when(userRatingRepository.findByUserId(1L)).thenReturn(ratings(ratingCount));
+        // 预热：首次调用会加载共享的目录与评分矩阵快照
+        recommendationService.recommendGames(1L, 12);
+
+        SQLStatisticsInspector.reset();
+        recommendationService.recommendGames(1L, 12);
+        return SQLStatisticsInspector.getThreadQueryCount();
+    }
+
+    @Test
+    void testQueryCountIsBounded() {
+        long few = queriesFor(10);
+        long many = queriesFor(1000);
+
+        assertTrue(many <= MAX_QUERIES_PER_RECOMMENDATION, "单次推荐查询次数超标，当前值: " + many);
+        assertEquals(few, many, "查询次数不应随评分数量增长");
+        verify(appRepository, never()).findById(anyLong());
+    }
+
+    /** 新建服务上的一次推荐(包含首次加载目录与评分矩阵)执行的查询次数 */
+    private long coldQueries(boolean budgeted) {
+        when(userRatingRepository.findByUserId(1L)).thenReturn(ratings(10));
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getCache().setEnabled(false);
+        properties.getBudget().setEnabled(budgeted);
+        properties.getBudget().setTimeoutMs(10000);
+        RecommendationServiceFixture fixture = new RecommendationServiceFixture()
+                .userRatingRepository(userRatingRepository)
+                .appRepository(appRepository)
+                .userRepository(userRepository)
+                .properties(properties)
+                .build();
+        try {
+            long mark = SQLStatisticsInspector.getThreadQueryCount();
+            fixture.service().recommendGames(1L, 12);
+            return SQLStatisticsInspector.getThreadQueryCount() - mark;
+        } finally {
+            fixture.collaborativeScoringExecutor().shutdown();
+        }
+    }
+
+    @Test
+    void testCollaborativeThreadQueriesCountTowardsRequest() {
+        // 预算模式下评分矩阵在协同过滤线程上加载，其查询仍应计入本次请求
+        assertEquals(coldQueries(false), coldQueries(true));
+    }
+}
@@ -0,0 +1,165 @@
+package com.wbbb.steam.service;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.entity.User;
+import com.wbbb.steam.entity.UserRating;
+import com.wbbb.steam.repository.AppRepository;
+import com.wbbb.steam.repository.UserRatingRepository;
+import com.wbbb.steam.repository.UserRepository;
+import com.wbbb.steam.service.recommend.CollaborativeScoringExecutor;
+import com.wbbb.steam.service.recommend.RecommendationMetrics;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Path;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Source;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Stage;
+import com.wbbb.steam.service.recommend.RecommendationResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 延迟预算测试
+ * 协同过滤提交到专用线程池，超时或被拒绝时降级为仅内容推荐；仓库均为模拟对象，不依赖数据库
+ */
+public class RecommendationServiceBudgetTest {
+
+    private AppRepository appRepository;
+    private UserRatingRepository userRatingRepository;
+    private UserRepository userRepository;
+    private RecommendationProperties properties;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        appRepository = mock(AppRepository.class);
+        userRatingRepository = mock(UserRatingRepository.class);
+        userRepository = mock(UserRepository.class);
+
+        String[][] tags = {
+            {"动作", "冒险", "单人", "剧情"},
+            {"角色扮演", "策略", "多人", "开放世界"},
+            {"射击", "多人", "竞技", "PVP"},
+            {"体育", "竞技", "模拟", "多人"},
+            {"解谜", "休闲", "益智", "单人"}
+        };
+        List<App> apps = new ArrayList<>();
+        for (int i = 0; i < tags.length; i++) {
+            App app = new App();
+            app.setAppId(i + 1L);
+            app.setTags(new HashSet<>(Arrays.asList(tags[i])));
+            apps.add(app);
+        }
+        when(appRepository.findAll()).thenReturn(apps);
+
+        User user = new User();
+        user.setUserId(1L);
+        user.setTags("动作,射击,竞技");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        properties = new RecommendationProperties();
+        properties.getBudget().setEnabled(true);
+        registry = new SimpleMeterRegistry();
+    }
+
+    private RecommendationService createService(CollaborativeScoringExecutor collaborativeScoringExecutor) {
+        return new RecommendationServiceFixture()
+                .userRatingRepository(userRatingRepository)
+                .appRepository(appRepository)
+                .userRepository(userRepository)
+                .properties(properties)
+                .metrics(new RecommendationMetrics(registry))
+                .collaborativeScoringExecutor(collaborativeScoringExecutor)
+                .build()
+                .service();
+    }
+
+    private long stageCount(Stage stage) {
+        Timer timer = registry.find("recommendation.stage").tag("stage", stage.name().toLowerCase()).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void testCollaborativeWithinBudgetServesHybrid() {
+        when(userRatingRepository.findByUserId(1L)).thenReturn(Arrays.asList(
+            new UserRating(null, 1L, 1L, true, null, System.currentTimeMillis()),
+            new UserRating(null, 1L, 2L, true, null, System.currentTimeMillis())
+        ));
+        properties.getBudget().setTimeoutMs(10000);
+        CollaborativeScoringExecutor executor = new CollaborativeScoringExecutor(properties);
+        try {
+            RecommendationResult result = createService(executor).recommend(1L, 3);
+
+            assertEquals(Path.HYBRID, result.path());
+            assertEquals(Source.COMPUTED, result.source());
+            assertEquals(3, result.appIds().size());
+            // 协同过滤线程只记录CF阶段，合并只在请求线程上记录一次
+            assertEquals(1, stageCount(Stage.CF));
+            assertEquals(1, stageCount(Stage.WAIT));
+            assertEquals(1, stageCount(Stage.MERGE));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testCollaborativeOverBudgetServesContentOnly() {
+        when(userRatingRepository.findByUserId(1L)).thenReturn(Arrays.asList(
+            new UserRating(null, 1L, 1L, true, null, System.currentTimeMillis()),
+            new UserRating(null, 1L, 2L, true, null, System.currentTimeMillis())
+        ));
+        properties.getBudget().setTimeoutMs(20);
+        CompletableFuture<Object> neverCompletes = new CompletableFuture<>();
+        CollaborativeScoringExecutor executor = new CollaborativeScoringExecutor(properties) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> Future<T> submit(Callable<T> task) {
+                return (Future<T>) neverCompletes;
+            }
+        };
+        RecommendationService service = createService(executor);
+
+        long start = System.nanoTime();
+        RecommendationResult result = service.recommend(1L, 3);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 不等待协同过滤，按内容分数返回并取消任务
+        assertEquals(Path.CONTENT_ONLY, result.path());
+        assertEquals(3, result.appIds().size());
+        assertTrue(elapsedMillis < 5000, "降级不应等待协同过滤完成: " + elapsedMillis + " ms");
+        assertTrue(neverCompletes.isCancelled());
+        assertEquals(0, stageCount(Stage.MERGE));
+        // 降级结果不写入缓存，下一次请求重新计算
+        assertEquals(Source.COMPUTED, service.recommend(1L, 3).source());
+        executor.shutdown();
+    }
+
+    @Test
+    void testRejectedCollaborativeServesContentOnly() {
+        when(userRatingRepository.findByUserId(1L)).thenReturn(Arrays.asList(
+            new UserRating(null, 1L, 1L, true, null, System.currentTimeMillis())
+        ));
+        CollaborativeScoringExecutor executor = new CollaborativeScoringExecutor(properties) {
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return null;
+            }
+        };
+
+        RecommendationResult result = createService(executor).recommend(1L, 3);
+
+        assertEquals(Path.CONTENT_ONLY, result.path());
+        assertFalse(result.appIds().isEmpty());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,207 @@
+package com.wbbb.steam.service;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.RecommendationConfig;
+import com.wbbb.steam.repository.AppRepository;
+import com.wbbb.steam.repository.UserRatingRepository;
+import com.wbbb.steam.repository.UserRepository;
+import com.wbbb.steam.service.recommend.AlsModelHolder;
+import com.wbbb.steam.service.recommend.AppCatalogHolder;
+import com.wbbb.steam.service.recommend.CandidatePipeline;
+import com.wbbb.steam.service.recommend.CollaborativeFilteringPool;
+import com.wbbb.steam.service.recommend.CollaborativeScoringExecutor;
+import com.wbbb.steam.service.recommend.FriendGraphHolder;
+import com.wbbb.steam.service.recommend.ItemNeighborIndexHolder;
+import com.wbbb.steam.service.recommend.MinHashLshIndexHolder;
+import com.wbbb.steam.service.recommend.PopularityLeaderboardHolder;
+import com.wbbb.steam.service.recommend.PrecomputedRecommendationStore;
+import com.wbbb.steam.service.recommend.RatingMatrixHolder;
+import com.wbbb.steam.service.recommend.RecommendationCache;
+import com.wbbb.steam.service.recommend.RecommendationCoalescer;
+import com.wbbb.steam.service.recommend.RecommendationEngine;
+import com.wbbb.steam.service.recommend.RecommendationEngineRegistry;
+import com.wbbb.steam.service.recommend.RecommendationMetrics;
+import com.wbbb.steam.service.recommend.ShadowEvaluator;
+import com.wbbb.steam.service.recommend.UserPreferenceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 手工装配RecommendationService的测试夹具
+ * 测试只指定自己关心的依赖，其余依赖使用不访问数据库的默认实现(未配置的仓库为mock或null)；
+ * RecommendationService新增依赖时只需修改这里。build()之后可取出装配好的协作对象做断言
+ */
+public class RecommendationServiceFixture {
+
+    private UserRatingRepository userRatingRepository;
+    private AppRepository appRepository;
+    private UserRepository userRepository;
+    private RecommendationProperties properties;
+    private RecommendationMetrics metrics;
+    private AppCatalogHolder appCatalogHolder;
+    private RatingMatrixHolder ratingMatrixHolder;
+    private ItemNeighborIndexHolder itemNeighborIndexHolder;
+    private PopularityLeaderboardHolder popularityLeaderboardHolder;
+    private CollaborativeFilteringPool collaborativeFilteringPool;
+    private CollaborativeScoringExecutor collaborativeScoringExecutor;
+    private CandidatePipeline candidatePipeline;
+    private List<RecommendationEngine> engines = List.of();
+    private RecommendationConfig recommendationConfig;
+
+    private RecommendationCache recommendationCache;
+    private PrecomputedRecommendationStore precomputedRecommendationStore;
+    private RecommendationService service;
+
+    // ====================== 可替换的依赖 ======================
+
+    public RecommendationServiceFixture userRatingRepository(UserRatingRepository userRatingRepository) {
+        this.userRatingRepository = userRatingRepository;
+        return this;
+    }
+
+    public RecommendationServiceFixture appRepository(AppRepository appRepository) {
+        this.appRepository = appRepository;
+        return this;
+    }
+
+    public RecommendationServiceFixture userRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        return this;
+    }
+
+    public RecommendationServiceFixture properties(RecommendationProperties properties) {
+        this.properties = properties;
+        return this;
+    }
+
+    public RecommendationServiceFixture metrics(RecommendationMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public RecommendationServiceFixture appCatalogHolder(AppCatalogHolder appCatalogHolder) {
+        this.appCatalogHolder = appCatalogHolder;
+        return this;
+    }
+
+    public RecommendationServiceFixture ratingMatrixHolder(RatingMatrixHolder ratingMatrixHolder) {
+        this.ratingMatrixHolder = ratingMatrixHolder;
+        return this;
+    }
+
+    public RecommendationServiceFixture itemNeighborIndexHolder(ItemNeighborIndexHolder itemNeighborIndexHolder) {
+        this.itemNeighborIndexHolder = itemNeighborIndexHolder;
+        return this;
+    }
+
+    public RecommendationServiceFixture popularityLeaderboardHolder(PopularityLeaderboardHolder popularityLeaderboardHolder) {
+        this.popularityLeaderboardHolder = popularityLeaderboardHolder;
+        return this;
+    }
+
+    public RecommendationServiceFixture collaborativeFilteringPool(CollaborativeFilteringPool collaborativeFilteringPool) {
+        this.collaborativeFilteringPool = collaborativeFilteringPool;
+        return this;
+    }
+
+    public RecommendationServiceFixture collaborativeScoringExecutor(CollaborativeScoringExecutor collaborativeScoringExecutor) {
+        this.collaborativeScoringExecutor = collaborativeScoringExecutor;
+        return this;
+    }
+
+    public RecommendationServiceFixture candidatePipeline(CandidatePipeline candidatePipeline) {
+        this.candidatePipeline = candidatePipeline;
+        return this;
+    }
+
+    public RecommendationServiceFixture engines(List<RecommendationEngine> engines) {
+        this.engines = engines;
+        return this;
+    }
+
+    public RecommendationServiceFixture recommendationConfig(RecommendationConfig recommendationConfig) {
+        this.recommendationConfig = recommendationConfig;
+        return this;
+    }
+
+    // ====================== 装配 ======================
+
+    /**
+     * 按已指定的依赖装配服务，未指定的使用默认实现
+     * @return 夹具本身
+     */
+    public RecommendationServiceFixture build() {
+        if (userRatingRepository == null) userRatingRepository = mock(UserRatingRepository.class);
+        if (appRepository == null) appRepository = mock(AppRepository.class);
+        if (userRepository == null) userRepository = mock(UserRepository.class);
+        if (properties == null) properties = new RecommendationProperties();
+        if (metrics == null) metrics = new RecommendationMetrics(new SimpleMeterRegistry());
+        if (appCatalogHolder == null) appCatalogHolder = new AppCatalogHolder(appRepository, null);
+        if (ratingMatrixHolder == null) ratingMatrixHolder = new RatingMatrixHolder(userRatingRepository, null);
+        if (itemNeighborIndexHolder == null) {
+            itemNeighborIndexHolder = new ItemNeighborIndexHolder(ratingMatrixHolder, properties, null);
+        }
+        if (popularityLeaderboardHolder == null) {
+            popularityLeaderboardHolder = new PopularityLeaderboardHolder(appCatalogHolder);
+        }
+        if (collaborativeFilteringPool == null) collaborativeFilteringPool = new CollaborativeFilteringPool(properties);
+        if (collaborativeScoringExecutor == null) {
+            collaborativeScoringExecutor = new CollaborativeScoringExecutor(properties);
+        }
+        if (candidatePipeline == null) candidatePipeline = new CandidatePipeline(List.of(), properties, metrics);
+        recommendationCache = new RecommendationCache(properties);
+        precomputedRecommendationStore = new PrecomputedRecommendationStore(null, properties);
+
+        service = new RecommendationService(userRatingRepository, appRepository, userRepository,
+                appCatalogHolder, ratingMatrixHolder, itemNeighborIndexHolder, properties,
+                recommendationCache, new RecommendationCoalescer(), collaborativeFilteringPool,
+                new MinHashLshIndexHolder(ratingMatrixHolder, properties),
+                new AlsModelHolder(ratingMatrixHolder, null, properties),
+                precomputedRecommendationStore, metrics, null, candidatePipeline, popularityLeaderboardHolder,
+                collaborativeScoringExecutor, new UserPreferenceStore(null, properties), new FriendGraphHolder(null),
+                new RecommendationEngineRegistry(engines), new ShadowEvaluator(properties, metrics, ratingMatrixHolder),
+                recommendationConfig);
+        return this;
+    }
+
+    // ====================== 装配结果 ======================
+
+    public RecommendationService service() {
+        return service;
+    }
+
+    public RecommendationProperties properties() {
+        return properties;
+    }
+
+    public RecommendationMetrics metrics() {
+        return metrics;
+    }
+
+    public AppCatalogHolder appCatalogHolder() {
+        return appCatalogHolder;
+    }
+
+    public RatingMatrixHolder ratingMatrixHolder() {
+        return ratingMatrixHolder;
+    }
+
+    public ItemNeighborIndexHolder itemNeighborIndexHolder() {
+        return itemNeighborIndexHolder;
+    }
+
+    public CollaborativeScoringExecutor collaborativeScoringExecutor() {
+        return collaborativeScoringExecutor;
+    }
+
+    public RecommendationCache recommendationCache() {
+        return recommendationCache;
+    }
+
+    public PrecomputedRecommendationStore precomputedRecommendationStore() {
+        return precomputedRecommendationStore;
+    }
+}
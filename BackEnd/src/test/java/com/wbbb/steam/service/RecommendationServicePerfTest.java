@@ -11,7 +11,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 
@@ -37,7 +36,6 @@ public class RecommendationServicePerfTest {
     @Mock
     private UserRepository userRepository;
     
-    @InjectMocks
     private RecommendationService recommendationService;
     
     private App app1, app2, app3, app4, app5;
@@ -73,6 +71,13 @@ public class RecommendationServicePerfTest {
 
         // 基础数据模拟
         when(appRepository.findAll()).thenReturn(Arrays.asList(app1, app2, app3, app4, app5));
+
+        recommendationService = new RecommendationServiceFixture()
+                .userRatingRepository(userRatingRepository)
+                .appRepository(appRepository)
+                .userRepository(userRepository)
+                .build()
+                .service();
     }
 
     @RepeatedTest(10)
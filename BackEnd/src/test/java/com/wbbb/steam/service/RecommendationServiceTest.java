@@ -9,7 +9,6 @@ import com.wbbb.steam.repository.UserRepository;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 
@@ -31,7 +30,6 @@ public class RecommendationServiceTest {
     @Mock
     private UserRepository userRepository;
     
-    @InjectMocks
     private RecommendationService recommendationService;
     
     private App app1, app2, app3, app4, app5;
@@ -68,6 +66,13 @@ public class RecommendationServiceTest {
         testUser.setUserId(1L);
         testUser.setTags("动作,射击,竞技");
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        recommendationService = new RecommendationServiceFixture()
+                .userRatingRepository(userRatingRepository)
+                .appRepository(appRepository)
+                .userRepository(userRepository)
+                .build()
+                .service();
     }
 
     // ========== 内容推荐测试 ==========
@@ -155,4 +160,4 @@ public class RecommendationServiceTest {
         assertEquals(1L, result.get(0)); // 内容匹配优先
     }
 
-}
\ No newline at end of file
+}
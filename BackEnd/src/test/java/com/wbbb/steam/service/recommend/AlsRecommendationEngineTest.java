@@ -0,0 +1,75 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.repository.AppRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AlsRecommendationEngineTest {
+
+    private RatingMatrixHolder ratingMatrixHolder;
+    private AlsModelHolder alsModelHolder;
+    private ItemCfRecommendationEngine itemCf;
+    private AlsRecommendationEngine engine;
+
+    /**
+     * 用户1-3都推荐游戏10、20；用户1、2还推荐游戏30，用户3未评分游戏30
+     */
+    private RatingMatrix matrix() {
+        return new RatingMatrix.Builder()
+                .add(1L, 10L, true).add(1L, 20L, true).add(1L, 30L, true)
+                .add(2L, 10L, true).add(2L, 20L, true).add(2L, 30L, true)
+                .add(3L, 10L, true).add(3L, 20L, true)
+                .add(4L, 50L, true)
+                .build();
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<App> apps = new ArrayList<>();
+        for (long appId = 10; appId <= 50; appId += 10) {
+            App app = new App();
+            app.setAppId(appId);
+            app.setPopularity((int) appId);
+            apps.add(app);
+        }
+        AppRepository appRepository = mock(AppRepository.class);
+        when(appRepository.findAll()).thenReturn(apps);
+        AppCatalogHolder appCatalogHolder = new AppCatalogHolder(appRepository, null);
+        RecommendationProperties properties = new RecommendationProperties();
+        ratingMatrixHolder = new RatingMatrixHolder(null, null);
+        ratingMatrixHolder.install(matrix());
+        alsModelHolder = new AlsModelHolder(ratingMatrixHolder, null, properties);
+        PopularRecommendationEngine popular = new PopularRecommendationEngine(
+                new PopularityLeaderboardHolder(appCatalogHolder), ratingMatrixHolder);
+        itemCf = new ItemCfRecommendationEngine(appCatalogHolder, ratingMatrixHolder,
+                new ItemNeighborIndexHolder(ratingMatrixHolder, properties, null), popular);
+        engine = new AlsRecommendationEngine(appCatalogHolder, ratingMatrixHolder, alsModelHolder, itemCf, popular);
+    }
+
+    @Test
+    void testScoresWithModelAndSkipsRatedApps() {
+        alsModelHolder.install(AlsTrainer.train(matrix(), new AlsTrainer.Params(4, 10, 0.1, 20.0, 42L)));
+
+        List<Long> result = engine.recommend(3L, 2);
+        assertEquals(30L, result.get(0));
+        assertEquals(2, result.size());
+        assertFalse(result.contains(10L));
+        assertFalse(result.contains(20L));
+        assertEquals(1L, alsModelHolder.getStats().get("scoringRequests"));
+    }
+
+    @Test
+    void testFallsBackToItemCfWithoutModel() {
+        assertEquals(itemCf.recommend(3L, 3), engine.recommend(3L, 3));
+        assertEquals(0L, alsModelHolder.getStats().get("scoringRequests"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlsTrainerTest {
+
+    private static final AlsTrainer.Params PARAMS = new AlsTrainer.Params(4, 10, 0.1, 20.0, 42L);
+
+    /**
+     * 用户1-3都推荐游戏10、20；用户1、2还推荐游戏30，用户3未评分游戏30；
+     * 游戏40只有不推荐记录
+     */
+    private RatingMatrix matrix() {
+        return new RatingMatrix.Builder()
+                .add(1L, 10L, true).add(1L, 20L, true).add(1L, 30L, true).add(1L, 40L, false)
+                .add(2L, 10L, true).add(2L, 20L, true).add(2L, 30L, true).add(2L, 40L, false)
+                .add(3L, 10L, true).add(3L, 20L, true)
+                .add(4L, 50L, true).add(4L, 40L, false)
+                .build();
+    }
+
+    @Test
+    void testModelShape() {
+        RatingMatrix matrix = matrix();
+        AlsModel model = AlsTrainer.train(matrix, PARAMS);
+
+        assertEquals(matrix.userCount(), model.userCount());
+        assertEquals(matrix.appCount(), model.appCount());
+        assertEquals(4, model.rank());
+        assertEquals(3, model.userIndex(4L));
+        assertEquals(-1, model.userIndex(99L));
+        assertEquals(8L * (4 + 5) + 4L * 4 * (4 + 5), model.memoryBytes());
+    }
+
+    @Test
+    void testCoRatedItemScoresAboveNegativeItem() {
+        AlsModel model = AlsTrainer.train(matrix(), PARAMS);
+        int user = model.userIndex(3L);
+
+        double similar = model.score(user, model.appIndex(30L));
+        double negative = model.score(user, model.appIndex(40L));
+        assertTrue(similar > negative, similar + " <= " + negative);
+        assertTrue(model.score(user, model.appIndex(10L)) > 0.5);
+    }
+
+    @Test
+    void testTrainingIsDeterministic() {
+        AlsModel first = AlsTrainer.train(matrix(), PARAMS);
+        AlsModel second = AlsTrainer.train(matrix(), PARAMS);
+        for (int u = 0; u < first.userCount(); u++) {
+            for (int a = 0; a < first.appCount(); a++) {
+                assertEquals(first.score(u, a), second.score(u, a));
+            }
+        }
+    }
+}
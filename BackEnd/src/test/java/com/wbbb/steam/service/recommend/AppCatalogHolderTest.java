@@ -0,0 +1,62 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.repository.AppRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class AppCatalogHolderTest {
+
+    private static App app(long appId) {
+        App app = new App();
+        app.setAppId(appId);
+        return app;
+    }
+
+    @Test
+    void testFirstLoadRunsInReadOnlyTransaction() {
+        AppRepository appRepository = mock(AppRepository.class);
+        when(appRepository.findAll()).thenReturn(List.of(app(1L)));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        AppCatalogHolder holder = new AppCatalogHolder(appRepository, transactionManager);
+        assertEquals(1, holder.get().size());
+
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testOlderSnapshotIsNotPublished() {
+        AppRepository appRepository = mock(AppRepository.class);
+        AtomicBoolean first = new AtomicBoolean(true);
+        AppCatalogHolder holder = new AppCatalogHolder(appRepository, null);
+        when(appRepository.findAll()).thenAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                // 读取期间有新的修改提交并完成了一次刷新，本次读取到的是旧数据
+                holder.nextChangeSequence();
+                holder.refresh();
+                return List.of(app(1L));
+            }
+            return List.of(app(1L), app(2L));
+        });
+
+        AppCatalog published = holder.refresh();
+
+        assertEquals(1, published.getChangeSequence());
+        assertEquals(2, published.size());
+        assertSame(published, holder.get());
+    }
+}
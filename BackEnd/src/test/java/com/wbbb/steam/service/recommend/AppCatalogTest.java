@@ -0,0 +1,84 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppCatalogTest {
+
+    private App app(long id, Integer popularity, String... tags) {
+        App app = new App();
+        app.setAppId(id);
+        app.setPopularity(popularity);
+        app.setTags(new HashSet<>(Arrays.asList(tags)));
+        return app;
+    }
+
+    private List<App> apps() {
+        return List.of(
+                app(30L, 100, "动作", "射击"),
+                app(10L, 80, "冒险"),
+                app(20L, null),
+                app(40L, 60, "动作", "冒险", "策略"));
+    }
+
+    @Test
+    void testIndexLookup() {
+        AppCatalog catalog = AppCatalog.of(apps());
+        assertEquals(4, catalog.size());
+        assertEquals(0, catalog.indexOf(30L));
+        assertEquals(1, catalog.indexOf(10L));
+        assertEquals(3, catalog.indexOf(40L));
+        assertEquals(-1, catalog.indexOf(99L));
+        assertEquals(40L, catalog.appId(3));
+    }
+
+    @Test
+    void testDecayTableMatchesPow() {
+        AppCatalog catalog = AppCatalog.of(apps());
+        for (int i = 0; i < catalog.size(); i++) {
+            assertEquals(Math.pow(AppCatalog.POPULARITY_DECAY, i), catalog.decayFactor(i), 1e-12);
+            assertEquals(catalog.popularity(i) * Math.pow(AppCatalog.POPULARITY_DECAY, i),
+                    catalog.decayedPopularity(i), 1e-9);
+        }
+        assertEquals(0.0, catalog.decayedPopularity(2));
+    }
+
+    @Test
+    void testContentScoringMatchesSetJaccard() {
+        List<App> apps = apps();
+        AppCatalog catalog = AppCatalog.of(apps);
+        Set<String> userTags = Set.of("动作", "冒险", "未收录");
+        double[] scores = new double[catalog.size()];
+        ContentScoring.accumulate(catalog, catalog.tagDictionary().encode(userTags), userTags.size(), 0.5, scores);
+
+        for (int i = 0; i < apps.size(); i++) {
+            Set<String> gameTags = apps.get(i).getTags();
+            if (gameTags.isEmpty()) {
+                assertEquals(0.0, scores[i]);
+                continue;
+            }
+            Set<String> common = new HashSet<>(gameTags);
+            common.retainAll(userTags);
+            double similarity = (double) common.size() / (userTags.size() + gameTags.size() - common.size());
+            double popularity = apps.get(i).getPopularity() * Math.pow(AppCatalog.POPULARITY_DECAY, i);
+            assertEquals(0.5 * (0.7 * similarity + 0.3 * popularity), scores[i], 1e-9);
+        }
+    }
+
+    @Test
+    void testReleaseOrderNewestFirst() {
+        List<App> apps = apps();
+        apps.get(0).setCreateTime("2015-03-01");
+        apps.get(1).setCreateTime("2021-07-15");
+        apps.get(3).setCreateTime("2019-01-20");
+        AppCatalog catalog = AppCatalog.of(apps);
+
+        assertArrayEquals(new int[]{1, 3, 0, 2}, new int[]{catalog.releaseIndex(0), catalog.releaseIndex(1),
+                catalog.releaseIndex(2), catalog.releaseIndex(3)});
+    }
+}
@@ -0,0 +1,84 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.repository.AppRepository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AppSearchIndexHolderTest {
+
+    private App app(long id, String name, String developer, Integer popularity) {
+        App app = new App();
+        app.setAppId(id);
+        app.setName(name);
+        app.setDeveloper(developer);
+        app.setPopularity(popularity);
+        return app;
+    }
+
+    @Test
+    void testSearchRanksAndLimits() {
+        AppRepository appRepository = mock(AppRepository.class);
+        when(appRepository.findAll()).thenReturn(List.of(
+                app(1L, "Portal", "Valve", 50),
+                app(2L, "Half-Life", "Valve", 90),
+                app(3L, "Valve Puzzle", "Indie", 10)));
+        AppSearchIndexHolder holder = new AppSearchIndexHolder(new AppCatalogHolder(appRepository, null));
+
+        // 名称命中优先，其余按热度降序
+        assertEquals(List.of(3L, 2L, 1L), holder.search("valve", 10));
+        assertEquals(List.of(3L, 2L), holder.search("valve", 2));
+        assertEquals(List.of(), holder.search("valve", 0));
+    }
+
+    @Test
+    void testAdminChangesVisibleBeforeCatalogRefresh() {
+        AppRepository appRepository = mock(AppRepository.class);
+        List<App> apps = new ArrayList<>(List.of(
+                app(1L, "Portal", "Valve", 50),
+                app(2L, "Half-Life", "Valve", 90)));
+        when(appRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(apps));
+        AppCatalogHolder catalogHolder = new AppCatalogHolder(appRepository, null);
+        AppSearchIndexHolder holder = new AppSearchIndexHolder(catalogHolder);
+        assertEquals(List.of(2L, 1L), holder.search("valve", 10));
+
+        holder.update(app(1L, "Portal 2", "Valve", 100));
+        holder.update(app(3L, "Dota 2", "Valve", 95));
+        holder.remove(2L);
+        assertEquals(List.of(1L, 3L), holder.search("valve", 10));
+        assertEquals(List.of(1L, 3L), holder.search("2", 10));
+        assertEquals(3, holder.getStats().get("pending"));
+
+        // 目录刷新后变化已包含在新快照中，重建时丢弃
+        apps.set(0, app(1L, "Portal 2", "Valve", 100));
+        apps.set(1, app(3L, "Dota 2", "Valve", 95));
+        catalogHolder.refresh();
+        assertEquals(List.of(1L, 3L), holder.search("valve", 10));
+        assertEquals(0, holder.getStats().get("pending"));
+    }
+
+    @Test
+    void testChangeCommittedDuringCatalogLoadIsKept() {
+        AppRepository appRepository = mock(AppRepository.class);
+        List<App> apps = List.of(app(1L, "Portal", "Valve", 50));
+        AppCatalogHolder catalogHolder = new AppCatalogHolder(appRepository, null);
+        AppSearchIndexHolder holder = new AppSearchIndexHolder(catalogHolder);
+        when(appRepository.findAll()).thenReturn(apps);
+        assertEquals(List.of(1L), holder.search("valve", 10));
+
+        // 目录读取期间提交的修改不在新快照中，重建后仍须保留
+        when(appRepository.findAll()).thenAnswer(invocation -> {
+            holder.update(app(2L, "Half-Life", "Valve", 90));
+            return apps;
+        });
+        catalogHolder.refresh();
+        assertEquals(List.of(2L, 1L), holder.search("valve", 10));
+        assertEquals(1, holder.getStats().get("pending"));
+    }
+}
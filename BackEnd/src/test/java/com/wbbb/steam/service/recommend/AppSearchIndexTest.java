@@ -0,0 +1,107 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppSearchIndexTest {
+
+    private App app(long id, String name, String developer, String publisher, Integer popularity) {
+        App app = new App();
+        app.setAppId(id);
+        app.setName(name);
+        app.setDeveloper(developer);
+        app.setPublisher(publisher);
+        app.setPopularity(popularity);
+        return app;
+    }
+
+    private AppSearchIndex index() {
+        return AppSearchIndex.build(AppCatalog.of(List.of(
+                app(1L, "黑神话：悟空", "游戏科学", "游戏科学", 90),
+                app(2L, "Counter-Strike 2", "Valve", "Valve", 100),
+                app(3L, "Half-Life 2", "Valve", "Valve", 70),
+                app(4L, "原神", "miHoYo", "米哈游", 80),
+                app(5L, "科学怪人", null, "Valve", 10))));
+    }
+
+    private List<Long> appIds(AppSearchIndex index, int[] matched) {
+        List<Long> ids = new ArrayList<>();
+        for (int i : matched) ids.add(index.catalog().appId(i));
+        return ids;
+    }
+
+    @Test
+    void testChineseSubstringMatch() {
+        AppSearchIndex index = index();
+
+        assertEquals(List.of(1L), appIds(index, index.match(AppSearchIndex.tokenize("悟空"))));
+        assertEquals(List.of(1L, 5L), appIds(index, index.match(AppSearchIndex.tokenize("科学"))));
+        assertEquals(List.of(4L), appIds(index, index.match(AppSearchIndex.tokenize("米"))));
+        assertTrue(index.match(AppSearchIndex.tokenize("学科")).length == 0);
+    }
+
+    @Test
+    void testMultipleWordsMustAllMatch() {
+        AppSearchIndex index = index();
+
+        // 词可以命中不同字段
+        assertEquals(List.of(3L), appIds(index, index.match(AppSearchIndex.tokenize("valve  half"))));
+        assertEquals(List.of(2L, 3L), appIds(index, index.match(AppSearchIndex.tokenize("VALVE 2"))));
+        assertEquals(5, index.match(AppSearchIndex.tokenize("  ")).length);
+    }
+
+    @Test
+    void testNormalisesFullWidthAndCase() {
+        AppSearchIndex index = index();
+
+        assertEquals(List.of(2L), appIds(index, index.match(AppSearchIndex.tokenize("ＣＯＵＮＴＥＲ"))));
+        assertEquals(List.of(4L), appIds(index, index.match(AppSearchIndex.tokenize("MIHOYO"))));
+    }
+
+    @Test
+    void testMatchesLikeSemantics() {
+        // 与逐个游戏做子串匹配(LIKE '%词%')的结果一致，包括二字都出现但不连续的情况
+        Random random = new Random(42);
+        String alphabet = "游戏科学黑神话悟空原abc ";
+        List<App> apps = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            apps.add(app(id, randomText(random, alphabet, 12), randomText(random, alphabet, 6),
+                    random.nextBoolean() ? null : randomText(random, alphabet, 6), random.nextInt(100)));
+        }
+        AppCatalog catalog = AppCatalog.of(apps);
+        AppSearchIndex index = AppSearchIndex.build(catalog);
+
+        for (int q = 0; q < 200; q++) {
+            String keyword = randomText(random, alphabet, 1 + random.nextInt(4)) + " " + randomText(random, alphabet, 2);
+            String[] words = AppSearchIndex.tokenize(keyword);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < catalog.size(); i++) {
+                String[] texts = AppSearchIndex.fieldTexts(catalog.name(i), catalog.developer(i), catalog.publisher(i));
+                if (AppSearchIndex.matches(texts, 0, words)) expected.add(i);
+            }
+            List<Integer> actual = new ArrayList<>();
+            for (int i : index.match(words)) actual.add(i);
+            assertEquals(expected, actual, "关键词: " + keyword);
+        }
+    }
+
+    @Test
+    void testNameMatchesRankFirst() {
+        AppSearchIndex index = index();
+        String[] words = AppSearchIndex.tokenize("科学");
+
+        // 科学怪人热度低，但名称命中，排在只有开发商命中的黑神话之前
+        assertTrue(index.score(index.catalog().indexOf(5L), words) > index.score(index.catalog().indexOf(1L), words));
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return text.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.App;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CandidatePipelineTest {
+
+    private App app(long id, int popularity, String createTime, String... tags) {
+        App app = new App();
+        app.setAppId(id);
+        app.setPopularity(popularity);
+        app.setCreateTime(createTime);
+        app.setTags(new HashSet<>(Arrays.asList(tags)));
+        return app;
+    }
+
+    private AppCatalog catalog() {
+        return AppCatalog.of(List.of(
+                app(1L, 90, "2018-01-01", "动作"),
+                app(2L, 80, "2023-05-01", "动作", "射击"),
+                app(3L, 70, "2020-01-01", "策略"),
+                app(4L, 60, "2024-02-01", "动作"),
+                app(5L, 50, "2016-01-01", "策略")));
+    }
+
+    private PopularInTagsCandidateGenerator popularInTags(AppCatalog catalog) {
+        PopularityLeaderboardHolder holder = mock(PopularityLeaderboardHolder.class);
+        when(holder.get()).thenReturn(PopularityLeaderboards.build(catalog));
+        return new PopularInTagsCandidateGenerator(holder);
+    }
+
+    private CandidateGenerator fixed(String name, long... appIds) {
+        return new CandidateGenerator() {
+            public String name() { return name; }
+            public void generate(CandidateRequest request, CandidateSet candidates, int maxCandidates) {
+                for (long appId : appIds) {
+                    if (candidates.added() == maxCandidates) break;
+                    candidates.add(request.catalog().indexOf(appId));
+                }
+            }
+        };
+    }
+
+    private List<Long> ids(AppCatalog catalog, CandidateSet candidates) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) ids.add(catalog.appId(candidates.index(i)));
+        return ids;
+    }
+
+    @Test
+    void testUnionIsDeduplicatedAndBoundedPerGenerator() {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getCandidates().setPerGenerator(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CandidatePipeline pipeline = new CandidatePipeline(List.of(
+                fixed("a", 1L, 2L, 3L), fixed("b", 2L, 4L, 5L)), properties, new RecommendationMetrics(registry));
+
+        AppCatalog catalog = catalog();
+        CandidateSet candidates = pipeline.generate(new CandidateRequest(7L, catalog, Set.of(), Set.of(), Set.of()));
+
+        assertEquals(List.of(1L, 2L, 4L, 5L), ids(catalog, candidates));
+        assertEquals(2.0, registry.get("recommendation.generator.yield").tag("generator", "b").summary().totalAmount());
+        assertEquals(1, registry.get("recommendation.generator.duration").tag("generator", "a").timer().count());
+    }
+
+    @Test
+    void testFailingGeneratorIsSkipped() {
+        CandidateGenerator failing = new CandidateGenerator() {
+            public String name() { return "failing"; }
+            public void generate(CandidateRequest request, CandidateSet candidates, int maxCandidates) {
+                candidates.add(0);
+                throw new IllegalStateException("boom");
+            }
+        };
+        CandidatePipeline pipeline = new CandidatePipeline(List.of(failing, fixed("ok", 3L)),
+                new RecommendationProperties(), new RecommendationMetrics(new SimpleMeterRegistry()));
+
+        AppCatalog catalog = catalog();
+        CandidateSet candidates = pipeline.generate(new CandidateRequest(7L, catalog, Set.of(), Set.of(), Set.of()));
+
+        assertEquals(List.of(1L, 3L), ids(catalog, candidates));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> failingStats = (Map<String, Object>) pipeline.getStats().get("failing");
+        assertEquals(1L, failingStats.get("failures"));
+    }
+
+    @Test
+    void testPopularInTagsSkipsRatedApps() {
+        AppCatalog catalog = catalog();
+        CandidateSet candidates = new CandidateSet(catalog.size());
+        popularInTags(catalog).generate(
+                new CandidateRequest(7L, catalog, Set.of(1L), Set.of(1L), Set.of("动作")), candidates, 10);
+
+        assertEquals(List.of(2L, 4L), ids(catalog, candidates));
+    }
+
+    @Test
+    void testPopularInTagsFallsBackToGlobalPopularity() {
+        AppCatalog catalog = catalog();
+        CandidateSet candidates = new CandidateSet(catalog.size());
+        popularInTags(catalog).generate(
+                new CandidateRequest(7L, catalog, Set.of(), Set.of(), Set.of("未收录")), candidates, 3);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(catalog, candidates));
+    }
+
+    @Test
+    void testNewReleasesNewestFirst() {
+        AppCatalog catalog = catalog();
+        CandidateSet candidates = new CandidateSet(catalog.size());
+        new NewReleaseCandidateGenerator().generate(
+                new CandidateRequest(7L, catalog, Set.of(4L), Set.of(), Set.of()), candidates, 2);
+
+        assertEquals(List.of(2L, 3L), ids(catalog, candidates));
+    }
+}
@@ -0,0 +1,79 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CollaborativeFilteringTest {
+
+    private RatingMatrix randomMatrix(long seed) {
+        Random random = new Random(seed);
+        RatingMatrix.Builder builder = new RatingMatrix.Builder();
+        for (int i = 0; i < 20000; i++) {
+            builder.add(random.nextInt(2000), (long) (300 * Math.pow(random.nextDouble(), 2)), random.nextDouble() < 0.7);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void testParallelUserBasedEqualsSequential() {
+        RatingMatrix matrix = randomMatrix(42);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long userId = 0; userId < 50; userId++) {
+                Map<Long, Double> sequential = CollaborativeFiltering.userBased(matrix, userId);
+                // 阈值为0时总是走并行路径
+                Map<Long, Double> parallel = CollaborativeFiltering.userBased(matrix, userId, pool, 0);
+                assertEquals(sequential, parallel, "用户" + userId + "的并行结果与单线程不一致");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testUserBasedSkipsRatedApps() {
+        RatingMatrix matrix = new RatingMatrix.Builder()
+                .add(1L, 10L, true).add(1L, 20L, true)
+                .add(2L, 10L, true).add(2L, 20L, true).add(2L, 30L, true)
+                .add(3L, 40L, true)
+                .build();
+        Map<Long, Double> scores = CollaborativeFiltering.userBased(matrix, 1L, ForkJoinPool.commonPool(), 0);
+
+        assertEquals(Map.of(30L, 1.0), scores);
+    }
+
+    @Test
+    void testSocialUsesOnlyFriendNeighbourhood() {
+        RatingMatrix matrix = new RatingMatrix.Builder()
+                .add(1L, 10L, true)
+                .add(2L, 10L, true).add(2L, 20L, true)
+                .add(3L, 10L, true).add(3L, 30L, true)
+                .add(4L, 10L, true).add(4L, 40L, true)
+                .build();
+        // 4与1有共同推荐，但不在社交近邻中
+        FriendGraph graph = new FriendGraph.Builder().add(1L, 2L).add(2L, 3L).build();
+
+        Map<Long, Double> scores = CollaborativeFiltering.userBasedSocial(matrix, graph, 1L, 100, 2.0, 1);
+
+        assertEquals(Map.of(20L, 1.0, 30L, 1.0), scores);
+    }
+
+    @Test
+    void testSocialReturnsEmptyWhenNeighbourhoodTooSparse() {
+        RatingMatrix matrix = new RatingMatrix.Builder()
+                .add(1L, 10L, true)
+                .add(2L, 10L, true).add(2L, 20L, true)
+                .add(3L, 30L, true)
+                .build();
+        // 3是好友但没有共同推荐，有效近邻只有1个
+        FriendGraph graph = new FriendGraph.Builder().add(1L, 2L).add(1L, 3L).build();
+
+        assertTrue(CollaborativeFiltering.userBasedSocial(matrix, graph, 1L, 100, 2.0, 2).isEmpty());
+        assertEquals(Map.of(20L, 1.0), CollaborativeFiltering.userBasedSocial(matrix, graph, 1L, 100, 2.0, 1));
+    }
+}
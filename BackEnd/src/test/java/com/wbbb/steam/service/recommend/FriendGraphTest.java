@@ -0,0 +1,52 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FriendGraphTest {
+
+    @Test
+    void testBuildDeduplicatesBidirectionalRows() {
+        // friend表每对好友两个方向各一行；缺少反向行时也按无向边处理
+        FriendGraph graph = new FriendGraph.Builder()
+                .add(1L, 2L).add(2L, 1L)
+                .add(1L, 3L)
+                .add(4L, 4L)
+                .build();
+
+        assertEquals(3, graph.userCount());
+        assertEquals(4, graph.edgeCount());
+        assertArrayEquals(new long[]{2L, 3L}, graph.friends(1L));
+        assertArrayEquals(new long[]{1L}, graph.friends(3L));
+        assertArrayEquals(new long[0], graph.friends(4L));
+    }
+
+    @Test
+    void testNeighbourhoodOrdersFriendsOfFriendsByMutualFriends() {
+        FriendGraph graph = new FriendGraph.Builder()
+                .add(1L, 2L).add(1L, 3L)
+                .add(2L, 10L).add(3L, 10L)
+                .add(2L, 11L)
+                .add(3L, 1L)
+                .add(10L, 20L)
+                .build();
+
+        FriendGraph.Neighbourhood neighbourhood = graph.neighbourhood(1L, 10);
+
+        assertEquals(2, neighbourhood.friendCount());
+        // 10有两个共同好友，排在11之前；20在三跳之外
+        assertArrayEquals(new long[]{2L, 3L, 10L, 11L}, neighbourhood.userIds());
+    }
+
+    @Test
+    void testNeighbourhoodRespectsMaxSize() {
+        FriendGraph graph = new FriendGraph.Builder()
+                .add(1L, 2L).add(1L, 3L).add(2L, 10L)
+                .build();
+
+        assertArrayEquals(new long[]{2L, 3L}, graph.neighbourhood(1L, 2).userIds());
+        assertArrayEquals(new long[]{2L}, graph.neighbourhood(1L, 1).userIds());
+        assertEquals(0, graph.neighbourhood(99L, 10).size());
+    }
+}
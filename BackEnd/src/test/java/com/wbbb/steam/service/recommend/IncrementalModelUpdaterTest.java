@@ -0,0 +1,126 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.entity.UserRating;
+import com.wbbb.steam.repository.AppRepository;
+import com.wbbb.steam.repository.UserRatingRepository;
+import com.wbbb.steam.service.RecommendationService;
+import com.wbbb.steam.service.RecommendationServiceFixture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class IncrementalModelUpdaterTest {
+
+    private RecommendationProperties properties;
+    private RatingMatrixHolder ratingMatrixHolder;
+    private ItemNeighborIndexHolder itemNeighborIndexHolder;
+    private IncrementalModelUpdater updater;
+
+    @BeforeEach
+    void setUp() {
+        UserRatingRepository userRatingRepository = mock(UserRatingRepository.class);
+        when(userRatingRepository.getAllRatingsProjection()).thenReturn(List.of());
+        properties = new RecommendationProperties();
+        ratingMatrixHolder = new RatingMatrixHolder(userRatingRepository, null);
+        itemNeighborIndexHolder = new ItemNeighborIndexHolder(ratingMatrixHolder, properties, null);
+        updater = new IncrementalModelUpdater(ratingMatrixHolder, itemNeighborIndexHolder, properties,
+                new RecommendationMetrics(new SimpleMeterRegistry()), new RecommendationCache(properties),
+                new PrecomputedRecommendationStore(null, properties));
+    }
+
+    @Test
+    void testEventsUpdateMatrixAndNeighbors() {
+        itemNeighborIndexHolder.get();
+        updater.onRatingChanged(RatingChangedEvent.rated(1L, 10L, true));
+        updater.onRatingChanged(RatingChangedEvent.rated(1L, 20L, true));
+        updater.onRatingChanged(RatingChangedEvent.rated(2L, 10L, true));
+        updater.onRatingChanged(RatingChangedEvent.rated(2L, 20L, false));
+        updater.onRatingChanged(RatingChangedEvent.removed(2L, 20L));
+
+        assertEquals(5, updater.applyPending());
+
+        RatingMatrix matrix = ratingMatrixHolder.get();
+        assertEquals(2, matrix.userCount());
+        assertEquals(3, matrix.ratingCount());
+        ItemNeighborIndex index = itemNeighborIndexHolder.get();
+        int app = index.appIndex(10L);
+        assertEquals(1, index.neighborEnd(app) - index.neighborStart(app));
+        assertEquals(20L, index.appId(index.neighbor(index.neighborStart(app))));
+        assertEquals(0, updater.getStats().get("pending"));
+        assertEquals(0, updater.applyPending());
+    }
+
+    @Test
+    void testEventsIgnoredWhenDisabled() {
+        properties.getIncremental().setEnabled(false);
+        updater.onRatingChanged(RatingChangedEvent.rated(1L, 10L, true));
+
+        assertEquals(0, updater.applyPending());
+    }
+
+    @Test
+    void testEventsBeforeFirstLoadAreLeftToFullLoad() {
+        updater.onRatingChanged(RatingChangedEvent.rated(1L, 10L, true));
+
+        assertEquals(1, updater.applyPending());
+        // 矩阵尚未加载，首次读取时全量加载(此处数据库为空)
+        assertEquals(0, ratingMatrixHolder.get().ratingCount());
+    }
+
+    @Test
+    void testAppliedRatingReplacesResultCachedBeforeApply() {
+        List<App> apps = new ArrayList<>();
+        String[] tags = {"动作", "射击", "解谜", "体育", "休闲"};
+        for (int i = 0; i < tags.length; i++) {
+            App app = new App();
+            app.setAppId(10L * (i + 1));
+            app.setTags(Set.of(tags[i]));
+            apps.add(app);
+        }
+        AppRepository appRepository = mock(AppRepository.class);
+        when(appRepository.findAll()).thenReturn(apps);
+        List<UserRating> userRatings = new ArrayList<>();
+        userRatings.add(new UserRating(null, 1L, 10L, true, null, 0L));
+        userRatings.add(new UserRating(null, 1L, 50L, false, null, 0L));
+        UserRatingRepository userRatingRepository = mock(UserRatingRepository.class);
+        when(userRatingRepository.findByUserId(1L)).thenReturn(userRatings);
+        RecommendationServiceFixture fixture = new RecommendationServiceFixture()
+                .appRepository(appRepository)
+                .userRatingRepository(userRatingRepository)
+                .build();
+        // 游戏30与10、50相近(用户1不推荐50，拉低30的分数)，游戏40只与20相近；
+        // 各游戏标签互不相同，30、40的排序只取决于协同过滤
+        fixture.ratingMatrixHolder().install(new RatingMatrix.Builder()
+                .add(1L, 10L, true).add(1L, 50L, false)
+                .add(2L, 10L, true).add(2L, 30L, true)
+                .add(3L, 20L, true).add(3L, 40L, true)
+                .add(5L, 30L, true).add(5L, 50L, true)
+                .build());
+        RecommendationService service = fixture.service();
+        IncrementalModelUpdater incrementalUpdater = new IncrementalModelUpdater(fixture.ratingMatrixHolder(),
+                fixture.itemNeighborIndexHolder(), fixture.properties(), fixture.metrics(),
+                fixture.recommendationCache(), fixture.precomputedRecommendationStore());
+
+        // 评分已提交(提交时的失效已发生)，但事件尚未应用，此时的请求按旧模型计算并写入缓存
+        userRatings.add(new UserRating(null, 1L, 20L, true, null, 0L));
+        incrementalUpdater.onRatingChanged(RatingChangedEvent.rated(1L, 20L, true));
+        List<Long> before = service.recommendGames(1L, 3);
+        assertTrue(before.contains(30L));
+        assertFalse(before.contains(40L));
+
+        assertEquals(1, incrementalUpdater.applyPending());
+        List<Long> after = service.recommendGames(1L, 3);
+        assertTrue(after.contains(40L));
+        assertFalse(after.contains(30L));
+    }
+}
@@ -0,0 +1,161 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemNeighborIndexTest {
+
+    /**
+     * 用户1、2都推荐了游戏10和20，用户3推荐了游戏10和30
+     */
+    private RatingMatrix matrix() {
+        return new RatingMatrix.Builder()
+                .add(1L, 10L, true).add(1L, 20L, true)
+                .add(2L, 10L, true).add(2L, 20L, true)
+                .add(3L, 10L, true).add(3L, 30L, true)
+                .add(4L, 30L, false)
+                .build();
+    }
+
+    @Test
+    void testNeighborsSortedBySimilarity() {
+        ItemNeighborIndex index = ItemNeighborIndex.build(matrix(), 10);
+        int app = index.appIndex(10L);
+
+        assertEquals(2, index.neighborEnd(app) - index.neighborStart(app));
+        int first = index.neighborStart(app);
+        assertEquals(20L, index.appId(index.neighbor(first)));
+        assertEquals(2 / Math.sqrt(3 * 2), index.similarity(first), 1e-6);
+        assertEquals(30L, index.appId(index.neighbor(first + 1)));
+        assertEquals(1 / Math.sqrt(3), index.similarity(first + 1), 1e-6);
+    }
+
+    @Test
+    void testNeighborCountIsBounded() {
+        ItemNeighborIndex index = ItemNeighborIndex.build(matrix(), 1);
+        int app = index.appIndex(10L);
+        assertEquals(1, index.neighborEnd(app) - index.neighborStart(app));
+    }
+
+    @Test
+    void testItemBasedSkipsRatedApps() {
+        RatingMatrix matrix = matrix();
+        Map<Long, Double> scores = CollaborativeFiltering.itemBased(matrix, ItemNeighborIndex.build(matrix, 10), 1L);
+
+        assertEquals(1, scores.size());
+        assertEquals(1.0, scores.get(30L), 1e-9);
+    }
+
+    @Test
+    void testCooccurrenceBuilderMatchesMatrixBuild() {
+        Random random = new Random(7);
+        RatingMatrix.Builder builder = new RatingMatrix.Builder();
+        Map<Long, Set<Long>> positivesByUser = new HashMap<>();
+        for (long user = 1; user <= 200; user++) {
+            for (int i = 0; i < 8; i++) {
+                long app = 1 + random.nextInt(40);
+                boolean recommended = random.nextInt(4) != 0;
+                builder.add(user, app, recommended);
+                if (recommended) positivesByUser.computeIfAbsent(user, k -> new HashSet<>()).add(app);
+            }
+        }
+        RatingMatrix matrix = builder.build();
+        ItemNeighborIndex expected = ItemNeighborIndex.build(matrix, 5);
+
+        // 模拟数据库返回的共现计数，按(游戏A, 游戏B)升序
+        Map<Long, Integer> positives = new HashMap<>();
+        TreeMap<Long, TreeMap<Long, Integer>> common = new TreeMap<>();
+        for (Set<Long> apps : positivesByUser.values()) {
+            for (long a : apps) {
+                positives.merge(a, 1, Integer::sum);
+                for (long b : apps) {
+                    if (a != b) common.computeIfAbsent(a, k -> new TreeMap<>()).merge(b, 1, Integer::sum);
+                }
+            }
+        }
+        ItemNeighborIndex.CooccurrenceBuilder cooccurrence = new ItemNeighborIndex.CooccurrenceBuilder(5);
+        common.forEach((a, row) -> row.forEach((b, count) ->
+                cooccurrence.add(a, b, count, positives.get(a), positives.get(b))));
+        ItemNeighborIndex actual = cooccurrence.build();
+
+        for (int app = 0; app < expected.appCount(); app++) {
+            long appId = expected.appId(app);
+            int size = expected.neighborEnd(app) - expected.neighborStart(app);
+            int other = actual.appIndex(appId);
+            if (size == 0) {
+                assertTrue(other < 0 || actual.neighborEnd(other) == actual.neighborStart(other));
+                continue;
+            }
+            assertEquals(size, actual.neighborEnd(other) - actual.neighborStart(other));
+            for (int k = 0; k < size; k++) {
+                int e = expected.neighborStart(app) + k;
+                int g = actual.neighborStart(other) + k;
+                assertEquals(expected.appId(expected.neighbor(e)), actual.appId(actual.neighbor(g)));
+                assertEquals(expected.similarity(e), actual.similarity(g), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void testCooccurrenceBuilderRejectsUnsortedRows() {
+        ItemNeighborIndex.CooccurrenceBuilder builder = new ItemNeighborIndex.CooccurrenceBuilder(5);
+        builder.add(20L, 10L, 1, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> builder.add(10L, 20L, 1, 1, 1));
+    }
+
+    @Test
+    void testMinCommonAppliesToBuildAndUpdates() {
+        ItemNeighborIndex index = ItemNeighborIndex.build(matrix(), 10, 2);
+        int app = index.appIndex(10L);
+        assertEquals(1, index.neighborEnd(app) - index.neighborStart(app));
+        assertEquals(20L, index.appId(index.neighbor(index.neighborStart(app))));
+
+        // 用户5让游戏10与30的共同推荐人数达到2
+        RatingMatrix updated = matrix().withChanges(new RatingMatrix.Changes()
+                .rated(5L, 10L, true).rated(5L, 30L, true).rated(5L, 40L, true));
+        ItemNeighborIndex actual = index.withUpdatedApps(updated, new long[]{10L, 30L, 40L}, 2);
+        app = actual.appIndex(10L);
+        assertEquals(2, actual.neighborEnd(app) - actual.neighborStart(app));
+        for (int k = actual.neighborStart(app); k < actual.neighborEnd(app); k++) {
+            assertNotEquals(40L, actual.appId(actual.neighbor(k)));
+        }
+        int app40 = actual.appIndex(40L);
+        assertEquals(0, actual.neighborEnd(app40) - actual.neighborStart(app40));
+    }
+
+    @Test
+    void testUpdatedAppsMatchRebuild() {
+        ItemNeighborIndex index = ItemNeighborIndex.build(matrix(), 10);
+        RatingMatrix updated = matrix().withChanges(new RatingMatrix.Changes()
+                .rated(4L, 20L, true)
+                .rated(4L, 40L, true)
+                .rated(5L, 40L, true).rated(5L, 10L, true));
+        ItemNeighborIndex expected = ItemNeighborIndex.build(updated, 10);
+
+        ItemNeighborIndex actual = index.withUpdatedApps(updated, new long[]{10L, 20L, 40L}, 1);
+
+        assertEquals(expected.appCount(), actual.appCount());
+        for (long appId : new long[]{10L, 20L, 40L}) {
+            int e = expected.appIndex(appId);
+            int g = actual.appIndex(appId);
+            assertEquals(expected.neighborEnd(e) - expected.neighborStart(e), actual.neighborEnd(g) - actual.neighborStart(g));
+            for (int k = 0; k < expected.neighborEnd(e) - expected.neighborStart(e); k++) {
+                assertEquals(expected.appId(expected.neighbor(expected.neighborStart(e) + k)),
+                        actual.appId(actual.neighbor(actual.neighborStart(g) + k)));
+                assertEquals(expected.similarity(expected.neighborStart(e) + k),
+                        actual.similarity(actual.neighborStart(g) + k), 1e-6);
+            }
+        }
+        // 未受影响的游戏沿用原近邻，下标按新矩阵重新对齐
+        int app30 = actual.appIndex(30L);
+        assertEquals(10L, actual.appId(actual.neighbor(actual.neighborStart(app30))));
+    }
+}
@@ -0,0 +1,52 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinHashLshIndexTest {
+
+    /**
+     * 用户1、2推荐的游戏完全相同，用户3与他们没有交集，用户4只有不推荐记录
+     */
+    private RatingMatrix matrix() {
+        return new RatingMatrix.Builder()
+                .add(1L, 10L, true).add(1L, 20L, true).add(1L, 30L, true)
+                .add(2L, 10L, true).add(2L, 20L, true).add(2L, 30L, true).add(2L, 40L, false)
+                .add(3L, 50L, true).add(3L, 60L, true)
+                .add(4L, 10L, false)
+                .build();
+    }
+
+    @Test
+    void testIdenticalSetsAreAlwaysCandidates() {
+        RatingMatrix matrix = matrix();
+        MinHashLshIndex index = MinHashLshIndex.build(matrix, 8, 2, 42L);
+
+        int[] candidates = index.candidates(matrix.userIndex(1L), 100);
+        assertTrue(Arrays.stream(candidates).anyMatch(user -> user == matrix.userIndex(2L)));
+        assertTrue(Arrays.stream(candidates).noneMatch(user -> user == matrix.userIndex(1L)));
+        assertEquals(0, index.candidates(matrix.userIndex(4L), 100).length);
+    }
+
+    @Test
+    void testLshScoresMatchExactWhenAllNeighboursFound() {
+        RatingMatrix matrix = matrix();
+        MinHashLshIndex index = MinHashLshIndex.build(matrix, 8, 2, 42L);
+
+        Map<Long, Double> exact = CollaborativeFiltering.userBased(matrix, 1L);
+        Map<Long, Double> approximate = CollaborativeFiltering.userBasedLsh(matrix, index, 1L, 100);
+        assertEquals(exact, approximate);
+        assertEquals(Map.of(40L, 0.0), approximate);
+    }
+
+    @Test
+    void testPositiveOverlap() {
+        RatingMatrix matrix = matrix();
+        assertEquals(3, CollaborativeFiltering.positiveOverlap(matrix, matrix.userIndex(1L), matrix.userIndex(2L)));
+        assertEquals(0, CollaborativeFiltering.positiveOverlap(matrix, matrix.userIndex(1L), matrix.userIndex(4L)));
+    }
+}
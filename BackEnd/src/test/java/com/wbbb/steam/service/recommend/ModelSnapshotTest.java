@@ -0,0 +1,133 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModelSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private RatingMatrix matrix() {
+        return new RatingMatrix.Builder()
+                .add(1L, 10L, true).add(1L, 20L, true).add(1L, 30L, false)
+                .add(2L, 10L, true).add(2L, 20L, true)
+                .add(3L, 20L, true).add(3L, 40L, true)
+                .build();
+    }
+
+    private App app(long id, Integer popularity, String name, String createTime, String... tags) {
+        App app = new App();
+        app.setAppId(id);
+        app.setPopularity(popularity);
+        app.setName(name);
+        app.setCreateTime(createTime);
+        app.setTags(new HashSet<>(Arrays.asList(tags)));
+        return app;
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        RatingMatrix matrix = matrix();
+        ItemNeighborIndex neighbors = ItemNeighborIndex.build(matrix, 2);
+        AlsModel als = AlsTrainer.train(matrix, new AlsTrainer.Params(3, 5, 0.1, 20.0, 42L));
+        Path file = dir.resolve("model.snap");
+
+        long bytes = ModelSnapshot.write(file, new ModelSnapshot.Contents(matrix, neighbors, als, null));
+        assertEquals(bytes, Files.size(file));
+        assertFalse(Files.exists(dir.resolve("model.snap.tmp")));
+
+        ModelSnapshot.Contents restored = ModelSnapshot.read(file);
+        RatingMatrix restoredMatrix = restored.matrix();
+        assertEquals(Boolean.TRUE, restoredMatrix.getStats().get("mapped"));
+        assertEquals(matrix.userCount(), restoredMatrix.userCount());
+        assertEquals(matrix.ratingCount(), restoredMatrix.ratingCount());
+        for (int u = 0; u < matrix.userCount(); u++) {
+            assertEquals(matrix.userPositiveCount(u), restoredMatrix.userPositiveCount(u));
+            for (int a = 0; a < matrix.appCount(); a++) {
+                assertEquals(matrix.rating(u, a), restoredMatrix.rating(u, a));
+            }
+        }
+
+        ItemNeighborIndex restoredNeighbors = restored.itemNeighbors();
+        assertEquals(Boolean.TRUE, restoredNeighbors.getStats().get("mapped"));
+        for (int a = 0; a < neighbors.appCount(); a++) {
+            assertEquals(neighbors.neighborStart(a), restoredNeighbors.neighborStart(a));
+            assertEquals(neighbors.neighborEnd(a), restoredNeighbors.neighborEnd(a));
+            for (int k = neighbors.neighborStart(a); k < neighbors.neighborEnd(a); k++) {
+                assertEquals(neighbors.neighbor(k), restoredNeighbors.neighbor(k));
+                assertEquals(neighbors.similarity(k), restoredNeighbors.similarity(k));
+            }
+        }
+        assertEquals(CollaborativeFiltering.itemBased(matrix, neighbors, 3L),
+                CollaborativeFiltering.itemBased(restoredMatrix, restoredNeighbors, 3L));
+
+        AlsModel restoredAls = restored.als();
+        assertEquals(Boolean.TRUE, restoredAls.getStats().get("mapped"));
+        assertEquals(als.getTrainMillis(), restoredAls.getTrainMillis());
+        for (int u = 0; u < als.userCount(); u++) {
+            for (int a = 0; a < als.appCount(); a++) {
+                assertEquals(als.score(u, a), restoredAls.score(u, a));
+            }
+        }
+    }
+
+    @Test
+    void testPartialSnapshot() throws IOException {
+        Path file = dir.resolve("model.snap");
+        ModelSnapshot.write(file, new ModelSnapshot.Contents(matrix(), null, null, null));
+
+        ModelSnapshot.Contents restored = ModelSnapshot.read(file);
+        assertNotNull(restored.matrix());
+        assertNull(restored.itemNeighbors());
+        assertNull(restored.als());
+        assertNull(restored.catalog());
+    }
+
+    @Test
+    void testCatalogRoundTrip() throws IOException {
+        AppCatalog catalog = AppCatalog.of(List.of(
+                app(30L, 100, "Alpha", "2020-01-01", "动作", "射击"),
+                app(10L, 80, null, "2023-05-01", "冒险"),
+                app(20L, null, "Gamma", null),
+                app(40L, 60, "Delta", "2021-07-15", "动作", "冒险", "策略")), 7);
+        Path file = dir.resolve("model.snap");
+        ModelSnapshot.write(file, new ModelSnapshot.Contents(null, null, null, catalog));
+
+        AppCatalog restored = ModelSnapshot.read(file).catalog();
+        assertEquals(catalog.size(), restored.size());
+        assertEquals(0, restored.getChangeSequence());
+        assertEquals(catalog.tagDictionary().size(), restored.tagDictionary().size());
+        long[] action = restored.tagDictionary().encode(Set.of("动作"));
+        for (int i = 0; i < catalog.size(); i++) {
+            assertEquals(catalog.appId(i), restored.appId(i));
+            assertEquals(i, restored.indexOf(catalog.appId(i)));
+            assertEquals(catalog.decayedPopularity(i), restored.decayedPopularity(i));
+            assertEquals(catalog.name(i), restored.name(i));
+            assertEquals(catalog.tags(i), restored.tags(i));
+            assertEquals(catalog.tagCount(i), restored.tagCount(i));
+            assertEquals(catalog.commonTagCount(i, catalog.tagDictionary().encode(Set.of("动作"))),
+                    restored.commonTagCount(i, action));
+            assertEquals(catalog.releaseIndex(i), restored.releaseIndex(i));
+        }
+    }
+
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Path file = dir.resolve("model.snap");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> ModelSnapshot.read(file));
+
+        Files.write(file, new byte[]{0x53, 0x4D});
+        assertThrows(IOException.class, () -> ModelSnapshot.read(file));
+    }
+}
@@ -0,0 +1,94 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.entity.App;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PopularityLeaderboardsTest {
+
+    private App app(long id, Integer popularity, Double positiveRate, String... tags) {
+        App app = new App();
+        app.setAppId(id);
+        app.setPopularity(popularity);
+        app.setPositiveRate(positiveRate);
+        app.setTags(new HashSet<>(Arrays.asList(tags)));
+        return app;
+    }
+
+    /** 下标: 0→1L, 1→2L, 2→3L, 3→4L, 4→5L */
+    private AppCatalog catalog() {
+        return AppCatalog.of(List.of(
+                app(1L, 50, 90.0, "动作"),
+                app(2L, 80, 60.0, "动作", "射击"),
+                app(3L, 80, 95.0, "策略"),
+                app(4L, null, null, "射击"),
+                app(5L, 20, 70.0, "策略", "动作")));
+    }
+
+    private int[] bits(AppCatalog catalog, String... tags) {
+        return Arrays.stream(tags).mapToInt(tag -> catalog.tagDictionary().bitOf(tag)).toArray();
+    }
+
+    @Test
+    void testGlobalOrderBreaksTiesByPositiveRate() {
+        PopularityLeaderboards leaderboards = PopularityLeaderboards.build(catalog());
+        assertArrayEquals(new int[]{2, 1, 0, 4, 3}, leaderboards.top(10));
+        assertArrayEquals(new int[]{2, 1}, leaderboards.top(2));
+    }
+
+    @Test
+    void testTopForTagsMergesWithoutDuplicates() {
+        AppCatalog catalog = catalog();
+        PopularityLeaderboards leaderboards = PopularityLeaderboards.build(catalog);
+
+        assertArrayEquals(new int[]{1, 0, 4, 3}, leaderboards.topForTags(bits(catalog, "动作", "射击"), 10));
+        assertArrayEquals(new int[]{2, 1, 0}, leaderboards.topForTags(bits(catalog, "策略", "动作", "射击"), 3));
+        assertArrayEquals(new int[0], leaderboards.topForTags(new int[0], 3));
+    }
+
+    @Test
+    void testTopForTagsMatchesFilteredGlobalOrder() {
+        Random random = new Random(11);
+        String[] vocabulary = {"a", "b", "c", "d", "e", "f"};
+        List<App> apps = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            Set<String> tags = new HashSet<>();
+            for (int t = 0; t < 1 + random.nextInt(3); t++) tags.add(vocabulary[random.nextInt(vocabulary.length)]);
+            apps.add(app(id, random.nextInt(50), random.nextInt(100) * 1.0, tags.toArray(new String[0])));
+        }
+        AppCatalog catalog = AppCatalog.of(apps);
+        PopularityLeaderboards leaderboards = PopularityLeaderboards.build(catalog);
+        Set<String> wanted = Set.of("b", "e");
+
+        List<Integer> expected = new ArrayList<>();
+        for (int index : leaderboards.top(catalog.size())) {
+            if (expected.size() == 40) break;
+            if (!Collections.disjoint(catalog.tags(index), wanted)) expected.add(index);
+        }
+        int[] actual = leaderboards.topForTags(bits(catalog, "b", "e"), 40);
+        assertEquals(expected, Arrays.stream(actual).boxed().toList());
+    }
+
+    @Test
+    void testHolderAppliesPendingChangesOnRefresh() {
+        AppCatalog catalog = catalog();
+        AppCatalogHolder catalogHolder = mock(AppCatalogHolder.class);
+        when(catalogHolder.get()).thenReturn(catalog);
+        when(catalogHolder.nextChangeSequence()).thenReturn(1L);
+        PopularityLeaderboardHolder holder = new PopularityLeaderboardHolder(catalogHolder);
+
+        PopularityLeaderboards before = holder.get();
+        assertEquals(2, before.global(0));
+
+        holder.update(5L, 100, null);
+        assertSame(before, holder.get());
+        holder.refresh();
+        assertEquals(4, holder.get().global(0));
+    }
+}
@@ -0,0 +1,93 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.entity.App;
+import com.wbbb.steam.entity.UserRecommendation;
+import com.wbbb.steam.repository.UserRecommendationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class PrecomputedRecommendationStoreTest {
+
+    private UserRecommendationRepository repository;
+    private RecommendationProperties properties;
+    private PrecomputedRecommendationStore store;
+    private AppCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserRecommendationRepository.class);
+        properties = new RecommendationProperties();
+        properties.getBatch().setEnabled(true);
+        store = new PrecomputedRecommendationStore(repository, properties);
+
+        List<App> apps = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            App app = new App();
+            app.setAppId(id);
+            app.setTags(new HashSet<>());
+            apps.add(app);
+        }
+        catalog = AppCatalog.of(apps);
+    }
+
+    @Test
+    void testServesFreshRowAndSkipsRemovedApps() {
+        when(repository.findById(1L)).thenReturn(Optional.of(
+                new UserRecommendation(1L, "3,99,1,2,4", 5, System.currentTimeMillis())));
+
+        assertEquals(List.of(3L, 1L, 2L), store.find(1L, 3, catalog));
+        // 过滤下架游戏后数量不足
+        assertNull(store.find(1L, 5, catalog));
+        assertNull(store.find(2L, 3, catalog));
+        assertEquals(1L, store.getStats().get("hits"));
+    }
+
+    @Test
+    void testExpiredRowIsMiss() {
+        long old = System.currentTimeMillis() - properties.getBatch().getMaxAgeMs() - 1;
+        when(repository.findById(1L)).thenReturn(Optional.of(new UserRecommendation(1L, "1,2,3", 3, old)));
+
+        assertNull(store.find(1L, 3, catalog));
+        assertEquals(1L, store.getStats().get("stale"));
+    }
+
+    @Test
+    void testDisabledNeverTouchesRepository() {
+        properties.getBatch().setEnabled(false);
+        assertNull(store.find(1L, 3, catalog));
+        store.invalidate(1L);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchDoesNotWriteBackInvalidatedUsers() throws InterruptedException {
+        store.beginBatch();
+        long computedAt = System.currentTimeMillis();
+        Thread.sleep(2);
+        store.invalidate(1L);
+        verify(repository).deleteById(1L);
+
+        int saved = store.saveAll(List.of(
+                new UserRecommendation(1L, "1", 1, computedAt),
+                new UserRecommendation(2L, "2", 1, computedAt)));
+        store.endBatch();
+
+        assertEquals(1, saved);
+        ArgumentCaptor<List<UserRecommendation>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(rows.capture());
+        assertEquals(List.of(2L), rows.getValue().stream().map(UserRecommendation::getUserId).toList());
+        verify(repository, never()).findById(anyLong());
+    }
+}
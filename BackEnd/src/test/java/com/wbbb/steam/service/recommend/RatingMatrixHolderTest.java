@@ -0,0 +1,57 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.repository.RecommendationRepository;
+import com.wbbb.steam.repository.RecommendationRepository.RatingHandler;
+import com.wbbb.steam.repository.UserRatingRepository;
+import com.wbbb.steam.repository.UserRatingRepository.UserRatingProjection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RatingMatrixHolderTest {
+
+    @Test
+    void testStreamingLoadSkipsProjection() {
+        UserRatingRepository userRatingRepository = mock(UserRatingRepository.class);
+        RecommendationRepository recommendationRepository = mock(RecommendationRepository.class);
+        when(recommendationRepository.countRatings()).thenReturn(3);
+        doAnswer(invocation -> {
+            RatingHandler handler = invocation.getArgument(0);
+            handler.accept(1L, 10L, true);
+            handler.accept(1L, 11L, false);
+            handler.accept(2L, 10L, true);
+            return null;
+        }).when(recommendationRepository).streamRatings(any());
+
+        RatingMatrixHolder holder = new RatingMatrixHolder(userRatingRepository, recommendationRepository);
+        RatingMatrix matrix = holder.get();
+
+        assertEquals(2, matrix.userCount());
+        assertEquals(2, matrix.appCount());
+        assertEquals(3, matrix.ratingCount());
+        assertTrue(holder.getLastLoadPeakHeapBytes() > 0);
+        verify(userRatingRepository, never()).getAllRatingsProjection();
+    }
+
+    @Test
+    void testFallsBackToProjectionWhenStreamingFails() {
+        UserRatingRepository userRatingRepository = mock(UserRatingRepository.class);
+        RecommendationRepository recommendationRepository = mock(RecommendationRepository.class);
+        doThrow(new IllegalStateException("connection reset")).when(recommendationRepository).streamRatings(any());
+        UserRatingProjection rating = mock(UserRatingProjection.class);
+        when(rating.getUserId()).thenReturn(1L);
+        when(rating.getAppId()).thenReturn(10L);
+        when(rating.getRecommended()).thenReturn(true);
+        when(userRatingRepository.getAllRatingsProjection()).thenReturn(List.of(rating));
+
+        RatingMatrix matrix = new RatingMatrixHolder(userRatingRepository, recommendationRepository).get();
+
+        assertEquals(1, matrix.ratingCount());
+        assertTrue(matrix.userIndex(1L) >= 0);
+    }
+}
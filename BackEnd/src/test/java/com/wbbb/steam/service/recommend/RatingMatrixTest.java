@@ -0,0 +1,136 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingMatrixTest {
+
+    @Test
+    void testBuildBothDirections() {
+        RatingMatrix matrix = new RatingMatrix.Builder()
+                .add(30L, 730L, true)
+                .add(10L, 570L, false)
+                .add(10L, 730L, true)
+                .add(20L, 570L, true)
+                .build();
+
+        assertEquals(3, matrix.userCount());
+        assertEquals(2, matrix.appCount());
+        assertEquals(4, matrix.ratingCount());
+
+        // ID按升序映射为连续下标
+        assertEquals(0, matrix.userIndex(10L));
+        assertEquals(1, matrix.appIndex(730L));
+        assertTrue(matrix.userIndex(99L) < 0);
+
+        int user = matrix.userIndex(10L);
+        assertEquals(2, matrix.userRatingCount(user));
+        assertEquals(1, matrix.userPositiveCount(user));
+        assertEquals(0.0, matrix.rating(user, matrix.appIndex(570L)));
+        assertEquals(1.0, matrix.rating(user, matrix.appIndex(730L)));
+        assertTrue(Double.isNaN(matrix.rating(matrix.userIndex(20L), matrix.appIndex(730L))));
+
+        // 游戏→用户方向按用户下标升序
+        int app = matrix.appIndex(730L);
+        assertEquals(2, matrix.appRatingCount(app));
+        assertEquals(matrix.userIndex(10L), matrix.appRowUser(matrix.appRowStart(app)));
+        assertEquals(matrix.userIndex(30L), matrix.appRowUser(matrix.appRowStart(app) + 1));
+    }
+
+    @Test
+    void testDuplicateRatingsKeepRecommended() {
+        RatingMatrix matrix = new RatingMatrix.Builder(1)
+                .add(1L, 2L, true)
+                .add(1L, 2L, false)
+                .build();
+
+        assertEquals(1, matrix.ratingCount());
+        assertEquals(1.0, matrix.rating(0, 0));
+    }
+
+    @Test
+    void testEmptyMatrix() {
+        assertEquals(0, RatingMatrix.EMPTY.userCount());
+        assertEquals(0, RatingMatrix.EMPTY.ratingCount());
+        assertTrue(RatingMatrix.EMPTY.userIndex(1L) < 0);
+    }
+
+    @Test
+    void testWithChangesMatchesRebuild() {
+        Random random = new Random(11);
+        RatingMatrix.Builder base = new RatingMatrix.Builder();
+        RatingMatrix.Builder all = new RatingMatrix.Builder();
+        for (int i = 0; i < 2000; i++) {
+            long user = random.nextInt(100);
+            long app = random.nextInt(50);
+            boolean recommended = random.nextBoolean();
+            base.add(user, app, recommended);
+            all.add(user, app, recommended);
+        }
+        RatingMatrix.Changes changes = new RatingMatrix.Changes();
+        for (int i = 0; i < 300; i++) {
+            // 包含新用户与新游戏
+            long user = random.nextInt(120);
+            long app = random.nextInt(60);
+            boolean recommended = random.nextBoolean();
+            changes.rated(user, app, recommended);
+            all.add(user, app, recommended);
+        }
+
+        assertSameMatrix(all.build(), base.build().withChanges(changes));
+    }
+
+    @Test
+    void testWithChangesRemovesAndReplaces() {
+        RatingMatrix matrix = new RatingMatrix.Builder()
+                .add(1L, 10L, true)
+                .add(1L, 20L, true)
+                .add(2L, 10L, false)
+                .build();
+
+        RatingMatrix updated = matrix.withChanges(new RatingMatrix.Changes()
+                .removed(1L, 10L)
+                .removed(1L, 20L).rated(1L, 20L, false)
+                .rated(2L, 10L, true)
+                .removed(3L, 10L)
+                .removed(2L, 99L));
+
+        // 原矩阵不变
+        assertEquals(3, matrix.ratingCount());
+        assertEquals(2, updated.userCount());
+        assertEquals(2, updated.ratingCount());
+        int user = updated.userIndex(1L);
+        assertTrue(Double.isNaN(updated.rating(user, updated.appIndex(10L))));
+        // 删除后重新评分以新值为准
+        assertEquals(0.0, updated.rating(user, updated.appIndex(20L)));
+        assertEquals(0, updated.userPositiveCount(user));
+        assertEquals(1.0, updated.rating(updated.userIndex(2L), updated.appIndex(10L)));
+        assertEquals(1, updated.appRatingCount(updated.appIndex(10L)));
+    }
+
+    private static void assertSameMatrix(RatingMatrix expected, RatingMatrix actual) {
+        assertEquals(expected.userCount(), actual.userCount());
+        assertEquals(expected.appCount(), actual.appCount());
+        assertEquals(expected.ratingCount(), actual.ratingCount());
+        for (int u = 0; u < expected.userCount(); u++) {
+            assertEquals(expected.userId(u), actual.userId(u));
+            assertEquals(expected.userPositiveCount(u), actual.userPositiveCount(u));
+            assertEquals(expected.userRowEnd(u) - expected.userRowStart(u), actual.userRowEnd(u) - actual.userRowStart(u));
+            for (int k = expected.userRowStart(u), g = actual.userRowStart(u); k < expected.userRowEnd(u); k++, g++) {
+                assertEquals(expected.userRowItem(k), actual.userRowItem(g));
+                assertEquals(expected.userRowValue(k), actual.userRowValue(g));
+            }
+        }
+        for (int a = 0; a < expected.appCount(); a++) {
+            assertEquals(expected.appId(a), actual.appId(a));
+            assertEquals(expected.appRowEnd(a) - expected.appRowStart(a), actual.appRowEnd(a) - actual.appRowStart(a));
+            for (int k = expected.appRowStart(a), g = actual.appRowStart(a); k < expected.appRowEnd(a); k++, g++) {
+                assertEquals(expected.appRowUser(k), actual.appRowUser(g));
+                assertEquals(expected.appRowValue(k), actual.appRowValue(g));
+            }
+        }
+    }
+}
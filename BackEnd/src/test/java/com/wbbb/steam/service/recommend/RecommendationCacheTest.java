@@ -0,0 +1,96 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationCacheTest {
+
+    private RecommendationProperties properties;
+    private RecommendationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RecommendationProperties();
+        properties.getCache().setMaxUsers(2);
+        cache = new RecommendationCache(properties);
+    }
+
+    @Test
+    void testHitAndMiss() {
+        assertNull(cache.get(1L, 12));
+        cache.put(1L, 12, List.of(3L, 4L), cache.stamp());
+
+        assertEquals(List.of(3L, 4L), cache.get(1L, 12));
+        assertNull(cache.get(1L, 5));
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(2L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void testMetersFollowCounts() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        assertNull(cache.get(1L, 12));
+        cache.put(1L, 12, List.of(3L), cache.stamp());
+        cache.get(1L, 12);
+        cache.put(2L, 12, List.of(4L), cache.stamp());
+        cache.put(3L, 12, List.of(5L), cache.stamp());
+
+        assertEquals(1.0, registry.get("recommendation.cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("recommendation.cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("recommendation.cache.evictions").functionCounter().count());
+        assertEquals(2.0, registry.get("recommendation.cache.users").gauge().value());
+    }
+
+    @Test
+    void testInvalidateOnlyAffectsUser() {
+        cache.put(1L, 12, List.of(3L), cache.stamp());
+        cache.put(2L, 12, List.of(4L), cache.stamp());
+
+        cache.invalidate(1L);
+        assertNull(cache.get(1L, 12));
+        assertEquals(List.of(4L), cache.get(2L, 12));
+    }
+
+    @Test
+    void testStaleWriteIsDropped() {
+        long stamp = cache.stamp();
+        // 计算期间用户提交了评分
+        cache.invalidate(1L);
+        cache.put(1L, 12, List.of(3L), stamp);
+        assertNull(cache.get(1L, 12));
+
+        stamp = cache.stamp();
+        cache.invalidateAll();
+        cache.put(2L, 12, List.of(4L), stamp);
+        assertNull(cache.get(2L, 12));
+    }
+
+    @Test
+    void testLeastRecentlyUsedUserIsEvicted() {
+        cache.put(1L, 12, List.of(3L), cache.stamp());
+        cache.put(2L, 12, List.of(4L), cache.stamp());
+        cache.get(1L, 12);
+        cache.put(3L, 12, List.of(5L), cache.stamp());
+
+        assertNotNull(cache.get(1L, 12));
+        assertNull(cache.get(2L, 12));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void testExpiredEntryMisses() {
+        properties.getCache().setTtlMs(-1);
+        cache.put(1L, 12, List.of(3L), cache.stamp());
+        assertNull(cache.get(1L, 12));
+    }
+}
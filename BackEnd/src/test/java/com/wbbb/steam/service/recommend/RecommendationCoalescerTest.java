@@ -0,0 +1,89 @@
+package com.wbbb.steam.service.recommend;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationCoalescerTest {
+
+    @Test
+    void testConcurrentIdenticalRequestsShareOneComputation() throws Exception {
+        RecommendationCoalescer coalescer = new RecommendationCoalescer();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        coalescer.bindTo(registry);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int threads = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> coalescer.execute(1L, 12, () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of(7L, 8L);
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                futures.add(executor.submit(() -> coalescer.execute(1L, 12, () -> {
+                    computations.incrementAndGet();
+                    return List.of();
+                })));
+            }
+            // 等待其余请求都加入正在进行的计算
+            long deadline = System.currentTimeMillis() + 5000;
+            while (registry.get("recommendation.coalescer.waiters").gauge().value() < threads - 1
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(threads - 1, registry.get("recommendation.coalescer.waiters").gauge().value());
+            assertEquals(1.0, registry.get("recommendation.coalescer.in.flight").gauge().value());
+            release.countDown();
+
+            for (Future<List<Long>> future : futures) {
+                assertEquals(List.of(7L, 8L), future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, computations.get());
+        Map<String, Object> stats = coalescer.getStats();
+        assertEquals((long) threads, stats.get("requests"));
+        assertEquals(1L, stats.get("computations"));
+        assertEquals((long) threads - 1, stats.get("coalesced"));
+        assertEquals(0, stats.get("inFlight"));
+        assertEquals(1.0, registry.get("recommendation.coalescer.requests").tag("outcome", "computed").functionCounter().count());
+        assertEquals(threads - 1, registry.get("recommendation.coalescer.requests").tag("outcome", "coalesced").functionCounter().count());
+        assertEquals(0.0, registry.get("recommendation.coalescer.in.flight").gauge().value());
+    }
+
+    @Test
+    void testDifferentLimitsAreNotCoalesced() {
+        RecommendationCoalescer coalescer = new RecommendationCoalescer();
+        assertEquals(List.of(1L), coalescer.execute(1L, 1, () -> List.of(1L)));
+        assertEquals(List.of(1L, 2L), coalescer.execute(1L, 2, () -> List.of(1L, 2L)));
+        assertEquals(2L, coalescer.getStats().get("computations"));
+    }
+
+    @Test
+    void testFailureIsNotRemembered() {
+        RecommendationCoalescer coalescer = new RecommendationCoalescer();
+        assertThrows(IllegalStateException.class, () -> coalescer.execute(1L, 12, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(List.of(3L), coalescer.execute(1L, 12, () -> List.of(3L)));
+    }
+}
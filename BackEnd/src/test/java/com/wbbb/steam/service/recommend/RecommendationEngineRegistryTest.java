@@ -0,0 +1,46 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationEngineRegistryTest {
+
+    private final RecommendationEngine hybrid = RecommendationEngine.of("hybrid", (userId, limit) -> List.of(1L));
+    private final RecommendationEngine popular = RecommendationEngine.of("popular", (userId, limit) -> List.of(2L));
+    private final RecommendationEngine itemCf = RecommendationEngine.of("item-cf", (userId, limit) -> List.of(3L));
+    private final RecommendationEngine itemCfFast = RecommendationEngine.of("item-cf-fast", (userId, limit) -> List.of(4L));
+
+    @Test
+    void testSelectByVersionPrefix() {
+        RecommendationEngineRegistry registry = new RecommendationEngineRegistry(List.of(popular, itemCf, itemCfFast));
+
+        assertSame(popular, registry.select("Popular-2.1", hybrid));
+        assertSame(itemCf, registry.select("item-cf-v3", hybrid));
+        // 有多个引擎匹配时取名称最长者
+        assertSame(itemCfFast, registry.select("item-cf-fast-1", hybrid));
+        // 未注册的版本(包括als与原有的v1.0)使用内置混合推荐
+        assertSame(hybrid, registry.select("v1.0", hybrid));
+        assertSame(hybrid, registry.select("als-1", hybrid));
+        assertSame(hybrid, registry.select(null, hybrid));
+    }
+
+    @Test
+    void testFindByName() {
+        RecommendationEngineRegistry registry = new RecommendationEngineRegistry(List.of(popular, itemCf));
+
+        assertSame(itemCf, registry.find("ITEM-CF", hybrid));
+        assertSame(hybrid, registry.find("hybrid", hybrid));
+        assertNull(registry.find("missing", hybrid));
+        assertNull(registry.find("", hybrid));
+        assertEquals(List.of("popular", "item-cf"), registry.names());
+    }
+
+    @Test
+    void testDuplicateNamesRejected() {
+        assertThrows(IllegalStateException.class, () -> new RecommendationEngineRegistry(List.of(popular,
+                RecommendationEngine.of("POPULAR", (userId, limit) -> List.of()))));
+    }
+}
@@ -0,0 +1,65 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.SQLStatisticsInspector;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Source;
+import com.wbbb.steam.service.recommend.RecommendationMetrics.Stage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationMetricsTest {
+
+    @Test
+    void testStageTimersAndCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecommendationMetrics metrics = new RecommendationMetrics(registry);
+
+        long start = metrics.start();
+        long next = metrics.stop(Stage.LOAD, start);
+        metrics.stop(Stage.RANK, next);
+        metrics.request(Source.COMPUTED);
+        metrics.request(Source.CACHE);
+        metrics.request(Source.CACHE);
+        metrics.cfCandidates(40);
+
+        assertEquals(1, registry.get("recommendation.stage").tag("stage", "load").timer().count());
+        assertEquals(1, registry.get("recommendation.stage").tag("stage", "rank").timer().count());
+        assertEquals(0, registry.get("recommendation.stage").tag("stage", "hydrate").timer().count());
+        assertEquals(2.0, registry.get("recommendation.requests").tag("source", "cache").counter().count());
+        assertEquals(40.0, registry.get("recommendation.candidates").tag("source", "cf").summary().totalAmount());
+    }
+
+    @Test
+    void testSqlStatementsPerRequest() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecommendationMetrics metrics = new RecommendationMetrics(registry);
+        SQLStatisticsInspector inspector = new SQLStatisticsInspector();
+
+        long mark = metrics.sqlMark();
+        inspector.inspect("select 1");
+        inspector.inspect("select 2");
+        metrics.sqlStatements(mark);
+
+        assertEquals(2.0, registry.get("recommendation.sql.statements").summary().totalAmount());
+    }
+
+    @Test
+    void testSuppressedSkipsPipelineMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecommendationMetrics metrics = new RecommendationMetrics(registry);
+
+        int result = metrics.suppressed(() -> {
+            metrics.stop(Stage.CF, metrics.start());
+            metrics.request(Source.COMPUTED);
+            metrics.engine("hybrid", 1000);
+            return 7;
+        });
+        metrics.stop(Stage.CF, metrics.start());
+
+        assertEquals(7, result);
+        assertEquals(1, registry.get("recommendation.stage").tag("stage", "cf").timer().count());
+        assertEquals(0.0, registry.get("recommendation.requests").tag("source", "computed").counter().count());
+        assertTrue(registry.find("recommendation.engine.duration").timers().isEmpty());
+    }
+}
@@ -0,0 +1,34 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScoreBufferTest {
+
+    @Test
+    void testReusedAndZeroedWithinGeneration() {
+        ScoreBuffer.resize();
+        double[] first = ScoreBuffer.zeroed(100);
+        first[5] = 1.0;
+
+        double[] second = ScoreBuffer.zeroed(80);
+        assertSame(first, second);
+        assertEquals(0.0, second[5]);
+    }
+
+    @Test
+    void testShrinksAfterCatalogRefresh() {
+        ScoreBuffer.resize();
+        double[] large = ScoreBuffer.zeroed(1000);
+        assertSame(large, ScoreBuffer.zeroed(10));
+
+        // 目录刷新后按新的规模重新分配，不再保留旧的大数组
+        ScoreBuffer.resize();
+        double[] small = ScoreBuffer.zeroed(10);
+        assertEquals(10, small.length);
+        // 规模不变时继续复用
+        ScoreBuffer.resize();
+        assertSame(small, ScoreBuffer.zeroed(10));
+    }
+}
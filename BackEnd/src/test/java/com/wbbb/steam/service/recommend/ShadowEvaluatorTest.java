@@ -0,0 +1,127 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShadowEvaluatorTest {
+
+    private RecommendationProperties properties(double sampleRate, int queueCapacity) {
+        RecommendationProperties properties = new RecommendationProperties();
+        properties.getShadow().setEnabled(true);
+        properties.getShadow().setSampleRate(sampleRate);
+        properties.getShadow().setThreads(1);
+        properties.getShadow().setQueueCapacity(queueCapacity);
+        return properties;
+    }
+
+    private static void awaitCompleted(ShadowEvaluator evaluator, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) evaluator.getStats().get("completed") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void testRecordsLatencyAndOverlap() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecommendationMetrics metrics = new RecommendationMetrics(registry);
+        ShadowEvaluator evaluator = new ShadowEvaluator(properties(1.0, 8), metrics, null);
+        RecommendationEngine production = RecommendationEngine.of("hybrid", (userId, limit) -> List.of());
+        RecommendationEngine candidate = RecommendationEngine.of("item-cf", (userId, limit) -> {
+            metrics.stop(RecommendationMetrics.Stage.CF, metrics.start());
+            return List.of(1L, 2L, 3L);
+        });
+        try {
+            assertTrue(evaluator.evaluate(candidate, production, 7L, 4, List.of(1L, 2L, 4L, 5L), 1_000_000));
+            awaitCompleted(evaluator, 1);
+
+            Map<String, Object> stats = evaluator.getStats();
+            assertEquals(1L, stats.get("completed"));
+            assertEquals(0.5, (double) stats.get("meanOverlap"), 1e-9);
+            assertEquals(1.0, (double) stats.get("productionMeanMillis"), 1e-9);
+            assertEquals(1, registry.get("recommendation.shadow.duration").tag("engine", "item-cf").timer().count());
+            assertEquals(0.5, registry.get("recommendation.shadow.overlap").tag("engine", "item-cf").summary().totalAmount(), 1e-9);
+            // 影子计算不计入线上的阶段指标
+            assertEquals(0, registry.get("recommendation.stage").tag("stage", "cf").timer().count());
+        } finally {
+            evaluator.shutdown();
+        }
+    }
+
+    @Test
+    void testRatedAppsExcludedFromOverlap() throws InterruptedException {
+        RatingMatrix matrix = new RatingMatrix.Builder()
+                .add(7L, 1L, true).add(7L, 2L, false).add(8L, 3L, true)
+                .build();
+        RatingMatrixHolder ratingMatrixHolder = new RatingMatrixHolder(null, null);
+        ratingMatrixHolder.install(matrix);
+        ShadowEvaluator evaluator = new ShadowEvaluator(properties(1.0, 8),
+                new RecommendationMetrics(new SimpleMeterRegistry()), ratingMatrixHolder);
+        RecommendationEngine production = RecommendationEngine.of("hybrid", (userId, limit) -> List.of());
+        // 影子引擎排除已评价的游戏，线上结果包含已评价的1、2
+        RecommendationEngine candidate = RecommendationEngine.of("item-cf", (userId, limit) -> List.of(3L, 4L, 5L, 6L));
+        try {
+            assertTrue(evaluator.evaluate(candidate, production, 7L, 4, List.of(1L, 3L, 2L, 4L), 0));
+            awaitCompleted(evaluator, 1);
+
+            assertEquals(1.0, (double) evaluator.getStats().get("meanOverlap"), 1e-9);
+        } finally {
+            evaluator.shutdown();
+        }
+    }
+
+    @Test
+    void testSkipsUnsampledAndSameEngine() {
+        ShadowEvaluator evaluator = new ShadowEvaluator(properties(0.0, 8), new RecommendationMetrics(new SimpleMeterRegistry()), null);
+        RecommendationEngine engine = RecommendationEngine.of("item-cf", (userId, limit) -> List.of(1L));
+        try {
+            assertFalse(evaluator.evaluate(RecommendationEngine.of("popular", (userId, limit) -> List.of()),
+                    engine, 1L, 3, List.of(1L), 0));
+            assertFalse(evaluator.evaluate(engine, engine, 1L, 3, List.of(1L), 0));
+            assertFalse(evaluator.evaluate(null, engine, 1L, 3, List.of(1L), 0));
+            assertEquals(0L, evaluator.getStats().get("sampled"));
+        } finally {
+            evaluator.shutdown();
+        }
+    }
+
+    @Test
+    void testDropsSampleWhenQueueFull() {
+        ShadowEvaluator evaluator = new ShadowEvaluator(properties(1.0, 1), new RecommendationMetrics(new SimpleMeterRegistry()), null);
+        CountDownLatch release = new CountDownLatch(1);
+        RecommendationEngine production = RecommendationEngine.of("hybrid", (userId, limit) -> List.of());
+        RecommendationEngine slow = RecommendationEngine.of("slow", (userId, limit) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        });
+        try {
+            // 第一个占用唯一的线程，第二个进入队列，第三个被丢弃
+            assertTrue(evaluator.evaluate(slow, production, 1L, 3, List.of(), 0));
+            assertTrue(evaluator.evaluate(slow, production, 2L, 3, List.of(), 0));
+            assertFalse(evaluator.evaluate(slow, production, 3L, 3, List.of(), 0));
+            assertEquals(1L, evaluator.getStats().get("rejected"));
+        } finally {
+            release.countDown();
+            evaluator.shutdown();
+        }
+    }
+
+    @Test
+    void testOverlap() {
+        assertEquals(1.0, ShadowEvaluator.overlap(List.of(), List.of()));
+        assertEquals(0.0, ShadowEvaluator.overlap(List.of(), List.of(1L)));
+        assertEquals(2.0 / 3, ShadowEvaluator.overlap(List.of(1L, 2L, 3L), List.of(3L, 1L)), 1e-9);
+    }
+}
@@ -0,0 +1,47 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TagDictionaryTest {
+
+    @Test
+    void testIntersectionAndUnion() {
+        TagDictionary dictionary = TagDictionary.of(List.of(Set.of("动作", "射击"), Set.of("冒险", "动作")));
+        long[] a = dictionary.encode(Set.of("动作", "射击"));
+        long[] b = dictionary.encode(Set.of("动作", "冒险", "未知"));
+
+        assertEquals(3, dictionary.size());
+        assertEquals(1, dictionary.words());
+        assertEquals(1, TagDictionary.intersectionCount(a, 0, b, 0, 1));
+        assertEquals(3, TagDictionary.unionCount(a, 0, b, 0, 1));
+        assertEquals(2, TagDictionary.cardinality(b, 0, 1));
+    }
+
+    @Test
+    void testMoreThan64Tags() {
+        List<Set<String>> tagSets = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            tagSets.add(Set.of("tag" + i));
+        }
+        TagDictionary dictionary = TagDictionary.of(tagSets);
+        assertEquals(150, dictionary.size());
+        assertEquals(3, dictionary.words());
+
+        Set<String> left = new HashSet<>();
+        Set<String> right = new HashSet<>();
+        for (int i = 0; i < 150; i += 2) left.add("tag" + i);
+        for (int i = 0; i < 150; i += 3) right.add("tag" + i);
+        Set<String> common = new HashSet<>(left);
+        common.retainAll(right);
+
+        long[] a = dictionary.encode(left);
+        long[] b = dictionary.encode(right);
+        assertEquals(common.size(), TagDictionary.intersectionCount(a, 0, b, 0, dictionary.words()));
+        assertEquals(left.size() + right.size() - common.size(),
+                TagDictionary.unionCount(a, 0, b, 0, dictionary.words()));
+    }
+}
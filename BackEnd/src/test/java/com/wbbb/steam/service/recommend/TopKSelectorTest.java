@@ -0,0 +1,60 @@
+package com.wbbb.steam.service.recommend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopKSelectorTest {
+
+    @Test
+    void testMatchesFullSort() {
+        Random random = new Random(42);
+        double[] scores = new double[1000];
+        for (int i = 0; i < scores.length; i++) {
+            // 取整制造大量相同分数，验证平分时的顺序
+            scores[i] = random.nextInt(50);
+        }
+
+        TopKSelector selector = new TopKSelector(12);
+        for (int i = 0; i < scores.length; i++) {
+            selector.offer(i, scores[i]);
+        }
+        int[] ids = new int[12];
+        double[] top = new double[12];
+        assertEquals(12, selector.drainDescending(ids, top));
+        assertEquals(0, selector.size());
+
+        int[] expected = IntStream.range(0, scores.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparingInt(i -> i))
+                .limit(12)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertArrayEquals(expected, ids);
+    }
+
+    @Test
+    void testFewerElementsThanCapacity() {
+        TopKSelector selector = new TopKSelector(5);
+        selector.offer(0, 1.0);
+        selector.offer(1, 3.0);
+        selector.offer(2, 2.0);
+
+        int[] ids = new int[5];
+        double[] scores = new double[5];
+        assertEquals(3, selector.drainDescending(ids, scores));
+        assertArrayEquals(new int[]{1, 2, 0}, Arrays.copyOf(ids, 3));
+        assertArrayEquals(new double[]{3.0, 2.0, 1.0}, Arrays.copyOf(scores, 3));
+    }
+
+    @Test
+    void testZeroCapacity() {
+        TopKSelector selector = new TopKSelector(0);
+        selector.offer(0, 1.0);
+        assertEquals(0, selector.size());
+    }
+}
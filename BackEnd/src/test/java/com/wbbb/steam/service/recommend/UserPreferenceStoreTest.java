@@ -0,0 +1,79 @@
+package com.wbbb.steam.service.recommend;
+
+import com.wbbb.steam.config.RecommendationProperties;
+import com.wbbb.steam.repository.RecommendationRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class UserPreferenceStoreTest {
+
+    private RecommendationProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RecommendationProperties();
+        properties.getPreferences().setMaxTags(3);
+        properties.getPreferences().setMaxWeight(2.0);
+    }
+
+    @Test
+    void testWeightsAreBoundedPerTagAndPerUser() {
+        UserPreferenceStore store = new UserPreferenceStore(null, properties);
+        for (int i = 0; i < 5; i++) {
+            store.update(1L, List.of("动作"), true);
+        }
+        store.update(1L, List.of("冒险", "射击"), true);
+        store.update(1L, List.of("射击"), true);
+        store.update(1L, List.of("解谜"), true);
+
+        Map<String, Double> weights = store.weights(1L);
+        // 权重不超过上限，标签数不超过maxTags，同权重时按标签排序淘汰
+        assertEquals(3, weights.size());
+        assertEquals(2.0, weights.get("动作"));
+        assertEquals(2.0, weights.get("射击"));
+        assertEquals(List.of("动作", "射击", "冒险"), store.topTags(1L, 3));
+        assertEquals(List.of("动作"), store.topTags(1L, 1));
+    }
+
+    @Test
+    void testDislikeRemovesTagAtZero() {
+        UserPreferenceStore store = new UserPreferenceStore(null, properties);
+        store.update(1L, List.of("动作", "冒险"), true);
+        store.update(1L, List.of("冒险"), false);
+        store.update(1L, List.of("冒险"), false);
+        store.update(1L, Set.of("策略"), false);
+
+        assertEquals(Map.of("动作", 1.0), store.weights(1L));
+        assertTrue(store.topTags(2L, 5).isEmpty());
+    }
+
+    @Test
+    void testRepositoryUpsertTrimAndCache() {
+        RecommendationRepository repository = mock(RecommendationRepository.class);
+        Map<String, Double> stored = new HashMap<>(Map.of("动作", 2.0, "冒险", 1.0, "射击", 1.0, "解谜", 0.5, "休闲", 0.0));
+        when(repository.findUserPreferences(1L)).thenReturn(stored);
+        UserPreferenceStore store = new UserPreferenceStore(repository, properties);
+
+        store.update(1L, List.of("动作", " "), true);
+
+        verify(repository).addUserPreferences(eq(1L), eq(Set.of("动作")), eq(1.0), eq(2.0));
+        verify(repository).deleteUserPreferences(1L, List.of("解谜", "休闲"));
+        // 写入后刷新缓存，读取不再访问数据库
+        assertEquals(List.of("动作", "冒险", "射击"), store.topTags(1L, 5));
+        verify(repository, times(1)).findUserPreferences(1L);
+
+        store.invalidate(1L);
+        store.topTags(1L, 5);
+        verify(repository, times(2)).findUserPreferences(1L);
+    }
+}